@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+
+import javax.swing.UIManager;
+import javax.swing.UnsupportedLookAndFeelException;
+
+import com.seaglasslookandfeel.SeaGlassLookAndFeel;
+
+/**
+ * Setup shared by the benchmarks.
+ */
+public final class BenchmarkSupport {
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Installs the Sea Glass look and feel, if it is not already installed.
+     * The benchmarks run headless, so this may be called from the benchmark
+     * thread rather than the event dispatch thread.
+     *
+     * @throws UnsupportedLookAndFeelException if the look and feel can't be
+     *                                         installed.
+     */
+    public static synchronized void installLookAndFeel() throws UnsupportedLookAndFeelException {
+        if (!(UIManager.getLookAndFeel() instanceof SeaGlassLookAndFeel)) {
+            UIManager.setLookAndFeel(new SeaGlassLookAndFeel());
+        }
+    }
+
+    /**
+     * Parses a size parameter of the form "WIDTHxHEIGHT".
+     *
+     * @param  size the size parameter.
+     *
+     * @return the size.
+     */
+    public static Dimension parseSize(String size) {
+        int x = size.indexOf('x');
+
+        return new Dimension(Integer.parseInt(size.substring(0, x)), Integer.parseInt(size.substring(x + 1)));
+    }
+
+    /**
+     * Creates a translucent image to paint into.
+     *
+     * @param  size the size of the image.
+     *
+     * @return the image.
+     */
+    public static BufferedImage createImage(Dimension size) {
+        return new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_ARGB);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.seaglasslookandfeel.util.ImageCache;
+
+/**
+ * Measures ImageCache lookups and stores, alone and with several threads
+ * reading while another one writes.
+ *
+ * <p>The keys are shaped like those of the painters: an owner, a size and a
+ * few extended keys. Each trial uses its own cache, so that the shared
+ * instance used by the painters is not disturbed. The cache is shared by all
+ * the threads of a trial, so the threads of the contended group read and
+ * write the same cache.</p>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Benchmark)
+public class ImageCacheBenchmark {
+
+    /** The number of distinct keys. */
+    @Param({ "16", "256" })
+    public int keyCount;
+
+    private ImageCache cache;
+    private Object[]   owners;
+    private Object[][] extendedKeys;
+    private int[]      widths;
+    private Image      image;
+
+    /**
+     * Creates the cache and fills it with an image for every key.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        cache        = new ImageCache();
+        owners       = new Object[keyCount];
+        extendedKeys = new Object[keyCount][];
+        widths       = new int[keyCount];
+        image        = new BufferedImage(24, 24, BufferedImage.TYPE_INT_ARGB);
+
+        for (int i = 0; i < keyCount; i++) {
+            owners[i]       = new Object();
+            extendedKeys[i] = new Object[] { Integer.valueOf(i % 7), Boolean.valueOf(i % 2 == 0) };
+            widths[i]       = 16 + i % 32;
+            cache.setImage(image, null, widths[i], 24, owners[i], extendedKeys[i]);
+        }
+    }
+
+    /**
+     * Per thread position in the key sequence.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        /**
+         * Returns the next key index.
+         *
+         * @param  keyCount the number of keys.
+         *
+         * @return the index.
+         */
+        int next(int keyCount) {
+            int i = next;
+
+            next = (i + 1) % keyCount;
+
+            return i;
+        }
+    }
+
+    /**
+     * Looks up an image with a single thread.
+     *
+     * @param  cursor the position in the key sequence.
+     *
+     * @return the image.
+     */
+    @Benchmark
+    public Image get(Cursor cursor) {
+        int i = cursor.next(keyCount);
+
+        return cache.getImage(null, widths[i], 24, owners[i], extendedKeys[i]);
+    }
+
+    /**
+     * Looks up an image with the varargs form used by older painters.
+     *
+     * @param  cursor the position in the key sequence.
+     *
+     * @return the image.
+     */
+    @Benchmark
+    public Image getVarargs(Cursor cursor) {
+        int i = cursor.next(keyCount);
+
+        return cache.getImage(null, widths[i], 24, owners[i], extendedKeys[i][0], extendedKeys[i][1]);
+    }
+
+    /**
+     * Looks up images while {@link #contendedSet(Cursor)} replaces them.
+     *
+     * @param  cursor the position in the key sequence.
+     *
+     * @return the image.
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Image contendedGet(Cursor cursor) {
+        int i = cursor.next(keyCount);
+
+        return cache.getImage(null, widths[i], 24, owners[i], extendedKeys[i]);
+    }
+
+    /**
+     * Replaces images while {@link #contendedGet(Cursor)} looks them up.
+     *
+     * @param  cursor the position in the key sequence.
+     *
+     * @return whether the image was stored.
+     */
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public boolean contendedSet(Cursor cursor) {
+        int i = cursor.next(keyCount);
+
+        return cache.setImage(image, null, widths[i], 24, owners[i], extendedKeys[i]);
+    }
+}
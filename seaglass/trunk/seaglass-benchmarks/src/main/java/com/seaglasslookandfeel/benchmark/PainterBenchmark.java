@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JInternalFrame;
+import javax.swing.JPopupMenu;
+import javax.swing.JRootPane;
+import javax.swing.JScrollPane;
+import javax.swing.JSlider;
+import javax.swing.JTabbedPane;
+import javax.swing.JToolBar;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.seaglasslookandfeel.painter.AbstractRegionPainter;
+import com.seaglasslookandfeel.util.ImageCache;
+
+/**
+ * Renders every state of a painter into an offscreen image.
+ *
+ * <p>Each invocation paints all the {@code Which} states of the painter once.
+ * With {@code cached} false the image cache is flushed before each
+ * invocation, so that painters which cache their rendering are measured
+ * drawing from scratch.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PainterBenchmark {
+
+    @Param(
+        {
+            "ArrowButtonPainter", "ButtonPainter", "CheckBoxMenuItemPainter", "CheckBoxPainter", "ComboBoxArrowButtonPainter",
+            "ComboBoxPainter", "ComboBoxTextFieldPainter", "ContentPanePainter", "DesktopIconPainter", "DesktopPanePainter",
+            "FileChooserPainter", "FrameAndRootPainter", "MenuBarMenuPainter", "MenuItemPainter", "MenuPainter",
+            "OptionPanePainter", "PopupMenuPainter", "PopupMenuSeparatorPainter", "ProgressBarPainter",
+            "RadioButtonMenuItemPainter", "RadioButtonPainter", "ScrollBarButtonPainter", "ScrollBarThumbPainter",
+            "ScrollBarTrackPainter", "ScrollPanePainter", "SearchFieldIconPainter", "SearchFieldPainter", "SeparatorPainter",
+            "SliderThumbPainter", "SliderTrackPainter", "SpinnerFormattedTextFieldPainter", "SpinnerNextButtonPainter",
+            "SpinnerPreviousButtonPainter", "SplitPaneDividerPainter", "SplitPanePainter", "TabbedPaneTabAreaPainter",
+            "TabbedPaneTabCloseButtonPainter", "TabbedPaneTabPainter", "TableHeaderPainter", "TableHeaderRendererPainter",
+            "TextComponentPainter", "TitlePaneCloseButtonPainter", "TitlePaneIconifyButtonPainter",
+            "TitlePaneMaximizeButtonPainter", "TitlePaneMenuButtonPainter", "ToolBarHandlePainter", "ToolBarPainter",
+            "ToolBarToggleButtonPainter", "ToolTipPainter", "TreeCellEditorPainter", "TreeCellPainter", "TreePainter"
+        }
+    )
+    public String painter;
+
+    @Param({ "22x22", "100x25", "400x300" })
+    public String size;
+
+    @Param({ "true", "false" })
+    public boolean cached;
+
+    private List<AbstractRegionPainter> painters;
+    private JComponent                  component;
+    private BufferedImage               image;
+    private Graphics2D                  g;
+    private Dimension                   d;
+
+    /**
+     * Installs the look and feel and creates a painter for each state. States
+     * which can't be painted on their own, because they need more of a
+     * component than the benchmark provides, are left out, and listed with
+     * the exception they threw on standard error.
+     *
+     * @throws Exception if the painter can't be created.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.installLookAndFeel();
+
+        d         = BenchmarkSupport.parseSize(size);
+        image     = BenchmarkSupport.createImage(d);
+        g         = image.createGraphics();
+        component = createComponent(painter);
+        component.setSize(d);
+        painters = new ArrayList<AbstractRegionPainter>();
+
+        List<String> skipped = new ArrayList<String>();
+
+        Class<?> painterClass = Class.forName("com.seaglasslookandfeel.painter." + painter);
+        Class<?> whichClass   = Class.forName(painterClass.getName() + "$Which");
+
+        for (Object which : whichClass.getEnumConstants()) {
+            AbstractRegionPainter p = (AbstractRegionPainter) painterClass.getConstructor(whichClass).newInstance(which);
+
+            try {
+                p.paint(g, component, d.width, d.height);
+                painters.add(p);
+            } catch (RuntimeException e) {
+                skipped.add(which + " (" + e + ")");
+            }
+        }
+
+        if (!skipped.isEmpty()) {
+            System.err.println(painter + ": left out " + skipped.size() + " states which can't be painted: " + skipped);
+        }
+
+        if (painters.isEmpty()) {
+            throw new IllegalStateException("No state of " + painter + " can be painted");
+        }
+    }
+
+    /**
+     * Releases the graphics context.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+        ImageCache.getInstance().flush();
+    }
+
+    /**
+     * Paints every state of the painter.
+     *
+     * @return the image painted into.
+     */
+    @Benchmark
+    public BufferedImage paint() {
+        if (!cached) {
+            ImageCache.getInstance().flush();
+        }
+
+        for (AbstractRegionPainter p : painters) {
+            p.paint(g, component, d.width, d.height);
+        }
+
+        return image;
+    }
+
+    /**
+     * Creates a component of the type the painter expects.
+     *
+     * @param  painter the simple name of the painter class.
+     *
+     * @return the component.
+     */
+    private static JComponent createComponent(String painter) {
+        if (painter.equals("PopupMenuPainter")) {
+            return new JPopupMenu();
+        } else if (painter.equals("SliderTrackPainter") || painter.equals("SliderThumbPainter")) {
+            return new JSlider();
+        } else if (painter.startsWith("TabbedPane")) {
+            return new JTabbedPane();
+        } else if (painter.equals("ToolBarPainter") || painter.equals("ToolBarHandlePainter")) {
+            return new JToolBar();
+        } else if (painter.equals("FrameAndRootPainter")) {
+            return new JRootPane();
+        } else if (painter.equals("DesktopIconPainter")) {
+            return new JInternalFrame().getDesktopIcon();
+        } else if (painter.equals("ScrollPanePainter")) {
+            return new JScrollPane();
+        }
+
+        return new JButton("Button");
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JButton;
+import javax.swing.JToolBar;
+import javax.swing.plaf.synth.Region;
+import javax.swing.plaf.synth.SynthConstants;
+import javax.swing.plaf.synth.SynthLookAndFeel;
+import javax.swing.plaf.synth.SynthStyle;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.seaglasslookandfeel.SeaGlassContext;
+import com.seaglasslookandfeel.SeaGlassStyle;
+import com.seaglasslookandfeel.painter.SeaGlassPainter;
+
+/**
+ * Measures style lookups: values and painters from a SeaGlassStyle, and the
+ * resolution of the style of a component, which runs LazyStyle.matches for
+ * each candidate style of the region. Also measures getting and disposing a
+ * context, which every UI delegate does for each paint.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class StyleBenchmark {
+
+    private JButton         button;
+    private JButton         toolBarButton;
+    private SeaGlassStyle   style;
+    private SeaGlassContext enabled;
+    private SeaGlassContext pressed;
+
+    /**
+     * Installs the look and feel and resolves the style of a button.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.installLookAndFeel();
+
+        button = new JButton("Button");
+
+        JToolBar toolBar = new JToolBar();
+
+        toolBarButton = new JButton("Button");
+        toolBar.add(toolBarButton);
+
+        style   = (SeaGlassStyle) SynthLookAndFeel.getStyle(button, Region.BUTTON);
+        enabled = new SeaGlassContext(button, Region.BUTTON, style, SynthConstants.ENABLED);
+        pressed = new SeaGlassContext(button, Region.BUTTON, style, SynthConstants.DEFAULT | SynthConstants.PRESSED);
+    }
+
+    /**
+     * Looks up a value which is defined for all states.
+     *
+     * @return the value.
+     */
+    @Benchmark
+    public Object getValue() {
+        return style.get(enabled, "defaultButtonFollowsFocus");
+    }
+
+    /**
+     * Looks up a value which is defined for the pressed state.
+     *
+     * @return the value.
+     */
+    @Benchmark
+    public Object getStateValue() {
+        return style.get(pressed, "textForeground");
+    }
+
+    /**
+     * Looks up a key which is not defined at all.
+     *
+     * @return the value, which is {@code null}.
+     */
+    @Benchmark
+    public Object getMissingValue() {
+        return style.get(enabled, "noSuchKey");
+    }
+
+    /**
+     * Looks up the background painter of the enabled state.
+     *
+     * @return the painter.
+     */
+    @Benchmark
+    public SeaGlassPainter<?> getBackgroundPainter() {
+        return style.getBackgroundPainter(enabled);
+    }
+
+    /**
+     * Looks up the background painter of the default pressed state.
+     *
+     * @return the painter.
+     */
+    @Benchmark
+    public SeaGlassPainter<?> getBackgroundPainterPressed() {
+        return style.getBackgroundPainter(pressed);
+    }
+
+    /**
+     * Resolves the style of a plain button.
+     *
+     * @return the style.
+     */
+    @Benchmark
+    public SynthStyle getStyle() {
+        return SynthLookAndFeel.getStyle(button, Region.BUTTON);
+    }
+
+    /**
+     * Resolves the style of a button in a tool bar, which is matched against
+     * the hierarchy of the button.
+     *
+     * @return the style.
+     */
+    @Benchmark
+    public SynthStyle getStyleInToolBar() {
+        return SynthLookAndFeel.getStyle(toolBarButton, Region.BUTTON);
+    }
+
+    /**
+     * Gets a context for the button and disposes it, as the UI delegates do.
+     *
+     * @return the state of the context.
+     */
+    @Benchmark
+    public int getContext() {
+        SeaGlassContext context = SeaGlassContext.getContext(SeaGlassContext.class, button, Region.BUTTON, style, SynthConstants.ENABLED);
+        int             state   = context.getComponentState();
+
+        context.dispose();
+
+        return state;
+    }
+}
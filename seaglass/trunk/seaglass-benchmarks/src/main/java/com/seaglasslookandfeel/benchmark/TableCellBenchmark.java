@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Paints every cell of a small table with mixed column types. Each operation
+ * is one cell, so "-prof gc" reports the bytes allocated per cell, including
+ * the table's share of the stripes and grid.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class TableCellBenchmark {
+
+    private static final int ROWS    = 40;
+    private static final int COLUMNS = 10;
+    private static final int CELLS   = ROWS * COLUMNS;
+
+    private JTable        table;
+    private BufferedImage image;
+    private Graphics2D    g;
+
+    /**
+     * Installs the look and feel and creates the table, with a few rows
+     * selected.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.installLookAndFeel();
+
+        table = new JTable(new AbstractTableModel() {
+                private static final long serialVersionUID = 1L;
+
+                public int getRowCount() {
+                    return ROWS;
+                }
+
+                public int getColumnCount() {
+                    return COLUMNS;
+                }
+
+                public Class<?> getColumnClass(int column) {
+                    switch (column % 3) {
+
+                    case 1:
+                        return Integer.class;
+
+                    case 2:
+                        return Boolean.class;
+
+                    default:
+                        return String.class;
+                    }
+                }
+
+                public Object getValueAt(int row, int column) {
+                    switch (column % 3) {
+
+                    case 1:
+                        return Integer.valueOf(row * column);
+
+                    case 2:
+                        return Boolean.valueOf((row + column) % 2 == 0);
+
+                    default:
+                        return "Row " + row + " column " + column;
+                    }
+                }
+            });
+
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.setSize(table.getPreferredSize());
+        table.addRowSelectionInterval(3, 6);
+
+        image = BenchmarkSupport.createImage(new Dimension(table.getWidth(), table.getHeight()));
+        g     = image.createGraphics();
+    }
+
+    /**
+     * Releases the graphics context.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    /**
+     * Paints the whole table.
+     *
+     * @return the image painted into.
+     */
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public BufferedImage paintCells() {
+        table.paint(g);
+
+        return image;
+    }
+}
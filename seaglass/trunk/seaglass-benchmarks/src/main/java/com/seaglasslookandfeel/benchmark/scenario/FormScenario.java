@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractButton;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.JRadioButton;
+import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.JToggleButton;
+import javax.swing.JToolBar;
+
+/**
+ * A tool bar above a form of labelled text fields and other controls. Each
+ * frame hovers over the next tool bar button, toggles a check box, edits a
+ * text field and moves the progress bar and slider.
+ */
+class FormScenario extends Scenario {
+
+    private static final int FIELDS = 24;
+
+    private List<AbstractButton> toolBarButtons = new ArrayList<AbstractButton>();
+    private List<JCheckBox>      checkBoxes     = new ArrayList<JCheckBox>();
+    private List<JTextField>     textFields     = new ArrayList<JTextField>();
+    private JProgressBar         progressBar;
+    private JSlider              slider;
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#getName()
+     */
+    public String getName() {
+        return "form";
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#createContent()
+     */
+    protected JComponent createContent() {
+        JToolBar toolBar = new JToolBar();
+
+        for (int i = 0; i < 8; i++) {
+            AbstractButton button = i % 3 == 2 ? new JToggleButton("Toggle " + i) : new JButton("Action " + i);
+
+            toolBar.add(button);
+            toolBarButtons.add(button);
+        }
+
+        JPanel form = new JPanel(new GridLayout(0, 4, 6, 6));
+
+        for (int i = 0; i < FIELDS; i++) {
+            JTextField textField = new JTextField("Value " + i);
+
+            form.add(new JLabel("Field " + i + ":"));
+            form.add(textField);
+            textFields.add(textField);
+        }
+
+        for (int i = 0; i < 4; i++) {
+            JCheckBox checkBox = new JCheckBox("Option " + i);
+
+            form.add(checkBox);
+            checkBoxes.add(checkBox);
+        }
+
+        form.add(new JRadioButton("Choice A", true));
+        form.add(new JRadioButton("Choice B"));
+
+        // JComboBox is only generic from Java 7 on.
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        JComboBox comboBox = new JComboBox(new Object[] { "One", "Two", "Three" });
+
+        form.add(comboBox);
+        form.add(new JSpinner());
+
+        progressBar = new JProgressBar(0, 100);
+        slider      = new JSlider(0, 100);
+
+        form.add(progressBar);
+        form.add(slider);
+
+        JPanel panel = new JPanel(new BorderLayout());
+
+        panel.add(toolBar, BorderLayout.NORTH);
+        panel.add(form, BorderLayout.CENTER);
+
+        return panel;
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#update(int)
+     */
+    protected void update(int frame) {
+        for (int i = 0; i < toolBarButtons.size(); i++) {
+            toolBarButtons.get(i).getModel().setRollover(i == frame % toolBarButtons.size());
+        }
+
+        JCheckBox checkBox = checkBoxes.get(frame % checkBoxes.size());
+
+        checkBox.setSelected(!checkBox.isSelected());
+        textFields.get(frame % FIELDS).setText("Value " + frame);
+        progressBar.setValue(frame % 101);
+        slider.setValue(100 - frame % 101);
+    }
+}
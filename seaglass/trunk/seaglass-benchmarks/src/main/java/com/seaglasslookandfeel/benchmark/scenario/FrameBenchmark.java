@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.seaglasslookandfeel.benchmark.BenchmarkSupport;
+
+/**
+ * Paints the frames of a scenario under JMH. Sample time mode reports the
+ * frame time percentiles; run with "-prof gc" for the allocation per frame.
+ * {@link ScenarioRunner} gives the same figures without JMH.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class FrameBenchmark {
+
+    @Param({ "table", "tree", "tabs", "form", "scrollbars" })
+    public String scenario;
+
+    @Param({ "1024x768" })
+    public String size;
+
+    private Scenario      instance;
+    private BufferedImage image;
+    private Graphics2D    g;
+    private int           frame;
+
+    /**
+     * Installs the look and feel and builds the scenario.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchmarkSupport.installLookAndFeel();
+
+        Dimension d = BenchmarkSupport.parseSize(size);
+
+        image    = BenchmarkSupport.createImage(d);
+        g        = image.createGraphics();
+        instance = Scenario.create(scenario);
+        instance.setUp(d.width, d.height);
+    }
+
+    /**
+     * Releases the graphics context.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    /**
+     * Paints the next frame.
+     *
+     * @return the image painted into.
+     */
+    @Benchmark
+    public BufferedImage paintFrame() {
+        instance.paintFrame(frame++, g);
+
+        return image;
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * The frame times and allocations of a scenario run.
+ */
+public class FrameStatistics {
+
+    /** The number of histogram buckets. Bucket i holds frames under 2^i us. */
+    private static final int BUCKETS = 24;
+
+    private final long[] frameTimes;
+    private long         allocatedBytes;
+    private int          count;
+
+    /**
+     * Creates a new FrameStatistics object.
+     *
+     * @param frames the number of frames which will be recorded.
+     */
+    public FrameStatistics(int frames) {
+        this.frameTimes     = new long[frames];
+        this.allocatedBytes = -1;
+    }
+
+    /**
+     * Records the time taken by a frame.
+     *
+     * @param nanos the time, in nanoseconds.
+     */
+    public void record(long nanos) {
+        frameTimes[count++] = nanos;
+    }
+
+    /**
+     * Sets the number of bytes allocated by all the recorded frames.
+     *
+     * @param bytes the number of bytes, or -1 if unknown.
+     */
+    public void setAllocatedBytes(long bytes) {
+        this.allocatedBytes = bytes;
+    }
+
+    /**
+     * Returns the number of frames recorded.
+     *
+     * @return the count.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the frame time at the given percentile.
+     *
+     * @param  percentile the percentile, between 0 and 100.
+     *
+     * @return the frame time, in nanoseconds.
+     */
+    public long getPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+
+        long[] sorted = Arrays.copyOf(frameTimes, count);
+
+        Arrays.sort(sorted);
+
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Returns the mean number of bytes allocated per frame.
+     *
+     * @return the number of bytes, or -1 if the JVM can't measure it.
+     */
+    public long getAllocatedBytesPerFrame() {
+        return allocatedBytes < 0 || count == 0 ? -1 : allocatedBytes / count;
+    }
+
+    /**
+     * Returns the histogram of frame times. Bucket 0 counts the frames under
+     * 1us, and bucket i the frames from 2^(i-1) up to 2^i us. The last bucket
+     * also counts all longer frames.
+     *
+     * @return the frame counts.
+     */
+    public int[] getHistogram() {
+        int[] histogram = new int[BUCKETS];
+
+        for (int i = 0; i < count; i++) {
+            long micros = frameTimes[i] / 1000;
+            int  bucket = micros == 0 ? 0 : 64 - Long.numberOfLeadingZeros(micros);
+
+            histogram[Math.min(bucket, BUCKETS - 1)]++;
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Prints a summary and the histogram.
+     *
+     * @param name the name of the run.
+     * @param out  the stream to print to.
+     */
+    public void print(String name, PrintStream out) {
+        out.printf("%-10s frames=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms alloc/frame=%s%n", name, count,
+                   getPercentile(50) / 1e6, getPercentile(90) / 1e6, getPercentile(99) / 1e6, getPercentile(100) / 1e6,
+                   getAllocatedBytesPerFrame() < 0 ? "n/a" : getAllocatedBytesPerFrame() + "B");
+
+        int[] histogram = getHistogram();
+        int   max       = 0;
+
+        for (int n : histogram) {
+            max = Math.max(max, n);
+        }
+
+        for (int i = 0; i < histogram.length; i++) {
+
+            if (histogram[i] > 0) {
+                int bar = (int) Math.ceil(50.0 * histogram[i] / max);
+
+                out.printf("    < %8dus %6d %s%n", 1L << i, histogram[i], repeat('#', bar));
+            }
+        }
+    }
+
+    /**
+     * Returns a string of the given character repeated.
+     *
+     * @param  c     the character.
+     * @param  count the number of times.
+     *
+     * @return the string.
+     */
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+
+        Arrays.fill(chars, c);
+
+        return new String(chars);
+    }
+}
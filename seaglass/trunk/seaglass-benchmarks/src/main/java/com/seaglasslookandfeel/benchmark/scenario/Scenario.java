@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.BorderLayout;
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Graphics2D;
+import java.awt.event.MouseEvent;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.RepaintManager;
+
+/**
+ * A realistic screen which is painted repeatedly into an offscreen image,
+ * with a small change between frames, such as scrolling, hovering or
+ * selecting.
+ *
+ * <p>Scenarios don't need a window, so they run headless. They are driven
+ * from a single thread, which stands in for the event dispatch thread. The
+ * changes made for a given frame number are always the same, so runs are
+ * reproducible.</p>
+ */
+public abstract class Scenario {
+
+    /** The names of the bundled scenarios, for {@link #create(String)}. */
+    public static final String[] NAMES = { "table", "tree", "tabs", "form", "scrollbars" };
+
+    /** The distance scrolled between frames, in pixels. */
+    protected static final int SCROLL_STEP = 37;
+
+    private JComponent root;
+
+    /**
+     * Creates the scenario with the given name.
+     *
+     * @param  name one of {@link #NAMES}.
+     *
+     * @return the scenario.
+     *
+     * @throws IllegalArgumentException if there is no scenario of that name.
+     */
+    public static Scenario create(String name) {
+        if ("table".equals(name)) {
+            return new TableScenario();
+        } else if ("tree".equals(name)) {
+            return new TreeScenario();
+        } else if ("tabs".equals(name)) {
+            return new TabbedPaneScenario();
+        } else if ("form".equals(name)) {
+            return new FormScenario();
+        } else if ("scrollbars".equals(name)) {
+            return new ScrollBarScenario();
+        }
+
+        throw new IllegalArgumentException("Unknown scenario: " + name);
+    }
+
+    /**
+     * Returns the name of the scenario.
+     *
+     * @return the name.
+     */
+    public abstract String getName();
+
+    /**
+     * Creates the components of the screen. Called once, after the look and
+     * feel is installed.
+     *
+     * @return the content of the screen.
+     */
+    protected abstract JComponent createContent();
+
+    /**
+     * Makes the change for the given frame.
+     *
+     * @param frame the frame number, starting at zero.
+     */
+    protected abstract void update(int frame);
+
+    /**
+     * Builds the screen at the given size and lays it out.
+     *
+     * @param width  the width of the screen.
+     * @param height the height of the screen.
+     */
+    public void setUp(int width, int height) {
+        root = new JPanel(new BorderLayout());
+        root.add(createContent());
+        root.setSize(width, height);
+        layout(root);
+
+        // Paint straight into the image rather than through a back buffer.
+        RepaintManager.currentManager(root).setDoubleBufferingEnabled(false);
+    }
+
+    /**
+     * Makes the change for the given frame, lays the screen out again and
+     * paints it.
+     *
+     * @param frame the frame number, starting at zero.
+     * @param g     the graphics context of the image to paint into.
+     */
+    public void paintFrame(int frame, Graphics2D g) {
+        update(frame);
+        layout(root);
+        root.paint(g);
+    }
+
+    /**
+     * Returns the root of the screen.
+     *
+     * @return the root component.
+     */
+    public JComponent getRoot() {
+        return root;
+    }
+
+    /**
+     * Sends a mouse moved event to a component, for hover effects.
+     *
+     * @param c the component.
+     * @param x the x coordinate, relative to the component.
+     * @param y the y coordinate, relative to the component.
+     */
+    protected static void moveMouse(Component c, int x, int y) {
+        c.dispatchEvent(new MouseEvent(c, MouseEvent.MOUSE_MOVED, 0L, 0, x, y, x, y, 0, false, MouseEvent.NOBUTTON));
+    }
+
+    /**
+     * Lays out a component and all its descendants. Without a window there
+     * is nothing to do this when components are invalidated.
+     *
+     * @param c the component.
+     */
+    private static void layout(Component c) {
+        if (c instanceof Container) {
+            Container container = (Container) c;
+
+            container.doLayout();
+
+            for (Component child : container.getComponents()) {
+                layout(child);
+            }
+        }
+    }
+}
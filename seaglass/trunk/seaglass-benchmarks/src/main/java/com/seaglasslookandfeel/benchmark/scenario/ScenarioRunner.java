@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.seaglasslookandfeel.benchmark.BenchmarkSupport;
+
+/**
+ * Runs scenarios headless and prints their frame time percentiles,
+ * histograms and allocation per frame.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar com.seaglasslookandfeel.benchmark.scenario.ScenarioRunner
+ *     [-frames N] [-warmup N] [-size WIDTHxHEIGHT] [scenario ...]
+ * </pre>
+ *
+ * <p>With no scenario names, all the scenarios in {@link Scenario#NAMES} are
+ * run.</p>
+ */
+public class ScenarioRunner {
+
+    private int       frames = 500;
+    private int       warmup = 200;
+    private Dimension size   = new Dimension(1024, 768);
+
+    /**
+     * Runs a scenario.
+     *
+     * @param  scenario the scenario.
+     *
+     * @return the statistics of the measured frames.
+     */
+    public FrameStatistics run(Scenario scenario) {
+        BufferedImage image = BenchmarkSupport.createImage(size);
+        Graphics2D    g     = image.createGraphics();
+
+        try {
+            scenario.setUp(size.width, size.height);
+
+            for (int i = 0; i < warmup; i++) {
+                scenario.paintFrame(i, g);
+            }
+
+            FrameStatistics stats     = new FrameStatistics(frames);
+            long            allocated = getAllocatedBytes();
+
+            for (int i = 0; i < frames; i++) {
+                long start = System.nanoTime();
+
+                scenario.paintFrame(warmup + i, g);
+                stats.record(System.nanoTime() - start);
+            }
+
+            if (allocated >= 0) {
+                stats.setAllocatedBytes(getAllocatedBytes() - allocated);
+            }
+
+            return stats;
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Runs the scenarios given on the command line.
+     *
+     * @param  args the options and scenario names.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    public static void main(String[] args) throws Exception {
+        if (System.getProperty("java.awt.headless") == null) {
+            System.setProperty("java.awt.headless", "true");
+        }
+
+        ScenarioRunner runner = new ScenarioRunner();
+        List<String>   names  = new ArrayList<String>();
+
+        for (int i = 0; i < args.length; i++) {
+
+            if ("-frames".equals(args[i]) && i + 1 < args.length) {
+                runner.frames = Integer.parseInt(args[++i]);
+            } else if ("-warmup".equals(args[i]) && i + 1 < args.length) {
+                runner.warmup = Integer.parseInt(args[++i]);
+            } else if ("-size".equals(args[i]) && i + 1 < args.length) {
+                runner.size = BenchmarkSupport.parseSize(args[++i]);
+            } else {
+                names.add(args[i]);
+            }
+        }
+
+        if (names.isEmpty()) {
+            names.addAll(Arrays.asList(Scenario.NAMES));
+        }
+
+        BenchmarkSupport.installLookAndFeel();
+
+        for (String name : names) {
+            runner.run(Scenario.create(name)).print(name, System.out);
+        }
+
+        System.exit(0);
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, if
+     * the JVM can measure it.
+     *
+     * @return the number of bytes, or -1 if unknown.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+
+        return -1;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.Color;
+
+import javax.swing.JComponent;
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTextPane;
+
+/**
+ * The text pane of the TestScrollBars demo in a scroll pane, with its text
+ * repeated so that there is plenty to scroll. As in the demo, the scroll bar
+ * buttons are together at the end of each scroll bar. Each frame scrolls
+ * down a little, wrapping around at the end, and hovers over the vertical
+ * scroll bar.
+ */
+class ScrollBarScenario extends Scenario {
+
+    private static final int REPEAT = 50;
+
+    private static final String TEXT = "Lorem ipsum dolor sit amet, consectetuer adipiscing elit. Vivamus cursus, purus "
+        + "suscipit sagittis volutpat, est ipsum ullamcorper est, ac varius sem metus "
+        + "et lacus. Phasellus fringilla. Phasellus commodo orci id metus. Curabitur "
+        + "eros. Sed nulla. Sed odio lorem, lobortis nec, sollicitudin in, hendrerit "
+        + "vitae, metus. Phasellus molestie. Ut fermentum est a neque. Curabitur nec "
+        + "dolor non dolor pretium condimentum. Praesent vestibulum, leo sed hendrerit "
+        + "tristique, risus leo sagittis quam, ut pellentesque purus metus a felis. "
+        + "Vivamus egestas, ligula vel bibendum elementum, sem ante tincidunt dui, "
+        + "eget suscipit nulla urna nec lorem. Pellentesque non dolor ac odio "
+        + "ultricies ultricies. Aliquam pellentesque tortor et ante. Sed accumsan mi "
+        + "in mi. Phasellus turpis arcu, interdum congue, pulvinar ac, egestas id, tellus.\n\n";
+
+    private JScrollBar verticalScrollBar;
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#getName()
+     */
+    public String getName() {
+        return "scrollbars";
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#createContent()
+     */
+    protected JComponent createContent() {
+        StringBuilder text = new StringBuilder(TEXT.length() * REPEAT);
+
+        for (int i = 0; i < REPEAT; i++) {
+            text.append(TEXT);
+        }
+
+        JTextPane textPane = new JTextPane();
+
+        textPane.setBackground(Color.WHITE);
+        textPane.setText(text.toString());
+
+        JScrollPane scrollPane = new JScrollPane(textPane, JScrollPane.VERTICAL_SCROLLBAR_ALWAYS,
+                                                 JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
+
+        // The demo sets the global default, which would change the other
+        // scenarios too, so override it on these scroll bars only.
+        scrollPane.getVerticalScrollBar().putClientProperty("SeaGlass.Override.ScrollBarButtonsTogether", Boolean.TRUE);
+        scrollPane.getHorizontalScrollBar().putClientProperty("SeaGlass.Override.ScrollBarButtonsTogether", Boolean.TRUE);
+
+        verticalScrollBar = scrollPane.getVerticalScrollBar();
+
+        return scrollPane;
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#update(int)
+     */
+    protected void update(int frame) {
+        int maxY = verticalScrollBar.getMaximum() - verticalScrollBar.getVisibleAmount();
+        int y    = maxY <= 0 ? 0 : frame * SCROLL_STEP % maxY;
+
+        verticalScrollBar.setValue(y);
+
+        moveMouse(verticalScrollBar, verticalScrollBar.getWidth() / 2, frame * SCROLL_STEP % verticalScrollBar.getHeight());
+    }
+}
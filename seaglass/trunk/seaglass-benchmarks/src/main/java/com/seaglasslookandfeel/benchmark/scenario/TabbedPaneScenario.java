@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.GridLayout;
+import java.awt.Rectangle;
+
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSplitPane;
+import javax.swing.JTabbedPane;
+import javax.swing.JTextField;
+
+import com.seaglasslookandfeel.util.SeaGlassTabCloseListener;
+
+/**
+ * Two tabbed panes side by side, one with its tabs on top and one with its
+ * tabs on the left, each tab holding a small form. The tabbed panes are set
+ * up as in the TestTabbedPanes demo, with close buttons on the left of the
+ * tabs, a close listener, an empty border and a colored first tab. Each frame
+ * hovers over the next tab, and every few frames the selected tab changes.
+ */
+class TabbedPaneScenario extends Scenario {
+
+    private static final int TABS = 10;
+
+    private JTabbedPane[] tabbedPanes;
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#getName()
+     */
+    public String getName() {
+        return "tabs";
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#createContent()
+     */
+    protected JComponent createContent() {
+        tabbedPanes = new JTabbedPane[] { createTabbedPane(JTabbedPane.TOP), createTabbedPane(JTabbedPane.LEFT) };
+
+        JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, tabbedPanes[0], tabbedPanes[1]);
+
+        splitPane.setResizeWeight(0.5);
+
+        return splitPane;
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#update(int)
+     */
+    protected void update(int frame) {
+        for (JTabbedPane tabbedPane : tabbedPanes) {
+
+            if (frame % 8 == 0) {
+                tabbedPane.setSelectedIndex(frame / 8 % TABS);
+            }
+
+            Rectangle bounds = tabbedPane.getBoundsAt(frame % TABS);
+
+            if (bounds != null) {
+                moveMouse(tabbedPane, bounds.x + bounds.width / 2, bounds.y + bounds.height / 2);
+            }
+        }
+    }
+
+    /**
+     * Creates a tabbed pane with a small form on each tab.
+     *
+     * @param  placement the tab placement.
+     *
+     * @return the tabbed pane.
+     */
+    private static JTabbedPane createTabbedPane(int placement) {
+        JTabbedPane tabbedPane = new JTabbedPane(placement, JTabbedPane.SCROLL_TAB_LAYOUT);
+
+        tabbedPane.putClientProperty("JTabbedPane.closeButton", "left");
+        tabbedPane.putClientProperty("JTabbedPane.closeListener", new KeepTabsOpen());
+        tabbedPane.setBorder(BorderFactory.createEmptyBorder(5, 5, 5, 5));
+
+        for (int i = 0; i < TABS; i++) {
+            JPanel form = new JPanel(new GridLayout(0, 2, 6, 6));
+
+            if (i == 0) {
+                form.setBackground(new Color(38, 128, 150));
+            }
+
+            for (int j = 0; j < 6; j++) {
+                form.add(new JLabel("Field " + j + ":"));
+                form.add(new JTextField("Tab " + i + " value " + j));
+            }
+
+            tabbedPane.addTab("Tab " + i, form);
+        }
+
+        return tabbedPane;
+    }
+
+    /**
+     * A close listener which keeps every tab open, so that the screen stays
+     * the same from run to run.
+     */
+    private static class KeepTabsOpen implements SeaGlassTabCloseListener {
+
+        /**
+         * @see com.seaglasslookandfeel.util.SeaGlassTabCloseListener#tabAboutToBeClosed(int)
+         */
+        public boolean tabAboutToBeClosed(int tabIndex) {
+            return false;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.util.SeaGlassTabCloseListener#tabClosed(java.lang.String,
+         *      java.awt.Component)
+         */
+        public void tabClosed(String title, Component component) {
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.Point;
+
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JViewport;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableModel;
+import javax.swing.table.TableRowSorter;
+
+/**
+ * The table of the TestTables demo in a scroll pane, with its track list
+ * repeated to make a large table. As in the demo, the last column holds
+ * check boxes, the columns aren't resized to fit and the rows may be sorted.
+ * Each frame scrolls down a little and moves the selection, wrapping around
+ * at the end.
+ */
+class TableScenario extends Scenario {
+
+    private static final int ROWS = 5000;
+
+    private static final String[] COLUMNS = { "Name", "Artist", "Album", "Checked" };
+
+    /** The tracks listed by the TestTables demo. */
+    private static final Object[][] TRACKS = {
+        { "All These Things I Hate (Revolve Around Me)", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "Cries In Vain", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "The End", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "Her Voice Resides", "Bullet For My Valentine", "The Poison", Boolean.TRUE },
+        { "Hit The Floor", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "Intro", "Bullet For My Valentine Apocalyptica", "The Poison", Boolean.FALSE },
+        { "The Poison", "Bullet For My Valentine", "The Poison", Boolean.TRUE },
+        { "Room 409", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "Spit You Out", "Bullet For My Valentine", "The Poison", Boolean.TRUE },
+        { "Suffocating Under Words Of Sorrow (What Can I Do)", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "Tears Don't Fall", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "4 Words (To Choke Upon)", "Bullet For My Valentine", "The Poison", Boolean.FALSE },
+        { "10 Years Today", "Bullet For My Valentine", "The Poison", Boolean.FALSE }
+    };
+
+    private JTable    table;
+    private JViewport viewport;
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#getName()
+     */
+    public String getName() {
+        return "table";
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#createContent()
+     */
+    protected JComponent createContent() {
+        TableModel model = new AbstractTableModel() {
+            private static final long serialVersionUID = 1L;
+
+            public int getRowCount() {
+                return ROWS;
+            }
+
+            public int getColumnCount() {
+                return COLUMNS.length;
+            }
+
+            public String getColumnName(int column) {
+                return COLUMNS[column];
+            }
+
+            public Class<?> getColumnClass(int column) {
+                return column == 3 ? Boolean.class : Object.class;
+            }
+
+            public Object getValueAt(int row, int column) {
+                return TRACKS[row % TRACKS.length][column];
+            }
+        };
+
+        table = new JTable(model);
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.getColumnModel().getColumn(0).setPreferredWidth(75);
+        table.getColumnModel().getColumn(1).setPreferredWidth(50);
+        table.setRowSorter(new TableRowSorter<TableModel>(model));
+
+        JScrollPane scrollPane = new JScrollPane(table);
+
+        viewport = scrollPane.getViewport();
+
+        return scrollPane;
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#update(int)
+     */
+    protected void update(int frame) {
+        int maxY = table.getPreferredSize().height - viewport.getExtentSize().height;
+        int y    = maxY <= 0 ? 0 : frame * SCROLL_STEP % maxY;
+
+        viewport.setViewPosition(new Point(0, y));
+
+        int row = table.rowAtPoint(new Point(0, y)) + frame % 10;
+
+        table.getSelectionModel().setSelectionInterval(row, row);
+    }
+}
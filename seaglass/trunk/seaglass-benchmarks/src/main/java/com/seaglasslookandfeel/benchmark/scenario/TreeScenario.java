@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.benchmark.scenario;
+
+import java.awt.Point;
+
+import javax.swing.JComponent;
+import javax.swing.JScrollPane;
+import javax.swing.JTree;
+import javax.swing.JViewport;
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * A deep, fully expanded tree in a scroll pane. Each frame scrolls down a
+ * little and moves the selection, wrapping around at the end.
+ */
+class TreeScenario extends Scenario {
+
+    private JTree     tree;
+    private JViewport viewport;
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#getName()
+     */
+    public String getName() {
+        return "tree";
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#createContent()
+     */
+    protected JComponent createContent() {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("Root");
+
+        for (int i = 0; i < 20; i++) {
+            DefaultMutableTreeNode folder = new DefaultMutableTreeNode("Folder " + i);
+
+            for (int j = 0; j < 10; j++) {
+                DefaultMutableTreeNode subfolder = new DefaultMutableTreeNode("Folder " + i + "." + j);
+
+                for (int k = 0; k < 5; k++) {
+                    subfolder.add(new DefaultMutableTreeNode("File " + i + "." + j + "." + k));
+                }
+
+                folder.add(subfolder);
+            }
+
+            root.add(folder);
+        }
+
+        tree = new JTree(root);
+
+        for (int row = 0; row < tree.getRowCount(); row++) {
+            tree.expandRow(row);
+        }
+
+        JScrollPane scrollPane = new JScrollPane(tree);
+
+        viewport = scrollPane.getViewport();
+
+        return scrollPane;
+    }
+
+    /**
+     * @see com.seaglasslookandfeel.benchmark.scenario.Scenario#update(int)
+     */
+    protected void update(int frame) {
+        int maxY = tree.getPreferredSize().height - viewport.getExtentSize().height;
+        int y    = maxY <= 0 ? 0 : frame * SCROLL_STEP % maxY;
+
+        viewport.setViewPosition(new Point(0, y));
+
+        int row = tree.getClosestRowForLocation(0, y) + frame % 10;
+
+        tree.setSelectionRow(Math.min(row, tree.getRowCount() - 1));
+    }
+}
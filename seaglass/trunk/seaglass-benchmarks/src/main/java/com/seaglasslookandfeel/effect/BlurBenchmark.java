@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.effect;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the blurs: EffectUtils.gaussianBlur, which the shadow effects used
+ * to use, and the fixed point Gaussian and the box blur of FastBlur. This is
+ * in the effect package because the methods are package private.
+ *
+ * <p>Before measuring, setup compares the result of the engine with the
+ * result of EffectUtils.gaussianBlur and prints the largest difference in any
+ * channel. The fixed point Gaussian must be within one level, or the trial
+ * fails. The box blur is an approximation and is only reported.</p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class BlurBenchmark {
+
+    @Param({ "1", "3", "8" })
+    public int radius;
+
+    @Param({ "32", "128", "512" })
+    public int size;
+
+    @Param({ "argb", "gray" })
+    public String type;
+
+    @Param({ "reference", "gaussian", "box" })
+    public String engine;
+
+    private BufferedImage src;
+    private BufferedImage dst;
+
+    /**
+     * Creates a source image with a filled shape to blur, and a destination
+     * image of the same type, and checks the result of the engine against
+     * the reference.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        int imageType = type.equals("gray") ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_ARGB;
+
+        src = new BufferedImage(size, size, imageType);
+        dst = new BufferedImage(size, size, imageType);
+
+        Graphics2D g = src.createGraphics();
+
+        g.setColor(Color.WHITE);
+        g.fillRoundRect(size / 4, size / 4, size / 2, size / 2, size / 8, size / 8);
+        g.dispose();
+
+        int difference = maxDifference(EffectUtils.gaussianBlur(src, null, radius), blur());
+
+        System.out.println(engine + " differs from reference by at most " + difference);
+
+        if (engine.equals("gaussian") && difference > 1) {
+            throw new IllegalStateException("Fixed point Gaussian differs from reference by " + difference);
+        }
+    }
+
+    /**
+     * Blurs the source image into the destination image.
+     *
+     * @return the destination image.
+     */
+    @Benchmark
+    public BufferedImage blur() {
+        if (engine.equals("gaussian")) {
+            return FastBlur.gaussianBlur(src, dst, radius);
+        } else if (engine.equals("box")) {
+            return FastBlur.boxBlur(src, dst, radius);
+        }
+
+        return EffectUtils.gaussianBlur(src, dst, radius);
+    }
+
+    /**
+     * Returns the largest difference between two images in any channel.
+     *
+     * @param  a the first image.
+     * @param  b the second image.
+     *
+     * @return the difference.
+     */
+    private static int maxDifference(BufferedImage a, BufferedImage b) {
+        Raster ra  = a.getRaster();
+        Raster rb  = b.getRaster();
+        int    max = 0;
+
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                for (int band = 0; band < ra.getNumBands(); band++) {
+                    max = Math.max(max, Math.abs(ra.getSample(x, y, band) - rb.getSample(x, y, band)));
+                }
+            }
+        }
+
+        return max;
+    }
+}
@@ -0,0 +1,400 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel;
+
+import java.awt.Window;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.UIDefaults;
+
+import com.seaglasslookandfeel.util.ImageCache;
+
+/**
+ * The shared derived colors of the look and feel and the graph of what they
+ * are derived from.
+ *
+ * <p>Each derived color is created once for its parent and offsets and then
+ * shared, by the UI defaults, the styles and the painters. A color's parent
+ * is either a UI defaults key or another derived color, and a derived color
+ * stored in the UI defaults is in turn the parent of the colors derived from
+ * its key.</p>
+ *
+ * <p>The tree listens to the UI defaults. When a color is put, only the
+ * colors downstream of its key are derived again. The images cached for the
+ * painters which use the colors that actually changed are removed from the
+ * {@link ImageCache}, the generation returned by {@link #getGeneration()} is
+ * incremented for the images kept elsewhere, and the windows are
+ * repainted. The styles hold the
+ * shared colors themselves, so an accent color may be changed with
+ * {@code UIManager.put} without calling
+ * {@code SwingUtilities.updateComponentTreeUI}.</p>
+ *
+ * <p>The value of a derived color takes part in its {@code equals} and
+ * {@code hashCode}, so the tree never uses derived colors as hash keys. It
+ * keys the shared colors on how they are derived, and the colors derived
+ * from another derived color on that color's identity.</p>
+ */
+final class ColorTree implements PropertyChangeListener {
+
+    /** The shared colors, by how they are derived. */
+    private final Map<Key, DerivedColor> colors = new HashMap<Key, DerivedColor>();
+
+    /** The colors derived from each UI defaults key. */
+    private final Map<String, List<DerivedColor>> keyChildren = new HashMap<String, List<DerivedColor>>();
+
+    /** The colors derived from each derived color. */
+    private final Map<DerivedColor, List<DerivedColor>> colorChildren = new IdentityHashMap<DerivedColor, List<DerivedColor>>();
+
+    /** The keys under which each derived color is stored in the UI defaults. */
+    private final Map<DerivedColor, List<String>> keys = new IdentityHashMap<DerivedColor, List<String>>();
+
+    /**
+     * Incremented whenever a derived color changes, so that images rendered
+     * outside the image cache can tell they are stale.
+     */
+    private static volatile int generation;
+
+    /**
+     * Returns the generation of the derived colors.
+     *
+     * @return the generation, which is incremented whenever a derived color
+     *         changes.
+     */
+    static int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns the shared color derived from a UI defaults color.
+     *
+     * @param  parentKey  the key of the parent color.
+     * @param  hOffset    the hue offset.
+     * @param  sOffset    the saturation offset.
+     * @param  bOffset    the brightness offset.
+     * @param  aOffset    the alpha offset.
+     * @param  uiResource whether the color should be a UIResource.
+     *
+     * @return the color.
+     */
+    synchronized DerivedColor getColor(String parentKey, float hOffset, float sOffset, float bOffset, int aOffset,
+            boolean uiResource) {
+        Key          key   = new Key(parentKey, hOffset, sOffset, bOffset, aOffset, uiResource);
+        DerivedColor color = colors.get(key);
+
+        if (color == null) {
+            color = uiResource ? new DerivedColor.UIResource(parentKey, hOffset, sOffset, bOffset, aOffset)
+                               : new DerivedColor(parentKey, hOffset, sOffset, bOffset, aOffset);
+            colors.put(key, color);
+            addChild(keyChildren, parentKey, color);
+        }
+
+        return color;
+    }
+
+    /**
+     * Returns the shared color derived from another derived color.
+     *
+     * @param  parent  the parent color.
+     * @param  hOffset the hue offset.
+     * @param  sOffset the saturation offset.
+     * @param  bOffset the brightness offset.
+     * @param  aOffset the alpha offset.
+     *
+     * @return the color.
+     */
+    synchronized DerivedColor getColor(DerivedColor parent, float hOffset, float sOffset, float bOffset, int aOffset) {
+        Key          key   = new Key(parent, hOffset, sOffset, bOffset, aOffset, false);
+        DerivedColor color = colors.get(key);
+
+        if (color == null) {
+            color = new DerivedColor(parent, hOffset, sOffset, bOffset, aOffset);
+            colors.put(key, color);
+            addChild(colorChildren, parent, color);
+        }
+
+        return color;
+    }
+
+    /**
+     * Records the derived colors stored in UI defaults.
+     *
+     * @param d the UI defaults.
+     */
+    void addDefaults(UIDefaults d) {
+        List<Map.Entry<Object, Object>> entries;
+
+        synchronized (d) {
+            entries = new ArrayList<Map.Entry<Object, Object>>(d.entrySet());
+        }
+
+        synchronized (this) {
+            for (Map.Entry<Object, Object> entry : entries) {
+                if (entry.getKey() instanceof String && entry.getValue() instanceof DerivedColor) {
+                    addKey((String) entry.getKey(), (DerivedColor) entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * Derives the colors downstream of a UI defaults key again when its value
+     * changes.
+     *
+     * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+     */
+    public void propertyChange(PropertyChangeEvent evt) {
+        String name = evt.getPropertyName();
+
+        if ("UIDefaults".equals(name)) {
+            if (evt.getSource() instanceof UIDefaults) {
+                addDefaults((UIDefaults) evt.getSource());
+            }
+
+            List<String> names;
+
+            synchronized (this) {
+                names = new ArrayList<String>(keyChildren.keySet());
+            }
+
+            update(names);
+        } else if (name != null) {
+            synchronized (this) {
+                if (evt.getOldValue() instanceof DerivedColor) {
+                    removeKey(name, (DerivedColor) evt.getOldValue());
+                }
+
+                if (evt.getNewValue() instanceof DerivedColor) {
+                    addKey(name, (DerivedColor) evt.getNewValue());
+                }
+            }
+
+            update(Collections.singletonList(name));
+        }
+    }
+
+    /**
+     * Derives the colors downstream of some keys again. If any of them
+     * changed, removes the cached images of the painters using them and
+     * repaints all the windows.
+     *
+     * @param names the keys.
+     */
+    private void update(Collection<String> names) {
+        Set<Object> users   = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+        boolean     changed = false;
+
+        synchronized (this) {
+            Set<String>       visitedKeys   = new HashSet<String>();
+            Set<DerivedColor> visitedColors = Collections.newSetFromMap(new IdentityHashMap<DerivedColor, Boolean>());
+
+            for (String name : names) {
+                if (visitedKeys.add(name)) {
+                    changed |= rederive(keyChildren.get(name), users, visitedKeys, visitedColors);
+                }
+            }
+        }
+
+        if (!changed) {
+            return;
+        }
+
+        generation++;
+        ImageCache.getInstance().flushOwners(users);
+
+        for (Window w : Window.getWindows()) {
+            if (w.isDisplayable()) {
+                w.repaint();
+            }
+        }
+    }
+
+    /**
+     * Derives the colors downstream of a parent again.
+     *
+     * @param  list          the colors derived from the parent, or
+     *                       {@code null} if there are none.
+     * @param  users         the collection to add the users of changed colors
+     *                       to.
+     * @param  visitedKeys   the keys already derived again.
+     * @param  visitedColors the colors already derived again.
+     *
+     * @return {@code true} if any color changed, {@code false} otherwise.
+     */
+    private boolean rederive(List<DerivedColor> list, Set<Object> users, Set<String> visitedKeys,
+            Set<DerivedColor> visitedColors) {
+        boolean changed = false;
+
+        if (list == null) {
+            return false;
+        }
+
+        for (DerivedColor color : list) {
+            if (!visitedColors.add(color)) {
+                continue;
+            }
+
+            if (color.rederiveColor()) {
+                color.getUsers(users);
+                changed = true;
+            }
+
+            changed |= rederive(colorChildren.get(color), users, visitedKeys, visitedColors);
+
+            List<String> colorKeys = keys.get(color);
+
+            if (colorKeys != null) {
+                for (String key : colorKeys) {
+                    if (visitedKeys.add(key)) {
+                        changed |= rederive(keyChildren.get(key), users, visitedKeys, visitedColors);
+                    }
+                }
+            }
+        }
+
+        return changed;
+    }
+
+    /**
+     * Records a color as derived from a parent.
+     *
+     * @param map    the children of each parent.
+     * @param parent the key or derived color the color is derived from.
+     * @param color  the color.
+     */
+    private static <K> void addChild(Map<K, List<DerivedColor>> map, K parent, DerivedColor color) {
+        List<DerivedColor> list = map.get(parent);
+
+        if (list == null) {
+            list = new ArrayList<DerivedColor>(2);
+            map.put(parent, list);
+        }
+
+        list.add(color);
+    }
+
+    /**
+     * Records that a derived color is stored under a key.
+     *
+     * @param key   the key.
+     * @param color the color.
+     */
+    private void addKey(String key, DerivedColor color) {
+        List<String> list = keys.get(color);
+
+        if (list == null) {
+            list = new ArrayList<String>(1);
+            keys.put(color, list);
+        }
+
+        if (!list.contains(key)) {
+            list.add(key);
+        }
+    }
+
+    /**
+     * Records that a derived color is no longer stored under a key.
+     *
+     * @param key   the key.
+     * @param color the color.
+     */
+    private void removeKey(String key, DerivedColor color) {
+        List<String> list = keys.get(color);
+
+        if (list != null && list.remove(key) && list.isEmpty()) {
+            keys.remove(color);
+        }
+    }
+
+    /**
+     * How a shared color is derived: its parent, offsets and type. A parent
+     * which is a derived color is compared by identity.
+     */
+    private static final class Key {
+        private final Object  parent;
+        private final float   hOffset;
+        private final float   sOffset;
+        private final float   bOffset;
+        private final int     aOffset;
+        private final boolean uiResource;
+
+        /**
+         * Creates a new Key.
+         *
+         * @param parent     the key or derived color the color is derived
+         *                   from.
+         * @param hOffset    the hue offset.
+         * @param sOffset    the saturation offset.
+         * @param bOffset    the brightness offset.
+         * @param aOffset    the alpha offset.
+         * @param uiResource whether the color is a UIResource.
+         */
+        Key(Object parent, float hOffset, float sOffset, float bOffset, int aOffset, boolean uiResource) {
+            this.parent     = parent;
+            this.hOffset    = hOffset;
+            this.sOffset    = sOffset;
+            this.bOffset    = bOffset;
+            this.aOffset    = aOffset;
+            this.uiResource = uiResource;
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+
+            Key that = (Key) o;
+
+            return (parent == that.parent || (parent instanceof String && parent.equals(that.parent)))
+                    && Float.compare(hOffset, that.hOffset) == 0 && Float.compare(sOffset, that.sOffset) == 0
+                    && Float.compare(bOffset, that.bOffset) == 0 && aOffset == that.aOffset && uiResource == that.uiResource;
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            int result = parent instanceof String ? parent.hashCode() : System.identityHashCode(parent);
+
+            result = 31 * result + Float.floatToIntBits(hOffset);
+            result = 31 * result + Float.floatToIntBits(sOffset);
+            result = 31 * result + Float.floatToIntBits(bOffset);
+            result = 31 * result + aOffset;
+
+            return 31 * result + (uiResource ? 1 : 0);
+        }
+    }
+}
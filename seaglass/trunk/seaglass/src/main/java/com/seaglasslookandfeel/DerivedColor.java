@@ -2,36 +2,72 @@ package com.seaglasslookandfeel;
 
 import java.awt.Color;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
 import javax.swing.UIManager;
 
 /**
  * DerivedColor - A color implementation that is derived from a UIManager
- * defaults table color and a set of offsets. It can be rederived at any point
- * by calling rederiveColor(). For example when its parent color changes and it
- * value will update to reflect the new derived color. Property change events
- * are fired for the "rgb" property when the derived color changes.
+ * defaults table color, or from another derived color, and a set of offsets.
+ * It can be rederived at any point by calling rederiveColor(). For example
+ * when its parent color changes and it value will update to reflect the new
+ * derived color. Derived colors are shared and kept up to date by the
+ * {@link ColorTree} of the look and feel.
  *
  * @author Jasper Potts
  */
 class DerivedColor extends Color {
     private final String uiDefaultParentName;
+    private final DerivedColor parentColor;
     private final float hOffset, sOffset, bOffset;
     private final int aOffset;
-    private int argbValue = Integer.MAX_VALUE;
+    private volatile int argbValue = Integer.MAX_VALUE;
+
+    /** The owners of cached images painted with this color, held weakly. */
+    private Set<Object> users;
 
     DerivedColor(String uiDefaultParentName, float hOffset, float sOffset, float bOffset, int aOffset) {
+        this(uiDefaultParentName, null, hOffset, sOffset, bOffset, aOffset);
+    }
+
+    DerivedColor(DerivedColor parentColor, float hOffset, float sOffset, float bOffset, int aOffset) {
+        this(null, parentColor, hOffset, sOffset, bOffset, aOffset);
+    }
+
+    private DerivedColor(String uiDefaultParentName, DerivedColor parentColor, float hOffset, float sOffset, float bOffset,
+            int aOffset) {
         super(0);
         this.uiDefaultParentName = uiDefaultParentName;
+        this.parentColor = parentColor;
         this.hOffset = hOffset;
         this.sOffset = sOffset;
         this.bOffset = bOffset;
         this.aOffset = aOffset;
     }
 
+    /**
+     * Returns the UIManager key of the parent color.
+     *
+     * @return the key, or null if the color is derived from another derived
+     *         color.
+     */
     public String getUiDefaultParentName() {
         return uiDefaultParentName;
     }
 
+    /**
+     * Returns the derived color this color is derived from.
+     *
+     * @return the parent color, or null if the color is derived from a
+     *         UIManager color.
+     */
+    public DerivedColor getParentColor() {
+        return parentColor;
+    }
+
     public float getHueOffset() {
         return hOffset;
     }
@@ -49,10 +85,66 @@ class DerivedColor extends Color {
     }
 
     /**
-     * Recalculate the derived color from the UIManager parent color and offsets
+     * Recalculate the derived color from the parent color and offsets, if it
+     * has been derived before. A color which has never been derived will be
+     * derived from the current parent color when it is first used.
+     *
+     * @return true if the color has changed, false otherwise.
      */
-    private void rederiveColor() {
-        Color src = UIManager.getColor(uiDefaultParentName);
+    boolean rederiveColor() {
+        int oldValue = argbValue;
+
+        if (oldValue == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        deriveColor();
+        return argbValue != oldValue;
+    }
+
+    /**
+     * Adds an owner of cached images painted with this color.
+     *
+     * @param user the owner.
+     */
+    synchronized void addUser(Object user) {
+        if (users == null) {
+            users = Collections.newSetFromMap(new WeakHashMap<Object, Boolean>());
+        }
+        users.add(user);
+    }
+
+    /**
+     * Adds the owners of cached images painted with this color to a
+     * collection.
+     *
+     * @param c the collection.
+     */
+    synchronized void getUsers(Collection<Object> c) {
+        if (users != null) {
+            c.addAll(users);
+        }
+    }
+
+    /**
+     * Calculate the derived color from the parent color and offsets
+     */
+    private void deriveColor() {
+        Color src = parentColor != null ? parentColor : UIManager.getColor(uiDefaultParentName);
+        argbValue = deriveARGB(src, hOffset, sOffset, bOffset, aOffset);
+    }
+
+    /**
+     * Derives the ARGB value for a color from a source color and offsets.
+     *
+     * @param src The source color, or null to use the offsets as the color
+     * @param hOffset The hue offset
+     * @param sOffset The saturation offset
+     * @param bOffset The brightness offset
+     * @param aOffset The alpha offset
+     * @return the ARGB value of the derived color
+     */
+    static int deriveARGB(Color src, float hOffset, float sOffset, float bOffset, int aOffset) {
         if (src != null) {
             float[] tmp = Color.RGBtoHSB(src.getRed(), src.getGreen(), src.getBlue(), null);
             // apply offsets
@@ -60,14 +152,14 @@ class DerivedColor extends Color {
             tmp[1] = clamp(tmp[1] + sOffset);
             tmp[2] = clamp(tmp[2] + bOffset);
             int alpha = clamp(src.getAlpha() + aOffset);
-            argbValue = (Color.HSBtoRGB(tmp[0], tmp[1], tmp[2]) & 0xFFFFFF) | (alpha << 24);
+            return (Color.HSBtoRGB(tmp[0], tmp[1], tmp[2]) & 0xFFFFFF) | (alpha << 24);
         } else {
             float[] tmp = new float[3];
             tmp[0] = clamp(hOffset);
             tmp[1] = clamp(sOffset);
             tmp[2] = clamp(bOffset);
             int alpha = clamp(aOffset);
-            argbValue = (Color.HSBtoRGB(tmp[0], tmp[1], tmp[2]) & 0xFFFFFF) | (alpha << 24);
+            return (Color.HSBtoRGB(tmp[0], tmp[1], tmp[2]) & 0xFFFFFF) | (alpha << 24);
         }
     }
 
@@ -84,38 +176,48 @@ class DerivedColor extends Color {
      */
     @Override public int getRGB() {
         if (argbValue == Integer.MAX_VALUE) {
-            rederiveColor();
+            deriveColor();
         }
         return argbValue;
     }
 
+    /**
+     * Derived colors are equal if they are derived in the same way and their
+     * current values are the same. The value takes part because a color may
+     * be derived again when its parent changes, and a cached image keyed on
+     * the old value must not be found with the new one.
+     */
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (!(o instanceof DerivedColor)) return false;
+        if (o == null || o.getClass() != getClass()) return false;
         DerivedColor that = (DerivedColor) o;
         if (aOffset != that.aOffset) return false;
         if (Float.compare(that.bOffset, bOffset) != 0) return false;
         if (Float.compare(that.hOffset, hOffset) != 0) return false;
         if (Float.compare(that.sOffset, sOffset) != 0) return false;
-        if (!uiDefaultParentName.equals(that.uiDefaultParentName)) return false;
+        if (parentColor != that.parentColor) return false;
+        if (uiDefaultParentName == null ? that.uiDefaultParentName != null
+                : !uiDefaultParentName.equals(that.uiDefaultParentName)) return false;
+        if (getRGB() != that.getRGB()) return false;
         return true;
     }
 
     @Override
     public int hashCode() {
-        int result = uiDefaultParentName.hashCode();
-        result = 31 * result + hOffset != +0.0f ?
-                Float.floatToIntBits(hOffset) : 0;
-        result = 31 * result + sOffset != +0.0f ?
-                Float.floatToIntBits(sOffset) : 0;
-        result = 31 * result + bOffset != +0.0f ?
-                Float.floatToIntBits(bOffset) : 0;
+        int result = uiDefaultParentName != null ? uiDefaultParentName.hashCode() : System.identityHashCode(parentColor);
+        result = 31 * result + (hOffset != +0.0f ?
+                Float.floatToIntBits(hOffset) : 0);
+        result = 31 * result + (sOffset != +0.0f ?
+                Float.floatToIntBits(sOffset) : 0);
+        result = 31 * result + (bOffset != +0.0f ?
+                Float.floatToIntBits(bOffset) : 0);
         result = 31 * result + aOffset;
+        result = 31 * result + getRGB();
         return result;
     }
 
-    private float clamp(float value) {
+    private static float clamp(float value) {
         if (value < 0) {
             value = 0;
         } else if (value > 1) {
@@ -124,7 +226,7 @@ class DerivedColor extends Color {
         return value;
     }
 
-    private int clamp(int value) {
+    private static int clamp(int value) {
         if (value < 0) {
             value = 0;
         } else if (value > 255) {
@@ -143,9 +245,9 @@ class DerivedColor extends Color {
      */
     @Override
     public String toString() {
-        Color src = UIManager.getColor(uiDefaultParentName);
+        Color src = parentColor != null ? parentColor : UIManager.getColor(uiDefaultParentName);
         String s = "DerivedColor(color=" + getRed() + "," + getGreen() + "," + getBlue() +
-                " parent=" + uiDefaultParentName +
+                " parent=" + (parentColor != null ? "DerivedColor" : uiDefaultParentName) +
                 " offsets=" + getHueOffset() + "," + getSaturationOffset() + ","
                 + getBrightnessOffset() + "," + getAlphaOffset();
         return src == null ? s : s + " pColor=" + src.getRed() + "," + src.getGreen() + "," + src.getBlue();
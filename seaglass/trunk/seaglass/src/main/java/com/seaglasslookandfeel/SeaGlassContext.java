@@ -19,10 +19,12 @@
  */
 package com.seaglasslookandfeel;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.swing.JButton;
 import javax.swing.JComponent;
@@ -42,6 +44,15 @@ import javax.swing.plaf.synth.SynthStyle;
  * <p>Extends SynthContext by Scott Violet and reimplements most of its methods
  * because too much is package local.</p>
  *
+ * <p>Disposed contexts are kept for re-use by the thread which disposed them,
+ * so getting and disposing a context neither allocates nor takes a lock, and
+ * contexts may be got on several threads at once. Setting the system property
+ * {@code SeaGlass.SeaGlassContext.debug} to {@code true} turns off re-use and
+ * checks the contexts instead: disposing a context twice throws an
+ * <code>IllegalStateException</code>, and a context which is garbage
+ * collected without being disposed is reported on the standard error stream,
+ * with the stack trace of the call which got it.</p>
+ *
  * @see javax.swing.plaf.synth.SynthContext
  */
 public class SeaGlassContext extends SynthContext {
@@ -65,19 +76,42 @@ public class SeaGlassContext extends SynthContext {
     private static Region        fakeRegion    = Region.BUTTON;
     private static SynthStyle    fakeStyle     = new SeaGlassStyle(null, null);
 
-    // From SynthContext.
+    /** The system property which turns on checking of the contexts. */
+    public static final String DEBUG_KEY = "SeaGlass.SeaGlassContext.debug";
 
-    private static final Map     contextMap;
+    /** The most contexts kept for re-use by each thread. */
+    private static final int MAX_POOL_SIZE = 32;
 
-    static {
-        contextMap = new HashMap();
-    }
+    private static final boolean debug = isDebug();
+
+    /** The contexts disposed by each thread, for re-use by that thread. */
+    private static final ThreadLocal<Pool> pools = new ThreadLocal<Pool>() {
+        @Override
+        protected Pool initialValue() {
+            return new Pool();
+        }
+    };
+
+    /** The contexts got and not yet disposed, while debugging. */
+    private static final Set<Checkout> checkouts = debug ? Collections.newSetFromMap(new ConcurrentHashMap<Checkout, Boolean>()) : null;
+
+    /** The contexts collected without being disposed, while debugging. */
+    private static final ReferenceQueue<SeaGlassContext> leaks = debug ? new ReferenceQueue<SeaGlassContext>() : null;
 
     private JComponent component;
     private Region     region;
     private SynthStyle style;
     private int        state;
 
+    /** Whether the context has been disposed since it was last got. */
+    private boolean    released;
+
+    /** Where the context was got, while debugging. */
+    private Checkout   checkout;
+
+    /** Where the context was disposed, while debugging. */
+    private Throwable  release;
+
     /**
      * Creates a new SeaGlassContext object.
      */
@@ -127,16 +161,10 @@ public class SeaGlassContext extends SynthContext {
     public static SeaGlassContext getContext(Class type, JComponent component, Region region, SynthStyle style, int state) {
         SeaGlassContext context = null;
 
-        synchronized (contextMap) {
-            List instances = (List) contextMap.get(type);
-
-            if (instances != null) {
-                int size = instances.size();
-
-                if (size > 0) {
-                    context = (SeaGlassContext) instances.remove(size - 1);
-                }
-            }
+        if (debug) {
+            reportLeaks();
+        } else {
+            context = pools.get().remove(type);
         }
 
         if (context == null) {
@@ -150,6 +178,13 @@ public class SeaGlassContext extends SynthContext {
             }
         }
 
+        context.released = false;
+
+        if (debug) {
+            context.checkout = new Checkout(context);
+            checkouts.add(context.checkout);
+        }
+
         context.reset(component, region, style, state);
 
         return context;
@@ -158,18 +193,61 @@ public class SeaGlassContext extends SynthContext {
     /**
      * Release a context for re-use.
      *
-     * @param context the context to release.
+     * @param  context the context to release.
+     *
+     * @throws IllegalStateException if debugging and the context has already
+     *                               been released.
      */
     static void releaseContext(SeaGlassContext context) {
-        synchronized (contextMap) {
-            List instances = (List) contextMap.get(context.getClass());
+        if (context.released) {
+            if (debug) {
+                throw new IllegalStateException("SeaGlassContext disposed twice", context.release);
+            }
+
+            // Pooling it twice would hand it to two callers at once.
+            return;
+        }
+
+        context.released = true;
+
+        if (debug) {
+            context.release = new Throwable("SeaGlassContext first disposed");
+
+            if (context.checkout != null) {
+                checkouts.remove(context.checkout);
+                context.checkout.clear();
+                context.checkout = null;
+            }
+        } else {
+            pools.get().add(context);
+        }
+    }
 
-            if (instances == null) {
-                instances = new ArrayList(5);
-                contextMap.put(context.getClass(), instances);
+    /**
+     * Reports the contexts which have been garbage collected without being
+     * disposed since the last call.
+     */
+    private static void reportLeaks() {
+        Checkout checkout;
+
+        while ((checkout = (Checkout) leaks.poll()) != null) {
+            if (checkouts.remove(checkout)) {
+                checkout.origin.printStackTrace();
             }
+        }
+    }
 
-            instances.add(context);
+    /**
+     * Reads the system property which turns on checking of the contexts.
+     *
+     * @return <code>true</code> if checking is on, <code>false</code>
+     *         otherwise.
+     */
+    private static boolean isDebug() {
+        try {
+            return Boolean.getBoolean(DEBUG_KEY);
+        } catch (SecurityException e) {
+            return false;
         }
     }
 
@@ -288,4 +366,66 @@ public class SeaGlassContext extends SynthContext {
 
         return EMPTY_PAINTER;
     }
+
+    /**
+     * The contexts disposed by one thread. Contexts of the most recently
+     * disposed class are found first, which is nearly always the class
+     * wanted.
+     */
+    private static final class Pool {
+        private final SeaGlassContext[] contexts = new SeaGlassContext[MAX_POOL_SIZE];
+        private int                     size;
+
+        /**
+         * Removes a context of a class from the pool.
+         *
+         * @param  type the class of the context.
+         *
+         * @return the context, or <code>null</code> if the pool has none of
+         *         that class.
+         */
+        SeaGlassContext remove(Class<?> type) {
+            for (int i = size - 1; i >= 0; i--) {
+                SeaGlassContext context = contexts[i];
+
+                if (context.getClass() == type) {
+                    contexts[i]    = contexts[--size];
+                    contexts[size] = null;
+
+                    return context;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Adds a context to the pool, unless the pool is full.
+         *
+         * @param context the context.
+         */
+        void add(SeaGlassContext context) {
+            if (size < contexts.length) {
+                contexts[size++] = context;
+            }
+        }
+    }
+
+    /**
+     * Where a context which has not been disposed was got, while debugging.
+     * The reference is queued if the context is garbage collected first.
+     */
+    private static final class Checkout extends WeakReference<SeaGlassContext> {
+        private final Throwable origin;
+
+        /**
+         * Records where a context was got.
+         *
+         * @param context the context.
+         */
+        Checkout(SeaGlassContext context) {
+            super(context, leaks);
+            origin = new Throwable("SeaGlassContext was never disposed, got at");
+        }
+    }
 }
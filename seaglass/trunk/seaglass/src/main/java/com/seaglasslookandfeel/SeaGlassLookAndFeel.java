@@ -25,9 +25,11 @@ import static java.awt.BorderLayout.SOUTH;
 import static java.awt.BorderLayout.WEST;
 import static java.awt.image.BufferedImage.TYPE_INT_ARGB;
 
+import java.awt.AlphaComposite;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Composite;
 import java.awt.Container;
 import java.awt.Font;
 import java.awt.Graphics;
@@ -55,6 +57,7 @@ import javax.swing.JInternalFrame;
 import javax.swing.JRootPane;
 import javax.swing.JToolBar;
 import javax.swing.LookAndFeel;
+import javax.swing.SwingUtilities;
 import javax.swing.UIDefaults;
 import javax.swing.UIManager;
 import javax.swing.border.BevelBorder;
@@ -74,7 +77,9 @@ import javax.swing.plaf.synth.SynthContext;
 import javax.swing.plaf.synth.SynthLookAndFeel;
 import javax.swing.plaf.synth.SynthStyle;
 import javax.swing.plaf.synth.SynthStyleFactory;
+import javax.swing.plaf.synth.SynthUI;
 
+import sun.swing.DefaultLookup;
 import sun.swing.plaf.GTKKeybindings;
 import sun.swing.plaf.WindowsKeybindings;
 import sun.swing.plaf.synth.DefaultSynthStyle;
@@ -160,7 +165,10 @@ import com.seaglasslookandfeel.state.TitlePaneMaximizeButtonWindowNotFocusedStat
 import com.seaglasslookandfeel.state.TitlePaneMenuButtonWindowNotFocusedState;
 import com.seaglasslookandfeel.state.TitlePaneWindowFocusedState;
 import com.seaglasslookandfeel.state.ToolBarWindowIsActiveState;
+import com.seaglasslookandfeel.ui.SeaGlassRendererUI;
 import com.seaglasslookandfeel.ui.SeaglassUI;
+import com.seaglasslookandfeel.util.ImageCache;
+import com.seaglasslookandfeel.util.ImageCachePolicy;
 import com.seaglasslookandfeel.util.MacKeybindings;
 import com.seaglasslookandfeel.util.PlatformUtils;
 import com.seaglasslookandfeel.util.SeaGlassGraphicsUtils;
@@ -236,12 +244,36 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
     };
     
     
-    /** Refer to setSelectedUI */
+    /**
+     * Refer to setSelectedUI.
+     *
+     * @deprecated the field is shared by all threads. It is still written by
+     *             setSelectedUI and resetSelectedUI on the event dispatch
+     *             thread, but not on the threads painting offscreen, and the
+     *             look and feel no longer reads it. Use
+     *             {@link #isSelectedUI(ComponentUI)} instead.
+     */
+    @Deprecated
     public static ComponentUI selectedUI;
 
-    /** Refer to setSelectedUI */
+    /**
+     * Refer to setSelectedUI.
+     *
+     * @deprecated the field is shared by all threads. It is still written by
+     *             setSelectedUI on the event dispatch thread, but not on the
+     *             threads painting offscreen, and the look and feel no longer
+     *             reads it. Use {@link #getSelectedUIState()} instead.
+     */
+    @Deprecated
     public static int selectedUIState;
 
+    /** The selected UI and its state, for each painting thread. */
+    private static final ThreadLocal<SelectedUI> selectedUIs = new ThreadLocal<SelectedUI>() {
+        protected SelectedUI initialValue() {
+            return new SelectedUI();
+        }
+    };
+
     /**
      * The map of SynthStyles. This map is keyed by Region. Each Region maps to
      * a List of LazyStyles. Each LazyStyle has a reference to the prefix that
@@ -263,6 +295,12 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
 
     private Map<String, Region> registeredRegions = new HashMap<String, Region>();
 
+    /**
+     * The prebuilt index of the registered style prefixes, used while the
+     * styles are registered and then discarded. Null if there is no index.
+     */
+    private StyleIndex styleIndex;
+
     /**
      * Our fallback style to avoid NPEs if the proper style cannot be found in
      * this class. Not sure if relying on DefaultSynthStyle is the best choice.
@@ -277,6 +315,9 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
     
     private UIDefaults uiDefaults = null;
 
+    /** The shared derived colors, kept up to date as the defaults change. */
+    private ColorTree colorTree = new ColorTree();
+
     /**
      * Create a new Sea Glass Look and Feel instance.
      */
@@ -287,7 +328,40 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
          * for later lookup. Additional regions can be registered later by 3rd
          * party components. These are simply the default registrations.
          */
+        styleIndex = StyleIndex.load();
         registerStyles();
+        styleIndex = null;
+    }
+
+    /**
+     * Creates an index of the styles which are currently registered. Used by
+     * the build to generate the index shipped with the look and feel.
+     *
+     * @return the index.
+     */
+    StyleIndex createStyleIndex() {
+        StyleIndex index = new StyleIndex();
+
+        for (List<LazyStyle> styles : styleMap.values()) {
+
+            for (LazyStyle style : styles) {
+                String[] parts = new String[style.parts.length];
+
+                for (int i = 0; i < parts.length; i++) {
+                    LazyStyle.Part part = style.parts[i];
+
+                    parts[i] = part.source;
+
+                    if (!part.named) {
+                        index.putPartClass(part.s, part.c);
+                    }
+                }
+
+                index.putParts(style.prefix, parts);
+            }
+        }
+
+        return index;
     }
 
     /**
@@ -309,6 +383,16 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
     public void initialize() {
         super.initialize();
 
+        // Replace the lookup installed by Synth, which would release our
+        // contexts into its own pool.
+        DefaultLookup.setDefaultLookup(new SeaGlassDefaultLookup());
+
+        // Pick up any image cache limits set before installation.
+        ImageCache.getInstance().setPolicy(ImageCachePolicy.getConfiguredPolicy());
+
+        // Follow colors put into the UIManager's own defaults.
+        UIManager.getDefaults().addPropertyChangeListener(colorTree);
+
         // create synth style factory
         setStyleFactory(new SynthStyleFactory() {
                 @Override
@@ -329,9 +413,16 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
      */
     @Override
     public void uninitialize() {
+        UIManager.getDefaults().removePropertyChangeListener(colorTree);
         removeOurUIs();
         resetDefaultBorders();
         JFrame.setDefaultLookAndFeelDecorated(false);
+
+        // Don't leave our lookup to the next look and feel. DefaultLookup has
+        // no getter for the lookup we replaced, which was Synth's, so install
+        // the default one. Synth look and feels install their own lookup in
+        // initialize(), which is called after this.
+        DefaultLookup.setDefaultLookup(null);
         super.uninitialize();
     }
 
@@ -509,6 +600,9 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
                 // If we're on a Mac, use Aqua for some things.
                 defineAquaSettings(uiDefaults);
             }
+
+            colorTree.addDefaults(uiDefaults);
+            uiDefaults.addPropertyChangeListener(colorTree);
         }
 
         return uiDefaults;
@@ -2825,11 +2919,39 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
         boolean subregion = state.getRegion().isSubregion();
 
         if ((subregion && style.isOpaque(state)) || (!subregion && c.isOpaque())) {
-            g.setColor(style.getColor(state, ColorType.BACKGROUND));
+            Color background = style.getColor(state, ColorType.BACKGROUND);
+
+            // A fully transparent fill under SrcOver changes nothing, but
+            // Java2D still allocates a paint context for every such fill.
+            // Renderers in tables and lists hit this once per cell.
+            if (background != null && background.getAlpha() == 0 && isSrcOver(g)) {
+                return;
+            }
+
+            g.setColor(background);
             g.fillRect(x, y, width, height);
         }
     }
 
+    /**
+     * Returns whether the graphics context composites with plain SrcOver, so
+     * that drawing a fully transparent color leaves the destination unchanged.
+     *
+     * @param  g the Graphics context.
+     *
+     * @return {@code true} if the composite is SrcOver, {@code false}
+     *         otherwise.
+     */
+    private static boolean isSrcOver(Graphics g) {
+        if (!(g instanceof Graphics2D)) {
+            return false;
+        }
+
+        Composite composite = ((Graphics2D) g).getComposite();
+
+        return composite instanceof AlphaComposite && ((AlphaComposite) composite).getRule() == AlphaComposite.SRC_OVER;
+    }
+
     /**
      * Returns true if the Style should be updated in response to the specified
      * PropertyChangeEvent. This forwards to <code>
@@ -2894,10 +3016,20 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
     /**
      * Used by the renderers. For the most part the renderers are implemented as
      * Labels, which is problematic in so far as they are never selected. To
-     * accomodate this SeaGlassLabelUI checks if the current UI matches that of
-     * <code>selectedUI</code> (which this methods sets), if it does, then a
-     * state as set by this method is set in the field {@code selectedUIState}.
-     * This provides a way for labels to have a state other than selected.
+     * accomodate this the renderer passes its UI delegate to this method while
+     * it is configured for a cell, and the delegate paints in the state set
+     * here until {@link #resetSelectedUI(ComponentUI)} is called once the cell
+     * is painted. This provides a way for labels to have a state other than
+     * selected. The state is kept by the delegate, which must implement
+     * {@link SeaGlassRendererUI}, so renderers nested in other renderers or
+     * painted on several threads at once don't disturb each other.
+     *
+     * <p>The delegate and its state are also recorded as the selected UI of
+     * the current thread, for {@link #isSelectedUI(ComponentUI)},
+     * {@link #getSelectedUIState()} and {@link #resetSelectedUI()}, and, on
+     * the event dispatch thread, in the deprecated public fields. A delegate which doesn't implement
+     * {@link SeaGlassRendererUI}, including {@code null}, is only recorded
+     * there: it paints in its component's own state.</p>
      *
      * @param uix      a UI delegate.
      * @param selected is the component selected?
@@ -2906,37 +3038,136 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
      * @param rollover is the component's rollover state enabled?
      */
     public static void setSelectedUI(ComponentUI uix, boolean selected, boolean focused, boolean enabled, boolean rollover) {
-        selectedUI      = uix;
-        selectedUIState = 0;
+        int state = 0;
 
         if (selected) {
-            selectedUIState = SynthConstants.SELECTED;
+            state = SynthConstants.SELECTED;
 
             if (focused) {
-                selectedUIState |= SynthConstants.FOCUSED;
+                state |= SynthConstants.FOCUSED;
             }
         } else if (rollover && enabled) {
-            selectedUIState |= SynthConstants.MOUSE_OVER | SynthConstants.ENABLED;
+            state |= SynthConstants.MOUSE_OVER | SynthConstants.ENABLED;
 
             if (focused) {
-                selectedUIState |= SynthConstants.FOCUSED;
+                state |= SynthConstants.FOCUSED;
             }
         } else {
 
             if (enabled) {
-                selectedUIState |= SynthConstants.ENABLED;
-                selectedUIState = SynthConstants.FOCUSED;
+                state |= SynthConstants.ENABLED;
+                state = SynthConstants.FOCUSED;
             } else {
-                selectedUIState |= SynthConstants.DISABLED;
+                state |= SynthConstants.DISABLED;
             }
         }
+
+        if (uix instanceof SeaGlassRendererUI) {
+            ((SeaGlassRendererUI) uix).setRendererState(state);
+        }
+
+        SelectedUI current = selectedUIs.get();
+
+        current.ui    = uix;
+        current.state = state;
+
+        if (SwingUtilities.isEventDispatchThread()) {
+            selectedUI      = uix;
+            selectedUIState = state;
+        }
+    }
+
+    /**
+     * Clears the state set in setSelectedUI, so that the delegate paints its
+     * component in the component's own state again.
+     *
+     * @param uix a UI delegate.
+     */
+    public static void resetSelectedUI(ComponentUI uix) {
+        if (uix instanceof SeaGlassRendererUI) {
+            ((SeaGlassRendererUI) uix).setRendererState(0);
+        }
+
+        SelectedUI current = selectedUIs.get();
+
+        if (current.ui == uix) {
+            current.ui = null;
+        }
+
+        if (selectedUI == uix && SwingUtilities.isEventDispatchThread()) {
+            selectedUI = null;
+        }
+    }
+
+    /**
+     * Returns whether a UI delegate is the selected UI last set on the
+     * current thread by setSelectedUI and not reset since.
+     *
+     * @param  ui the UI delegate.
+     *
+     * @return <code>true</code> if it is, <code>false</code> otherwise.
+     */
+    public static boolean isSelectedUI(ComponentUI ui) {
+        return ui != null && selectedUIs.get().ui == ui;
+    }
+
+    /**
+     * Returns the state of the selected UI last set on the current thread by
+     * setSelectedUI.
+     *
+     * @return the state.
+     */
+    public static int getSelectedUIState() {
+        return selectedUIs.get().state;
     }
 
     /**
-     * Clears out the selected UI that was last set in setSelectedUI.
+     * Clears out the selected UI that was last set in setSelectedUI on the
+     * current thread.
+     *
+     * @deprecated a renderer nested in another one replaces the selected UI
+     *             of the thread, so this may clear the wrong delegate. Use
+     *             {@link #resetSelectedUI(ComponentUI)} instead.
      */
+    @Deprecated
     public static void resetSelectedUI() {
-        selectedUI = null;
+        resetSelectedUI(selectedUIs.get().ui);
+    }
+
+    /**
+     * The selected UI of a thread, see setSelectedUI.
+     */
+    private static final class SelectedUI {
+        ComponentUI ui;
+        int         state;
+    }
+
+    /**
+     * Looks up the defaults used by the Basic UI delegates in the style of the
+     * component, as Synth's lookup does. Synth's lookup releases the context
+     * into Synth's pool, from which Synth's own UI delegates would later be
+     * handed a SeaGlassContext holding a stale style. This one releases our
+     * contexts into our pool.
+     */
+    private static final class SeaGlassDefaultLookup extends DefaultLookup {
+
+        /**
+         * @see sun.swing.DefaultLookup#getDefault(javax.swing.JComponent, javax.swing.plaf.ComponentUI, java.lang.String)
+         */
+        public Object getDefault(JComponent c, ComponentUI ui, String key) {
+            if (!(ui instanceof SynthUI)) {
+                return super.getDefault(c, ui, key);
+            }
+
+            SynthContext context = ((SynthUI) ui).getContext(c);
+            Object       value   = context.getStyle().get(context, key);
+
+            if (context instanceof SeaGlassContext) {
+                ((SeaGlassContext) context).dispose();
+            }
+
+            return value;
+        }
     }
 
     /**
@@ -3101,13 +3332,20 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
                 temp = temp.substring(temp.lastIndexOf(":\"") + 1);
             }
 
-            // Otherwise, normal code path.
-            List<String> sparts = split(temp);
+            // Otherwise, normal code path. Use the prebuilt split if the
+            // prefix is in the style index.
+            String[] sparts = styleIndex == null ? null : styleIndex.getParts(prefix);
 
-            parts = new Part[sparts.size()];
+            if (sparts == null) {
+                List<String> list = split(temp);
+
+                sparts = list.toArray(new String[list.size()]);
+            }
+
+            parts = new Part[sparts.length];
 
             for (int i = 0; i < parts.length; i++) {
-                parts[i] = new Part(sparts.get(i));
+                parts[i] = new Part(sparts[i]);
 
                 if (parts[i].named) {
                     simple = false;
@@ -3122,7 +3360,7 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
          *
          * @return the style
          */
-        SynthStyle getStyle(JComponent c) {
+        synchronized SynthStyle getStyle(JComponent c) {
             // If the component has overrides, it gets its own unique style
             // instead of the shared style.
             if (c.getClientProperty("SeaGlass.Overrides") != null) {
@@ -3290,6 +3528,9 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
         private final class Part {
             private String  s;
 
+            // the element of the style name this part was created from
+            private String  source;
+
             // true if this part represents a component name
             private boolean named;
             private Class   c;
@@ -3300,10 +3541,25 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
              * @param s the element of the style name representing this part.
              */
             Part(String s) {
-                named = s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"';
+                source = s;
+                named  = s.charAt(0) == '"' && s.charAt(s.length() - 1) == '"';
 
                 if (named) {
                     this.s = s.substring(1, s.length() - 1);
+                } else if (styleIndex != null && styleIndex.containsPart(s)) {
+                    this.s = s;
+
+                    // The style index records which class, if any, the probes
+                    // below found at build time.
+                    String className = styleIndex.getPartClass(s);
+
+                    if (className != null) {
+
+                        try {
+                            c = Class.forName(className);
+                        } catch (Exception e) {
+                        }
+                    }
                 } else {
                     this.s = s;
 
@@ -3425,15 +3681,58 @@ public class SeaGlassLookAndFeel extends SynthLookAndFeel {
                                             float hOffset, float sOffset,
                                             float bOffset, int aOffset,
                                             boolean uiResource) {
-            DerivedColor color;
-            if (uiResource) {
-                color = new DerivedColor.UIResource(parentUin,
+            return colorTree.getColor(parentUin, hOffset, sOffset, bOffset,
+                    aOffset, uiResource);
+        }
+
+        /**
+         * Get a color derived from another color. If the parent is a shared
+         * derived color, the derived color is shared too and will be updated
+         * when the parent changes, otherwise it is fixed.
+         *
+         * @param parentColor The parent color
+         * @param hOffset The hue offset
+         * @param sOffset The saturation offset
+         * @param bOffset The brightness offset
+         * @param aOffset The alpha offset
+         * @return The derived color
+         */
+        public Color getDerivedColor(Color parentColor,
+                                     float hOffset, float sOffset,
+                                     float bOffset, int aOffset) {
+            if (parentColor instanceof DerivedColor) {
+                return colorTree.getColor((DerivedColor) parentColor,
                         hOffset, sOffset, bOffset, aOffset);
-            } else {
-                color = new DerivedColor(parentUin, hOffset, sOffset,
-                    bOffset, aOffset);
             }
-            return color;
+            return new Color(DerivedColor.deriveARGB(parentColor,
+                    hOffset, sOffset, bOffset, aOffset), true);
+        }
+
+        /**
+         * Records that the images an owner caches in the
+         * {@link ImageCache} are painted with a color, so that they are
+         * removed from the cache when the color changes. Does nothing unless
+         * the color is a shared derived color.
+         *
+         * @param color The color
+         * @param owner The owner of the cached images, usually a painter
+         */
+        public void addDerivedColorUser(Color color, Object owner) {
+            if (color instanceof DerivedColor) {
+                ((DerivedColor) color).addUser(owner);
+            }
+        }
+
+        /**
+         * Returns a number which changes whenever a shared derived color
+         * changes, so that UI delegates which render colors into images of
+         * their own, outside the {@link ImageCache}, can tell when the images
+         * are stale.
+         *
+         * @return The generation of the derived colors
+         */
+        public static int getDerivedColorGeneration() {
+            return ColorTree.getGeneration();
         }
 
         /**
@@ -32,13 +32,17 @@ import java.awt.Font;
 import java.awt.Insets;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.swing.JComponent;
 import javax.swing.UIDefaults;
@@ -56,6 +60,7 @@ import sun.awt.AppContext;
 import com.seaglasslookandfeel.component.SeaGlassBorder;
 import com.seaglasslookandfeel.painter.SeaGlassPainter;
 import com.seaglasslookandfeel.state.State;
+import com.seaglasslookandfeel.state.StateCache;
 import com.seaglasslookandfeel.ui.SeaglassUI;
 import com.seaglasslookandfeel.util.SeaGlassGraphicsUtils;
 
@@ -184,6 +189,12 @@ public class SeaGlassStyle extends SynthStyle {
      */
     private static final Object NULL = '\0';
 
+    /**
+     * Guards the compiled defaults and the registry of styles stored in the
+     * app context, and the parsing of the values of each style.
+     */
+    private static final Object DEFAULTS_LOCK = new Object();
+
     /**
      * Simple Comparator for ordering the RuntimeStates according to their rank.
      */
@@ -193,8 +204,17 @@ public class SeaGlassStyle extends SynthStyle {
         }
     };
 
-    /** Shared SynthGraphics. */
-    private static final SynthGraphicsUtils SEAGLASS_GRAPHICS = new SeaGlassGraphicsUtils();
+    /** Index of the background painters in Values.painters. */
+    private static final int BACKGROUND_PAINTER = 0;
+
+    /** Index of the foreground painters in Values.painters. */
+    private static final int FOREGROUND_PAINTER = 1;
+
+    /** Index of the border painters in Values.painters. */
+    private static final int BORDER_PAINTER = 2;
+
+    /** The property names of the painters, by index. */
+    private static final String[] PAINTER_KEYS = { "backgroundPainter", "foregroundPainter", "borderPainter" };
 
     /**
      * <p>The Color to return from getColorForState if it would otherwise have
@@ -230,15 +250,10 @@ public class SeaGlassStyle extends SynthStyle {
      * values associated with this style. This instance refers to default
      * values, and are used when no overrides are discovered in the client
      * properties of a component. These values are lazily created on first
-     * access.
-     */
-    private Values values;
-
-    /**
-     * A temporary CacheKey used to perform lookups. This pattern avoids
-     * creating useless garbage keys, or concatenating strings, etc.
+     * access, and are only published once they are complete, so that a style
+     * may be used from several threads.
      */
-    private CacheKey tmpKey = new CacheKey("", 0);
+    private volatile Values values;
 
     /**
      * Some SeaGlassStyles are created for a specific component only. In
@@ -248,6 +263,12 @@ public class SeaGlassStyle extends SynthStyle {
      */
     private JComponent component;
 
+    /**
+     * Whether this style has been added to the registry of styles, which is
+     * used to invalidate the styles for a prefix when its defaults change.
+     */
+    private boolean registered;
+
     /**
      * Create a new SeaGlassStyle. Only the prefix must be supplied. At the
      * appropriate time, installDefaults will be called. At that point, all of
@@ -276,7 +297,7 @@ public class SeaGlassStyle extends SynthStyle {
      * @return SynthGraphicsUtils
      */
     public SynthGraphicsUtils getGraphicsUtils(SynthContext context) {
-        return SEAGLASS_GRAPHICS;
+        return SeaGlassGraphicsUtils.getInstance();
     }
 
     /**
@@ -350,8 +371,18 @@ public class SeaGlassStyle extends SynthStyle {
      * uninstalled. Performs general cleanup of any app-context specific data.
      */
     static void uninitialize() {
-        // get the appcontext that we've stored data in
-        AppContext ctx = AppContext.getAppContext();
+        synchronized (DEFAULTS_LOCK) {
+            uninitialize(AppContext.getAppContext());
+        }
+    }
+
+    /**
+     * Removes the listener and the data stored in the given app context. Must
+     * be called with {@link #DEFAULTS_LOCK} held.
+     *
+     * @param ctx the app context.
+     */
+    private static void uninitialize(AppContext ctx) {
 
         // get the pcl stored in app context
         PropertyChangeListener pcl = (PropertyChangeListener) ctx.get("SeaGlassStyle.defaults.pcl");
@@ -362,25 +393,52 @@ public class SeaGlassStyle extends SynthStyle {
             UIManager.getLookAndFeelDefaults().removePropertyChangeListener(pcl);
         }
 
-        // clear out the compiled defaults
+        // clear out the compiled defaults and the registry of styles
         ctx.put("SeaGlassStyle.defaults", null);
+        ctx.put("SeaGlassStyle.styles", null);
     }
 
     /**
      * Pulls data out of UIDefaults, if it has not done so already, and sets up
      * the internal state.
+     *
+     * @return the values of this style.
      */
-    private void validate() {
+    private Values validate() {
         // a non-null values object is the flag we use to determine whether
         // to reparse from UIManager.
-        if (values != null)
-            return;
+        Values v = values;
+
+        if (v != null) {
+            return v;
+        }
+
+        // the compiled defaults and the registry of styles are shared by every
+        // style, so they are only touched with the lock held.
+        synchronized (DEFAULTS_LOCK) {
+            v = values;
+
+            if (v == null) {
+                v      = parseValues();
+                values = v;
+            }
+
+            return v;
+        }
+    }
 
+    /**
+     * Parses the defaults for this style into a new Values object. Must be
+     * called with {@link #DEFAULTS_LOCK} held.
+     *
+     * @return the values.
+     */
+    private Values parseValues() {
         // reconstruct this SeaGlassStyle based on the entries in the UIManager
         // and possibly based on any overrides within the component's
         // client properties (assuming such a component exists and contains
         // any SeaGlass.Overrides)
-        values = new Values();
+        Values v = new Values();
 
         // the profiler revealed that a great deal of CPU time and useless
         // garbage was being produced by this method and the init method. One
@@ -394,7 +452,7 @@ public class SeaGlassStyle extends SynthStyle {
 
         // fetch the defaults from the app context. If null, then create and
         // store the compiled defaults
-        Map<String, TreeMap<String, Object>> compiledDefaults = (Map<String, TreeMap<String, Object>>) ctx.get("SeaGlassStyle.defaults");
+        Map<String, TreeMap<String, Object>> compiledDefaults = getCompiledDefaults(ctx);
 
         if (compiledDefaults == null) {
 
@@ -473,6 +531,10 @@ public class SeaGlassStyle extends SynthStyle {
                 }
 
                 if (inherit) {
+
+                    // copy the compiled defaults, which are shared by all
+                    // the styles with this prefix, before adding to them.
+                    defaults = new TreeMap<String, Object>(defaults);
                     defaults.putAll(map);
                 } else {
                     defaults = map;
@@ -483,7 +545,108 @@ public class SeaGlassStyle extends SynthStyle {
         // Now that I've accumulated all the defaults pertaining to this
         // style, call init which will read these defaults and configure
         // the default "values".
-        init(values, defaults);
+        init(v, defaults);
+
+        if (!registered) {
+            registerStyle(ctx, this);
+            registered = true;
+        }
+
+        return v;
+    }
+
+    /**
+     * Returns the compiled defaults stored in an AppContext.
+     *
+     * @param  ctx the AppContext.
+     *
+     * @return the compiled defaults, or null if they have not been compiled.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, TreeMap<String, Object>> getCompiledDefaults(AppContext ctx) {
+        return (Map<String, TreeMap<String, Object>>) ctx.get("SeaGlassStyle.defaults");
+    }
+
+    /**
+     * Returns the registry of live styles stored in an AppContext.
+     *
+     * @param  ctx the AppContext.
+     *
+     * @return the styles by prefix, or null if no style has been registered.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<WeakReference<SeaGlassStyle>>> getStyleRegistry(AppContext ctx) {
+        return (Map<String, List<WeakReference<SeaGlassStyle>>>) ctx.get("SeaGlassStyle.styles");
+    }
+
+    /**
+     * Adds a style to the registry of styles for its prefix, so that it can be
+     * invalidated when the defaults for that prefix change.
+     *
+     * @param ctx   the AppContext in which the registry is stored.
+     * @param style the style.
+     */
+    private static void registerStyle(AppContext ctx, SeaGlassStyle style) {
+        Map<String, List<WeakReference<SeaGlassStyle>>> styles = getStyleRegistry(ctx);
+
+        if (styles == null) {
+            styles = new HashMap<String, List<WeakReference<SeaGlassStyle>>>();
+            ctx.put("SeaGlassStyle.styles", styles);
+        }
+
+        List<WeakReference<SeaGlassStyle>> list = styles.get(style.prefix);
+
+        if (list == null) {
+            list = new ArrayList<WeakReference<SeaGlassStyle>>(1);
+            styles.put(style.prefix, list);
+        } else {
+
+            // drop the styles which have been collected
+            for (Iterator<WeakReference<SeaGlassStyle>> i = list.iterator(); i.hasNext();) {
+
+                if (i.next().get() == null) {
+                    i.remove();
+                }
+            }
+        }
+
+        list.add(new WeakReference<SeaGlassStyle>(style));
+    }
+
+    /**
+     * Invalidates the registered styles after a UIDefaults key has changed.
+     * The styles for the key's prefix, or every style if the key is null, are
+     * reparsed when next used. Every other style only forgets any value it has
+     * cached under the key itself, since that may have come from UIManager.
+     *
+     * @param ctx    the AppContext in which the registry is stored.
+     * @param prefix the prefix of the changed key, or null if it has none.
+     * @param key    the changed key, or null if any key may have changed.
+     */
+    private static void invalidateStyles(AppContext ctx, String prefix, Object key) {
+        Map<String, List<WeakReference<SeaGlassStyle>>> styles = getStyleRegistry(ctx);
+
+        if (styles == null) {
+            return;
+        }
+
+        for (Map.Entry<String, List<WeakReference<SeaGlassStyle>>> entry : styles.entrySet()) {
+            boolean reparse = key == null || entry.getKey().equals(prefix);
+
+            for (WeakReference<SeaGlassStyle> ref : entry.getValue()) {
+                SeaGlassStyle style = ref.get();
+
+                if (style == null || style.values == null) {
+                    continue;
+                }
+
+                if (reparse) {
+                    style.values = null;
+                } else {
+                    style.values.cache.remove(key);
+                }
+            }
+        }
     }
 
     /**
@@ -579,6 +742,18 @@ public class SeaGlassStyle extends SynthStyle {
                 v.stateTypes = states.toArray(new State[states.size()]);
             }
 
+            // note which custom states may be cached per component
+            int mask = 1;
+
+            for (State<?> state : states) {
+
+                if (StateCache.isCacheable(state)) {
+                    v.cacheableStates |= mask;
+                }
+
+                mask <<= 1;
+            }
+
             // assign codes for each of the state types
             int code = 1;
 
@@ -987,21 +1162,28 @@ public class SeaGlassStyle extends SynthStyle {
      */
     @Override
     public Object get(SynthContext ctx, Object key) {
-        Values v = getValues(ctx);
+        Values v      = getValues(ctx);
+        int    xstate = getExtendedState(ctx, v);
 
-        // strip off the prefix, if there is one.
-        String fullKey    = key.toString();
-        String partialKey = fullKey.substring(fullKey.indexOf(".") + 1);
+        // check the cache. The table for each key is indexed by the extended
+        // state, so a hit costs one hash lookup on the key and one probe.
+        StateTable table = v.cache.get(key);
 
-        Object obj    = null;
-        int    xstate = getExtendedState(ctx, v);
+        if (table == null) {
+            StateTable other = v.cache.putIfAbsent(key, table = new StateTable());
 
-        // check the cache
-        tmpKey.init(partialKey, xstate);
-        obj = v.cache.get(tmpKey);
-        boolean wasInCache = obj != null;
+            if (other != null) {
+                table = other;
+            }
+        }
+
+        Object obj = table.get(xstate);
+
+        if (obj == null) {
 
-        if (!wasInCache) {
+            // strip off the prefix, if there is one.
+            String fullKey    = key.toString();
+            String partialKey = fullKey.substring(fullKey.indexOf(".") + 1);
 
             // Search exact matching states and then lesser matching states
             RuntimeState s         = null;
@@ -1027,7 +1209,11 @@ public class SeaGlassStyle extends SynthStyle {
             }
 
             // if all we got was a null, store this fact for later use
-            v.cache.put(new CacheKey(partialKey, xstate), obj == null ? NULL : obj);
+            if (obj == null) {
+                obj = NULL;
+            }
+
+            table.put(xstate, obj);
         }
 
         // return found object
@@ -1045,38 +1231,7 @@ public class SeaGlassStyle extends SynthStyle {
      *         none could be found.
      */
     public SeaGlassPainter getBackgroundPainter(SynthContext ctx) {
-        Values  v      = getValues(ctx);
-        int     xstate = getExtendedState(ctx, v);
-        SeaGlassPainter p      = null;
-
-        // check the cache
-        tmpKey.init("backgroundPainter$$instance", xstate);
-        p = (SeaGlassPainter) v.cache.get(tmpKey);
-
-        if (p != null)
-            return p;
-
-        // not in cache, so lookup and store in cache
-        RuntimeState s         = null;
-        int[]        lastIndex = new int[] { -1 };
-
-        while ((s = getNextState(v.states, lastIndex, xstate)) != null) {
-
-            if (s.backgroundPainter != null) {
-                p = s.backgroundPainter;
-
-                break;
-            }
-        }
-
-        if (p == null)
-            p = (SeaGlassPainter) get(ctx, "backgroundPainter");
-
-        if (p != null) {
-            v.cache.put(new CacheKey("backgroundPainter$$instance", xstate), p);
-        }
-
-        return p;
+        return getPainter(ctx, BACKGROUND_PAINTER);
     }
 
     /**
@@ -1090,38 +1245,7 @@ public class SeaGlassStyle extends SynthStyle {
      *         none could be found.
      */
     public SeaGlassPainter getForegroundPainter(SynthContext ctx) {
-        Values  v      = getValues(ctx);
-        int     xstate = getExtendedState(ctx, v);
-        SeaGlassPainter p      = null;
-
-        // check the cache
-        tmpKey.init("foregroundPainter$$instance", xstate);
-        p = (SeaGlassPainter) v.cache.get(tmpKey);
-
-        if (p != null)
-            return p;
-
-        // not in cache, so lookup and store in cache
-        RuntimeState s         = null;
-        int[]        lastIndex = new int[] { -1 };
-
-        while ((s = getNextState(v.states, lastIndex, xstate)) != null) {
-
-            if (s.foregroundPainter != null) {
-                p = s.foregroundPainter;
-
-                break;
-            }
-        }
-
-        if (p == null)
-            p = (SeaGlassPainter) get(ctx, "foregroundPainter");
-
-        if (p != null) {
-            v.cache.put(new CacheKey("foregroundPainter$$instance", xstate), p);
-        }
-
-        return p;
+        return getPainter(ctx, FOREGROUND_PAINTER);
     }
 
     /**
@@ -1135,38 +1259,53 @@ public class SeaGlassStyle extends SynthStyle {
      *         none could be found.
      */
     public SeaGlassPainter getBorderPainter(SynthContext ctx) {
-        Values  v      = getValues(ctx);
-        int     xstate = getExtendedState(ctx, v);
-        SeaGlassPainter p      = null;
-
-        // check the cache
-        tmpKey.init("borderPainter$$instance", xstate);
-        p = (SeaGlassPainter) v.cache.get(tmpKey);
+        return getPainter(ctx, BORDER_PAINTER);
+    }
 
-        if (p != null)
-            return p;
+    /**
+     * Gets the painter of the given type for the state specified in the given
+     * SynthContext. The result, including the absence of a painter, is
+     * memoized per extended state, so that once the extended state is known
+     * resolving the painter is a single table probe.
+     *
+     * @param  ctx  The SynthContext. Must not be null.
+     * @param  type one of BACKGROUND_PAINTER, FOREGROUND_PAINTER, or
+     *              BORDER_PAINTER.
+     *
+     * @return The painter associated for the given state, or null if none could
+     *         be found.
+     */
+    private SeaGlassPainter getPainter(SynthContext ctx, int type) {
+        Values     v      = getValues(ctx);
+        int        xstate = getExtendedState(ctx, v);
+        StateTable table  = v.painters[type];
+        Object     p      = table.get(xstate);
 
-        // not in cache, so lookup and store in cache
-        RuntimeState s         = null;
-        int[]        lastIndex = new int[] { -1 };
+        if (p == null) {
 
-        while ((s = getNextState(v.states, lastIndex, xstate)) != null) {
+            // not in cache, so lookup and store in cache
+            RuntimeState s         = null;
+            int[]        lastIndex = new int[] { -1 };
 
-            if (s.borderPainter != null) {
-                p = s.borderPainter;
+            while ((s = getNextState(v.states, lastIndex, xstate)) != null) {
+                p = s.getPainter(type);
 
-                break;
+                if (p != null) {
+                    break;
+                }
             }
-        }
 
-        if (p == null)
-            p = (SeaGlassPainter) get(ctx, "borderPainter");
+            if (p == null)
+                p = get(ctx, PAINTER_KEYS[type]);
+
+            if (!(p instanceof SeaGlassPainter)) {
+                p = NULL;
+            }
 
-        if (p != null) {
-            v.cache.put(new CacheKey("borderPainter$$instance", xstate), p);
+            table.put(xstate, p);
         }
 
-        return p;
+        return p == NULL ? null : (SeaGlassPainter) p;
     }
 
     /**
@@ -1179,9 +1318,7 @@ public class SeaGlassStyle extends SynthStyle {
      * @return a non-null values reference
      */
     private Values getValues(SynthContext ctx) {
-        validate();
-
-        return values;
+        return validate();
     }
 
     /**
@@ -1280,12 +1417,18 @@ public class SeaGlassStyle extends SynthStyle {
                 return ctx.getComponentState();
 
             // there are custom states on this values, so I'll have to iterate
-            // over them all and return a custom extended state
+            // over them all and return a custom extended state. The cacheable
+            // custom states are taken from the StateCache, and only the
+            // remaining states are evaluated.
             int state = ctx.getComponentState();
 
+            if (v.cacheableStates != 0) {
+                xstate = StateCache.getStates(c, v, v.stateTypes, v.cacheableStates);
+            }
+
             for (State s : v.stateTypes) {
 
-                if (s.isInState(c, state)) {
+                if ((v.cacheableStates & mask) == 0 && s.isInState(c, state)) {
                     xstate |= mask;
                 }
 
@@ -1457,6 +1600,28 @@ public class SeaGlassStyle extends SynthStyle {
             return stateName;
         }
 
+        /**
+         * Returns the painter of the given type.
+         *
+         * @param  type one of BACKGROUND_PAINTER, FOREGROUND_PAINTER, or
+         *              BORDER_PAINTER.
+         *
+         * @return the painter, or {@code null} if there is none for this state.
+         */
+        SeaGlassPainter getPainter(int type) {
+            switch (type) {
+
+            case BACKGROUND_PAINTER:
+                return backgroundPainter;
+
+            case FOREGROUND_PAINTER:
+                return foregroundPainter;
+
+            default:
+                return borderPainter;
+            }
+        }
+
         /**
          * @see java.lang.Object#clone()
          */
@@ -1500,82 +1665,145 @@ public class SeaGlassStyle extends SynthStyle {
         /** Defaults on the region/component level. */
         UIDefaults defaults = new UIDefaults(10, .7f);
 
+        /**
+         * The bits of the extended state which belong to custom states whose
+         * results may be cached per component.
+         */
+        int cacheableStates = 0;
+
         /**
          * Simple cache. After a value has been looked up, it is stored in this
-         * cache for later retrieval. The key is a concatenation of the property
-         * being looked up, two dollar signs, and the extended state. So for
-         * example:
-         *
-         * <p>foo.bar$$2353</p>
+         * cache for later retrieval. The key is the key passed to get, and the
+         * value is a table of the values found for each extended state.
+         */
+        ConcurrentMap<Object, StateTable> cache = new ConcurrentHashMap<Object, StateTable>();
+
+        /**
+         * The painters found for each extended state, indexed by painter type.
          */
-        Map<CacheKey, Object> cache = new HashMap<CacheKey, Object>();
+        StateTable[] painters = { new StateTable(), new StateTable(), new StateTable() };
     }
 
     /**
-     * This implementation presupposes that key is never null and that the two
-     * keys being checked for equality are never null
+     * A small open addressing hash table from extended states to values. It is
+     * used to memoize lookups by extended state without allocating a key for
+     * each lookup. Values must not be null, use NULL to record the absence of
+     * a value.
+     *
+     * <p>Lookups don't lock, so that a style may be used from several threads.
+     * The table is copied on each store, which happens at most once for each
+     * extended state, and the copy is published whole.</p>
      */
-    private static final class CacheKey {
-        private String key;
-        private int    xstate;
+    private static final class StateTable {
+        private volatile Slots slots = new Slots(8);
 
         /**
-         * Creates a new CacheKey object.
+         * Returns the value stored for the given extended state.
          *
-         * @param key    the key.
-         * @param xstate the extended state.
+         * @param  xstate the extended state.
+         *
+         * @return the value, or {@code null} if none has been stored.
          */
-        CacheKey(Object key, int xstate) {
-            init(key, xstate);
+        Object get(int xstate) {
+            Slots s    = slots;
+            int   mask = s.values.length - 1;
+
+            for (int i = hash(xstate) & mask;; i = (i + 1) & mask) {
+                Object value = s.values[i];
+
+                if (value == null || s.xstates[i] == xstate) {
+                    return value;
+                }
+            }
         }
 
         /**
-         * Initialize the CacheKey object with its values.
+         * Stores the value for the given extended state.
          *
-         * @param key    the key.
          * @param xstate the extended state.
+         * @param value  the value, which must not be null.
          */
-        void init(Object key, int xstate) {
-            this.key    = key.toString();
-            this.xstate = xstate;
+        synchronized void put(int xstate, Object value) {
+            Slots old = slots;
+
+            // keep the table at most half full, so probes stay short and
+            // always reach an empty slot.
+            Slots copy = new Slots((old.size + 1) * 2 > old.values.length ? old.values.length * 2 : old.values.length);
+
+            for (int i = 0; i < old.values.length; i++) {
+
+                if (old.values[i] != null) {
+                    copy.insert(old.xstates[i], old.values[i]);
+                }
+            }
+
+            copy.insert(xstate, value);
+            slots = copy;
         }
 
         /**
-         * @see java.lang.Object#equals(java.lang.Object)
+         * Spreads the bits of the extended state, which are mostly low order
+         * bits, across the table.
+         *
+         * @param  xstate the extended state.
+         *
+         * @return the hash.
          */
-        @Override
-        public boolean equals(Object obj) {
-            final CacheKey other = (CacheKey) obj;
-
-            if (obj == null)
-                return false;
+        private static int hash(int xstate) {
+            int h = xstate * 0x9E3779B9;
 
-            if (this.xstate != other.xstate)
-                return false;
+            return h ^ (h >>> 16);
+        }
+    }
 
-            if (!this.key.equals(other.key))
-                return false;
+    /**
+     * The arrays of a StateTable. They are only modified before being
+     * published.
+     */
+    private static final class Slots {
+        final int[]    xstates;
+        final Object[] values;
+        int            size;
 
-            return true;
+        /**
+         * Creates empty arrays.
+         *
+         * @param capacity the length of the arrays, a power of two.
+         */
+        Slots(int capacity) {
+            xstates = new int[capacity];
+            values  = new Object[capacity];
         }
 
         /**
-         * @see java.lang.Object#hashCode()
+         * Stores the value for the given extended state, assuming there is room.
+         *
+         * @param xstate the extended state.
+         * @param value  the value.
          */
-        @Override
-        public int hashCode() {
-            int hash = 3;
+        void insert(int xstate, Object value) {
+            int mask = values.length - 1;
+            int i    = StateTable.hash(xstate) & mask;
+
+            while (values[i] != null && xstates[i] != xstate) {
+                i = (i + 1) & mask;
+            }
 
-            hash = 29 * hash + this.key.hashCode();
-            hash = 29 * hash + this.xstate;
+            if (values[i] == null) {
+                size++;
+            }
 
-            return hash;
+            xstates[i] = xstate;
+            values[i]  = value;
         }
     }
 
     /**
-     * This listener is used to listen to the UIDefaults tables and clear out
-     * the cached-precompiled map of defaults in that case.
+     * This listener is used to listen to the UIDefaults tables and update the
+     * cached-precompiled map of defaults when they change. A change to a single
+     * key only updates the entry for that key in its prefix's map and
+     * invalidates the styles for that prefix. Any other change clears out the
+     * whole map, and every style.
      */
     private static final class DefaultsListener implements PropertyChangeListener {
 
@@ -1583,7 +1811,91 @@ public class SeaGlassStyle extends SynthStyle {
          * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
          */
         public void propertyChange(PropertyChangeEvent evt) {
-            AppContext.getAppContext().put("SeaGlassStyle.defaults", null);
+            StateCache.invalidateGlobalDependencies();
+
+            synchronized (DEFAULTS_LOCK) {
+                update(AppContext.getAppContext(), evt);
+            }
+        }
+
+        /**
+         * Updates the compiled defaults and invalidates the styles after a
+         * change to the UIDefaults. Must be called with {@link #DEFAULTS_LOCK}
+         * held.
+         *
+         * @param ctx the app context.
+         * @param evt the event describing the change.
+         */
+        private void update(AppContext ctx, PropertyChangeEvent evt) {
+            String key = evt.getPropertyName();
+
+            // UIDefaults.putDefaults fires a single "UIDefaults" event for
+            // all of its keys.
+            if (key == null || "UIDefaults".equals(key)) {
+                ctx.put("SeaGlassStyle.defaults", null);
+                invalidateStyles(ctx, null, null);
+
+                return;
+            }
+
+            String                               prefix           = parsePrefix(key);
+            Map<String, TreeMap<String, Object>> compiledDefaults = getCompiledDefaults(ctx);
+
+            if (prefix != null && compiledDefaults != null) {
+                updateCompiledDefaults(compiledDefaults, prefix, key, evt);
+            }
+
+            invalidateStyles(ctx, prefix, key);
+        }
+
+        /**
+         * Updates the entry for a changed key in the compiled defaults. The
+         * compiled defaults are built from UIManager.getDefaults() and then
+         * UIManager.getLookAndFeelDefaults(), so a value in the look and feel
+         * defaults takes precedence.
+         *
+         * @param compiledDefaults the compiled defaults.
+         * @param prefix           the prefix of the changed key.
+         * @param key              the changed key.
+         * @param evt              the event describing the change.
+         */
+        private void updateCompiledDefaults(Map<String, TreeMap<String, Object>> compiledDefaults, String prefix, String key,
+                PropertyChangeEvent evt) {
+            UIDefaults lafDefaults = UIManager.getLookAndFeelDefaults();
+            Object     value;
+
+            // the look and feel defaults are a UIWrapper, which delegates its
+            // listeners, so their events come from the wrapped table.
+            if (evt.getSource() != UIManager.getDefaults()) {
+                value = evt.getNewValue();
+
+                if (value == null) {
+                    value = UIManager.getDefaults().get(key);
+                }
+            } else if (lafDefaults.containsKey(key)) {
+
+                // the look and feel value still wins, nothing to update.
+                return;
+            } else {
+                value = evt.getNewValue();
+            }
+
+            TreeMap<String, Object> map = compiledDefaults.get(prefix);
+
+            if (value == null) {
+
+                if (map != null) {
+                    map.remove(key);
+                }
+            } else {
+
+                if (map == null) {
+                    map = new TreeMap<String, Object>();
+                    compiledDefaults.put(prefix, map);
+                }
+
+                map.put(key, value);
+            }
         }
     }
 }
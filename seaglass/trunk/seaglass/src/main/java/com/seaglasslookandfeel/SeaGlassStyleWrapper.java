@@ -49,9 +49,6 @@ import com.seaglasslookandfeel.util.SeaGlassGraphicsUtils;
  */
 public final class SeaGlassStyleWrapper extends SeaGlassStyle {
 
-    /** Shared SynthGraphics. */
-    private static final SynthGraphicsUtils SEAGLASS_GRAPHICS = new SeaGlassGraphicsUtils();
-
     /**
      * The SynthPainter that will be returned from this SeaGlassStyle. The
      * SynthPainter returned will be a SeaGlassSynthPainterImpl, which will in
@@ -86,7 +83,7 @@ public final class SeaGlassStyleWrapper extends SeaGlassStyle {
      * @return SynthGraphicsUtils
      */
     public SynthGraphicsUtils getGraphicsUtils(SynthContext context) {
-        return SEAGLASS_GRAPHICS;
+        return SeaGlassGraphicsUtils.getInstance();
     }
 
     /**
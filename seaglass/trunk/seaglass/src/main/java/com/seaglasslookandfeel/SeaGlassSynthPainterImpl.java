@@ -35,6 +35,7 @@ import javax.swing.plaf.synth.SynthContext;
 import javax.swing.plaf.synth.SynthPainter;
 
 import com.seaglasslookandfeel.painter.SeaGlassPainter;
+import com.seaglasslookandfeel.util.PaintInstrumentation;
 
 /**
  * SeaGlassSynthPainterImpl.
@@ -73,6 +74,9 @@ public class SeaGlassSynthPainterImpl extends SynthPainter {
      */
     private void paint(SeaGlassPainter p, SynthContext ctx, Graphics g, int x, int y, int w, int h, AffineTransform transform) {
         if (p != null) {
+            boolean instrumented = PaintInstrumentation.isEnabled();
+            long    bytes        = instrumented ? PaintInstrumentation.getAllocatedBytes() : 0;
+            long    start        = instrumented ? System.nanoTime() : 0;
 
             if (g instanceof Graphics2D) {
                 Graphics2D gfx = (Graphics2D) g;
@@ -113,6 +117,11 @@ public class SeaGlassSynthPainterImpl extends SynthPainter {
                 g.drawImage(img, x, y, null);
                 img = null;
             }
+
+            if (instrumented) {
+                PaintInstrumentation.record("Synth[" + ctx.getRegion().getName() + "]", System.nanoTime() - start, bytes,
+                                            PaintInstrumentation.RENDER_UNKNOWN);
+            }
         }
     }
 
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A prebuilt index of the style prefixes registered by SeaGlassLookAndFeel.
+ * For each prefix it holds the split of the prefix into its parts, and for
+ * each unnamed part the name of the class it resolves to, if any.
+ *
+ * <p>Without the index, registering the styles splits every prefix and probes
+ * for the class of every part with up to two calls to Class.forName, most of
+ * which fail with an exception. The index is generated at build time by
+ * running this class's main method against the compiled classes, and is
+ * shipped in the jar next to this class. Prefixes and parts which are not in
+ * the index, such as those registered by third party components, are
+ * resolved the usual way.</p>
+ *
+ * <p>The class is only public so that the build can run its main method. The
+ * index is not loaded if the system property
+ * {@code SeaGlass.StyleIndex.disabled} is {@code true}, or if the resource
+ * is missing or cannot be read.</p>
+ */
+public final class StyleIndex {
+
+    /** The name of the index resource, relative to this class. */
+    static final String RESOURCE = "style-index.bin";
+
+    /** The system property which disables the index. */
+    static final String DISABLED_KEY = "SeaGlass.StyleIndex.disabled";
+
+    private static final int MAGIC   = 0x53474958;
+    private static final int VERSION = 1;
+
+    /** The parts of each prefix. */
+    private final Map<String, String[]> prefixParts;
+
+    /** The resolved class name of each unnamed part, or "" if none. */
+    private final Map<String, String> partClasses;
+
+    /**
+     * Creates a new, empty StyleIndex object.
+     */
+    StyleIndex() {
+        this.prefixParts = new LinkedHashMap<String, String[]>();
+        this.partClasses = new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * Loads the index shipped with the look and feel.
+     *
+     * @return the index, or {@code null} if it is disabled, missing, or can't
+     *         be read.
+     */
+    static StyleIndex load() {
+        try {
+            if (Boolean.getBoolean(DISABLED_KEY)) {
+                return null;
+            }
+        } catch (SecurityException e) {
+            // Use the index.
+        }
+
+        InputStream in = StyleIndex.class.getResourceAsStream(RESOURCE);
+
+        if (in == null) {
+            return null;
+        }
+
+        try {
+            return read(in);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                // Nothing to do.
+            }
+        }
+    }
+
+    /**
+     * Returns the parts of the given prefix.
+     *
+     * @param  prefix the style prefix.
+     *
+     * @return the parts, or {@code null} if the prefix is not in the index.
+     */
+    String[] getParts(String prefix) {
+        return prefixParts.get(prefix);
+    }
+
+    /**
+     * Returns whether the class resolution of the given part is in the index.
+     *
+     * @param  part an unnamed part of a style prefix.
+     *
+     * @return {@code true} if the index contains the part, {@code false}
+     *         otherwise.
+     */
+    boolean containsPart(String part) {
+        return partClasses.containsKey(part);
+    }
+
+    /**
+     * Returns the name of the class the given part resolves to.
+     *
+     * @param  part an unnamed part of a style prefix.
+     *
+     * @return the class name, or {@code null} if the part doesn't resolve to a
+     *         class or is not in the index.
+     */
+    String getPartClass(String part) {
+        String className = partClasses.get(part);
+
+        return className == null || className.length() == 0 ? null : className;
+    }
+
+    /**
+     * Adds a prefix and its parts to the index.
+     *
+     * @param prefix the style prefix.
+     * @param parts  the parts.
+     */
+    void putParts(String prefix, String[] parts) {
+        prefixParts.put(prefix, parts.clone());
+    }
+
+    /**
+     * Adds the class resolution of an unnamed part to the index.
+     *
+     * @param part  the part.
+     * @param clazz the class it resolves to, or {@code null} if none.
+     */
+    void putPartClass(String part, Class<?> clazz) {
+        partClasses.put(part, clazz == null ? "" : clazz.getName());
+    }
+
+    /**
+     * Writes the index. The entries are written in sorted order, so that the
+     * same styles always give the same file.
+     *
+     * @param  out the stream to write to.
+     *
+     * @throws IOException if the index can't be written.
+     */
+    void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+
+        data.writeInt(prefixParts.size());
+
+        for (Map.Entry<String, String[]> entry : new TreeMap<String, String[]>(prefixParts).entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeInt(entry.getValue().length);
+
+            for (String part : entry.getValue()) {
+                data.writeUTF(part);
+            }
+        }
+
+        data.writeInt(partClasses.size());
+
+        for (Map.Entry<String, String> entry : new TreeMap<String, String>(partClasses).entrySet()) {
+            data.writeUTF(entry.getKey());
+            data.writeUTF(entry.getValue());
+        }
+
+        data.flush();
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param  in the stream to read from.
+     *
+     * @return the index.
+     *
+     * @throws IOException if the index can't be read or is not valid.
+     */
+    static StyleIndex read(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+
+        if (data.readInt() != MAGIC || data.readInt() != VERSION) {
+            throw new IOException("Not a style index, or the wrong version");
+        }
+
+        StyleIndex index       = new StyleIndex();
+        int        prefixCount = data.readInt();
+
+        for (int i = 0; i < prefixCount; i++) {
+            String   prefix = data.readUTF();
+            String[] parts  = new String[data.readInt()];
+
+            for (int j = 0; j < parts.length; j++) {
+                parts[j] = data.readUTF();
+            }
+
+            index.prefixParts.put(prefix, parts);
+        }
+
+        int partCount = data.readInt();
+
+        for (int i = 0; i < partCount; i++) {
+            index.partClasses.put(data.readUTF(), data.readUTF());
+        }
+
+        return index;
+    }
+
+    /**
+     * Generates the index for the styles registered by SeaGlassLookAndFeel
+     * and writes it to the given file. This is run by the build after the
+     * classes are compiled.
+     *
+     * @param  args the name of the file to write.
+     *
+     * @throws IOException if the index can't be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: StyleIndex <output file>");
+            System.exit(1);
+        }
+
+        // Resolve everything from scratch rather than from an old index.
+        System.setProperty(DISABLED_KEY, "true");
+
+        StyleIndex   index = new SeaGlassLookAndFeel().createStyleIndex();
+        OutputStream out   = new FileOutputStream(args[0]);
+
+        try {
+            index.write(out);
+        } finally {
+            out.close();
+        }
+
+        System.out.println("Wrote style index with " + index.prefixParts.size() + " prefixes and " + index.partClasses.size()
+            + " parts to " + args[0]);
+    }
+}
@@ -114,18 +114,16 @@ public class DropShadowEffect extends ShadowEffect {
         }
 
         // blur
-        float[] kernel = EffectUtils.createGaussianKernel(size);
-
-        EffectUtils.blur(tmpBuf1, tmpBuf2, tmpW, tmpH, kernel, size); // horizontal
+        FastBlur.gaussianBlur(tmpBuf1, tmpBuf2, tmpW, tmpH, size); // horizontal
 
         // pass
-        EffectUtils.blur(tmpBuf2, tmpBuf1, tmpH, tmpW, kernel, size); // vertical
+        FastBlur.gaussianBlur(tmpBuf2, tmpBuf1, tmpH, tmpW, size); // vertical
 
         // pass
         // rescale
         float spread = Math.min(1 / (1 - (0.01f * this.spread)), 255);
 
-        for (int i = 0; i < tmpBuf1.length; i++) {
+        for (int i = 0; i < tmpW * tmpH; i++) {
             int val = (int) (((int) tmpBuf1[i] & 0xFF) * spread);
 
             tmpBuf1[i] = (val > 255) ? (byte) 0xFF : (byte) val;
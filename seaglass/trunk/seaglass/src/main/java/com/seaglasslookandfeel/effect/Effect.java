@@ -38,8 +38,6 @@ import java.lang.ref.SoftReference;
 
 import javax.swing.ImageIcon;
 
-import sun.awt.AppContext;
-
 /**
  * Effect
  *
@@ -47,6 +45,17 @@ import sun.awt.AppContext;
  */
 public abstract class Effect {
 
+    /**
+     * The scratch arrays, one set per thread, so that effects can be applied
+     * by several threads at once.
+     */
+    private static final ThreadLocal<ArrayCache> arrayCache = new ThreadLocal<ArrayCache>() {
+        @Override
+        protected ArrayCache initialValue() {
+            return new ArrayCache();
+        }
+    };
+
     /**
      * The type of effect.
      */
@@ -106,13 +115,43 @@ public abstract class Effect {
         int       width  = bounds.width;
         int       height = bounds.height;
 
-        BufferedImage bimage = Effect.createBufferedImage(width, height, true);
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        g.drawImage(ShadowRasterCache.getImage(this, s, width, height), 0, 0, null);
+    }
+
+    /**
+     * Returns an object identifying the parameters of this effect, so that
+     * the images painted by {@link #fill(Graphics2D, Shape)} may be cached.
+     * Effects with equal keys must produce the same result from the same
+     * source image.
+     *
+     * @return the key, or null if the images should not be cached.
+     */
+    protected Object getCacheKey() {
+        return null;
+    }
+
+    /**
+     * Render the effect based around a solid shape.
+     *
+     * @param  s      the shape to base the effect around.
+     * @param  width  the width of the shape's bounds.
+     * @param  height the height of the shape's bounds.
+     *
+     * @return the result of the effect.
+     */
+    BufferedImage render(Shape s, int width, int height) {
+        BufferedImage bimage = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
         Graphics2D    gbi    = bimage.createGraphics();
 
         gbi.setColor(Color.BLACK);
         gbi.fill(s);
+        gbi.dispose();
 
-        g.drawImage(applyEffect(bimage, null, width, height), 0, 0, null);
+        return applyEffect(bimage, null, width, height);
     }
 
     /**
@@ -122,14 +161,7 @@ public abstract class Effect {
      * @return the array cache.
      */
     protected static ArrayCache getArrayCache() {
-        ArrayCache cache = (ArrayCache) AppContext.getAppContext().get(ArrayCache.class);
-
-        if (cache == null) {
-            cache = new ArrayCache();
-            AppContext.getAppContext().put(ArrayCache.class, cache);
-        }
-
-        return cache;
+        return arrayCache.get();
     }
 
     /**
@@ -277,7 +309,7 @@ public abstract class Effect {
     }
 
     /**
-     * A static array cache with one int array and three byte arrays.
+     * A per thread array cache with one int array and three byte arrays.
      */
     protected static class ArrayCache {
         private SoftReference<int[]>  tmpIntArray   = null;
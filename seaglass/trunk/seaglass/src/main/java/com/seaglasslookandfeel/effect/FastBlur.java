@@ -0,0 +1,797 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.effect;
+
+import java.awt.image.BufferedImage;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Integer blurs, for the shadow effects and for larger images such as window
+ * shadows and translucent backgrounds.
+ *
+ * <p>Two blurs are offered. {@link #gaussianBlur(BufferedImage, BufferedImage,
+ * int)} convolves with the same kernel as {@link EffectUtils#gaussianBlur},
+ * held as 16.16 fixed point integers and cached, and matches it to within one
+ * level in each channel, treating the edges the same way: taps outside the
+ * image take the value of the center pixel. {@link #boxBlur(BufferedImage,
+ * BufferedImage, int)} approximates the same Gaussian with three running sum
+ * box blurs, so its cost per pixel does not depend on the radius. It extends
+ * the edge pixels outwards.</p>
+ *
+ * <p>Like {@link EffectUtils}, each pass blurs the rows of its source and
+ * writes them transposed, so that a second pass over the result blurs the
+ * columns. Rows are blurred a few at a time, so that the transposed pixels
+ * are written in short runs. Edges are handled before and after the inner
+ * loop rather than within it. Passes over images of
+ * {@link #PARALLEL_THRESHOLD} pixels or more are split into bands of rows
+ * which are blurred on a shared pool of daemon threads, one fewer than the
+ * number of processors, with the calling thread taking one band.</p>
+ */
+final class FastBlur {
+
+    /** Passes over at least this many pixels are split between threads. */
+    static final int PARALLEL_THRESHOLD = 128 * 1024;
+
+    /** The fixed point shift of the kernel weights. */
+    private static final int SHIFT = 16;
+
+    /** One half in fixed point, for rounding. */
+    private static final int HALF = 1 << (SHIFT - 1);
+
+    /** Kernels up to this radius are cached. */
+    private static final int MAX_CACHED_RADIUS = 64;
+
+    /** The number of box blurs approximating a Gaussian. */
+    private static final int BOX_PASSES = 3;
+
+    /**
+     * The number of rows blurred together, so that the transposed pixels are
+     * written in runs rather than one per cache line.
+     */
+    private static final int TILE = 8;
+
+    /** The fewest rows in a band given to one thread. */
+    private static final int MIN_BAND_ROWS = 16;
+
+    /** The number of threads, including the caller, which share a pass. */
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    private static final AtomicReferenceArray<int[]> kernels = new AtomicReferenceArray<int[]>(MAX_CACHED_RADIUS + 1);
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private FastBlur() {
+    }
+
+    /**
+     * Blur an image with a Gaussian kernel.
+     *
+     * @param  src    the image to blur, of type TYPE_INT_ARGB or
+     *                TYPE_BYTE_GRAY.
+     * @param  dst    the image to draw the blurred image into, or null to
+     *                create one.
+     * @param  radius the radius of the kernel.
+     *
+     * @return the blurred image.
+     */
+    static BufferedImage gaussianBlur(BufferedImage src, BufferedImage dst, int radius) {
+        return blur(src, dst, radius, false);
+    }
+
+    /**
+     * Blur an image with three box blurs approximating the Gaussian kernel of
+     * {@link #gaussianBlur(BufferedImage, BufferedImage, int)}.
+     *
+     * @param  src    the image to blur, of type TYPE_INT_ARGB or
+     *                TYPE_BYTE_GRAY.
+     * @param  dst    the image to draw the blurred image into, or null to
+     *                create one.
+     * @param  radius the radius of the Gaussian kernel.
+     *
+     * @return the blurred image.
+     */
+    static BufferedImage boxBlur(BufferedImage src, BufferedImage dst, int radius) {
+        return blur(src, dst, radius, true);
+    }
+
+    /**
+     * Blurs the rows of gray pixels with a Gaussian kernel, writing them
+     * transposed. This is a replacement for
+     * {@link EffectUtils#blur(byte[], byte[], int, int, float[], int)}.
+     *
+     * @param srcPixels the source pixels.
+     * @param dstPixels the destination pixels.
+     * @param width     the width of the source.
+     * @param height    the height of the source.
+     * @param radius    the radius of the kernel.
+     */
+    static void gaussianBlur(byte[] srcPixels, byte[] dstPixels, int width, int height, int radius) {
+        execute(new ByteGaussianPass(srcPixels, dstPixels, width, height, getGaussianKernel(radius)));
+    }
+
+    /**
+     * Returns the Gaussian kernel of {@link EffectUtils#createGaussianKernel(int)}
+     * as fixed point integers which sum to exactly one. Kernels are cached and
+     * must not be modified.
+     *
+     * @param  radius the radius of the kernel.
+     *
+     * @return the kernel, with {@code 2 * radius + 1} weights.
+     */
+    static int[] getGaussianKernel(int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius must be >= 1");
+        } else if (radius > MAX_CACHED_RADIUS) {
+            return createKernel(radius);
+        }
+
+        int[] kernel = kernels.get(radius);
+
+        if (kernel == null) {
+            kernel = createKernel(radius);
+            kernels.set(radius, kernel);
+        }
+
+        return kernel;
+    }
+
+    /**
+     * Returns the radii of the box blurs which together approximate the
+     * Gaussian of the given radius, whose sigma is a third of the radius.
+     *
+     * @param  radius the radius of the Gaussian.
+     *
+     * @return the box radii, some of which may be zero.
+     */
+    static int[] getBoxRadii(int radius) {
+        if (radius < 1) {
+            throw new IllegalArgumentException("Radius must be >= 1");
+        }
+
+        double sigma    = radius / 3.0;
+        double variance = 12 * sigma * sigma;
+        int    lower    = (int) Math.sqrt(variance / BOX_PASSES + 1);
+
+        if (lower % 2 == 0) {
+            lower--;
+        }
+
+        int   upper = lower + 2;
+        int   m     = (int) Math.round((variance - BOX_PASSES * lower * lower - 4 * BOX_PASSES * lower - 3 * BOX_PASSES) / (-4 * lower - 4));
+        int[] radii = new int[BOX_PASSES];
+
+        for (int i = 0; i < BOX_PASSES; i++) {
+            radii[i] = ((i < m ? lower : upper) - 1) / 2;
+        }
+
+        return radii;
+    }
+
+    /**
+     * Blur an image with either blur.
+     *
+     * @param  src    the image to blur.
+     * @param  dst    the destination, or null.
+     * @param  radius the radius of the Gaussian.
+     * @param  box    {@code true} for the box blur, {@code false} for the
+     *                Gaussian.
+     *
+     * @return the blurred image.
+     */
+    private static BufferedImage blur(BufferedImage src, BufferedImage dst, int radius, boolean box) {
+        int width  = src.getWidth();
+        int height = src.getHeight();
+        int type   = src.getType();
+
+        if (dst == null || dst.getWidth() != width || dst.getHeight() != height || type != dst.getType()) {
+            dst = EffectUtils.createColorModelCompatibleImage(src);
+        }
+
+        int[] kernel = box ? null : getGaussianKernel(radius);
+        int[] radii  = box ? getBoxRadii(radius) : null;
+
+        if (type == BufferedImage.TYPE_INT_ARGB) {
+            int[] srcPixels = EffectUtils.getPixels(src, 0, 0, width, height, (int[]) null);
+            int[] tmpPixels = new int[width * height];
+
+            if (box) {
+                execute(new IntBoxPass(srcPixels, tmpPixels, width, height, radii));
+                execute(new IntBoxPass(tmpPixels, srcPixels, height, width, radii));
+            } else {
+                execute(new IntGaussianPass(srcPixels, tmpPixels, width, height, kernel));
+                execute(new IntGaussianPass(tmpPixels, srcPixels, height, width, kernel));
+            }
+
+            EffectUtils.setPixels(dst, 0, 0, width, height, srcPixels);
+        } else if (type == BufferedImage.TYPE_BYTE_GRAY) {
+            byte[] srcPixels = EffectUtils.getPixels(src, 0, 0, width, height, (byte[]) null);
+            byte[] tmpPixels = new byte[width * height];
+
+            if (box) {
+                execute(new ByteBoxPass(srcPixels, tmpPixels, width, height, radii));
+                execute(new ByteBoxPass(tmpPixels, srcPixels, height, width, radii));
+            } else {
+                execute(new ByteGaussianPass(srcPixels, tmpPixels, width, height, kernel));
+                execute(new ByteGaussianPass(tmpPixels, srcPixels, height, width, kernel));
+            }
+
+            EffectUtils.setPixels(dst, 0, 0, width, height, srcPixels);
+        } else {
+            throw new IllegalArgumentException("FastBlur src image is not a supported type, type=[" + type + "]");
+        }
+
+        return dst;
+    }
+
+    /**
+     * Create a fixed point Gaussian kernel. Rounding errors are added to the
+     * center weight so that the weights sum to exactly one.
+     *
+     * @param  radius the radius of the kernel.
+     *
+     * @return the kernel.
+     */
+    private static int[] createKernel(int radius) {
+        float[] weights = EffectUtils.createGaussianKernel(radius);
+        int[]   kernel  = new int[weights.length];
+        int     total   = 0;
+
+        for (int i = 0; i < weights.length; i++) {
+            kernel[i] =  Math.round(weights[i] * (1 << SHIFT));
+            total     += kernel[i];
+        }
+
+        kernel[radius] += (1 << SHIFT) - total;
+
+        return kernel;
+    }
+
+    /**
+     * Run a pass, splitting it into bands of rows if it is large enough.
+     *
+     * @param pass the pass.
+     */
+    private static void execute(Pass pass) {
+        int bands = Math.min(PARALLELISM, pass.height / MIN_BAND_ROWS);
+
+        if (bands < 2 || (long) pass.width * pass.height < PARALLEL_THRESHOLD) {
+            pass.run(0, pass.height);
+
+            return;
+        }
+
+        Future<?>[] futures = new Future<?>[bands - 1];
+        int         rows    = (pass.height + bands - 1) / bands;
+
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = Workers.pool.submit(pass.band(i * rows, (i + 1) * rows));
+        }
+
+        pass.run(futures.length * rows, pass.height);
+
+        boolean interrupted = false;
+
+        try {
+
+            for (Future<?> future : futures) {
+
+                while (true) {
+
+                    try {
+                        future.get();
+
+                        break;
+                    } catch (InterruptedException e) {
+
+                        // The pass must finish before the pixels can be used.
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException("Blur failed", e.getCause());
+                    }
+                }
+            }
+        } finally {
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Fill the ends of an extended line with its first and last pixels, for
+     * the box blurs. The pixels of the line are at {@code radius + 1} to
+     * {@code radius + n}.
+     *
+     * @param ext    the extended line, of at least {@code n + 2 * radius + 2}
+     *               pixels.
+     * @param n      the length of the line.
+     * @param radius the radius of the box.
+     */
+    private static void extend(int[] ext, int n, int radius) {
+        int first = ext[radius + 1];
+        int last  = ext[radius + n];
+
+        for (int i = 0; i <= radius; i++) {
+            ext[i]                  = first;
+            ext[radius + n + 1 + i] = last;
+        }
+    }
+
+    /**
+     * The reciprocal of a box width, in fixed point.
+     *
+     * @param  radius the radius of the box.
+     *
+     * @return the reciprocal.
+     */
+    private static int reciprocal(int radius) {
+        int width = 2 * radius + 1;
+
+        return ((1 << SHIFT) + width / 2) / width;
+    }
+
+    /**
+     * One blur pass, which blurs the rows of its source and writes them
+     * transposed.
+     */
+    private abstract static class Pass {
+        final int width;
+        final int height;
+
+        /**
+         * Creates a new Pass object.
+         *
+         * @param width  the width of the source.
+         * @param height the height of the source.
+         */
+        Pass(int width, int height) {
+            this.width  = width;
+            this.height = height;
+        }
+
+        /**
+         * Blur a range of rows.
+         *
+         * @param y0 the first row.
+         * @param y1 the row after the last.
+         */
+        abstract void run(int y0, int y1);
+
+        /**
+         * Returns a task which blurs a range of rows.
+         *
+         * @param  y0 the first row.
+         * @param  y1 the row after the last.
+         *
+         * @return the task.
+         */
+        Runnable band(final int y0, final int y1) {
+            return new Runnable() {
+                public void run() {
+                    Pass.this.run(y0, Math.min(y1, height));
+                }
+            };
+        }
+    }
+
+    /**
+     * A Gaussian pass over gray pixels.
+     */
+    private static final class ByteGaussianPass extends Pass {
+        private final byte[] src;
+        private final byte[] dst;
+        private final int[]  kernel;
+
+        /**
+         * Creates a new ByteGaussianPass object.
+         *
+         * @param src    the source pixels.
+         * @param dst    the destination pixels.
+         * @param width  the width of the source.
+         * @param height the height of the source.
+         * @param kernel the fixed point kernel.
+         */
+        ByteGaussianPass(byte[] src, byte[] dst, int width, int height, int[] kernel) {
+            super(width, height);
+            this.src    = src;
+            this.dst    = dst;
+            this.kernel = kernel;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.effect.FastBlur.Pass#run(int, int)
+         */
+        void run(int y0, int y1) {
+            int radius = kernel.length / 2;
+            int start  = Math.min(radius, width);
+            int end    = Math.max(start, width - radius);
+
+            for (int ty = y0; ty < y1; ty += TILE) {
+                int tileEnd = Math.min(ty + TILE, y1);
+
+                for (int x = 0; x < start; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        dst[x * height + y] = (byte) edge(y * width, x, radius);
+                    }
+                }
+
+                for (int x = start; x < end; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        int base = y * width + x - radius;
+                        int sum  = HALF;
+
+                        for (int i = 0; i < kernel.length; i++) {
+                            sum += kernel[i] * (src[base + i] & 0xFF);
+                        }
+
+                        dst[x * height + y] = (byte) (sum >>> SHIFT);
+                    }
+                }
+
+                for (int x = end; x < width; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        dst[x * height + y] = (byte) edge(y * width, x, radius);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Blur a pixel whose kernel extends past the ends of its row, using
+         * the center pixel for the taps outside the row.
+         *
+         * @param  offset the offset of the row.
+         * @param  x      the pixel.
+         * @param  radius the radius of the kernel.
+         *
+         * @return the blurred pixel.
+         */
+        private int edge(int offset, int x, int radius) {
+            int sum = HALF;
+
+            for (int i = -radius; i <= radius; i++) {
+                int sub = x + i;
+
+                sum += kernel[radius + i] * (src[offset + (sub < 0 || sub >= width ? x : sub)] & 0xFF);
+            }
+
+            return sum >>> SHIFT;
+        }
+    }
+
+    /**
+     * A Gaussian pass over ARGB pixels, blurring each channel separately.
+     */
+    private static final class IntGaussianPass extends Pass {
+        private final int[] src;
+        private final int[] dst;
+        private final int[] kernel;
+
+        /**
+         * Creates a new IntGaussianPass object.
+         *
+         * @param src    the source pixels.
+         * @param dst    the destination pixels.
+         * @param width  the width of the source.
+         * @param height the height of the source.
+         * @param kernel the fixed point kernel.
+         */
+        IntGaussianPass(int[] src, int[] dst, int width, int height, int[] kernel) {
+            super(width, height);
+            this.src    = src;
+            this.dst    = dst;
+            this.kernel = kernel;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.effect.FastBlur.Pass#run(int, int)
+         */
+        void run(int y0, int y1) {
+            int radius = kernel.length / 2;
+            int start  = Math.min(radius, width);
+            int end    = Math.max(start, width - radius);
+
+            for (int ty = y0; ty < y1; ty += TILE) {
+                int tileEnd = Math.min(ty + TILE, y1);
+
+                for (int x = 0; x < start; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        dst[x * height + y] = edge(y * width, x, radius);
+                    }
+                }
+
+                for (int x = start; x < end; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        int base = y * width + x - radius;
+                        int a    = HALF;
+                        int r    = HALF;
+                        int g    = HALF;
+                        int b    = HALF;
+
+                        for (int i = 0; i < kernel.length; i++) {
+                            int pixel  = src[base + i];
+                            int weight = kernel[i];
+
+                            a += weight * (pixel >>> 24);
+                            r += weight * ((pixel >> 16) & 0xFF);
+                            g += weight * ((pixel >> 8) & 0xFF);
+                            b += weight * (pixel & 0xFF);
+                        }
+
+                        dst[x * height + y] = ((a >>> SHIFT) << 24) | ((r >>> SHIFT) << 16) | ((g >>> SHIFT) << 8) | (b >>> SHIFT);
+                    }
+                }
+
+                for (int x = end; x < width; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        dst[x * height + y] = edge(y * width, x, radius);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Blur a pixel whose kernel extends past the ends of its row, using
+         * the center pixel for the taps outside the row.
+         *
+         * @param  offset the offset of the row.
+         * @param  x      the pixel.
+         * @param  radius the radius of the kernel.
+         *
+         * @return the blurred pixel.
+         */
+        private int edge(int offset, int x, int radius) {
+            int a = HALF;
+            int r = HALF;
+            int g = HALF;
+            int b = HALF;
+
+            for (int i = -radius; i <= radius; i++) {
+                int sub    = x + i;
+                int pixel  = src[offset + (sub < 0 || sub >= width ? x : sub)];
+                int weight = kernel[radius + i];
+
+                a += weight * (pixel >>> 24);
+                r += weight * ((pixel >> 16) & 0xFF);
+                g += weight * ((pixel >> 8) & 0xFF);
+                b += weight * (pixel & 0xFF);
+            }
+
+            return ((a >>> SHIFT) << 24) | ((r >>> SHIFT) << 16) | ((g >>> SHIFT) << 8) | (b >>> SHIFT);
+        }
+    }
+
+    /**
+     * Box blurs over gray pixels.
+     */
+    private static final class ByteBoxPass extends Pass {
+        private final byte[] src;
+        private final byte[] dst;
+        private final int[]  radii;
+
+        /**
+         * Creates a new ByteBoxPass object.
+         *
+         * @param src    the source pixels.
+         * @param dst    the destination pixels.
+         * @param width  the width of the source.
+         * @param height the height of the source.
+         * @param radii  the radius of each box blur.
+         */
+        ByteBoxPass(byte[] src, byte[] dst, int width, int height, int[] radii) {
+            super(width, height);
+            this.src   = src;
+            this.dst   = dst;
+            this.radii = radii;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.effect.FastBlur.Pass#run(int, int)
+         */
+        void run(int y0, int y1) {
+            int maxRadius = 0;
+
+            for (int radius : radii) {
+                maxRadius = Math.max(maxRadius, radius);
+            }
+
+            int[]   ext   = new int[width + 2 * maxRadius + 2];
+            int[][] lines = new int[TILE][width];
+
+            for (int ty = y0; ty < y1; ty += TILE) {
+                int tileEnd = Math.min(ty + TILE, y1);
+
+                for (int y = ty; y < tileEnd; y++) {
+                    int[] line   = lines[y - ty];
+                    int   offset = y * width;
+
+                    for (int x = 0; x < width; x++) {
+                        line[x] = src[offset + x] & 0xFF;
+                    }
+
+                    for (int radius : radii) {
+
+                        if (radius > 0) {
+                            System.arraycopy(line, 0, ext, radius + 1, width);
+                            extend(ext, width, radius);
+                            box(ext, line, radius);
+                        }
+                    }
+                }
+
+                for (int x = 0; x < width; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        dst[x * height + y] = (byte) lines[y - ty][x];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Box blur an extended line.
+         *
+         * @param ext    the extended line.
+         * @param out    the blurred line.
+         * @param radius the radius of the box.
+         */
+        private void box(int[] ext, int[] out, int radius) {
+            int recip = reciprocal(radius);
+            int span  = 2 * radius + 1;
+            int sum   = 0;
+
+            for (int i = 1; i <= span; i++) {
+                sum += ext[i];
+            }
+
+            for (int x = 0; x < width; x++) {
+                out[x] =  (sum * recip + HALF) >>> SHIFT;
+                sum    += ext[x + span + 1] - ext[x + 1];
+            }
+        }
+    }
+
+    /**
+     * Box blurs over ARGB pixels, blurring each channel separately.
+     */
+    private static final class IntBoxPass extends Pass {
+        private final int[] src;
+        private final int[] dst;
+        private final int[] radii;
+
+        /**
+         * Creates a new IntBoxPass object.
+         *
+         * @param src    the source pixels.
+         * @param dst    the destination pixels.
+         * @param width  the width of the source.
+         * @param height the height of the source.
+         * @param radii  the radius of each box blur.
+         */
+        IntBoxPass(int[] src, int[] dst, int width, int height, int[] radii) {
+            super(width, height);
+            this.src   = src;
+            this.dst   = dst;
+            this.radii = radii;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.effect.FastBlur.Pass#run(int, int)
+         */
+        void run(int y0, int y1) {
+            int maxRadius = 0;
+
+            for (int radius : radii) {
+                maxRadius = Math.max(maxRadius, radius);
+            }
+
+            int[]   ext   = new int[width + 2 * maxRadius + 2];
+            int[][] lines = new int[TILE][width];
+
+            for (int ty = y0; ty < y1; ty += TILE) {
+                int tileEnd = Math.min(ty + TILE, y1);
+
+                for (int y = ty; y < tileEnd; y++) {
+                    int[] line = lines[y - ty];
+
+                    System.arraycopy(src, y * width, line, 0, width);
+
+                    for (int radius : radii) {
+
+                        if (radius > 0) {
+                            System.arraycopy(line, 0, ext, radius + 1, width);
+                            extend(ext, width, radius);
+                            box(ext, line, radius);
+                        }
+                    }
+                }
+
+                for (int x = 0; x < width; x++) {
+                    for (int y = ty; y < tileEnd; y++) {
+                        dst[x * height + y] = lines[y - ty][x];
+                    }
+                }
+            }
+        }
+
+        /**
+         * Box blur an extended line.
+         *
+         * @param ext    the extended line.
+         * @param out    the blurred line.
+         * @param radius the radius of the box.
+         */
+        private void box(int[] ext, int[] out, int radius) {
+            int recip = reciprocal(radius);
+            int span  = 2 * radius + 1;
+            int a     = 0;
+            int r     = 0;
+            int g     = 0;
+            int b     = 0;
+
+            for (int i = 1; i <= span; i++) {
+                int pixel = ext[i];
+
+                a += pixel >>> 24;
+                r += (pixel >> 16) & 0xFF;
+                g += (pixel >> 8) & 0xFF;
+                b += pixel & 0xFF;
+            }
+
+            for (int x = 0; x < width; x++) {
+                out[x] = (((a * recip + HALF) >>> SHIFT) << 24) | (((r * recip + HALF) >>> SHIFT) << 16) | (((g * recip + HALF) >>> SHIFT) << 8)
+                    | ((b * recip + HALF) >>> SHIFT);
+
+                int add = ext[x + span + 1];
+                int sub = ext[x + 1];
+
+                a += (add >>> 24) - (sub >>> 24);
+                r += ((add >> 16) & 0xFF) - ((sub >> 16) & 0xFF);
+                g += ((add >> 8) & 0xFF) - ((sub >> 8) & 0xFF);
+                b += (add & 0xFF) - (sub & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * The shared pool of blur threads, created on first use.
+     */
+    private static final class Workers {
+        static final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, PARALLELISM - 1), new ThreadFactory() {
+                private final AtomicInteger count = new AtomicInteger();
+
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "SeaGlass-Blur-" + count.incrementAndGet());
+
+                    thread.setDaemon(true);
+
+                    return thread;
+                }
+            });
+    }
+}
@@ -47,6 +47,9 @@ public abstract class ShadowEffect extends Effect {
     /** Size in pixels */
     protected int size = 5;
 
+    /** The parameters last returned by getCacheKey. */
+    private Parameters parameters;
+
     // =================================================================================================================
     // Bean methods
 
@@ -161,4 +164,108 @@ public abstract class ShadowEffect extends Effect {
         // int old = getSize();
         this.size = size;
     }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>The key holds a copy of the bean properties and the class of the
+     * effect, and is only rebuilt when a property changes.</p>
+     */
+    @Override
+    protected Object getCacheKey() {
+        Parameters p = parameters;
+
+        if (p == null || !p.matches(this)) {
+            p          = new Parameters(this);
+            parameters = p;
+        }
+
+        return p;
+    }
+
+    /**
+     * The immutable parameters of a shadow effect.
+     */
+    private static final class Parameters {
+        private final Class<?> type;
+        private final int      rgb;
+        private final float    opacity;
+        private final int      angle;
+        private final int      distance;
+        private final int      spread;
+        private final int      size;
+
+        /**
+         * Creates a new Parameters object.
+         *
+         * @param effect the effect whose properties to copy.
+         */
+        Parameters(ShadowEffect effect) {
+            type     = effect.getClass();
+            rgb      = rgb(effect.color);
+            opacity  = effect.opacity;
+            angle    = effect.angle;
+            distance = effect.distance;
+            spread   = effect.spread;
+            size     = effect.size;
+        }
+
+        /**
+         * Returns whether these are the current parameters of an effect.
+         *
+         * @param  effect the effect.
+         *
+         * @return {@code true} if they are, {@code false} otherwise.
+         */
+        boolean matches(ShadowEffect effect) {
+            return type == effect.getClass() && rgb == rgb(effect.color) && opacity == effect.opacity && angle == effect.angle
+                && distance == effect.distance && spread == effect.spread && size == effect.size;
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            int hash = type.hashCode();
+
+            hash = 31 * hash + rgb;
+            hash = 31 * hash + Float.floatToIntBits(opacity);
+            hash = 31 * hash + angle;
+            hash = 31 * hash + distance;
+            hash = 31 * hash + spread;
+            hash = 31 * hash + size;
+
+            return hash;
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof Parameters)) {
+                return false;
+            }
+
+            Parameters other = (Parameters) obj;
+
+            return type == other.type && rgb == other.rgb && Float.floatToIntBits(opacity) == Float.floatToIntBits(other.opacity)
+                && angle == other.angle && distance == other.distance && spread == other.spread && size == other.size;
+        }
+
+        /**
+         * Returns the value of a color. The value is copied rather than the
+         * color, since derived colors may change.
+         *
+         * @param  color the color, which may be null.
+         *
+         * @return the ARGB value of the color, or 0 if it is null.
+         */
+        private static int rgb(Color color) {
+            return color == null ? 0 : color.getRGB();
+        }
+    }
 }
@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.effect;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.image.BufferedImage;
+
+import java.util.Arrays;
+
+import com.seaglasslookandfeel.util.ImageCache;
+import com.seaglasslookandfeel.util.ImageCachePolicy;
+
+/**
+ * Caches the images produced by {@link Effect#fill(java.awt.Graphics2D, Shape)},
+ * so that painting the shadow of a check box, slider thumb, tab or scroll
+ * button again is a single image copy rather than rasterizing the shape and
+ * blurring it.
+ *
+ * <p>Images are keyed by the parameters of the effect, as returned by
+ * {@link Effect#getCacheKey()}, and by the exact outline of the shape and its
+ * size. Effects which return no key are never cached. The images are plain
+ * ARGB images whatever the destination, so the graphics configuration is not
+ * part of the key.</p>
+ *
+ * <p>The cache may be disabled by setting the system property
+ * {@code SeaGlass.ShadowRasterCache.disabled} to {@code true}.</p>
+ */
+public final class ShadowRasterCache {
+
+    /** The system property which disables the cache. */
+    public static final String DISABLED_KEY = "SeaGlass.ShadowRasterCache.disabled";
+
+    /** The budget for all the cached shadow images. */
+    private static final long MAX_BYTES = 4 * 1024 * 1024;
+
+    /** Shadows with this many pixels or more are rendered on every paint. */
+    private static final int MAX_SHADOW_PIXELS = 256 * 256;
+
+    /** The number of coordinates for each type of path segment. */
+    private static final int[] COORDS = { 2, 2, 4, 6, 0 };
+
+    private static final ImageCache cache = new ImageCache(new ImageCachePolicy(MAX_BYTES, MAX_SHADOW_PIXELS, 0));
+
+    private static final boolean disabled = isDisabled();
+
+    /** The key used to look up images, one per thread. */
+    private static final ThreadLocal<Key> lookupKeys = new ThreadLocal<Key>() {
+        @Override
+        protected Key initialValue() {
+            return new Key();
+        }
+    };
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private ShadowRasterCache() {
+    }
+
+    /**
+     * Gets the image of an effect around a shape from the cache, rendering
+     * and caching it if necessary.
+     *
+     * @param  effect the effect.
+     * @param  s      the shape.
+     * @param  width  the width of the shape's bounds.
+     * @param  height the height of the shape's bounds.
+     *
+     * @return the image.
+     */
+    static BufferedImage getImage(Effect effect, Shape s, int width, int height) {
+        Object parameters = disabled ? null : effect.getCacheKey();
+
+        if (parameters == null || !cache.isImageCachable(width, height)) {
+            return effect.render(s, width, height);
+        }
+
+        Key key = lookupKeys.get();
+
+        key.set(parameters, s);
+
+        BufferedImage image = (BufferedImage) cache.getImage(null, width, height, key, null);
+
+        if (image == null) {
+            image = effect.render(s, width, height);
+            cache.setImage(image, null, width, height, key.copy(), null);
+        }
+
+        key.parameters = null;
+
+        return image;
+    }
+
+    /**
+     * Discards all the cached shadow images.
+     */
+    public static void flush() {
+        cache.flush();
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics.
+     */
+    public static ImageCache.Statistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Reads the system property which disables the cache.
+     *
+     * @return <code>true</code> if the cache is disabled, <code>false</code>
+     *         otherwise.
+     */
+    private static boolean isDisabled() {
+        try {
+            return Boolean.getBoolean(DISABLED_KEY);
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * The parameters of an effect and the outline of a shape. The lookup key
+     * of each thread is refilled for every paint, and copied into an
+     * immutable key, trimmed to size, only when an image is stored.
+     */
+    private static final class Key {
+        private Object   parameters;
+        private int      windingRule;
+        private byte[]   types;
+        private int      typeCount;
+        private double[] coords;
+        private int      coordCount;
+        private int      hash;
+
+        /** The coordinates of the current segment, for lookup keys only. */
+        private double[] segment;
+
+        /**
+         * Creates a new lookup key.
+         */
+        Key() {
+            types   = new byte[16];
+            coords  = new double[64];
+            segment = new double[6];
+        }
+
+        /**
+         * Creates an immutable copy of a key.
+         *
+         * @param other the key to copy.
+         */
+        private Key(Key other) {
+            parameters  = other.parameters;
+            windingRule = other.windingRule;
+            types       = Arrays.copyOf(other.types, other.typeCount);
+            typeCount   = other.typeCount;
+            coords      = Arrays.copyOf(other.coords, other.coordCount);
+            coordCount  = other.coordCount;
+            hash        = other.hash;
+        }
+
+        /**
+         * Sets the key to an effect and a shape.
+         *
+         * @param parameters the parameters of the effect.
+         * @param s          the shape.
+         */
+        void set(Object parameters, Shape s) {
+            PathIterator it = s.getPathIterator(null);
+            int          h  = parameters.hashCode();
+
+            this.parameters = parameters;
+            windingRule     = it.getWindingRule();
+            typeCount       = 0;
+            coordCount      = 0;
+            h               = 31 * h + windingRule;
+
+            for (; !it.isDone(); it.next()) {
+                int type = it.currentSegment(segment);
+                int n    = COORDS[type];
+
+                if (typeCount == types.length) {
+                    types = Arrays.copyOf(types, typeCount * 2);
+                }
+
+                if (coordCount + n > coords.length) {
+                    coords = Arrays.copyOf(coords, Math.max(coords.length * 2, coordCount + n));
+                }
+
+                types[typeCount++] = (byte) type;
+                h                  = 31 * h + type;
+
+                for (int i = 0; i < n; i++) {
+                    long bits = Double.doubleToLongBits(segment[i]);
+
+                    coords[coordCount++] = segment[i];
+                    h                    = 31 * h + (int) (bits ^ (bits >>> 32));
+                }
+            }
+
+            hash = h;
+        }
+
+        /**
+         * Returns an immutable copy of this key.
+         *
+         * @return the copy.
+         */
+        Key copy() {
+            return new Key(this);
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+
+            if (hash != other.hash || windingRule != other.windingRule || typeCount != other.typeCount || coordCount != other.coordCount
+                    || !parameters.equals(other.parameters)) {
+                return false;
+            }
+
+            for (int i = 0; i < typeCount; i++) {
+                if (types[i] != other.types[i]) {
+                    return false;
+                }
+            }
+
+            for (int i = 0; i < coordCount; i++) {
+                if (Double.doubleToLongBits(coords[i]) != Double.doubleToLongBits(other.coords[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.icons;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.print.PrinterGraphics;
+
+import com.seaglasslookandfeel.util.ImageCache;
+import com.seaglasslookandfeel.util.ImageCachePolicy;
+
+/**
+ * Caches the vector icons in this package as images, so that painting an
+ * icon again at the same size is a single image copy rather than rendering
+ * dozens of antialiased shapes.
+ *
+ * <p>Images are keyed by icon class, size and the scale of the destination
+ * graphics context, so icons painted to a scaled context, such as on a high
+ * resolution display, are rendered at the device resolution and stay sharp.
+ * The vector icons paint the same whether or not their component is enabled,
+ * so the state is not part of the key. Images are created lazily on first
+ * paint, or ahead of time with {@link #prewarm(VectorIcon, int, int, double)}.
+ * Destinations with a rotating or shearing transform, and printers, are
+ * always painted from the vectors.</p>
+ *
+ * <p>The cache may be disabled by setting the system property
+ * {@code SeaGlass.IconRasterCache.disabled} to {@code true}.</p>
+ */
+public final class IconRasterCache {
+
+    /** The system property which disables the cache. */
+    public static final String DISABLED_KEY = "SeaGlass.IconRasterCache.disabled";
+
+    /** The budget for all the cached icon images. */
+    private static final long MAX_BYTES = 4 * 1024 * 1024;
+
+    /** Icons with this many pixels or more are painted from the vectors. */
+    private static final int MAX_ICON_PIXELS = 256 * 256;
+
+    /** The extended cache key for an unscaled destination. */
+    private static final Object[] UNSCALED = { Double.valueOf(1.0), Double.valueOf(1.0) };
+
+    /**
+     * The margin around each image, in the units of the icons' original
+     * size. Some icons paint up to five units outside their original bounds.
+     */
+    private static final int MARGIN = 6;
+
+    private static final ImageCache cache = new ImageCache(new ImageCachePolicy(MAX_BYTES, MAX_ICON_PIXELS, 0));
+
+    private static final boolean disabled = isDisabled();
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private IconRasterCache() {
+    }
+
+    /**
+     * Paints an icon, from the cache if possible.
+     *
+     * @param icon   the icon.
+     * @param width  the width to paint the icon at.
+     * @param height the height to paint the icon at.
+     * @param c      the component the icon is painted for. This may be null.
+     * @param g      the graphics context.
+     * @param x      the x coordinate of the icon.
+     * @param y      the y coordinate of the icon.
+     */
+    public static void paintIcon(VectorIcon icon, int width, int height, Component c, Graphics g, int x, int y) {
+        if (width <= 0 || height <= 0) {
+            return;
+        }
+
+        if (disabled || !(g instanceof Graphics2D) || g instanceof PrinterGraphics) {
+            paintVector(icon, width, height, g, x, y);
+
+            return;
+        }
+
+        Graphics2D      g2d       = (Graphics2D) g;
+        AffineTransform transform = g2d.getTransform();
+        double          scaleX    = transform.getScaleX();
+        double          scaleY    = transform.getScaleY();
+
+        if ((transform.getType() & ~(AffineTransform.TYPE_TRANSLATION | AffineTransform.TYPE_MASK_SCALE)) != 0 || scaleX <= 0
+                || scaleY <= 0) {
+            paintVector(icon, width, height, g, x, y);
+
+            return;
+        }
+
+        Image image = getImage(icon, width, height, scaleX, scaleY);
+
+        if (image == null) {
+            paintVector(icon, width, height, g, x, y);
+        } else if (scaleX == 1.0 && scaleY == 1.0) {
+            int margin = getMargin(icon, width, height, 1.0);
+
+            g2d.drawImage(image, x - margin, y - margin, null);
+        } else {
+            Graphics2D g2 = (Graphics2D) g2d.create();
+
+            g2.translate(x, y);
+            g2.scale(1.0 / scaleX, 1.0 / scaleY);
+            g2.drawImage(image, -getMargin(icon, width, height, scaleX), -getMargin(icon, width, height, scaleY), null);
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Renders an icon into the cache ahead of its first paint.
+     *
+     * @param icon   the icon.
+     * @param width  the width the icon will be painted at.
+     * @param height the height the icon will be painted at.
+     * @param scale  the scale of the destination, 1.0 for a normal display.
+     */
+    public static void prewarm(VectorIcon icon, int width, int height, double scale) {
+        if (!disabled && width > 0 && height > 0 && scale > 0) {
+            getImage(icon, width, height, scale, scale);
+        }
+    }
+
+    /**
+     * Discards all the cached icon images.
+     */
+    public static void flush() {
+        cache.flush();
+    }
+
+    /**
+     * Returns the statistics of the cache.
+     *
+     * @return the statistics.
+     */
+    public static ImageCache.Statistics getStatistics() {
+        return cache.getStatistics();
+    }
+
+    /**
+     * Gets the image of an icon from the cache, rendering and caching it if
+     * necessary.
+     *
+     * @param  icon   the icon.
+     * @param  width  the width of the icon.
+     * @param  height the height of the icon.
+     * @param  scaleX the horizontal scale of the destination.
+     * @param  scaleY the vertical scale of the destination.
+     *
+     * @return the image, at the size of the icon multiplied by the scale plus
+     *         the margins, or null if the icon is too large to cache.
+     */
+    private static Image getImage(VectorIcon icon, int width, int height, double scaleX, double scaleY) {
+        if (!cache.isImageCachable(width, height)) {
+            return null;
+        }
+
+        Object[] keys  = scaleX == 1.0 && scaleY == 1.0 ? UNSCALED : new Object[] { Double.valueOf(scaleX), Double.valueOf(scaleY) };
+        Image    image = cache.getImage(null, width, height, icon.getClass(), keys);
+
+        if (image == null) {
+            int           marginX = getMargin(icon, width, height, scaleX);
+            int           marginY = getMargin(icon, width, height, scaleY);
+            BufferedImage buffer  = new BufferedImage((int) Math.ceil(width * scaleX) + 2 * marginX,
+                                                      (int) Math.ceil(height * scaleY) + 2 * marginY, BufferedImage.TYPE_INT_ARGB_PRE);
+            Graphics2D    g       = buffer.createGraphics();
+
+            g.translate(marginX, marginY);
+            g.scale(scaleX, scaleY);
+            paintVector(icon, width, height, g, 0, 0);
+            g.dispose();
+
+            cache.setImage(buffer, null, width, height, icon.getClass(), keys);
+            image = buffer;
+        }
+
+        return image;
+    }
+
+    /**
+     * Returns the margin around the image of an icon, in device pixels.
+     *
+     * @param  icon   the icon.
+     * @param  width  the width of the icon.
+     * @param  height the height of the icon.
+     * @param  scale  the scale of the destination in the direction of the
+     *                margin.
+     *
+     * @return the margin.
+     */
+    private static int getMargin(VectorIcon icon, int width, int height, double scale) {
+        return (int) Math.ceil(MARGIN * getScale(icon, width, height) * scale);
+    }
+
+    /**
+     * Returns the uniform scale at which an icon fits the given size.
+     *
+     * @param  icon   the icon.
+     * @param  width  the width to paint the icon at.
+     * @param  height the height to paint the icon at.
+     *
+     * @return the scale.
+     */
+    private static double getScale(VectorIcon icon, int width, int height) {
+        double coef1 = (double) width / (double) icon.getOrigWidth();
+        double coef2 = (double) height / (double) icon.getOrigHeight();
+
+        return Math.min(coef1, coef2);
+    }
+
+    /**
+     * Paints an icon from its vectors, scaled uniformly to fit the given size.
+     *
+     * @param icon   the icon.
+     * @param width  the width to paint the icon at.
+     * @param height the height to paint the icon at.
+     * @param g      the graphics context.
+     * @param x      the x coordinate of the icon.
+     * @param y      the y coordinate of the icon.
+     */
+    private static void paintVector(VectorIcon icon, int width, int height, Graphics g, int x, int y) {
+        Graphics2D g2d = (Graphics2D) g.create();
+
+        g2d.translate(x, y);
+
+        double coef = getScale(icon, width, height);
+
+        g2d.scale(coef, coef);
+        icon.paint(g2d);
+        g2d.dispose();
+    }
+
+    /**
+     * Reads the system property which disables the cache.
+     *
+     * @return <code>true</code> if the cache is disabled, <code>false</code>
+     *         otherwise.
+     */
+    private static boolean isDisabled() {
+        try {
+            return Boolean.getBoolean(DISABLED_KEY);
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.icons;
+
+import java.awt.Graphics2D;
+
+import javax.swing.Icon;
+
+/**
+ * An icon transcoded from SVG, which can paint itself at its original size on
+ * any graphics context. {@link IconRasterCache} uses this to render the icon
+ * once per size and scale.
+ */
+public interface VectorIcon extends Icon {
+
+    /**
+     * Paints the icon at its original size on the specified graphics context.
+     * Install a transformation on the graphics context to scale it.
+     *
+     * @param g the graphics context.
+     */
+    void paint(Graphics2D g);
+
+    /**
+     * Returns the original width of the icon.
+     *
+     * @return the width.
+     */
+    int getOrigWidth();
+
+    /**
+     * Returns the original height of the icon.
+     *
+     * @return the height.
+     */
+    int getOrigHeight();
+}
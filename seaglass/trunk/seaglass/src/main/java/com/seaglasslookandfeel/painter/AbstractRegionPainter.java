@@ -21,6 +21,7 @@ package com.seaglasslookandfeel.painter;
 
 import java.awt.AlphaComposite;
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.GraphicsConfiguration;
 import java.awt.Insets;
@@ -48,6 +49,8 @@ import com.seaglasslookandfeel.painter.util.ShapeGenerator;
 import com.seaglasslookandfeel.state.ControlInToolBarState;
 import com.seaglasslookandfeel.state.State;
 import com.seaglasslookandfeel.util.ImageCache;
+import com.seaglasslookandfeel.util.ImageScalingHelper;
+import com.seaglasslookandfeel.util.PaintInstrumentation;
 import com.seaglasslookandfeel.util.SeaGlassGraphicsUtils;
 
 /**
@@ -57,6 +60,11 @@ import com.seaglasslookandfeel.util.SeaGlassGraphicsUtils;
  * <p>Based on Nimbus's AbstractRegionPainter by Jasper Potts and Richard Bair.
  * This was package local.</p>
  *
+ * <p>A painter is shared by every component using its state, and may be
+ * called from several threads at once, e.g. to render thumbnails or print
+ * previews offscreen. The fields of a painter are therefore only set up when
+ * it is created. Everything a single paint call needs is passed down as
+ * arguments, and subclasses must keep it in local variables too.</p>
  */
 public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponent> {
     private static final State inToolBarState = new ControlInToolBarState();
@@ -68,19 +76,6 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
         INNER_FOCUS, OUTER_FOCUS,
     }
 
-    /**
-     * PaintContext, which holds a lot of the state needed for cache hinting and
-     * x/y value decoding The data contained within the context is typically
-     * only computed once and reused over multiple paint calls, whereas the
-     * other values (w, h, f, leftWidth, etc) are recomputed for each call to
-     * paint.
-     *
-     * <p>This field is retrieved from subclasses on each paint operation. It is
-     * up to the subclass to compute and cache the PaintContext over multiple
-     * calls.</p>
-     */
-    private PaintContext ctx;
-
     /** The generator for almost all of the shapes we use to draw controls. */
     protected ShapeGenerator shapeGenerator = new ShapeGenerator();
 
@@ -90,6 +85,9 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
      */
     protected Insets focusInsets;
 
+    /** The name under which instrumentation records this painter. */
+    private String instrumentationName;
+
     private Color outerFocus        = decodeColor("seaGlassOuterFocus");
     private Color innerFocus        = decodeColor("seaGlassFocus");
     private Color outerToolBarFocus = decodeColor("seaGlassToolBarOuterFocus");
@@ -122,16 +120,71 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
         if (w <= 0 || h <= 0)
             return;
 
-        Object[] extendedCacheKeys = getExtendedCacheKeys(c);
+        Object[]     extendedCacheKeys = getExtendedCacheKeys(c);
+        PaintContext ctx               = getPaintContext(c);
+
+        if (PaintInstrumentation.isEnabled()) {
+            paintInstrumented(g, c, w, h, extendedCacheKeys, ctx);
+        } else {
+            render(g, c, w, h, extendedCacheKeys, ctx);
+        }
+    }
 
-        ctx = getPaintContext();
+    /**
+     * Paints with or without caching, according to the paint context.
+     *
+     * @param  g                 the graphics context.
+     * @param  c                 the component, which may be null.
+     * @param  w                 the width to paint.
+     * @param  h                 the height to paint.
+     * @param  extendedCacheKeys the extended cache keys.
+     * @param  ctx               the paint context.
+     *
+     * @return {@code true} if doPaint was called, {@code false} if a cached
+     *         image was drawn.
+     */
+    private boolean render(Graphics2D g, JComponent c, int w, int h, Object[] extendedCacheKeys, PaintContext ctx) {
         CacheMode cacheMode = ctx == null ? CacheMode.NO_CACHING : ctx.getCacheMode();
 
-        if (cacheMode == CacheMode.NO_CACHING || !ImageCache.getInstance().isImageCachable(w, h) || g instanceof PrinterGraphics) {
+        if (cacheMode == CacheMode.NO_CACHING || g instanceof PrinterGraphics) {
+            paintDirectly(g, c, w, h, extendedCacheKeys);
+        } else if (cacheMode == CacheMode.FIXED_SIZES) {
+            if (ImageCache.getInstance().isImageCachable(w, h)) {
+                return paintWithCaching(g, c, w, h, extendedCacheKeys);
+            }
+
             paintDirectly(g, c, w, h, extendedCacheKeys);
         } else {
-            paintWithCaching(g, c, w, h, extendedCacheKeys);
+            return paintWith9SquareCaching(g, c, w, h, extendedCacheKeys, ctx);
         }
+
+        return true;
+    }
+
+    /**
+     * Paints, recording the call with {@link PaintInstrumentation}.
+     *
+     * @param g                 the graphics context.
+     * @param c                 the component, which may be null.
+     * @param w                 the width to paint.
+     * @param h                 the height to paint.
+     * @param extendedCacheKeys the extended cache keys.
+     * @param ctx               the paint context.
+     */
+    private void paintInstrumented(Graphics2D g, JComponent c, int w, int h, Object[] extendedCacheKeys, PaintContext ctx) {
+        String name = instrumentationName;
+
+        if (name == null) {
+            name                = PaintInstrumentation.getPainterName(this);
+            instrumentationName = name;
+        }
+
+        long    bytes   = PaintInstrumentation.getAllocatedBytes();
+        long    start   = System.nanoTime();
+        boolean painted = render(g, c, w, h, extendedCacheKeys, ctx);
+
+        PaintInstrumentation.record(name, System.nanoTime() - start, bytes,
+                                    painted ? PaintInstrumentation.RENDER_DIRECT : PaintInstrumentation.RENDER_CACHED);
     }
 
     /**
@@ -163,6 +216,22 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
      */
     protected abstract PaintContext getPaintContext();
 
+    /**
+     * Gets the PaintContext for painting the specified component. By default
+     * this returns {@link #getPaintContext()}. Subclasses may override this if
+     * the component determines whether its rendering can be cached, e.g. a
+     * painter which can normally be stretched from a nine square image, but
+     * which paints content that depends on the actual size for some
+     * components.
+     *
+     * @param  c the component being painted. This value may be null.
+     *
+     * @return a PaintContext associated with this paint operation.
+     */
+    protected PaintContext getPaintContext(JComponent c) {
+        return getPaintContext();
+    }
+
     /**
      * Get the paint to use for a focus ring.
      *
@@ -248,9 +317,12 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
      */
     protected final Color decodeColor(String key, float hOffset, float sOffset, float bOffset, int aOffset) {
         if (UIManager.getLookAndFeel() instanceof SeaGlassLookAndFeel) {
-            SeaGlassLookAndFeel laf = (SeaGlassLookAndFeel) UIManager.getLookAndFeel();
+            SeaGlassLookAndFeel laf   = (SeaGlassLookAndFeel) UIManager.getLookAndFeel();
+            Color               color = laf.getDerivedColor(key, hOffset, sOffset, bOffset, aOffset, true);
 
-            return laf.getDerivedColor(key, hOffset, sOffset, bOffset, aOffset, true);
+            laf.addDerivedColorUser(color, this);
+
+            return color;
         } else {
 
             // can not give a right answer as painter should not be used outside
@@ -268,9 +340,19 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
      * @param  bOffset The brightness offset used for derivation.
      * @param  aOffset The alpha offset used for derivation. Between 0...255
      *
-     * @return The derived color.
+     * @return The derived color, whose color value will change if the source
+     *         is a derived color and it changes.
      */
     protected Color deriveColor(Color src, float hOffset, float sOffset, float bOffset, int aOffset) {
+        if (UIManager.getLookAndFeel() instanceof SeaGlassLookAndFeel) {
+            SeaGlassLookAndFeel laf   = (SeaGlassLookAndFeel) UIManager.getLookAndFeel();
+            Color               color = laf.getDerivedColor(src, hOffset, sOffset, bOffset, aOffset);
+
+            laf.addDerivedColorUser(color, this);
+
+            return color;
+        }
+
         float[] tmp = Color.RGBtoHSB(src.getRed(), src.getGreen(), src.getBlue(), null);
 
         // apply offsets
@@ -601,24 +683,96 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
     /**
      * Paint the component, using a cached image if possible.
      *
-     * @param g                 the Graphics2D context to paint with.
-     * @param c                 the component to paint.
-     * @param w                 the component width.
-     * @param h                 the component height.
-     * @param extendedCacheKeys extended cache keys.
+     * @param  g                 the Graphics2D context to paint with.
+     * @param  c                 the component, which may be null.
+     * @param  w                 the width to paint.
+     * @param  h                 the height to paint.
+     * @param  extendedCacheKeys the extended cache keys.
+     *
+     * @return {@code true} if doPaint was called, {@code false} if a cached
+     *         image was drawn.
      */
-    private void paintWithCaching(Graphics2D g, JComponent c, int w, int h, Object[] extendedCacheKeys) {
-        VolatileImage img = getImage(g.getDeviceConfiguration(), c, w, h, extendedCacheKeys);
+    private boolean paintWithCaching(Graphics2D g, JComponent c, int w, int h, Object[] extendedCacheKeys) {
+        GraphicsConfiguration config = g.getDeviceConfiguration();
+        VolatileImage         img    = getCachedImage(config, w, h, extendedCacheKeys);
 
         if (img != null) {
 
             // render cached image
             g.drawImage(img, 0, 0, null);
+
+            return false;
+        }
+
+        img = createImage(config, c, w, h, extendedCacheKeys);
+
+        if (img != null) {
+            g.drawImage(img, 0, 0, null);
         } else {
 
             // render directly
             paintDirectly(g, c, w, h, extendedCacheKeys);
         }
+
+        return true;
+    }
+
+    /**
+     * Paint the component by stretching or tiling a cached image rendered at
+     * the PaintContext's canvas size, using its stretching insets to divide
+     * it into nine squares. This allows components of many different sizes to
+     * share one cached image per state.
+     *
+     * @param  g                 the Graphics2D context to paint with.
+     * @param  c                 the component, which may be null.
+     * @param  w                 the width to paint.
+     * @param  h                 the height to paint.
+     * @param  extendedCacheKeys the extended cache keys.
+     * @param  ctx               the paint context.
+     *
+     * @return {@code true} if doPaint was called, {@code false} if a cached
+     *         image was drawn.
+     */
+    private boolean paintWith9SquareCaching(Graphics2D g, JComponent c, int w, int h, Object[] extendedCacheKeys,
+            PaintContext ctx) {
+        Dimension canvas = ctx.getCanvasSize();
+        Insets    insets = ctx.getStretchingInsets();
+
+        // Paint directly if we would have to shrink the corners or scale the
+        // image past its limits.
+        if (w < insets.left + insets.right || h < insets.top + insets.bottom || w > canvas.width * ctx.getMaxHorizontalScaleFactor()
+                || h > canvas.height * ctx.getMaxVerticalScaleFactor()
+                || !ImageCache.getInstance().isImageCachable(canvas.width, canvas.height)) {
+            paintDirectly(g, c, w, h, extendedCacheKeys);
+
+            return true;
+        }
+
+        // get the image at canvas size
+        GraphicsConfiguration config  = g.getDeviceConfiguration();
+        VolatileImage         img     = getCachedImage(config, canvas.width, canvas.height, extendedCacheKeys);
+        boolean               painted = img == null;
+
+        if (painted) {
+            img = createImage(config, c, canvas.width, canvas.height, extendedCacheKeys);
+        }
+
+        if (img == null) {
+            paintDirectly(g, c, w, h, extendedCacheKeys);
+        } else if (ctx.getCacheMode() == CacheMode.NINE_SQUARE_TILE) {
+            ImageScalingHelper.paint(g, 0, 0, w, h, img, insets, insets, ImageScalingHelper.PaintType.PAINT9_TILE,
+                                     ImageScalingHelper.PAINT_ALL);
+        } else {
+            Object oldScalingHint = g.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            ImageScalingHelper.paint(g, 0, 0, w, h, img, insets, insets, ImageScalingHelper.PaintType.PAINT9_STRETCH,
+                                     ImageScalingHelper.PAINT_ALL);
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                               oldScalingHint != null ? oldScalingHint : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        }
+
+        return painted;
     }
 
     /**
@@ -628,10 +782,10 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
      * graphics are removed subsequent to painting.
      *
      * @param g                 the Graphics2D context to paint with.
-     * @param c                 the component to paint.
-     * @param w                 the component width.
-     * @param h                 the component height.
-     * @param extendedCacheKeys extended cache keys.
+     * @param c                 the component, which may be null.
+     * @param w                 the width to paint at.
+     * @param h                 the height to paint at.
+     * @param extendedCacheKeys the extended cache keys.
      */
     private void paintDirectly(Graphics2D g, JComponent c, int w, int h, Object[] extendedCacheKeys) {
         g = (Graphics2D) g.create();
@@ -641,78 +795,84 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
     }
 
     /**
-     * Gets the rendered image for this painter at the requested size, either
-     * from cache or create a new one
+     * Gets the rendered image for this painter at the requested size from the
+     * cache.
+     *
+     * <p>An image in the cache may be drawn by other threads at any time, so
+     * it is never painted into again. If it has lost its contents, it is
+     * flushed to free its surface, and the caller renders a new image to
+     * replace it.</p>
      *
      * @param  config            the graphics configuration.
-     * @param  c                 the component to paint.
-     * @param  w                 the component width.
-     * @param  h                 the component height.
-     * @param  extendedCacheKeys extended cache keys.
+     * @param  w                 the image width.
+     * @param  h                 the image height.
+     * @param  extendedCacheKeys the extended cache keys.
      *
-     * @return the new image.
+     * @return the image, or {@code null} if there is no usable image cached.
      */
-    private VolatileImage getImage(GraphicsConfiguration config, JComponent c, int w, int h, Object[] extendedCacheKeys) {
-        ImageCache imageCache = ImageCache.getInstance();
+    private VolatileImage getCachedImage(GraphicsConfiguration config, int w, int h, Object[] extendedCacheKeys) {
+        VolatileImage buffer = (VolatileImage) ImageCache.getInstance().getImage(config, w, h, this, extendedCacheKeys);
 
-        // get the buffer for this component
-        VolatileImage buffer = (VolatileImage) imageCache.getImage(config, w, h, this, extendedCacheKeys);
-
-        int renderCounter = 0; // to avoid any potential, though unlikely,
-
-        // infinite loop
-        do {
-
-            // validate the buffer so we can check for surface loss
-            int bufferStatus = VolatileImage.IMAGE_INCOMPATIBLE;
-
-            if (buffer != null) {
-                bufferStatus = buffer.validate(config);
-            }
+        if (buffer == null) {
+            return null;
+        } else if (buffer.validate(config) == VolatileImage.IMAGE_OK && !buffer.contentsLost()) {
+            return buffer;
+        }
 
-            // If the buffer status is incompatible or restored, then we need to
-            // re-render to the volatile image
-            if (bufferStatus == VolatileImage.IMAGE_INCOMPATIBLE || bufferStatus == VolatileImage.IMAGE_RESTORED) {
+        buffer.flush();
 
-                // if the buffer is null (hasn't been created), or isn't the
-                // right size, or has lost its contents,
-                // then recreate the buffer
-                if (buffer == null || buffer.getWidth() != w || buffer.getHeight() != h
-                        || bufferStatus == VolatileImage.IMAGE_INCOMPATIBLE) {
+        return null;
+    }
 
-                    // clear any resources related to the old back buffer
-                    if (buffer != null) {
-                        buffer.flush();
-                        buffer = null;
-                    }
+    /**
+     * Renders this painter into a new image and puts it in the cache.
+     *
+     * @param  config            the graphics configuration.
+     * @param  c                 the component, which may be null.
+     * @param  w                 the image width.
+     * @param  h                 the image height.
+     * @param  extendedCacheKeys the extended cache keys.
+     *
+     * @return the new image, or {@code null} if it kept losing its contents.
+     */
+    private VolatileImage createImage(GraphicsConfiguration config, JComponent c, int w, int h, Object[] extendedCacheKeys) {
+        VolatileImage buffer;
+        int           renderCounter = 0; // to avoid any potential, though unlikely,
 
-                    // recreate the buffer
-                    buffer = config.createCompatibleVolatileImage(w, h, Transparency.TRANSLUCENT);
+        // infinite loop
+        do {
 
-                    // put in cache for future
-                    imageCache.setImage(buffer, config, w, h, this, extendedCacheKeys);
-                }
+            // create the buffer and validate it once, so that the restore
+            // reported by a new volatile image isn't taken for a lost surface
+            // by the next thread to look it up.
+            buffer = config.createCompatibleVolatileImage(w, h, Transparency.TRANSLUCENT);
+            buffer.validate(config);
 
-                // create the graphics context with which to paint to the buffer
-                Graphics2D bg = buffer.createGraphics();
+            // create the graphics context with which to paint to the buffer
+            Graphics2D bg = buffer.createGraphics();
 
-                // clear the background before configuring the graphics
-                bg.setComposite(AlphaComposite.Clear);
-                bg.fillRect(0, 0, w, h);
-                bg.setComposite(AlphaComposite.SrcOver);
-                configureGraphics(bg);
+            // clear the background before configuring the graphics
+            bg.setComposite(AlphaComposite.Clear);
+            bg.fillRect(0, 0, w, h);
+            bg.setComposite(AlphaComposite.SrcOver);
+            configureGraphics(bg);
 
-                // paint the painter into buffer
-                paintDirectly(bg, c, w, h, extendedCacheKeys);
+            // paint the painter into buffer
+            paintDirectly(bg, c, w, h, extendedCacheKeys);
 
-                // close buffer graphics
-                bg.dispose();
-            }
+            // close buffer graphics
+            bg.dispose();
         } while (buffer.contentsLost() && renderCounter++ < 3);
 
         // check if we failed
-        if (renderCounter == 3)
+        if (renderCounter == 3) {
+            buffer.flush();
+
             return null;
+        }
+
+        // put in cache for future
+        ImageCache.getInstance().setImage(buffer, config, w, h, this, extendedCacheKeys);
 
         // return image
         return buffer;
@@ -763,21 +923,75 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
 
         /**
          * The cache modes.
+         *
+         * <p>{@code FIXED_SIZES} caches one image per size. The
+         * {@code NINE_SQUARE_SCALE} and {@code NINE_SQUARE_TILE} modes cache a
+         * single image rendered at the canvas size and paint it at any size by
+         * dividing it into nine squares using the stretching insets. The
+         * corners are painted unchanged and the edges and center are either
+         * scaled or tiled.</p>
          */
         public static enum CacheMode {
-            NO_CACHING, FIXED_SIZES
+            NO_CACHING, FIXED_SIZES, NINE_SQUARE_SCALE, NINE_SQUARE_TILE
         }
 
         private CacheMode cacheMode;
+        private Insets    stretchingInsets;
+        private Dimension canvasSize;
+        private double    maxHorizontalScaleFactor;
+        private double    maxVerticalScaleFactor;
 
         /**
          * Creates a new PaintContext.
          *
          * @param cacheMode A hint as to which caching mode to use. If null,
-         *                  then set to no caching.
+         *                  then set to no caching. The nine square modes
+         *                  require stretching insets and a canvas size, so
+         *                  they are treated as {@code FIXED_SIZES} here.
          */
         public PaintContext(CacheMode cacheMode) {
-            this.cacheMode = cacheMode == null ? CacheMode.NO_CACHING : cacheMode;
+            this(cacheMode, null, null, 1.0, 1.0);
+        }
+
+        /**
+         * Creates a new PaintContext for one of the nine square cache modes.
+         *
+         * @param cacheMode                A hint as to which caching mode to
+         *                                 use. If null, then set to no
+         *                                 caching.
+         * @param stretchingInsets         the insets of the canvas which must
+         *                                 not be stretched or tiled, i.e. the
+         *                                 corners and the thickness of the
+         *                                 edges.
+         * @param canvasSize               the size at which the canonical
+         *                                 image is rendered and cached.
+         * @param maxHorizontalScaleFactor the maximum ratio of painted width
+         *                                 to canvas width for which the cached
+         *                                 image is used. Use
+         *                                 {@code Double.POSITIVE_INFINITY}
+         *                                 for no limit.
+         * @param maxVerticalScaleFactor   the maximum ratio of painted height
+         *                                 to canvas height for which the
+         *                                 cached image is used. Use
+         *                                 {@code Double.POSITIVE_INFINITY}
+         *                                 for no limit.
+         */
+        public PaintContext(CacheMode cacheMode, Insets stretchingInsets, Dimension canvasSize, double maxHorizontalScaleFactor,
+                double maxVerticalScaleFactor) {
+            if (cacheMode == null) {
+                cacheMode = CacheMode.NO_CACHING;
+            } else if ((cacheMode == CacheMode.NINE_SQUARE_SCALE || cacheMode == CacheMode.NINE_SQUARE_TILE)
+                    && (stretchingInsets == null || canvasSize == null
+                        || canvasSize.width <= stretchingInsets.left + stretchingInsets.right
+                        || canvasSize.height <= stretchingInsets.top + stretchingInsets.bottom)) {
+                cacheMode = CacheMode.FIXED_SIZES;
+            }
+
+            this.cacheMode                = cacheMode;
+            this.stretchingInsets         = stretchingInsets == null ? new Insets(0, 0, 0, 0) : stretchingInsets;
+            this.canvasSize               = canvasSize;
+            this.maxHorizontalScaleFactor = maxHorizontalScaleFactor;
+            this.maxVerticalScaleFactor   = maxVerticalScaleFactor;
         }
 
         /**
@@ -788,6 +1002,46 @@ public abstract class AbstractRegionPainter implements SeaGlassPainter<JComponen
         public CacheMode getCacheMode() {
             return cacheMode;
         }
+
+        /**
+         * Returns the stretching insets used by the nine square cache modes.
+         *
+         * @return the stretching insets. This is never null.
+         */
+        public Insets getStretchingInsets() {
+            return stretchingInsets;
+        }
+
+        /**
+         * Returns the size at which the canonical image is rendered for the
+         * nine square cache modes.
+         *
+         * @return the canvas size, or null if this context doesn't use a nine
+         *         square cache mode.
+         */
+        public Dimension getCanvasSize() {
+            return canvasSize;
+        }
+
+        /**
+         * Returns the maximum horizontal scale factor for the nine square
+         * cache modes.
+         *
+         * @return the maximum horizontal scale factor.
+         */
+        public double getMaxHorizontalScaleFactor() {
+            return maxHorizontalScaleFactor;
+        }
+
+        /**
+         * Returns the maximum vertical scale factor for the nine square cache
+         * modes.
+         *
+         * @return the maximum vertical scale factor.
+         */
+        public double getMaxVerticalScaleFactor() {
+            return maxVerticalScaleFactor;
+        }
     }
 
     /**
@@ -21,37 +21,159 @@ package com.seaglasslookandfeel.painter;
 
 import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.print.PrinterGraphics;
 
 import javax.swing.JComponent;
 
 import com.seaglasslookandfeel.icons.DesktopPane;
 import com.seaglasslookandfeel.painter.AbstractRegionPainter.PaintContext.CacheMode;
+import com.seaglasslookandfeel.util.ImageCache;
+import com.seaglasslookandfeel.util.ImageCachePolicy;
 
 /**
  * Sea Glass's DesktopPanePainter.
+ *
+ * <p>Desktops are far larger than the shared image cache accepts, so the
+ * background artwork is cached in a cache of its own. It is rendered once per
+ * size bucket, each dimension rounded up to a multiple of {@link #BUCKET}
+ * pixels, and stretched to the exact size of the desktop, so that resizing a
+ * desktop doesn't render the artwork again on every step. Only the part of
+ * the image within the clip is copied, so dragging an internal frame repaints
+ * just the area it uncovers.</p>
  */
 public final class DesktopPanePainter extends AbstractRegionPainter {
     public static enum Which {
         BACKGROUND_ENABLED
     }
 
+    /** Desktop sizes are rounded up to a multiple of this many pixels. */
+    private static final int BUCKET = 64;
+
+    /** The budget for the cached desktop backgrounds. */
+    private static final long MAX_BYTES = 32 * 1024 * 1024;
+
+    /** The largest desktop, in pixels, whose background will be cached. */
+    private static final int MAX_PIXELS = 4096 * 2560;
+
+    private static final ImageCache cache = new ImageCache(new ImageCachePolicy(MAX_BYTES, MAX_PIXELS, 0));
 
     private PaintContext ctx;
 
     public DesktopPanePainter(Which state) {
         super();
-        this.ctx = new PaintContext(CacheMode.FIXED_SIZES);
+        this.ctx = new PaintContext(CacheMode.NO_CACHING);
+    }
+
+    /**
+     * Discards the cached desktop backgrounds.
+     */
+    public static void flush() {
+        cache.flush();
+    }
+
+    /**
+     * Returns the statistics of the desktop background cache.
+     *
+     * @return the statistics.
+     */
+    public static ImageCache.Statistics getStatistics() {
+        return cache.getStatistics();
     }
 
     protected void doPaint(Graphics2D g, JComponent c, int width, int height, Object[] extendedCacheKeys) {
-        if (c.isOpaque()) {
-            DesktopPane panePainter = new DesktopPane();
-            panePainter.setDimension(new Dimension(width, height));
-            panePainter.paintIcon(c, g, 0, 0);
+        if (!c.isOpaque()) {
+            return;
+        }
+
+        Image image = g instanceof PrinterGraphics ? null : getImage(g.getDeviceConfiguration(), width, height);
+
+        if (image == null) {
+            paintVector(g, width, height);
+
+            return;
+        }
+
+        int imageWidth  = image.getWidth(null);
+        int imageHeight = image.getHeight(null);
+
+        if (imageWidth == width && imageHeight == height) {
+            Rectangle clip = g.getClipBounds();
+            int       x1   = 0;
+            int       y1   = 0;
+            int       x2   = width;
+            int       y2   = height;
+
+            if (clip != null) {
+                x1 = Math.max(x1, clip.x);
+                y1 = Math.max(y1, clip.y);
+                x2 = Math.min(x2, clip.x + clip.width);
+                y2 = Math.min(y2, clip.y + clip.height);
+            }
+
+            if (x1 < x2 && y1 < y2) {
+                g.drawImage(image, x1, y1, x2, y2, x1, y1, x2, y2, null);
+            }
+        } else {
+
+            // The graphics clip limits the stretched copy to the dirty region.
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g.drawImage(image, 0, 0, width, height, 0, 0, imageWidth, imageHeight, null);
         }
     }
 
     protected final PaintContext getPaintContext() {
         return ctx;
     }
+
+    /**
+     * Gets the background for a desktop from the cache, rendering and caching
+     * it at the size of its bucket if necessary.
+     *
+     * @param  config the graphics configuration of the destination.
+     * @param  width  the width of the desktop.
+     * @param  height the height of the desktop.
+     *
+     * @return the image, or null if the desktop is too large to cache.
+     */
+    private static Image getImage(GraphicsConfiguration config, int width, int height) {
+        int bucketWidth  = (width + BUCKET - 1) / BUCKET * BUCKET;
+        int bucketHeight = (height + BUCKET - 1) / BUCKET * BUCKET;
+
+        if (config == null || !cache.isImageCachable(bucketWidth, bucketHeight)) {
+            return null;
+        }
+
+        Image image = cache.getImage(config, bucketWidth, bucketHeight, DesktopPanePainter.class, null);
+
+        if (image == null) {
+            image = config.createCompatibleImage(bucketWidth, bucketHeight, Transparency.TRANSLUCENT);
+            Graphics2D g = (Graphics2D) image.getGraphics();
+
+            paintVector(g, bucketWidth, bucketHeight);
+            g.dispose();
+
+            cache.setImage(image, config, bucketWidth, bucketHeight, DesktopPanePainter.class, null);
+        }
+
+        return image;
+    }
+
+    /**
+     * Paints the background artwork from its vectors.
+     *
+     * @param g      the graphics context.
+     * @param width  the width of the desktop.
+     * @param height the height of the desktop.
+     */
+    private static void paintVector(Graphics2D g, int width, int height) {
+        DesktopPane panePainter = new DesktopPane();
+
+        panePainter.setDimension(new Dimension(width, height));
+        panePainter.paintIcon(null, g, 0, 0);
+    }
 }
@@ -19,7 +19,6 @@
  */
 package com.seaglasslookandfeel.painter;
 
-import java.awt.Dimension;
 import java.awt.Graphics2D;
 
 import javax.swing.JComponent;
@@ -31,6 +30,8 @@ import com.seaglasslookandfeel.icons.FolderIcon;
 import com.seaglasslookandfeel.icons.FolderNewIcon;
 import com.seaglasslookandfeel.icons.FolderUpIcon;
 import com.seaglasslookandfeel.icons.HardDiskIcon;
+import com.seaglasslookandfeel.icons.IconRasterCache;
+import com.seaglasslookandfeel.icons.VectorIcon;
 import com.seaglasslookandfeel.icons.ViewDetailsIcon;
 import com.seaglasslookandfeel.icons.ViewListIcon;
 import com.seaglasslookandfeel.painter.AbstractRegionPainter.PaintContext.CacheMode;
@@ -45,6 +46,7 @@ public final class FileChooserPainter extends AbstractRegionPainter {
 
     private Which        state;
     private PaintContext ctx;
+    private VectorIcon   icon;
    
     /**
      * @param state
@@ -53,95 +55,37 @@ public final class FileChooserPainter extends AbstractRegionPainter {
         super();
         this.state = state;
         this.ctx = new PaintContext(CacheMode.NO_CACHING);
+        this.icon = createIcon(state);
     }
 
     @Override
     protected void doPaint(Graphics2D g, JComponent c, int width, int height, Object[] extendedCacheKeys) {
+        IconRasterCache.paintIcon(icon, width, height, c, g, 0, 0);
+    }
+
+    private static VectorIcon createIcon(Which state) {
         switch (state) {
         case FILEICON_ENABLED:
-            paintFileIcon(g, c, width, height);
-            break;
+            return new FileIcon();
         case DIRECTORYICON_ENABLED:
-            paintDirectoryIcon(g, c, width, height);
-            break;
+            return new FolderIcon();
         case UPFOLDERICON_ENABLED:
-            paintUpFolderIcon(g, c, width, height);
-            break;
+            return new FolderUpIcon();
         case NEWFOLDERICON_ENABLED:
-            paintNewFolderIcon(g, c, width, height);
-            break;
+            return new FolderNewIcon();
         case HOMEFOLDERICON_ENABLED:
-            paintHomeFolderIcon(g, c, width, height);
-            break;
+            return new FolderHomeIcon();
         case DETAILSVIEWICON_ENABLED:
-            paintViewDetailsIcon(g, c, width, height);
-            break;
+            return new ViewDetailsIcon();
         case LISTVIEWICON_ENABLED:
-            paintViewListIcon(g, c, width, height);
-            break;
+            return new ViewListIcon();
         case HARDDRIVEICON_ENABLED:
-            paintHardDriveIcon(g, c, width, height);
-            break;
-        case FLOPPYDRIVEICON_ENABLED:
-            paintFloppyDiskIcon(g, c, width, height);
-            break;
+            return new HardDiskIcon();
+        default:
+            return new FloppyDiskIcon();
         }
     }
 
-    private void paintFloppyDiskIcon(Graphics2D g, JComponent c, int width, int height) {
-        FloppyDiskIcon icon = new FloppyDiskIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintHardDriveIcon(Graphics2D g, JComponent c, int width, int height) {
-        HardDiskIcon icon = new HardDiskIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintViewListIcon(Graphics2D g, JComponent c, int width, int height) {
-        ViewListIcon icon = new ViewListIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintViewDetailsIcon(Graphics2D g, JComponent c, int width, int height) {
-        ViewDetailsIcon icon = new ViewDetailsIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintHomeFolderIcon(Graphics2D g, JComponent c, int width, int height) {
-        FolderHomeIcon icon = new FolderHomeIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintNewFolderIcon(Graphics2D g, JComponent c, int width, int height) {
-        FolderNewIcon icon = new FolderNewIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintUpFolderIcon(Graphics2D g, JComponent c, int width, int height) {
-        FolderUpIcon icon = new FolderUpIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintDirectoryIcon(Graphics2D g, JComponent c, int width, int height) {
-        FolderIcon icon = new FolderIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
-    private void paintFileIcon(Graphics2D g, JComponent c, int width, int height) {
-        FileIcon icon = new FileIcon();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
-    }
-
     /**
      * {@inheritDoc}
      */
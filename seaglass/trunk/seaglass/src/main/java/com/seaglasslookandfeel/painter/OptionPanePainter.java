@@ -19,14 +19,15 @@
  */
 package com.seaglasslookandfeel.painter;
 
-import java.awt.Dimension;
 import java.awt.Graphics2D;
 
 import javax.swing.JComponent;
 
 import com.seaglasslookandfeel.icons.ErrorSign;
+import com.seaglasslookandfeel.icons.IconRasterCache;
 import com.seaglasslookandfeel.icons.InfoSign;
 import com.seaglasslookandfeel.icons.QuestionSign;
+import com.seaglasslookandfeel.icons.VectorIcon;
 import com.seaglasslookandfeel.icons.WarningSign;
 import com.seaglasslookandfeel.painter.AbstractRegionPainter.PaintContext.CacheMode;
 
@@ -38,6 +39,8 @@ public final class OptionPanePainter extends AbstractRegionPainter {
 
     private Which        state;
     private PaintContext ctx;
+    private VectorIcon   icon;
+    private int          offset;
    
     /**
      * @param state
@@ -46,48 +49,30 @@ public final class OptionPanePainter extends AbstractRegionPainter {
         super();
         this.state = state;
         this.ctx = new PaintContext(CacheMode.NO_CACHING);
-    }
 
-    @Override
-    protected void doPaint(Graphics2D g, JComponent c, int width, int height, Object[] extendedCacheKeys) {
         switch (state) {
         case ERRORICON_ENABLED:
-            paintErrorSign(g, c, width, height);
+            icon = new ErrorSign();
+            offset = 0;
             break;
         case INFORMATIONICON_ENABLED:
-            paintInfoSign(g, c, width, height);
+            icon = new InfoSign();
+            offset = -3;
             break;
         case QUESTIONICON_ENABLED:
-            paintQuestionSign(g, c, width, height);
+            icon = new QuestionSign();
+            offset = -3;
             break;
         case WARNINGICON_ENABLED:
-            paintWarningSign(g, c, width, height);
+            icon = new WarningSign();
+            offset = -3;
             break;
         }
     }
 
-    private void paintWarningSign(Graphics2D g, JComponent c, int width, int height) {
-        WarningSign icon = new WarningSign();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, -3, -3);
-    }
-
-    private void paintQuestionSign(Graphics2D g, JComponent c, int width, int height) {
-        QuestionSign icon = new QuestionSign();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, -3, -3);
-    }
-
-    private void paintInfoSign(Graphics2D g, JComponent c, int width, int height) {
-        InfoSign icon = new InfoSign();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, -3, -3);
-    }
-
-    private void paintErrorSign(Graphics2D g, JComponent c, int width, int height) {
-        ErrorSign icon = new ErrorSign();
-        icon.setDimension(new Dimension(width, height));
-        icon.paintIcon(c, g, 0, 0);
+    @Override
+    protected void doPaint(Graphics2D g, JComponent c, int width, int height, Object[] extendedCacheKeys) {
+        IconRasterCache.paintIcon(icon, width, height, c, g, offset, offset);
     }
 
     /**
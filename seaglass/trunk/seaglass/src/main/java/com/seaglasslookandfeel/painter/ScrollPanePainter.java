@@ -20,7 +20,9 @@
 package com.seaglasslookandfeel.painter;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Insets;
 import java.awt.Paint;
 import java.awt.Shape;
 import java.awt.geom.Rectangle2D;
@@ -47,6 +49,13 @@ public final class ScrollPanePainter extends AbstractRegionPainter {
         BACKGROUND_ENABLED, BORDER_ENABLED, BORDER_ENABLED_FOCUSED, CORNER_ENABLED,
     }
 
+    /**
+     * Stretching insets for the nine square cache. These leave room for the
+     * outer focus ring's corners.
+     */
+    private static final Insets    STRETCHING_INSETS = new Insets(8, 8, 8, 8);
+    private static final Dimension CANVAS_SIZE       = new Dimension(32, 32);
+
     private Which        state;
     private PaintContext ctx;
 
@@ -62,7 +71,13 @@ public final class ScrollPanePainter extends AbstractRegionPainter {
     public ScrollPanePainter(Which state) {
         super();
         this.state = state;
-        this.ctx   = new PaintContext(CacheMode.FIXED_SIZES);
+
+        if (state == Which.CORNER_ENABLED) {
+            this.ctx = new PaintContext(CacheMode.FIXED_SIZES);
+        } else {
+            this.ctx = new PaintContext(CacheMode.NINE_SQUARE_SCALE, STRETCHING_INSETS, CANVAS_SIZE, Double.POSITIVE_INFINITY,
+                                        Double.POSITIVE_INFINITY);
+        }
     }
 
     /**
@@ -89,6 +104,21 @@ public final class ScrollPanePainter extends AbstractRegionPainter {
         }
     }
 
+    /**
+     * @see com.seaglasslookandfeel.painter.AbstractRegionPainter#getExtendedCacheKeys(javax.swing.JComponent)
+     */
+    protected Object[] getExtendedCacheKeys(JComponent c) {
+        if (state == Which.BACKGROUND_ENABLED && c instanceof JScrollPane) {
+            JViewport viewport = ((JScrollPane) c).getViewport();
+
+            if (viewport != null) {
+                return new Object[] { viewport.isOpaque(), viewport.getBackground() };
+            }
+        }
+
+        return null;
+    }
+
     private void paintBackground(Graphics2D g, JComponent c, int width, int height) {
         JViewport viewport = ((JScrollPane)c).getViewport();
         if (viewport.isOpaque()) {
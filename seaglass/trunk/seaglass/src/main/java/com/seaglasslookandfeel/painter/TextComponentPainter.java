@@ -20,7 +20,9 @@
 package com.seaglasslookandfeel.painter;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
+import java.awt.Insets;
 import java.awt.Shape;
 
 import javax.swing.JComponent;
@@ -28,6 +30,7 @@ import javax.swing.JTextArea;
 import javax.swing.plaf.ColorUIResource;
 
 import com.seaglasslookandfeel.effect.SeaGlassInternalShadowEffect;
+import com.seaglasslookandfeel.painter.AbstractRegionPainter.PaintContext.CacheMode;
 import com.seaglasslookandfeel.painter.util.ShapeGenerator.CornerSize;
 
 /**
@@ -43,6 +46,13 @@ public final class TextComponentPainter extends AbstractCommonColorsPainter {
         BORDER_FOCUSED, BORDER_ENABLED,
     }
 
+    /**
+     * Stretching insets for the nine square cache. These leave room for the
+     * focus insets plus the outer focus ring's corners.
+     */
+    private static final Insets    STRETCHING_INSETS = new Insets(8, 8, 8, 8);
+    private static final Dimension CANVAS_SIZE       = new Dimension(32, 32);
+
     private Color defaultBackground = decodeColor("seaGlassLightBackground");
     // Rossi: All round corners like all other text components and added support for separators lines
     private Color lineSeparatorEnabled = new ColorUIResource(0xebf5fc);
@@ -51,12 +61,10 @@ public final class TextComponentPainter extends AbstractCommonColorsPainter {
 
     private Which              state;
     private PaintContext       ctx;
+    private PaintContext       fixedSizeCtx;
     private CommonControlState type;
     private boolean            focused;
 
-    // Array of current component colors, updated in each paint call
-    private Object[]           componentColors;
-
     /**
      * Creates a new TextComponentPainter object.
      *
@@ -65,7 +73,10 @@ public final class TextComponentPainter extends AbstractCommonColorsPainter {
     public TextComponentPainter(Which state) {
         super();
         this.state = state;
-        this.ctx   = new PaintContext(AbstractRegionPainter.PaintContext.CacheMode.FIXED_SIZES);
+        this.ctx   = new PaintContext(CacheMode.NINE_SQUARE_SCALE, STRETCHING_INSETS, CANVAS_SIZE, Double.POSITIVE_INFINITY,
+                                      Double.POSITIVE_INFINITY);
+
+        this.fixedSizeCtx = new PaintContext(CacheMode.FIXED_SIZES);
 
         type    = (state == Which.BACKGROUND_DISABLED || state == Which.BACKGROUND_SOLID_DISABLED || state == Which.BORDER_DISABLED)
             ? CommonControlState.DISABLED : CommonControlState.ENABLED;
@@ -76,9 +87,6 @@ public final class TextComponentPainter extends AbstractCommonColorsPainter {
      * {@inheritDoc}
      */
     protected void doPaint(Graphics2D g, JComponent c, int width, int height, Object[] extendedCacheKeys) {
-        // Populate componentColors array with colors calculated in getExtendedCacheKeys call.
-        componentColors = extendedCacheKeys;
-
         int x = focusInsets.left;
         int y = focusInsets.top;
 
@@ -90,7 +98,7 @@ public final class TextComponentPainter extends AbstractCommonColorsPainter {
         case BACKGROUND_DISABLED:
         case BACKGROUND_ENABLED:
         case BACKGROUND_SELECTED:
-            paintBackground(g, c, x, y, width, height);
+            paintBackground(g, c, x, y, width, height, extendedCacheKeys);
             break;
 
         case BACKGROUND_SOLID_DISABLED:
@@ -126,17 +134,34 @@ public final class TextComponentPainter extends AbstractCommonColorsPainter {
         return ctx;
     }
 
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Line separators are painted according to the component's font and
+     * height, so they can't be stretched from the nine square image.</p>
+     */
+    protected PaintContext getPaintContext(JComponent c) {
+        if (c != null && (state == Which.BACKGROUND_DISABLED || state == Which.BACKGROUND_ENABLED || state == Which.BACKGROUND_SELECTED
+                    || state == Which.BACKGROUND_SOLID_DISABLED || state == Which.BACKGROUND_SOLID_ENABLED)
+                && isPaintLineSeperators(c)) {
+            return fixedSizeCtx;
+        }
+
+        return ctx;
+    }
+
     /**
      * Paint the background of an editable control.
      *
-     * @param g      DOCUMENT ME!
-     * @param c      DOCUMENT ME!
-     * @param x      DOCUMENT ME!
-     * @param y      DOCUMENT ME!
-     * @param width  DOCUMENT ME!
-     * @param height DOCUMENT ME!
+     * @param g               DOCUMENT ME!
+     * @param c               DOCUMENT ME!
+     * @param x               DOCUMENT ME!
+     * @param y               DOCUMENT ME!
+     * @param width           DOCUMENT ME!
+     * @param height          DOCUMENT ME!
+     * @param componentColors the colors calculated in getExtendedCacheKeys.
      */
-    private void paintBackground(Graphics2D g, JComponent c, int x, int y, int width, int height) {
+    private void paintBackground(Graphics2D g, JComponent c, int x, int y, int width, int height, Object[] componentColors) {
         Color color = c.getBackground();
 
         if (state == Which.BACKGROUND_ENABLED) {
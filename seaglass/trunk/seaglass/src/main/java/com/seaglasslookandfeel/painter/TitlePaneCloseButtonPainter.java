@@ -56,8 +56,6 @@ public final class TitlePaneCloseButtonPainter extends TitlePaneButtonPainter {
                                                     closeButtonMarkBorderPressed,
                                                     closeButtonMarkInteriorPressed);
 
-    private MyPath2D path = new MyPath2D();
-
     private Which        state;
     private PaintContext ctx;
 
@@ -200,7 +198,8 @@ public final class TitlePaneCloseButtonPainter extends TitlePaneButtonPainter {
      * @return the shape.
      */
     private Shape decodeInterior(int width, int height) {
-        path.reset();
+        MyPath2D path = new MyPath2D();
+
         path.moveTo(1, 1);
         path.lineTo(width - 2, 1);
         path.lineTo(width - 2, height - 3);
@@ -220,7 +219,8 @@ public final class TitlePaneCloseButtonPainter extends TitlePaneButtonPainter {
      * @return the shape of the edge.
      */
     private Shape decodeEdge(int width, int height) {
-        path.reset();
+        MyPath2D path = new MyPath2D();
+
         path.moveTo(width - 2, 0);
         path.lineTo(width - 2, height - 4);
         path.lineTo(width - 4, height - 2);
@@ -238,7 +238,8 @@ public final class TitlePaneCloseButtonPainter extends TitlePaneButtonPainter {
      * @return the shape of the shadow.
      */
     private Shape decodeShadow(int width, int height) {
-        path.reset();
+        MyPath2D path = new MyPath2D();
+
         path.moveTo(width - 1, 0);
         path.lineTo(width - 1, height - 4);
         path.lineTo(width - 4, height - 1);
@@ -259,7 +260,8 @@ public final class TitlePaneCloseButtonPainter extends TitlePaneButtonPainter {
         int left = (width - 3) / 2 - 5;
         int top  = (height - 2) / 2 - 5;
 
-        path.reset();
+        MyPath2D path = new MyPath2D();
+
         path.moveTo(left + 1, top + 0);
         path.lineTo(left + 3, top + 0);
         path.pointAt(left + 4, top + 1);
@@ -306,7 +308,8 @@ public final class TitlePaneCloseButtonPainter extends TitlePaneButtonPainter {
         int left = (width - 3) / 2 - 5;
         int top  = (height - 2) / 2 - 5;
 
-        path.reset();
+        MyPath2D path = new MyPath2D();
+
         path.moveTo(left + 1, top + 1);
         path.lineTo(left + 4, top + 1);
         path.lineTo(left + 5, top + 3);
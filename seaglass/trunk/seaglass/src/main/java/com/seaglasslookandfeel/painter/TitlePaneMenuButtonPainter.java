@@ -50,8 +50,6 @@ public final class TitlePaneMenuButtonPainter extends TitlePaneButtonPainter {
     private ButtonColors pressed = new ButtonColors(gray_9b_82, black66, gray_a9_9e, black66, black33, white33, gray_e6_59, gray_0e_e5,
                                                     gray_e6);
 
-    private Path2D path = new Path2D.Double();
-
     private Which        state;
     private PaintContext ctx;
 
@@ -195,7 +193,8 @@ public final class TitlePaneMenuButtonPainter extends TitlePaneButtonPainter {
      * @return the shape of the button interior.
      */
     private Shape decodeInterior(int width, int height) {
-        path.reset();
+        Path2D path = new Path2D.Double();
+
         path.moveTo(1, 1);
         path.lineTo(width - 2, 1);
         path.lineTo(width - 2, height - 3);
@@ -216,7 +215,8 @@ public final class TitlePaneMenuButtonPainter extends TitlePaneButtonPainter {
      * @return the shape of the button edge.
      */
     private Shape decodeEdge(int width, int height) {
-        path.reset();
+        Path2D path = new Path2D.Double();
+
         path.moveTo(width - 2, 0);
         path.lineTo(width - 2, height - 4);
         path.lineTo(width - 4, height - 2);
@@ -234,7 +234,8 @@ public final class TitlePaneMenuButtonPainter extends TitlePaneButtonPainter {
      * @return the shape of the button shadow.
      */
     private Shape decodeShadow(int width, int height) {
-        path.reset();
+        Path2D path = new Path2D.Double();
+
         path.moveTo(width - 1, 0);
         path.lineTo(width - 1, height - 4);
         path.lineTo(width - 4, height - 1);
@@ -256,7 +257,8 @@ public final class TitlePaneMenuButtonPainter extends TitlePaneButtonPainter {
         double left = width / 2.0 - 4;
         double top  = height / 2.0 - 4;
 
-        path.reset();
+        Path2D path = new Path2D.Double();
+
         path.moveTo(left + 0, top + 0);
         path.lineTo(left + 8, top);
         path.lineTo(left + 4, top + 6);
@@ -277,7 +279,8 @@ public final class TitlePaneMenuButtonPainter extends TitlePaneButtonPainter {
         double left = width / 2.0 - 4;
         double top  = height / 2.0 - 4;
 
-        path.reset();
+        Path2D path = new Path2D.Double();
+
         path.moveTo(left + 1, top + 1);
         path.lineTo(left + 8, top + 1);
         path.lineTo(left + 4, top + 6);
@@ -175,11 +175,18 @@ public class ShapeGenerator {
         }
     }
 
-    /** Used for generic shapes. */
-    private Path2D path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
-
-    /** Used for simple elliptical or circular shapes. */
-    private Ellipse2D ellipse = new Ellipse2D.Float();
+    /**
+     * The shapes returned by all the generators, one set per thread. A shape
+     * is reused by the next call on the same thread, from any painter, so
+     * painters must be done with it by then, but painters on other threads
+     * never see it change.
+     */
+    private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
 
     /**
      * Return a path for a rectangle with square corners.
@@ -256,7 +263,8 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createOpenRectangle(final int x, final int y, final int w, final int h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x + w, y);
         path.lineTo(x, y);
         path.lineTo(x, y + h);
@@ -279,7 +287,8 @@ public class ShapeGenerator {
         double xf = w / 12.0;
         double hf = h / 12.0;
 
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y + 7.0 * hf);
         path.lineTo(x + 2.0 * xf, y + 7.0 * hf);
         path.lineTo(x + 4.75 * xf, y + 10.0 * hf);
@@ -302,7 +311,8 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createArrowLeft(final double x, final double y, final double w, final double h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x + w, y);
         path.lineTo(x, y + h / 2.0);
         path.lineTo(x + w, y + h);
@@ -322,7 +332,8 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createArrowRight(final double x, final double y, final double w, final double h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y);
         path.lineTo(x + w, y + h / 2);
         path.lineTo(x, y + h);
@@ -342,7 +353,8 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createArrowUp(final double x, final double y, final double w, final double h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y + h);
         path.lineTo(x + w / 2, y);
         path.lineTo(x + w, y + h);
@@ -362,7 +374,8 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createArrowDown(final double x, final double y, final double w, final double h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y);
         path.lineTo(x + w / 2, y + h);
         path.lineTo(x + w, y);
@@ -384,7 +397,8 @@ public class ShapeGenerator {
     public Shape createProgressBarIndeterminatePattern(int x, int y, int w, int h) {
       final double wHalf   = w / 2.0;
       final double xOffset = 5;
-      path.reset();
+      Path2D path = getPath();
+
       path.moveTo(xOffset, 0);
       path.lineTo(xOffset+wHalf, 0);
       path.curveTo(xOffset+wHalf-5, h/2-4, xOffset+wHalf+5, h/2+4, xOffset+wHalf, h);
@@ -411,7 +425,7 @@ public class ShapeGenerator {
         final int    right  = x + w;
         final double bottom = y + radius;
 
-        path.reset();
+        Path2D path = getPath();
 
         // Upper edge.
         path.moveTo(x, bottom);
@@ -448,7 +462,8 @@ public class ShapeGenerator {
         final int right  = x + w;
         final int bottom = y + h;
 
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(left, top);
         path.lineTo(left, bottom);
         path.lineTo(right, bottom);
@@ -530,7 +545,8 @@ public class ShapeGenerator {
         final double bottomArcH = size == CornerSize.INTERIOR ? 0 : 1;
         final double bottomArcW = 3;
 
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y + topArc);
         path.quadTo(x, y, x + topArc, y);
         path.lineTo(x + w - topArc, y);
@@ -559,7 +575,8 @@ public class ShapeGenerator {
         final double yMid = y + h / 2.0;
 
         // Draw the circle.
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(xMid, y);
         path.quadTo(x, y, x, yMid);
         path.quadTo(x, y + h, xMid, y + h);
@@ -606,7 +623,7 @@ public class ShapeGenerator {
         final double xMid = x + w / 2.0;
         final double yMid = y + h / 2.0;
 
-        path.reset();
+        Path2D path = getPath();
 
         final double xOffsetL = w / 2.0;
         final double xOffsetS = w / 2.0 - 1;
@@ -643,11 +660,12 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createScrollCap(int x, int y, int w, int h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y);
         path.lineTo(x, y + h);
         path.lineTo(x + w, y + h);
-        addScrollGapPath(x, y, w, h, true);
+        addScrollGapPath(path, x, y, w, h, true);
         path.closePath();
 
         return path;
@@ -666,11 +684,12 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createScrollButtonApart(int x, int y, int w, int h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x, y);
         path.lineTo(x, y + h);
         path.lineTo(x + w, y + h);
-        addScrollGapPath(x, y, w, h, true);
+        addScrollGapPath(path, x, y, w, h, true);
         path.closePath();
 
         return path;
@@ -688,11 +707,12 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     public Shape createScrollButtonTogetherDecrease(int x, int y, int w, int h) {
-        path.reset();
+        Path2D path = getPath();
+
         path.moveTo(x + w, y);
         path.lineTo(x + w, y + h);
         path.lineTo(x, y + h);
-        addScrollGapPath(x, y, w, h, false);
+        addScrollGapPath(path, x, y, w, h, false);
         path.closePath();
 
         return path;
@@ -718,6 +738,7 @@ public class ShapeGenerator {
      * the gap in a scroll bar button or cap into which the scroll bar thumb
      * will fit.
      *
+     * @param path     the path to add to.
      * @param x        the X coordinate of the upper-left corner of the button
      *                 or cap
      * @param y        the Y coordinate of the upper-left corner of the button
@@ -727,7 +748,7 @@ public class ShapeGenerator {
      * @param isAtLeft {@code true} if the gap is at the left end of the button,
      *                 {@code false} if it is at the right.
      */
-    private void addScrollGapPath(int x, int y, int w, int h, boolean isAtLeft) {
+    private void addScrollGapPath(Path2D path, int x, int y, int w, int h, boolean isAtLeft) {
         final double hHalf    = h / 2.0;
         final double wFull    = isAtLeft ? w : 0;
         final double wHalfOff = isAtLeft ? w - hHalf : hHalf;
@@ -736,6 +757,19 @@ public class ShapeGenerator {
         path.quadTo(x + wHalfOff, y, x + wFull, y);
     }
 
+    /**
+     * Return this thread's path for generic shapes, emptied.
+     *
+     * @return the path.
+     */
+    private Path2D getPath() {
+        Path2D path = scratch.get().path;
+
+        path.reset();
+
+        return path;
+    }
+
     /**
      * Return a path for an ellipse.
      *
@@ -747,6 +781,8 @@ public class ShapeGenerator {
      * @return a path representing the shape.
      */
     private Shape createEllipseInternal(int x, int y, int w, int h) {
+        Ellipse2D ellipse = scratch.get().ellipse;
+
         ellipse.setFrame(x, y, w, h);
 
         return ellipse;
@@ -786,7 +822,7 @@ public class ShapeGenerator {
         final int bottom = y + h;
 
         // Start the path.
-        path.reset();
+        Path2D path = getPath();
 
         // Move to top left and draw rounded corner if requested.
         switch (topLeft) {
@@ -844,4 +880,16 @@ public class ShapeGenerator {
 
         return path;
     }
+
+    /**
+     * The shapes reused by one thread.
+     */
+    private static class Scratch {
+
+        /** Used for generic shapes. */
+        final Path2D path = new Path2D.Double(Path2D.WIND_EVEN_ODD);
+
+        /** Used for simple elliptical or circular shapes. */
+        final Ellipse2D ellipse = new Ellipse2D.Float();
+    }
 }
@@ -44,4 +44,18 @@ public class ComboBoxArrowButtonEditableState extends State {
 
         return parent instanceof JComboBox && ((JComboBox) parent).isEditable();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JComboBox.class;
+    }
 }
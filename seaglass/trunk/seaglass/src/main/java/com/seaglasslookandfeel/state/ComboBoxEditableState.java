@@ -42,4 +42,11 @@ public class ComboBoxEditableState extends State {
     public boolean isInState(JComponent c) {
         return ((JComboBox) c).isEditable();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
@@ -52,4 +52,11 @@ public class ControlInToolBarState extends State {
 
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
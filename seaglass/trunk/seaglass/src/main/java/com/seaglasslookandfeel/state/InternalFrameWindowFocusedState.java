@@ -27,4 +27,11 @@ public class InternalFrameWindowFocusedState extends State {
     public boolean isInState(JComponent c) {
         return c instanceof JInternalFrame && ((JInternalFrame) c).isSelected();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
@@ -19,7 +19,10 @@
  */
 package com.seaglasslookandfeel.state;
 
+import java.awt.Component;
+
 import javax.swing.JComponent;
+import javax.swing.JRootPane;
 
 import com.seaglasslookandfeel.ui.SeaGlassRootPaneUI;
 
@@ -44,4 +47,18 @@ public class MenuNotUnified extends State {
                         SeaGlassRootPaneUI.UNIFIED_TOOLBAR_LOOK) != Boolean.TRUE && 
                         c.getRootPane().getClientProperty("JRootPane.MenuInTitle") != Boolean.TRUE;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JRootPane.class;
+    }
 }
@@ -40,4 +40,11 @@ public class ProgressBarIndeterminateState extends State {
     public boolean isInState(JComponent c) {
         return ((JProgressBar) c).isIndeterminate();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
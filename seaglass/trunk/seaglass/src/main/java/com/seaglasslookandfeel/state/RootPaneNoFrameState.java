@@ -59,4 +59,11 @@ public class RootPaneNoFrameState extends State {
 
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
@@ -45,4 +45,11 @@ public class RootPaneWindowFocusedState extends State {
         // Default to true.
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_WINDOW;
+    }
 }
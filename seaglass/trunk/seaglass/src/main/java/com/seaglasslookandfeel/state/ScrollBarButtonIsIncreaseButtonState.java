@@ -50,4 +50,11 @@ public class ScrollBarButtonIsIncreaseButtonState extends State {
 
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
@@ -19,6 +19,8 @@
  */
 package com.seaglasslookandfeel.state;
 
+import java.awt.Component;
+
 import javax.swing.JComponent;
 import javax.swing.JScrollBar;
 import javax.swing.UIManager;
@@ -53,4 +55,18 @@ public class ScrollBarButtonsTogetherState extends State {
 
         return UIManager.getBoolean("SeaGlass.ScrollBarButtonsTogether");
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR | DEPENDS_ON_UI_DEFAULTS;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JScrollBar.class;
+    }
 }
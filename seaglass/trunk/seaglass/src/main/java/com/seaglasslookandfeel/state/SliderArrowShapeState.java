@@ -41,4 +41,11 @@ public class SliderArrowShapeState extends State {
     public boolean isInState(JComponent c) {
         return ((JSlider) c).getSnapToTicks();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
@@ -40,4 +40,11 @@ public class SplitPaneDividerVerticalState extends State {
     public boolean isInState(JComponent c) {
         return c instanceof JSplitPane && (((JSplitPane) c).getOrientation() == 1);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
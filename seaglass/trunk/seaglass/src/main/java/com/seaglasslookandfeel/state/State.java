@@ -19,6 +19,7 @@
  */
 package com.seaglasslookandfeel.state;
 
+import java.awt.Component;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -96,6 +97,35 @@ public abstract class State<T extends JComponent> {
     /** Default state. */
     public static final State               Default = new StandardState(SynthConstants.DEFAULT);
 
+    /**
+     * The result may change at any time, and must be evaluated on every call.
+     */
+    public static final int VOLATILE = 0;
+
+    /**
+     * The result depends on the bound and client properties of the component,
+     * including its orientation.
+     */
+    public static final int DEPENDS_ON_COMPONENT = 1;
+
+    /** The result depends on the component's parent or other ancestors. */
+    public static final int DEPENDS_ON_HIERARCHY = 2;
+
+    /**
+     * The result depends on the bound and client properties of the nearest
+     * ancestor of the type returned by {@link #getAncestorType()}.
+     */
+    public static final int DEPENDS_ON_ANCESTOR = 4;
+
+    /**
+     * The result depends on the focus, activation or maximization of the
+     * window containing the component.
+     */
+    public static final int DEPENDS_ON_WINDOW = 8;
+
+    /** The result depends on values in UIManager. */
+    public static final int DEPENDS_ON_UI_DEFAULTS = 16;
+
     private String name;
 
     /**
@@ -182,6 +212,45 @@ public abstract class State<T extends JComponent> {
      */
     public abstract boolean isInState(T c);
 
+    /**
+     * <p>Gets what the result of {@link #isInState(JComponent)} depends on, as
+     * a combination of the <code>DEPENDS_ON_*</code> flags. StateCache uses
+     * this to cache the result per component, and to evaluate it again only
+     * after one of its dependencies has changed.</p>
+     *
+     * <p>States which depend on anything not described by the flags, such as
+     * a model value or the properties of a sibling, must return
+     * {@link #VOLATILE}, which is the default.</p>
+     *
+     * @return the dependencies of this state, or {@link #VOLATILE} if the
+     *         result may not be cached.
+     */
+    public int getDependencies() {
+        return VOLATILE;
+    }
+
+    /**
+     * Gets the type of ancestor whose properties this state depends on, if
+     * {@link #getDependencies()} includes {@link #DEPENDS_ON_ANCESTOR}.
+     *
+     * @return the type of the nearest ancestor whose bound and client
+     *         properties the result depends on, or <code>null</code>.
+     */
+    public Class<? extends Component> getAncestorType() {
+        return null;
+    }
+
+    /**
+     * Gets whether the result of {@link #isInState(JComponent)} may be cached
+     * per component.
+     *
+     * @return <code>true</code> if the result may be cached per component,
+     *         <code>false</code> otherwise.
+     */
+    public final boolean isCacheable() {
+        return getDependencies() != VOLATILE;
+    }
+
     /**
      * DOCUMENT ME!
      *
@@ -0,0 +1,408 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.state;
+
+import java.awt.AWTEvent;
+import java.awt.Component;
+import java.awt.Toolkit;
+import java.awt.event.AWTEventListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+
+import javax.swing.CellRendererPane;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+/**
+ * Caches the results of custom states per component, using the dependencies
+ * each state declares with {@link State#getDependencies()}.
+ *
+ * <p>The results for a component are kept in a client property, and are
+ * discarded when the component fires a property change or hierarchy event,
+ * when the nearest ancestor of a type some state depends on fires a property
+ * change event, or when a window event or a change to the UI defaults moves
+ * the global generation on. Until then, evaluating the states of the
+ * component is a single lookup rather than a walk up the hierarchy.</p>
+ *
+ * <p>The cache of each component is confined to the thread painting that
+ * component, which is the event dispatch thread unless the component tree is
+ * painted offscreen by a {@link com.seaglasslookandfeel.util.SnapshotRenderer}
+ * worker. Only the global generation is shared between threads.</p>
+ */
+public final class StateCache {
+
+    /** The client property under which the cache of a component is stored. */
+    private static final Object CACHE_KEY = new StringBuilder("SeaGlass.StateCache");
+
+    /** The dependencies which are tracked by the global generation. */
+    private static final int GLOBAL_DEPENDENCIES = State.DEPENDS_ON_WINDOW | State.DEPENDS_ON_UI_DEFAULTS;
+
+    /**
+     * Incremented whenever a window event occurs or the UI defaults change,
+     * invalidating the results of states which depend on them.
+     */
+    private static volatile int generation;
+
+    /** Whether the window listener has been installed. */
+    private static boolean windowTrackingInstalled;
+
+    /** Whether window events can be tracked. */
+    private static boolean windowTrackingAvailable;
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private StateCache() {
+    }
+
+    /**
+     * Gets whether the result of the given state may be cached by this class.
+     *
+     * @param  state the state.
+     *
+     * @return <code>true</code> if the state is a cacheable custom state whose
+     *         dependencies can all be tracked, <code>false</code> otherwise.
+     */
+    public static boolean isCacheable(State<?> state) {
+        if (state instanceof State.StandardState || !state.isCacheable()) {
+            return false;
+        }
+
+        int dependencies = state.getDependencies();
+
+        if ((dependencies & State.DEPENDS_ON_ANCESTOR) != 0 && state.getAncestorType() == null) {
+            return false;
+        }
+
+        return (dependencies & State.DEPENDS_ON_WINDOW) == 0 || isWindowTrackingAvailable();
+    }
+
+    /**
+     * Gets the extended state bits for the cacheable states of a component.
+     *
+     * <p>Components being painted by a CellRendererPane are reconfigured for
+     * each cell, often without firing events, so their states are always
+     * evaluated.</p>
+     *
+     * @param  c      the component.
+     * @param  owner  an object identifying the set of states, typically the
+     *                style values the states belong to. Results are cached
+     *                separately for each owner, since subregions share their
+     *                component.
+     * @param  states the states, in bit order.
+     * @param  mask   the bits of the states which are cacheable, as determined
+     *                by {@link #isCacheable(State)}.
+     *
+     * @return the bits of <code>mask</code> whose states the component is in.
+     */
+    public static int getStates(JComponent c, Object owner, State<?>[] states, int mask) {
+        if (c.getParent() instanceof CellRendererPane) {
+            return evaluate(c, states, mask);
+        }
+
+        Object         o = c.getClientProperty(CACHE_KEY);
+        ComponentCache cache;
+
+        if (o instanceof ComponentCache) {
+            cache = (ComponentCache) o;
+        } else {
+            cache = new ComponentCache();
+            c.putClientProperty(CACHE_KEY, cache);
+            c.addPropertyChangeListener(cache);
+            c.addHierarchyListener(cache);
+        }
+
+        int index = cache.indexOf(owner, generation);
+
+        if (index < 0) {
+            cache.listenToAncestors(c, states, mask);
+            index = cache.add(owner, evaluate(c, states, mask), generation, dependsOnGeneration(states, mask));
+        }
+
+        return cache.states[index];
+    }
+
+    /**
+     * Discards the cached results of all states which depend on the window or
+     * on the UI defaults. Called when the UI defaults change.
+     */
+    public static void invalidateGlobalDependencies() {
+        generation++;
+    }
+
+    /**
+     * Evaluates the given states.
+     *
+     * @param  c      the component.
+     * @param  states the states, in bit order.
+     * @param  mask   the bits of the states to evaluate.
+     *
+     * @return the bits of <code>mask</code> whose states the component is in.
+     */
+    private static int evaluate(JComponent c, State<?>[] states, int mask) {
+        int xstate = 0;
+        int bit    = 1;
+
+        for (State<?> s : states) {
+
+            if ((mask & bit) != 0 && isInState(s, c)) {
+                xstate |= bit;
+            }
+
+            bit <<= 1;
+        }
+
+        return xstate;
+    }
+
+    /**
+     * Evaluates a state. The states of a style are declared for the
+     * components the style applies to, so the component is always of the
+     * state's type.
+     *
+     * @param  state the state.
+     * @param  c     the component.
+     *
+     * @return <code>true</code> if the component is in the state,
+     *         <code>false</code> otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    private static boolean isInState(State<?> state, JComponent c) {
+        return ((State<JComponent>) state).isInState(c);
+    }
+
+    /**
+     * Returns whether any of the given states depends on the window or on the
+     * UI defaults, and so must be evaluated again when the generation moves
+     * on.
+     *
+     * @param  states the states, in bit order.
+     * @param  mask   the bits of the states being cached.
+     *
+     * @return <code>true</code> if the results depend on the generation,
+     *         <code>false</code> otherwise.
+     */
+    private static boolean dependsOnGeneration(State<?>[] states, int mask) {
+        int bit = 1;
+
+        for (State<?> s : states) {
+
+            if ((mask & bit) != 0 && (s.getDependencies() & GLOBAL_DEPENDENCIES) != 0) {
+                return true;
+            }
+
+            bit <<= 1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Installs, if it has not already been done, an AWT event listener which
+     * moves the generation on for every window event, and returns whether that
+     * succeeded. It may fail in an applet or other restricted environment.
+     *
+     * @return <code>true</code> if window events are being tracked,
+     *         <code>false</code> otherwise.
+     */
+    private static synchronized boolean isWindowTrackingAvailable() {
+        if (!windowTrackingInstalled) {
+            windowTrackingInstalled = true;
+
+            try {
+                Toolkit.getDefaultToolkit().addAWTEventListener(new AWTEventListener() {
+                        public void eventDispatched(AWTEvent event) {
+                            generation++;
+                        }
+                    }, AWTEvent.WINDOW_EVENT_MASK | AWTEvent.WINDOW_FOCUS_EVENT_MASK | AWTEvent.WINDOW_STATE_EVENT_MASK);
+                windowTrackingAvailable = true;
+            } catch (SecurityException e) {
+                windowTrackingAvailable = false;
+            }
+        }
+
+        return windowTrackingAvailable;
+    }
+
+    /**
+     * The cached results for one component, for each owner the component has
+     * been evaluated with.
+     */
+    private static final class ComponentCache implements PropertyChangeListener, HierarchyListener {
+
+        /** The maximum number of owners remembered. */
+        private static final int MAX_OWNERS = 4;
+
+        private Object[]    owners      = new Object[MAX_OWNERS];
+        private int[]       states      = new int[MAX_OWNERS];
+        private int[]       generations = new int[MAX_OWNERS];
+        private boolean[]   global      = new boolean[MAX_OWNERS];
+        private int         count;
+        private Component[] ancestors   = new Component[0];
+
+        /**
+         * Returns the index of the current results for the given owner.
+         *
+         * @param  owner      the owner.
+         * @param  generation the current generation.
+         *
+         * @return the index, or -1 if there are no current results.
+         */
+        int indexOf(Object owner, int generation) {
+            for (int i = 0; i < count; i++) {
+
+                if (owners[i] == owner) {
+                    return !global[i] || generations[i] == generation ? i : -1;
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Stores the results for the given owner, replacing any previous
+         * results for it, or the oldest results if all the slots are in use.
+         *
+         * @param  owner               the owner.
+         * @param  xstate              the state bits.
+         * @param  generation          the current generation.
+         * @param  dependsOnGeneration whether the results must be discarded
+         *                             when the generation moves on.
+         *
+         * @return the index of the results.
+         */
+        int add(Object owner, int xstate, int generation, boolean dependsOnGeneration) {
+            int index = -1;
+
+            for (int i = 0; i < count; i++) {
+
+                if (owners[i] == owner) {
+                    index = i;
+
+                    break;
+                }
+            }
+
+            if (index < 0) {
+
+                if (count < MAX_OWNERS) {
+                    index = count++;
+                } else {
+                    System.arraycopy(owners, 1, owners, 0, MAX_OWNERS - 1);
+                    System.arraycopy(states, 1, states, 0, MAX_OWNERS - 1);
+                    System.arraycopy(generations, 1, generations, 0, MAX_OWNERS - 1);
+                    System.arraycopy(global, 1, global, 0, MAX_OWNERS - 1);
+                    index = MAX_OWNERS - 1;
+                }
+            }
+
+            owners[index]      = owner;
+            states[index]      = xstate;
+            generations[index] = generation;
+            global[index]      = dependsOnGeneration;
+
+            return index;
+        }
+
+        /**
+         * Listens to the nearest ancestors of the types that the given states
+         * depend on, so that their property changes invalidate the results.
+         *
+         * @param c      the component.
+         * @param states the states, in bit order.
+         * @param mask   the bits of the states being cached.
+         */
+        void listenToAncestors(JComponent c, State<?>[] states, int mask) {
+            int bit = 1;
+
+            for (State<?> s : states) {
+
+                if ((mask & bit) != 0 && (s.getDependencies() & State.DEPENDS_ON_ANCESTOR) != 0) {
+                    Component ancestor = SwingUtilities.getAncestorOfClass(s.getAncestorType(), c);
+
+                    if (ancestor != null && !isListeningTo(ancestor)) {
+                        Component[] newAncestors = new Component[ancestors.length + 1];
+
+                        System.arraycopy(ancestors, 0, newAncestors, 0, ancestors.length);
+                        newAncestors[ancestors.length] = ancestor;
+                        ancestors                      = newAncestors;
+                        ancestor.addPropertyChangeListener(this);
+                    }
+                }
+
+                bit <<= 1;
+            }
+        }
+
+        /**
+         * Returns whether this cache is already listening to the given
+         * ancestor.
+         *
+         * @param  ancestor the ancestor.
+         *
+         * @return <code>true</code> if it is, <code>false</code> otherwise.
+         */
+        private boolean isListeningTo(Component ancestor) {
+            for (Component a : ancestors) {
+
+                if (a == ancestor) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Discards all the results.
+         */
+        private void invalidate() {
+            for (int i = 0; i < count; i++) {
+                owners[i] = null;
+            }
+
+            count = 0;
+        }
+
+        /**
+         * @see java.beans.PropertyChangeListener#propertyChange(java.beans.PropertyChangeEvent)
+         */
+        public void propertyChange(PropertyChangeEvent evt) {
+            invalidate();
+        }
+
+        /**
+         * Discards all the results, and stops listening to the ancestors, which
+         * may no longer be the nearest of their types.
+         *
+         * @see java.awt.event.HierarchyListener#hierarchyChanged(java.awt.event.HierarchyEvent)
+         */
+        public void hierarchyChanged(HierarchyEvent e) {
+            for (Component a : ancestors) {
+                a.removePropertyChangeListener(this);
+            }
+
+            ancestors = new Component[0];
+            invalidate();
+        }
+    }
+}
@@ -40,4 +40,11 @@ public class TabbedPaneBottomTabState extends State {
     public boolean isInState(JComponent c) {
         return (c instanceof JTabbedPane && ((JTabbedPane) c).getTabPlacement() == JTabbedPane.BOTTOM);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
@@ -39,4 +39,11 @@ public class TextAreaNotInScrollPaneState extends State {
     public boolean isInState(JComponent c) {
         return !(c.getParent() instanceof javax.swing.JViewport);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
@@ -40,4 +40,11 @@ public class TextFieldIsSearchState extends State {
     public boolean isInState(JComponent c) {
         return (c instanceof JTextComponent) && "search".equals(c.getClientProperty("JTextField.variant"));
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
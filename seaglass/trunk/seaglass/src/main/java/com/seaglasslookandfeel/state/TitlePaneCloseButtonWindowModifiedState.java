@@ -23,6 +23,7 @@ import java.awt.Component;
 
 import javax.swing.JComponent;
 import javax.swing.JFrame;
+import javax.swing.JRootPane;
 
 /**
  * Is the window modified?
@@ -59,4 +60,18 @@ public class TitlePaneCloseButtonWindowModifiedState extends State {
 
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JRootPane.class;
+    }
 }
@@ -57,4 +57,18 @@ public class TitlePaneCloseButtonWindowNotFocusedState extends State {
 
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JInternalFrame.class;
+    }
 }
@@ -62,4 +62,18 @@ public class TitlePaneMaximizeButtonWindowMaximizedState extends State {
 
         return false;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR | DEPENDS_ON_WINDOW;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JInternalFrame.class;
+    }
 }
@@ -40,4 +40,11 @@ public class TitlePaneWindowFocusedState extends State {
     public boolean isInState(JComponent c) {
         return c instanceof JInternalFrame && ((JInternalFrame) c).isSelected();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_COMPONENT;
+    }
 }
@@ -46,4 +46,11 @@ public class ToolBarEastState extends State {
 
         return SeaGlassLookAndFeel.resolveToolbarConstraint(toolbar) == BorderLayout.EAST;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
@@ -46,4 +46,11 @@ public class ToolBarNorthState extends State {
 
         return SeaGlassLookAndFeel.resolveToolbarConstraint(toolbar) == BorderLayout.NORTH;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
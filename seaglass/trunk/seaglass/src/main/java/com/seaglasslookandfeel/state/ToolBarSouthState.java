@@ -46,4 +46,11 @@ public class ToolBarSouthState extends State {
 
         return SeaGlassLookAndFeel.resolveToolbarConstraint(toolbar) == BorderLayout.SOUTH;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
@@ -46,4 +46,11 @@ public class ToolBarWestState extends State {
 
         return SeaGlassLookAndFeel.resolveToolbarConstraint(toolbar) == BorderLayout.WEST;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY;
+    }
 }
@@ -61,4 +61,18 @@ public class ToolBarWindowIsActiveState extends State {
         // Default to true.
         return true;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getDependencies() {
+        return DEPENDS_ON_HIERARCHY | DEPENDS_ON_ANCESTOR | DEPENDS_ON_WINDOW;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public Class<? extends Component> getAncestorType() {
+        return JInternalFrame.class;
+    }
 }
@@ -56,10 +56,13 @@ import com.seaglasslookandfeel.SeaGlassLookAndFeel;
  *
  * @see javax.swing.plaf.synth.SynthButtonUI
  */
-public class SeaGlassButtonUI extends BasicButtonUI implements PropertyChangeListener, SeaglassUI {
+public class SeaGlassButtonUI extends BasicButtonUI implements PropertyChangeListener, SeaglassUI, SeaGlassRendererUI {
     private static final String APPLE_PREFIX = "JButton.";
     private SynthStyle          style;
 
+    /** The state to paint the button in when it is a renderer, or 0. */
+    private int rendererState;
+
     /**
      * Create a new UI delegate.
      *
@@ -200,8 +203,8 @@ public class SeaGlassButtonUI extends BasicButtonUI implements PropertyChangeLis
             state = DISABLED;
         }
 
-        if (SeaGlassLookAndFeel.selectedUI == this) {
-            return SeaGlassLookAndFeel.selectedUIState | SynthConstants.ENABLED;
+        if (rendererState != 0) {
+            return rendererState | SynthConstants.ENABLED;
         }
 
         AbstractButton button = (AbstractButton) c;
@@ -234,6 +237,13 @@ public class SeaGlassButtonUI extends BasicButtonUI implements PropertyChangeLis
         return state;
     }
 
+    /**
+     * @see com.seaglasslookandfeel.ui.SeaGlassRendererUI#setRendererState(int)
+     */
+    public void setRendererState(int state) {
+        rendererState = state;
+    }
+
     /**
      * @see javax.swing.plaf.basic.BasicButtonUI#getBaseline(javax.swing.JComponent,
      *      int, int)
@@ -437,7 +447,12 @@ public class SeaGlassButtonUI extends BasicButtonUI implements PropertyChangeLis
      * @return DOCUMENT ME!
      */
     private Icon getSynthIcon(AbstractButton b, int synthConstant) {
-        return style.getIcon(getContext(b, synthConstant), getPropertyPrefix() + "icon");
+        SeaGlassContext context = getContext(b, synthConstant);
+        Icon            icon    = style.getIcon(context, getPropertyPrefix() + "icon");
+
+        context.dispose();
+
+        return icon;
     }
 
     /**
@@ -460,7 +460,7 @@ public class SeaGlassComboBoxUI extends BasicComboBoxUI implements PropertyChang
 
         public Component getListCellRendererComponent(JList list, Object value, int index, boolean isSelected, boolean cellHasFocus) {
             setName("ComboBox.listRenderer");
-            SeaGlassLookAndFeel.resetSelectedUI();
+            SeaGlassLookAndFeel.resetSelectedUI(getUI());
             if (isSelected) {
                 setBackground(list.getSelectionBackground());
                 setForeground(list.getSelectionForeground());
@@ -503,7 +503,7 @@ public class SeaGlassComboBoxUI extends BasicComboBoxUI implements PropertyChang
         @Override
         public void paint(Graphics g) {
             super.paint(g);
-            SeaGlassLookAndFeel.resetSelectedUI();
+            SeaGlassLookAndFeel.resetSelectedUI(getUI());
         }
     }
 
@@ -49,9 +49,12 @@ import com.seaglasslookandfeel.SeaGlassStyle;
  * 
  * @see javax.swing.plaf.synth.SynthLabelUI
  */
-public class SeaGlassLabelUI extends BasicLabelUI implements SeaglassUI {
+public class SeaGlassLabelUI extends BasicLabelUI implements SeaglassUI, SeaGlassRendererUI {
     private SeaGlassStyle style;
 
+    /** The state to paint the label in when it is a renderer, or 0. */
+    private int rendererState;
+
     /**
      * Returns the LabelUI implementation used for the skins look and feel.
      */
@@ -90,12 +93,19 @@ public class SeaGlassLabelUI extends BasicLabelUI implements SeaglassUI {
 
     private int getComponentState(JComponent c) {
         int state = SeaGlassLookAndFeel.getComponentState(c);
-        if (SeaGlassLookAndFeel.selectedUI == this && state == SynthConstants.ENABLED) {
-            state = SeaGlassLookAndFeel.selectedUIState | SynthConstants.ENABLED;
+        if (state == SynthConstants.ENABLED && rendererState != 0) {
+            state = rendererState | SynthConstants.ENABLED;
         }
         return state;
     }
 
+    /**
+     * @see com.seaglasslookandfeel.ui.SeaGlassRendererUI#setRendererState(int)
+     */
+    public void setRendererState(int state) {
+        rendererState = state;
+    }
+
     public int getBaseline(JComponent c, int width, int height) {
         if (c == null) {
             throw new NullPointerException("Component must be non-null");
@@ -220,7 +220,7 @@ public class SeaGlassListUI extends BasicListUI implements PropertyChangeListene
                                    isSelected, cellHasFocus, list.isEnabled(), false);
             }
             else {
-                SeaGlassLookAndFeel.resetSelectedUI();
+                SeaGlassLookAndFeel.resetSelectedUI(getUI());
             }
 
             super.getListCellRendererComponent(list, value, index,
@@ -230,7 +230,7 @@ public class SeaGlassListUI extends BasicListUI implements PropertyChangeListene
 
         @Override public void paint(Graphics g) {
             super.paint(g);
-            SeaGlassLookAndFeel.resetSelectedUI();
+            SeaGlassLookAndFeel.resetSelectedUI(getUI());
         }
     }
     
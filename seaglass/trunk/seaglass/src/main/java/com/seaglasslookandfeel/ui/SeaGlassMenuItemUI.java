@@ -105,14 +105,15 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
         FontMetrics fm = b.getFontMetrics(font);
         FontMetrics fmAccel = b.getFontMetrics(accContext.getStyle().getFont(accContext));
 
-        resetRects();
+        LayoutRects rects = LayoutRects.get();
 
         layoutMenuItem(context, fm, accContext, text, fmAccel, acceleratorText, icon, checkIcon, arrowIcon, b.getVerticalAlignment(), b
-            .getHorizontalAlignment(), b.getVerticalTextPosition(), b.getHorizontalTextPosition(), viewRect, iconRect, textRect,
-            acceleratorRect, checkIconRect, arrowIconRect, text == null ? 0 : defaultTextIconGap, defaultTextIconGap, useCheckAndArrow);
+            .getHorizontalAlignment(), b.getVerticalTextPosition(), b.getHorizontalTextPosition(), rects.viewRect, rects.iconRect,
+            rects.textRect, rects.acceleratorRect, rects.checkIconRect, rects.arrowIconRect, text == null ? 0 : defaultTextIconGap,
+            defaultTextIconGap, useCheckAndArrow);
         // find the union of the icon and text rects
-        r.setBounds(textRect);
-        r = SwingUtilities.computeUnion(iconRect.x, iconRect.y, iconRect.width, iconRect.height, r);
+        rects.r.setBounds(rects.textRect);
+        SwingUtilities.computeUnion(rects.iconRect.x, rects.iconRect.y, rects.iconRect.width, rects.iconRect.height, rects.r);
         // To make the accelerator texts appear in a column,
         // find the widest MenuItem text and the widest accelerator text.
 
@@ -124,46 +125,46 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
                 SeaGlassPopupMenuUI.class);
 
             if (popupUI != null) {
-                r.width = popupUI.adjustTextWidth(r.width);
+                rects.r.width = popupUI.adjustTextWidth(rects.r.width);
 
-                popupUI.adjustAcceleratorWidth(acceleratorRect.width);
+                popupUI.adjustAcceleratorWidth(rects.acceleratorRect.width);
 
-                r.width += popupUI.getMaxAcceleratorWidth();
+                rects.r.width += popupUI.getMaxAcceleratorWidth();
             }
         } else if (parent != null && !(b instanceof JMenu && ((JMenu) b).isTopLevelMenu())) {
-            r.width += acceleratorRect.width;
+            rects.r.width += rects.acceleratorRect.width;
         }
 
         if (useCheckAndArrow) {
             // Add in the checkIcon
-            r.width += checkIconRect.width;
-            r.width += defaultTextIconGap;
+            rects.r.width += rects.checkIconRect.width;
+            rects.r.width += defaultTextIconGap;
 
             // Add in the arrowIcon
-            r.width += defaultTextIconGap;
-            r.width += arrowIconRect.width;
+            rects.r.width += defaultTextIconGap;
+            rects.r.width += rects.arrowIconRect.width;
         }
 
-        r.width += 2 * defaultTextIconGap;
+        rects.r.width += 2 * defaultTextIconGap;
 
         Insets insets = b.getInsets();
         if (insets != null) {
-            r.width += insets.left + insets.right;
-            r.height += insets.top + insets.bottom;
+            rects.r.width += insets.left + insets.right;
+            rects.r.height += insets.top + insets.bottom;
         }
 
         // if the width is even, bump it up one. This is critical
         // for the focus dash line to draw properly
-        if (r.width % 2 == 0) {
-            r.width++;
+        if (rects.r.width % 2 == 0) {
+            rects.r.width++;
         }
 
         // if the height is even, bump it up one. This is critical
         // for the text to center properly
-        if (r.height % 2 == 0) {
-            r.height++;
+        if (rects.r.height % 2 == 0) {
+            rects.r.height++;
         }
-        return r.getSize();
+        return rects.r.getSize();
     }
 
     static void paint(SeaGlassContext context, SeaGlassContext accContext, Graphics g, Icon checkIcon, Icon arrowIcon,
@@ -173,14 +174,14 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
         ButtonModel model = b.getModel();
         Insets i = b.getInsets();
 
-        resetRects();
+        LayoutRects rects = LayoutRects.get();
 
-        viewRect.setBounds(0, 0, b.getWidth(), b.getHeight());
+        rects.viewRect.setBounds(0, 0, b.getWidth(), b.getHeight());
 
-        viewRect.x += i.left;
-        viewRect.y += i.top;
-        viewRect.width -= (i.right + viewRect.x);
-        viewRect.height -= (i.bottom + viewRect.y);
+        rects.viewRect.x += i.left;
+        rects.viewRect.y += i.top;
+        rects.viewRect.width -= (i.right + rects.viewRect.x);
+        rects.viewRect.height -= (i.bottom + rects.viewRect.y);
 
         SynthStyle style = context.getStyle();
         Font f = style.getFont(context);
@@ -208,13 +209,14 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
 
         // layoutl the text and icon
         String text = layoutMenuItem(context, fm, accContext, b.getText(), accFM, acceleratorText, b.getIcon(), checkIcon, arrowIcon, b
-            .getVerticalAlignment(), b.getHorizontalAlignment(), b.getVerticalTextPosition(), b.getHorizontalTextPosition(), viewRect,
-            iconRect, textRect, acceleratorRect, checkIconRect, arrowIconRect, b.getText() == null ? 0 : defaultTextIconGap,
-            defaultTextIconGap, useCheckAndArrow);
+            .getVerticalAlignment(), b.getHorizontalAlignment(), b.getVerticalTextPosition(), b.getHorizontalTextPosition(), rects.viewRect,
+            rects.iconRect, rects.textRect, rects.acceleratorRect, rects.checkIconRect, rects.arrowIconRect,
+            b.getText() == null ? 0 : defaultTextIconGap, defaultTextIconGap, useCheckAndArrow);
 
         // Paint the Check
         if (checkIcon != null && useCheckAndArrow) {
-            SeaGlassIcon.paintIcon(checkIcon, context, g, checkIconRect.x, checkIconRect.y, checkIconRect.width, checkIconRect.height);
+            SeaGlassIcon.paintIcon(checkIcon, context, g, rects.checkIconRect.x, rects.checkIconRect.y, rects.checkIconRect.width,
+                rects.checkIconRect.height);
         }
 
         // Paint the Icon
@@ -233,7 +235,7 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
             }
 
             if (icon != null) {
-                SeaGlassIcon.paintIcon(icon, context, g, iconRect.x, iconRect.y, iconRect.width, iconRect.height);
+                SeaGlassIcon.paintIcon(icon, context, g, rects.iconRect.x, rects.iconRect.y, rects.iconRect.width, rects.iconRect.height);
             }
         }
 
@@ -241,11 +243,12 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
         if (text != null) {
             View v = (View) c.getClientProperty(BasicHTML.propertyKey);
             if (v != null) {
-                v.paint(g, textRect);
+                v.paint(g, rects.textRect);
             } else {
                 g.setColor(style.getColor(context, ColorType.TEXT_FOREGROUND));
                 g.setFont(style.getFont(context));
-                style.getGraphicsUtils(context).paintText(context, g, text, textRect.x, textRect.y, b.getDisplayedMnemonicIndex());
+                style.getGraphicsUtils(context).paintText(context, g, text, rects.textRect.x, rects.textRect.y,
+                    b.getDisplayedMnemonicIndex());
             }
         }
 
@@ -261,7 +264,7 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
                     // will be drawn with.
                     int max = popupUI.getMaxAcceleratorWidth();
                     if (max > 0) {
-                        accOffset = max - acceleratorRect.width;
+                        accOffset = max - rects.acceleratorRect.width;
                     }
                 }
             }
@@ -270,13 +273,14 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
 
             g.setColor(accStyle.getColor(accContext, ColorType.TEXT_FOREGROUND));
             g.setFont(accStyle.getFont(accContext));
-            accStyle.getGraphicsUtils(accContext).paintText(accContext, g, acceleratorText, acceleratorRect.x - accOffset,
-                acceleratorRect.y, -1);
+            accStyle.getGraphicsUtils(accContext).paintText(accContext, g, acceleratorText, rects.acceleratorRect.x - accOffset,
+                rects.acceleratorRect.y, -1);
         }
 
         // Paint the Arrow
         if (arrowIcon != null && useCheckAndArrow) {
-            SeaGlassIcon.paintIcon(arrowIcon, context, g, arrowIconRect.x, arrowIconRect.y, arrowIconRect.width, arrowIconRect.height);
+            SeaGlassIcon.paintIcon(arrowIcon, context, g, rects.arrowIconRect.x, rects.arrowIconRect.y, rects.arrowIconRect.width,
+                rects.arrowIconRect.height);
         }
     }
 
@@ -423,24 +427,45 @@ public class SeaGlassMenuItemUI extends BasicMenuItemUI implements PropertyChang
         return text;
     }
 
-    // these rects are used for painting and preferredsize calculations.
-    // they used to be regenerated constantly. Now they are reused.
-    static Rectangle iconRect        = new Rectangle();
-    static Rectangle textRect        = new Rectangle();
-    static Rectangle acceleratorRect = new Rectangle();
-    static Rectangle checkIconRect   = new Rectangle();
-    static Rectangle arrowIconRect   = new Rectangle();
-    static Rectangle viewRect        = new Rectangle(Short.MAX_VALUE, Short.MAX_VALUE);
-    static Rectangle r               = new Rectangle();
-
-    private static void resetRects() {
-        iconRect.setBounds(0, 0, 0, 0);
-        textRect.setBounds(0, 0, 0, 0);
-        acceleratorRect.setBounds(0, 0, 0, 0);
-        checkIconRect.setBounds(0, 0, 0, 0);
-        arrowIconRect.setBounds(0, 0, 0, 0);
-        viewRect.setBounds(0, 0, Short.MAX_VALUE, Short.MAX_VALUE);
-        r.setBounds(0, 0, 0, 0);
+    /**
+     * The rectangles used for painting and preferred size calculations. They
+     * used to be regenerated constantly, and are now reused, once per thread
+     * so that menu items may be painted off the event dispatch thread.
+     */
+    private static final class LayoutRects {
+        private static final ThreadLocal<LayoutRects> rects = new ThreadLocal<LayoutRects>() {
+            protected LayoutRects initialValue() {
+                return new LayoutRects();
+            }
+        };
+
+        final Rectangle iconRect        = new Rectangle();
+        final Rectangle textRect        = new Rectangle();
+        final Rectangle acceleratorRect = new Rectangle();
+        final Rectangle checkIconRect   = new Rectangle();
+        final Rectangle arrowIconRect   = new Rectangle();
+        final Rectangle viewRect        = new Rectangle(Short.MAX_VALUE, Short.MAX_VALUE);
+        final Rectangle r               = new Rectangle();
+
+        /**
+         * Returns the rectangles of the current thread, reset for a new
+         * layout.
+         *
+         * @return the rectangles.
+         */
+        static LayoutRects get() {
+            LayoutRects rects = LayoutRects.rects.get();
+
+            rects.iconRect.setBounds(0, 0, 0, 0);
+            rects.textRect.setBounds(0, 0, 0, 0);
+            rects.acceleratorRect.setBounds(0, 0, 0, 0);
+            rects.checkIconRect.setBounds(0, 0, 0, 0);
+            rects.arrowIconRect.setBounds(0, 0, 0, 0);
+            rects.viewRect.setBounds(0, 0, Short.MAX_VALUE, Short.MAX_VALUE);
+            rects.r.setBounds(0, 0, 0, 0);
+
+            return rects;
+        }
     }
 
     protected void installDefaults() {
@@ -32,14 +32,21 @@ import java.awt.Point;
 import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Transparency;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.JComponent;
 import javax.swing.JProgressBar;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.plaf.ComponentUI;
 import javax.swing.plaf.basic.BasicProgressBarUI;
 import javax.swing.plaf.synth.ColorType;
@@ -78,6 +85,34 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
     private Rectangle  boundsRect     = new Rectangle();
     private Rectangle  savedRect      = new Rectangle();
 
+    // The intermediate image used for soft clipping, reused between paints,
+    // and the soft clipped track which is copied into it before the
+    // indicator is painted. The track is rendered again only when the track
+    // bounds, the indicator bounds, the orientation, the state or the
+    // derived colors change.
+    private BufferedImage         buffer;
+    private BufferedImage         trackImage;
+    private GraphicsConfiguration bufferConfig;
+    private Rectangle             trackRect       = new Rectangle();
+    private Rectangle             indicatorRect   = new Rectangle();
+    private int                   trackState      = -1;
+    private int                   trackOrientation;
+    private int                   trackColorGeneration;
+
+    // The indeterminate tiles, painted once into a strip one tile longer
+    // than the indicator. Each animation frame copies the strip in at an
+    // offset instead of painting every tile again.
+    private BufferedImage         tileStrip;
+    private int                   tileStripState  = -1;
+    private int                   tileStripOrientation;
+    private int                   tileStripTileWidth;
+    private int                   tileStripColorGeneration;
+
+    // The interval between animation frames, and the shared timer which
+    // animates this bar while it is indeterminate.
+    private int                   repaintInterval;
+    private AnimationTimer        animationTimer;
+
     private ShapeGenerator  shapeGenerator = new ShapeGenerator();
 
     public static ComponentUI createUI(JComponent x) {
@@ -113,10 +148,13 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
         tileWhenIndeterminate = style.getBoolean(context, "ProgressBar.tileWhenIndeterminate", false);
         trackThickness = style.getInt(context, "ProgressBar.trackThickness", 19);
         tileWidth = style.getInt(context, "ProgressBar.tileWidth", 15);
+        repaintInterval = style.getInt(context, "ProgressBar.repaintInterval", 50);
         bgFillColor = (Color) style.get(context, "ProgressBar.backgroundFillColor");
         if (bgFillColor == null) {
             bgFillColor = Color.white;
         }
+        trackImage = null;
+        tileStrip = null;
         // handle scaling for sizeVarients for special case components. The
         // key "JComponent.sizeVariant" scales for large/small/mini
         // components are based on Apples LAF
@@ -159,6 +197,10 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
         style.uninstallDefaults(context);
         context.dispose();
         style = null;
+        buffer = null;
+        trackImage = null;
+        bufferConfig = null;
+        tileStrip = null;
     }
 
     public SeaGlassContext getContext(JComponent c) {
@@ -202,12 +244,29 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
                 return;
             }
             super.setAnimationIndex(newValue);
-            progressBar.repaint();
+            // Only the indicator moves, so repaint just its bounds rather than
+            // the border and the whole component.
+            Rectangle bounds = calcIndicatorBounds(progressBar);
+            progressBar.repaint(bounds.x, bounds.y, bounds.width, bounds.height);
         } else {
             super.setAnimationIndex(newValue);
         }
     }
 
+    /**
+     * Animate this bar from the timer shared by the bars with the same
+     * repaint interval, rather than a timer of its own.
+     */
+    @Override
+    protected void startAnimationTimer() {
+        IndeterminateAnimator.INSTANCE.add(this);
+    }
+
+    @Override
+    protected void stopAnimationTimer() {
+        IndeterminateAnimator.INSTANCE.remove(this);
+    }
+
     private Rectangle calcBounds(JProgressBar pBar) {
         boundsRect.x = 0;
         boundsRect.y = 0;
@@ -223,6 +282,29 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
         return boundsRect;
     }
 
+    /**
+     * Calculate the bounds of the progress indicator, which is the track
+     * bounds less the insets and the progress padding. The track bounds are
+     * left in savedRect.
+     *
+     * @param  pBar the progress bar.
+     *
+     * @return the indicator bounds. This rectangle is reused.
+     */
+    private Rectangle calcIndicatorBounds(JProgressBar pBar) {
+        Insets    pBarInsets = pBar.getInsets();
+        Rectangle bounds     = calcBounds(pBar);
+
+        // Save away the track bounds.
+        savedRect.setBounds(bounds);
+        // Subtract out any insets for the progress indicator.
+        bounds.x += pBarInsets.left + progressPadding;
+        bounds.y += pBarInsets.top + progressPadding;
+        bounds.width -= pBarInsets.left + pBarInsets.right + progressPadding + progressPadding;
+        bounds.height -= pBarInsets.top + pBarInsets.bottom + progressPadding + progressPadding;
+        return bounds;
+    }
+
     @Override
     public void update(Graphics g, JComponent c) {
         SeaGlassContext context = getContext(c);
@@ -245,15 +327,14 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
 
     protected void paint(SeaGlassContext context, Graphics g) {
         JProgressBar pBar = (JProgressBar) context.getComponent();
-        Insets pBarInsets = pBar.getInsets();
-        Rectangle bounds = calcBounds(pBar);
-        // Save away the track bounds.
-        savedRect.setBounds(bounds);
-        // Subtract out any insets for the progress indicator.
-        bounds.x += pBarInsets.left + progressPadding;
-        bounds.y += pBarInsets.top + progressPadding;
-        bounds.width -= pBarInsets.left + pBarInsets.right + progressPadding + progressPadding;
-        bounds.height -= pBarInsets.top + pBarInsets.bottom + progressPadding + progressPadding;
+        Rectangle bounds = calcIndicatorBounds(pBar);
+
+        if (bounds.width <= 0 || bounds.height <= 0) {
+            if (pBar.isStringPainted()) {
+                paintText(context, g, pBar.getString());
+            }
+            return;
+        }
 
         int size = 0;
         boolean isFinished = false;
@@ -270,34 +351,21 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
             }
         }
 
-        // Create a translucent intermediate image in which we can perform soft
-        // clipping.
+        // Get the translucent intermediate image in which we can perform soft
+        // clipping, and start it off with the soft clipped track.
         GraphicsConfiguration gc = ((Graphics2D) g).getDeviceConfiguration();
-        BufferedImage img = gc.createCompatibleImage(bounds.width, bounds.height, Transparency.TRANSLUCENT);
+        BufferedImage img = getBuffer(context, gc, bounds);
         Graphics2D g2d = img.createGraphics();
 
-        // Clear the image so all pixels have zero alpha
-        g2d.setComposite(AlphaComposite.Clear);
-        g2d.fillRect(0, 0, bounds.width, bounds.height);
-
-        // Render our clip shape into the image. Enable antialiasing to achieve
-        // a soft clipping effect.
         g2d.setComposite(AlphaComposite.Src);
-        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2d.setColor(bgFillColor);
-        CornerSize cornerSize = pBar.getOrientation() == JProgressBar.HORIZONTAL ? CornerSize.ROUND_HEIGHT : CornerSize.ROUND_WIDTH;
-        g2d.fill(shapeGenerator.createRoundRectangle(0, 0, bounds.width, bounds.height, cornerSize));
+        g2d.drawImage(trackImage, 0, 0, null);
 
         // Use SrcAtop, which effectively uses the alpha value as a coverage
         // value for each pixel stored in the destination. At the edges, the
         // antialiasing of the rounded rectangle gives us the desired soft
         // clipping effect.
         g2d.setComposite(AlphaComposite.SrcAtop);
-
-        // We need to redraw the background, otherwise the interior is
-        // completely white.
-        context.getPainter().paintProgressBarBackground(context, g2d, savedRect.x - bounds.x, savedRect.y - bounds.y, savedRect.width,
-            savedRect.height, pBar.getOrientation());
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
         paintProgressIndicator(context, g2d, bounds.width, bounds.height, size, isFinished);
 
         // Dispose of the image graphics and copy our intermediate image to the
@@ -310,6 +378,67 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
         }
     }
 
+    /**
+     * Get the intermediate image, creating it if its size or graphics
+     * configuration has changed, and render the soft clipped track if it is
+     * stale.
+     *
+     * @param  context the context.
+     * @param  gc      the graphics configuration of the destination.
+     * @param  bounds  the indicator bounds.
+     *
+     * @return the intermediate image.
+     */
+    private BufferedImage getBuffer(SeaGlassContext context, GraphicsConfiguration gc, Rectangle bounds) {
+        JProgressBar pBar            = (JProgressBar) context.getComponent();
+        int          state           = context.getComponentState();
+        int          orientation     = pBar.getOrientation();
+        int          colorGeneration = SeaGlassLookAndFeel.getDerivedColorGeneration();
+
+        if (buffer == null || gc != bufferConfig || buffer.getWidth() != bounds.width || buffer.getHeight() != bounds.height) {
+            buffer       = gc.createCompatibleImage(bounds.width, bounds.height, Transparency.TRANSLUCENT);
+            trackImage   = gc.createCompatibleImage(bounds.width, bounds.height, Transparency.TRANSLUCENT);
+            bufferConfig = gc;
+            trackState   = -1;
+            tileStrip    = null;
+        } else if (trackImage != null && state == trackState && orientation == trackOrientation && savedRect.equals(trackRect)
+                && bounds.equals(indicatorRect) && colorGeneration == trackColorGeneration) {
+            return buffer;
+        }
+
+        if (trackImage == null) {
+            trackImage = gc.createCompatibleImage(bounds.width, bounds.height, Transparency.TRANSLUCENT);
+        }
+
+        Graphics2D g2d = trackImage.createGraphics();
+
+        // Clear the image so all pixels have zero alpha
+        g2d.setComposite(AlphaComposite.Clear);
+        g2d.fillRect(0, 0, bounds.width, bounds.height);
+
+        // Render our clip shape into the image. Enable antialiasing to achieve
+        // a soft clipping effect.
+        g2d.setComposite(AlphaComposite.Src);
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g2d.setColor(bgFillColor);
+        CornerSize cornerSize = orientation == JProgressBar.HORIZONTAL ? CornerSize.ROUND_HEIGHT : CornerSize.ROUND_WIDTH;
+        g2d.fill(shapeGenerator.createRoundRectangle(0, 0, bounds.width, bounds.height, cornerSize));
+
+        // We need to redraw the background, otherwise the interior is
+        // completely white.
+        g2d.setComposite(AlphaComposite.SrcAtop);
+        context.getPainter().paintProgressBarBackground(context, g2d, savedRect.x - bounds.x, savedRect.y - bounds.y, savedRect.width,
+            savedRect.height, orientation);
+        g2d.dispose();
+
+        trackRect.setBounds(savedRect);
+        indicatorRect.setBounds(bounds);
+        trackState = state;
+        trackOrientation = orientation;
+        trackColorGeneration = colorGeneration;
+        return buffer;
+    }
+
     /**
      * Paint the actual internal progress bar.
      * 
@@ -331,15 +460,16 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
                 if (!SeaGlassLookAndFeel.isLeftToRight(pBar)) {
                     offset = tileWidth - offset;
                 }
-                // paint each tile horizontally
-                for (int i = -tileWidth + offset; i <= width; i += tileWidth) {
-                    context.getPainter().paintProgressBarForeground(context, g2d, i, 0, tileWidth, height, pBar.getOrientation());
-                }
+                // copy the tiles in from the strip, the first tile starting at
+                // offset - tileWidth
+                BufferedImage strip = getTileStrip(context, width, height);
+                int sx = tileWidth - offset;
+                g2d.drawImage(strip, 0, 0, width, height, sx, 0, sx + width, height, null);
             } else {
-                // paint each tile vertically
-                for (int i = -offset; i < height + tileWidth; i += tileWidth) {
-                    context.getPainter().paintProgressBarForeground(context, g2d, 0, i, width, tileWidth, pBar.getOrientation());
-                }
+                // copy the tiles in from the strip, the first tile starting at
+                // -offset
+                BufferedImage strip = getTileStrip(context, width, height);
+                g2d.drawImage(strip, 0, 0, width, height, 0, offset, width, offset + height, null);
             }
         } else {
             if (pBar.getOrientation() == JProgressBar.HORIZONTAL) {
@@ -362,6 +492,55 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
         }
     }
 
+    /**
+     * Get the strip of indeterminate tiles for the indicator, painting it if
+     * the size, orientation, state, tile width or derived colors have
+     * changed. The strip is one tile longer than the indicator so that it
+     * covers every animation offset.
+     *
+     * @param  context the context.
+     * @param  width   the indicator width.
+     * @param  height  the indicator height.
+     *
+     * @return the strip.
+     */
+    private BufferedImage getTileStrip(SeaGlassContext context, int width, int height) {
+        JProgressBar pBar            = (JProgressBar) context.getComponent();
+        int          state           = context.getComponentState();
+        int          orientation     = pBar.getOrientation();
+        int          colorGeneration = SeaGlassLookAndFeel.getDerivedColorGeneration();
+        boolean      horizontal      = orientation == JProgressBar.HORIZONTAL;
+        int          stripWidth      = horizontal ? width + tileWidth : width;
+        int          stripHeight     = horizontal ? height : height + tileWidth;
+
+        if (tileStrip != null && tileStrip.getWidth() == stripWidth && tileStrip.getHeight() == stripHeight && state == tileStripState
+                && orientation == tileStripOrientation && tileWidth == tileStripTileWidth
+                && colorGeneration == tileStripColorGeneration) {
+            return tileStrip;
+        }
+
+        tileStrip = bufferConfig.createCompatibleImage(stripWidth, stripHeight, Transparency.TRANSLUCENT);
+        Graphics2D g2d = tileStrip.createGraphics();
+
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (horizontal) {
+            for (int i = 0; i < stripWidth; i += tileWidth) {
+                context.getPainter().paintProgressBarForeground(context, g2d, i, 0, tileWidth, height, orientation);
+            }
+        } else {
+            for (int i = 0; i < stripHeight; i += tileWidth) {
+                context.getPainter().paintProgressBarForeground(context, g2d, 0, i, width, tileWidth, orientation);
+            }
+        }
+        g2d.dispose();
+
+        tileStripState = state;
+        tileStripOrientation = orientation;
+        tileStripTileWidth = tileWidth;
+        tileStripColorGeneration = colorGeneration;
+        return tileStrip;
+    }
+
     protected void paintText(SeaGlassContext context, Graphics g, String title) {
         if (progressBar.isStringPainted()) {
             SynthStyle style = context.getStyle();
@@ -482,4 +661,69 @@ public class SeaGlassProgressBarUI extends BasicProgressBarUI implements Seaglas
 
         return size;
     }
+
+    /**
+     * Drives the animation of the indeterminate progress bars from one timer
+     * per repaint interval, so that bars with the same interval tick together
+     * rather than each running a timer of its own. A bar keeps the interval
+     * it was added with until it is removed. Each timer only runs while there
+     * are bars to animate. Bars are added and removed, and the timers fire,
+     * on the event dispatch thread.
+     */
+    private static class IndeterminateAnimator {
+        static final IndeterminateAnimator INSTANCE = new IndeterminateAnimator();
+
+        private final Map<Integer, AnimationTimer> timers = new HashMap<Integer, AnimationTimer>();
+
+        void add(SeaGlassProgressBarUI ui) {
+            if (ui.animationTimer != null) {
+                return;
+            }
+            Integer        interval = Integer.valueOf(ui.repaintInterval);
+            AnimationTimer timer    = timers.get(interval);
+
+            if (timer == null) {
+                timer = new AnimationTimer(interval);
+                timers.put(interval, timer);
+                timer.timer.start();
+            }
+            timer.uis.add(ui);
+            ui.animationTimer = timer;
+        }
+
+        void remove(SeaGlassProgressBarUI ui) {
+            AnimationTimer timer = ui.animationTimer;
+
+            if (timer == null) {
+                return;
+            }
+            ui.animationTimer = null;
+            timer.uis.remove(ui);
+            if (timer.uis.isEmpty()) {
+                timer.timer.stop();
+                timers.remove(timer.interval);
+            }
+        }
+    }
+
+    /**
+     * The timer which advances the animation of the bars sharing a repaint
+     * interval.
+     */
+    private static class AnimationTimer implements ActionListener {
+        final List<SeaGlassProgressBarUI> uis = new ArrayList<SeaGlassProgressBarUI>();
+        final Integer                     interval;
+        final Timer                       timer;
+
+        AnimationTimer(Integer interval) {
+            this.interval = interval;
+            this.timer    = new Timer(interval.intValue(), this);
+        }
+
+        public void actionPerformed(ActionEvent e) {
+            for (int i = 0; i < uis.size(); i++) {
+                uis.get(i).incrementAnimationIndex();
+            }
+        }
+    }
 }
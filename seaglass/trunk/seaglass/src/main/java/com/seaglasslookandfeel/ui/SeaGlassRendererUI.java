@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.ui;
+
+/**
+ * A UI delegate whose component may be used as a cell renderer, and painted
+ * in the state of the cell rather than in its own state.
+ *
+ * <p>The renderer state is set by
+ * {@link com.seaglasslookandfeel.SeaGlassLookAndFeel#setSelectedUI} when the
+ * renderer is configured for a cell and cleared once the cell is painted. It
+ * belongs to the UI delegate of that one renderer, so renderers nested in
+ * other renderers, or painted on several threads at once, don't share it. The
+ * delegate passes it on as the component state of the contexts it creates.</p>
+ */
+public interface SeaGlassRendererUI {
+
+    /**
+     * Sets the state to paint the renderer in.
+     *
+     * @param state the state, as defined in SynthConstants, or 0 to paint the
+     *              component in its own state.
+     */
+    void setRendererState(int state);
+}
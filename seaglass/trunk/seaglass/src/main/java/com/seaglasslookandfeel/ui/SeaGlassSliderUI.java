@@ -24,6 +24,7 @@ import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
 import java.awt.Insets;
 import java.awt.Point;
 import java.awt.Rectangle;
@@ -518,7 +519,8 @@ public class SeaGlassSliderUI extends BasicSliderUI implements PropertyChangeLis
             thumbRect.x = trackRect.x + trackBorder;
             thumbRect.y = valuePosition - (thumbRect.height / 2);
         }
-        Point mousePosition = slider.getMousePosition();
+        // There is no mouse when headless, and getMousePosition throws.
+        Point mousePosition = GraphicsEnvironment.isHeadless() ? null : slider.getMousePosition();
         if (mousePosition != null) {
             updateThumbState(mousePosition.x, mousePosition.y);
         }
@@ -270,6 +270,7 @@ public class SeaGlassSpinnerUI extends BasicSpinnerUI
             // copy across the sizeVariant property to the editor
             text.putClientProperty("JComponent.sizeVariant",
                     spinner.getClientProperty("JComponent.sizeVariant"));
+            context.dispose();
         }
     }
 
@@ -89,6 +89,7 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
     private Rectangle iconRect;
     private Rectangle tabAreaRect;
     private Rectangle contentRect;
+    private Rectangle contentBorderRect;
 
     private boolean selectedTabIsPressed = false;
 
@@ -145,6 +146,7 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
         iconRect    = new Rectangle();
         tabAreaRect = new Rectangle();
         contentRect = new Rectangle();
+        contentBorderRect = new Rectangle();
     }
 
     /**
@@ -385,6 +387,11 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
         tabContext = null;
         tabStyle   = null;
 
+        tabCloseStyle.uninstallDefaults(tabCloseContext);
+        tabCloseContext.dispose();
+        tabCloseContext = null;
+        tabCloseStyle   = null;
+
         tabAreaStyle.uninstallDefaults(tabAreaContext);
         tabAreaContext.dispose();
         tabAreaContext = null;
@@ -684,18 +691,25 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
 
         super.setRolloverTab(index);
 
-        Rectangle r = null;
-
-        if ((oldRolloverTab >= 0) && (oldRolloverTab < tabPane.getTabCount())) {
-            r = getTabBounds(tabPane, oldRolloverTab);
-
-            if (r != null) {
-                tabPane.repaint(r);
-            }
+        // The basic mouse handler sets the rollover tab on every mouse move.
+        if (index == oldRolloverTab) {
+            return;
         }
 
-        if (index >= 0) {
-            r = getTabBounds(tabPane, index);
+        repaintTab(oldRolloverTab);
+        repaintTab(index);
+    }
+
+    /**
+     * Repaint just the bounds of a tab, which include its close button,
+     * rather than the whole tabbed pane and its content.
+     *
+     * @param tabIndex the index of the tab. Nothing is repainted if this is
+     *                 out of range.
+     */
+    protected void repaintTab(int tabIndex) {
+        if (tabIndex >= 0 && tabIndex < tabPane.getTabCount()) {
+            Rectangle r = getTabBounds(tabPane, tabIndex);
 
             if (r != null) {
                 tabPane.repaint(r);
@@ -941,7 +955,16 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
             h -= (y - insets.top);
         }
 
-        SeaGlassLookAndFeel.updateSubregion(ss, g, new Rectangle(x, y, w, h));
+        // Hovering over or pressing a tab repaints just the tab, so don't
+        // paint the content background if it's outside the clip.
+        Rectangle clipRect = g.getClipBounds();
+
+        contentBorderRect.setBounds(x, y, w, h);
+        if (clipRect != null && !contentBorderRect.intersects(clipRect)) {
+            return;
+        }
+
+        SeaGlassLookAndFeel.updateSubregion(ss, g, contentBorderRect);
         ss.getPainter().paintTabbedPaneContentBackground(ss, g, x, y, w, h);
         ss.getPainter().paintTabbedPaneContentBorder(ss, g, x, y, w, h);
     }
@@ -1877,7 +1900,8 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
             isOverCloseButton(currentMouseX, currentMouseY);
 
             if (oldHoverIndex != closeButtonHoverIndex) {
-                tabPane.repaint();
+                repaintTab(oldHoverIndex);
+                repaintTab(closeButtonHoverIndex);
                 return;
             }
 
@@ -1888,12 +1912,15 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
          * @see java.awt.event.MouseAdapter#mouseDragged(java.awt.event.MouseEvent)
          */
         public void mouseDragged(MouseEvent e) {
+            int oldHoverIndex = closeButtonHoverIndex;
+
             currentMouseX = e.getX();
             currentMouseY = e.getY();
 
             if (closeButtonArmedIndex != -1 && !isOverCloseButton(currentMouseX, currentMouseY)) {
-                // isOverCloseButton resets closeButtonArmedIndex.
-                tabPane.repaint();
+                // isOverCloseButton resets closeButtonHoverIndex.
+                repaintTab(oldHoverIndex);
+                repaintTab(closeButtonArmedIndex);
             }
         }
 
@@ -1916,11 +1943,11 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
 
             if (isOverCloseButton(currentMouseX, currentMouseY)) {
                 closeButtonArmedIndex = tabIndex;
-                tabPane.repaint();
+                repaintTab(tabIndex);
                 return;
             } else if (closeButtonArmedIndex != -1) {
-                // isOverCloseButton resets closeButtonArmedIndex.
-                tabPane.repaint();
+                // isOverCloseButton resets closeButtonHoverIndex.
+                repaintTab(closeButtonArmedIndex);
                 return;
             }
 
@@ -1929,8 +1956,7 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
                     // Clicking on selected tab
                     selectedTabIsPressed = true;
 
-                    // TODO need to just repaint the tab area!
-                    tabPane.repaint();
+                    repaintTab(tabIndex);
                 }
             }
 
@@ -1946,16 +1972,18 @@ public class SeaGlassTabbedPaneUI extends BasicTabbedPaneUI implements SeaglassU
             if (closeButtonArmedIndex != -1) {
                 if (isOverCloseButton(currentMouseX, currentMouseY)) {
                     doClose(closeButtonArmedIndex);
+
+                    // Closing a tab moves the tabs after it.
+                    tabPane.repaint();
+                } else {
+                    repaintTab(closeButtonArmedIndex);
                 }
 
                 closeButtonArmedIndex = -1;
-
-                tabPane.repaint();
             } else if (selectedTabIsPressed) {
                 selectedTabIsPressed = false;
 
-                // TODO need to just repaint the tab area!
-                tabPane.repaint();
+                repaintTab(tabPane.getSelectedIndex());
             }
 
             // forward the event
@@ -259,7 +259,7 @@ public class SeaGlassTableHeaderUI extends BasicTableHeaderUI implements Propert
                 SeaGlassLookAndFeel.setSelectedUI((SeaGlassLabelUI) SeaGlassLookAndFeel.getUIOfType(getUI(), SeaGlassLabelUI.class),
                                                   isSelected, hasFocus, table.isEnabled(), hasRollover);
             } else {
-                SeaGlassLookAndFeel.resetSelectedUI();
+                SeaGlassLookAndFeel.resetSelectedUI(getUI());
             }
 
             // Stuff a variable into the client property of this renderer
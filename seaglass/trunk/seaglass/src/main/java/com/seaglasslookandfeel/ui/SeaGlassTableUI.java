@@ -32,6 +32,8 @@ import java.text.DateFormat;
 import java.text.Format;
 import java.text.NumberFormat;
 import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.CellRendererPane;
@@ -98,6 +100,16 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
     private Color             selectionInactiveBottomBorderColor;
     private Color             transparentColor;
 
+    // The cell borders and unwrapped colors, created once per style so that
+    // painting a cell allocates nothing.
+    private Border            rowBorder;
+    private Border            selectedRowActiveBorder;
+    private Border            selectedRowInactiveBorder;
+    private Map<Color, Color> unwrappedColors = new IdentityHashMap<Color, Color>();
+
+    // The row of the cell being painted, or -1 if none is.
+    private int               paintingRow = -1;
+
     // TableCellRenderer installed on the JTable at the time we're installed,
     // cached so that we can reinstall them at uninstallUI time.
     private TableCellRenderer dateRenderer;
@@ -214,6 +226,10 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
             selectionInactiveBottomBorderColor = UIManager.getColor("seaGlassTableSelectionInactiveBottom");
             transparentColor                   = UIManager.getColor("seaGlassTransparent");
 
+            selectedRowActiveBorder   = null;
+            selectedRowInactiveBorder = null;
+            unwrappedColors.clear();
+
             if (style != oldStyle) {
                 table.remove(rendererPane);
                 rendererPane = createCustomCellRendererPane();
@@ -496,12 +512,30 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
      */
     public void paintStripesAndGrid(SeaGlassContext context, Graphics g, JComponent c, int width, int height, int top) {
         int rh  = table.getRowHeight();
-        int n   = table.getRowCount();
         int row = Math.abs(top / rh);
-        // if (true) return;
+        int y0  = top + row * rh;
+
+        // Only paint the exposed area. Scrolling a large table in blit mode
+        // exposes just a few rows at a time.
+        Rectangle clip  = g.getClipBounds();
+        int       minX  = 0;
+        int       minY  = 0;
+        int       maxX  = width;
+        int       maxY  = height;
+
+        if (clip != null) {
+            minX = Math.max(minX, clip.x);
+            minY = Math.max(minY, clip.y);
+            maxX = Math.min(maxX, clip.x + clip.width);
+            maxY = Math.min(maxY, clip.y + clip.height);
+        }
 
-        // TableCellRenderer renderer =
-        // table.getDefaultRenderer(java.lang.Object.class);
+        if (minX >= maxX || minY >= maxY) {
+            return;
+        }
+
+        // The first row which is in the clip.
+        int skip = Math.max(0, (minY - y0) / rh);
 
         // Paint the background, including stripes if requested.
         if (alternateColor != null) {
@@ -510,23 +544,23 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
         	// To see how the new blue table headers look like.
         	// This is should be done by modifying the "for loop" instead.
             g.setColor(alternateColor);
-            g.fillRect(0, 0, width, height);
+            g.fillRect(minX, minY, maxX - minX, maxY - minY);
 
             // Now check if we need to paint some stripes
             g.setColor(table.getBackground());
 
             // Paint table rows to fill the viewport.
-            for (int y = top + row * rh, ymax = height; y < ymax; y += rh) {
-                if (row % 2 == 0) {
-                    g.fillRect(0, y, width, rh);
+            for (int r = row + skip, y = y0 + skip * rh; y < maxY; y += rh) {
+                if (r % 2 == 0) {
+                    g.fillRect(minX, y, maxX - minX, rh);
                 }
 
-                row++;
+                r++;
             }
         } else {
             // Fill the viewport with the background color of the table
             g.setColor(table.getBackground());
-            g.fillRect(0, 0, c.getWidth(), c.getHeight());
+            g.fillRect(minX, minY, maxX - minX, maxY - minY);
         }
 
         SynthGraphicsUtils synthG = context.getStyle().getGraphicsUtils(context);
@@ -534,31 +568,35 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
         // Paint the horizontal grid lines
         if (table.getShowHorizontalLines()) {
             g.setColor(table.getGridColor());
-            row = Math.abs(top / rh);
-            int y = top + row * rh + rh - 1;
+            int y = y0 + skip * rh + rh - 1;
+
+            if (y < minY) {
+                y += rh;
+            }
 
-            while (y < height) {
+            while (y < maxY) {
                 synthG.drawLine(context, "Table.grid", g, 0, y, width, y);
                 y += rh;
             }
         }
 
-        // Paint the vertical grid lines
-        if (table.getShowVerticalLines()) {
+        // Paint the vertical grid lines. With stripes and no horizontal lines
+        // these have always started below the last stripe, that is, past the
+        // bottom, so they aren't painted.
+        if (table.getShowVerticalLines() && (alternateColor == null || table.getShowHorizontalLines()) && y0 < maxY) {
             g.setColor(table.getGridColor());
             TableColumnModel cm = table.getColumnModel();
 
-            n = cm.getColumnCount();
-            int y = top + row * rh;
-
-            ;
+            int n = cm.getColumnCount();
             int x = -1;
 
-            for (int i = 0; i < n; i++) {
+            for (int i = 0; i < n && x < maxX; i++) {
                 TableColumn col = cm.getColumn(i);
 
                 x += col.getWidth();
-                synthG.drawLine(context, "Table.grid", g, x, y, x, height);
+                if (x >= minX && x < maxX) {
+                    synthG.drawLine(context, "Table.grid", g, x, y0, x, height);
+                }
             }
         }
     }
@@ -956,7 +994,14 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
             TableCellRenderer renderer  = table.getCellRenderer(row, column);
             Component         component = table.prepareRenderer(renderer, row, column);
 
-            rendererPane.paintComponent(g, component, table, cellRect.x, cellRect.y, cellRect.width, cellRect.height, true);
+            // Tell the renderer pane which row it's painting, rather than
+            // have it look the row up from the cell's location.
+            paintingRow = row;
+            try {
+                rendererPane.paintComponent(g, component, table, cellRect.x, cellRect.y, cellRect.width, cellRect.height, true);
+            } finally {
+                paintingRow = -1;
+            }
         }
     }
 
@@ -975,7 +1020,11 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
      * @return DOCUMENT ME!
      */
     private Border getRowBorder() {
-        return BorderFactory.createEmptyBorder(0, 5, 0, 5);
+        if (rowBorder == null) {
+            rowBorder = BorderFactory.createEmptyBorder(0, 5, 0, 5);
+        }
+
+        return rowBorder;
     }
 
     /**
@@ -984,17 +1033,54 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
      * @return DOCUMENT ME!
      */
     private Border getSelectedRowBorder() {
-        return BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, getSelectedRowBottomHighlight()),
+        if (WindowUtils.isParentWindowFocused(table)) {
+            if (selectedRowActiveBorder == null) {
+                selectedRowActiveBorder = createSelectedRowBorder(selectionActiveBottomBorderColor);
+            }
+
+            return selectedRowActiveBorder;
+        }
+
+        if (selectedRowInactiveBorder == null) {
+            selectedRowInactiveBorder = createSelectedRowBorder(selectionInactiveBottomBorderColor);
+        }
+
+        return selectedRowInactiveBorder;
+    }
+
+    /**
+     * Create the border for a cell in a selected row.
+     *
+     * @param  bottomHighlight the color of the line at the bottom of the row.
+     *
+     * @return the border.
+     */
+    private Border createSelectedRowBorder(Color bottomHighlight) {
+        return BorderFactory.createCompoundBorder(BorderFactory.createMatteBorder(0, 0, 1, 0, bottomHighlight),
                                                   BorderFactory.createEmptyBorder(1, 5, 0, 5));
     }
 
     /**
-     * DOCUMENT ME!
+     * Get a color which isn't a UIResource, so that a renderer keeps it.
+     * The copies are kept until the style changes.
      *
-     * @return DOCUMENT ME!
+     * @param  c the color.
+     *
+     * @return the color, or a copy of it if it is a UIResource.
      */
-    private Color getSelectedRowBottomHighlight() {
-        return WindowUtils.isParentWindowFocused(table) ? selectionActiveBottomBorderColor : selectionInactiveBottomBorderColor;
+    private Color unwrap(Color c) {
+        if (!(c instanceof UIResource)) {
+            return c;
+        }
+
+        Color unwrapped = unwrappedColors.get(c);
+
+        if (unwrapped == null) {
+            unwrapped = new Color(c.getRGB());
+            unwrappedColors.put(c, unwrapped);
+        }
+
+        return unwrapped;
     }
 
     /**
@@ -1045,62 +1131,78 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
      */
     public static void setViewPortListeners(JTable table) {
         table.addPropertyChangeListener("ancestor", createAncestorPropertyChangeListener(table));
-        // Install a listener to cause the whole table to repaint when a column
-        // is resized. We do this because the extended grid lines may need to be
-        // repainted. This could be cleaned up, but for now, it works fine.
+        // Install listeners to repaint the viewport when a column is added,
+        // moved, removed or resized, because the extended grid lines may need
+        // to be repainted. Only the columns from the first one changed to the
+        // end are repainted.
         for (int i = 0; i < table.getColumnModel().getColumnCount(); i++) {
-            table.getColumnModel().getColumn(i).addPropertyChangeListener(createAncestorPropertyChangeListener(table));
-            table.getColumnModel().addColumnModelListener(createTableColumnModelListener(table));
+            table.getColumnModel().getColumn(i).addPropertyChangeListener(createColumnPropertyChangeListener(table));
         }
+
+        table.getColumnModel().addColumnModelListener(createTableColumnModelListener(table));
     }
 
     /**
-     * DOCUMENT ME!
+     * Create a listener which repaints the part of the viewport affected by
+     * changes to the table's columns.
      *
-     * @param  table DOCUMENT ME!
+     * @param  table the table.
      *
-     * @return DOCUMENT ME!
+     * @return the listener.
      */
     private static TableColumnModelListener createTableColumnModelListener(final JTable table) {
         return new TableColumnModelListener() {
             public void columnAdded(TableColumnModelEvent e) {
-                if (table.getParent() instanceof JViewport && table.getParent().getParent() instanceof JScrollPane) {
-                    table.getParent().repaint();
-                }
+                repaintViewportColumns(table, e.getToIndex(), Integer.MAX_VALUE);
             }
 
             public void columnMarginChanged(ChangeEvent e) {
-                if (table.getParent() instanceof JViewport && table.getParent().getParent() instanceof JScrollPane) {
-                    table.getParent().repaint();
-                }
+                JTableHeader header = table.getTableHeader();
+
+                repaintViewportColumns(table, header == null ? 0 : indexOf(table, header.getResizingColumn()), Integer.MAX_VALUE);
             }
 
             public void columnMoved(TableColumnModelEvent e) {
-                if (table.getParent() instanceof JViewport && table.getParent().getParent() instanceof JScrollPane) {
-                    table.getParent().repaint();
+                // Dragging a column fires this with equal indices as it moves
+                // within its own slot, which leaves the grid lines unchanged.
+                if (e.getFromIndex() != e.getToIndex()) {
+                    repaintViewportColumns(table, Math.min(e.getFromIndex(), e.getToIndex()), Integer.MAX_VALUE);
                 }
             }
 
             public void columnRemoved(TableColumnModelEvent e) {
-                if (table.getParent() instanceof JViewport && table.getParent().getParent() instanceof JScrollPane) {
-                    table.getParent().repaint();
-                }
+                repaintViewportColumns(table, e.getFromIndex(), Integer.MAX_VALUE);
             }
 
             public void columnSelectionChanged(ListSelectionEvent e) {
-                if (table.getParent() instanceof JViewport && table.getParent().getParent() instanceof JScrollPane) {
-                    table.getParent().repaint();
-                }
+                repaintViewportColumns(table, e.getFirstIndex(), e.getLastIndex());
             }
         };
     }
 
     /**
-     * DOCUMENT ME!
+     * Create a listener which repaints the part of the viewport affected by a
+     * column's width changing.
      *
-     * @param  table DOCUMENT ME!
+     * @param  table the table.
      *
-     * @return DOCUMENT ME!
+     * @return the listener.
+     */
+    private static PropertyChangeListener createColumnPropertyChangeListener(final JTable table) {
+        return new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent event) {
+                repaintViewportColumns(table, indexOf(table, (TableColumn) event.getSource()), Integer.MAX_VALUE);
+            }
+        };
+    }
+
+    /**
+     * Create a listener which repaints the viewport when the table is added to
+     * a new one.
+     *
+     * @param  table the table.
+     *
+     * @return the listener.
      */
     private static PropertyChangeListener createAncestorPropertyChangeListener(final JTable table) {
         return new PropertyChangeListener() {
@@ -1112,6 +1214,75 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
         };
     }
 
+    /**
+     * Repaint the strip of the viewport containing a table which holds the
+     * stripes and extended grid lines of a range of columns. The grid lines
+     * are painted at the column positions from the left of the viewport.
+     *
+     * @param table       the table.
+     * @param firstColumn the first column, or -1 to repaint the whole
+     *                    viewport.
+     * @param lastColumn  the last column. Columns past the end of the model
+     *                    extend the strip to the right of the viewport.
+     */
+    private static void repaintViewportColumns(JTable table, int firstColumn, int lastColumn) {
+        Container parent = table.getParent();
+
+        if (!(parent instanceof JViewport && parent.getParent() instanceof JScrollPane)) {
+            return;
+        }
+
+        TableColumnModel cm = table.getColumnModel();
+        int              n  = cm.getColumnCount();
+
+        if (firstColumn < 0) {
+            parent.repaint();
+            return;
+        }
+
+        int x = 0;
+
+        for (int i = 0; i < firstColumn && i < n; i++) {
+            x += cm.getColumn(i).getWidth();
+        }
+
+        int width = parent.getWidth();
+
+        if (lastColumn < n) {
+            width = 0;
+            for (int i = firstColumn; i <= lastColumn; i++) {
+                width += cm.getColumn(i).getWidth();
+            }
+        } else {
+            width -= x;
+        }
+
+        // Include the grid line at the right of the previous column.
+        parent.repaint(x - 1, 0, width + 1, parent.getHeight());
+    }
+
+    /**
+     * Get the index of a column in a table's column model.
+     *
+     * @param  table  the table.
+     * @param  column the column.
+     *
+     * @return the index, or -1 if the column is null or not in the model.
+     */
+    private static int indexOf(JTable table, TableColumn column) {
+        if (column != null) {
+            TableColumnModel cm = table.getColumnModel();
+
+            for (int i = 0; i < cm.getColumnCount(); i++) {
+                if (cm.getColumn(i) == column) {
+                    return i;
+                }
+            }
+        }
+
+        return -1;
+    }
+
     /**
      * Creates a custom {@link CellRendererPane} that sets the renderer
      * component to be non-opqaque if the associated row isn't selected. This
@@ -1122,10 +1293,12 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
      */
     private CellRendererPane createCustomCellRendererPane() {
         return new CellRendererPane() {
+            private static final long serialVersionUID = -6853187652387432015L;
+
             @Override
             public void paintComponent(Graphics graphics, Component component, Container container, int x, int y, int w, int h,
                     boolean shouldValidate) {
-                int     rowAtPoint = table.rowAtPoint(new Point(x, y));
+                int     rowAtPoint = paintingRow >= 0 ? paintingRow : table.rowAtPoint(new Point(x, y));
                 boolean isSelected = table.isRowSelected(rowAtPoint);
 
                 if (component instanceof JComponent && component instanceof UIResource) {
@@ -1147,21 +1320,6 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
                 super.paintComponent(graphics, component, container, x, y, w, h, shouldValidate);
             }
 
-            /**
-             * DOCUMENT ME!
-             *
-             * @param  c DOCUMENT ME!
-             *
-             * @return DOCUMENT ME!
-             */
-            private Color unwrap(Color c) {
-                if (c instanceof UIResource) {
-                    return new Color(c.getRGB());
-                }
-
-                return c;
-            }
-
             /**
              * @see javax.swing.JComponent#isOpaque()
              */
@@ -1209,21 +1367,6 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
             return this;
         }
 
-        /**
-         * DOCUMENT ME!
-         *
-         * @param  c DOCUMENT ME!
-         *
-         * @return DOCUMENT ME!
-         */
-        private Color unwrap(Color c) {
-            if (c instanceof UIResource) {
-                return new Color(c.getRGB());
-            }
-
-            return c;
-        }
-
         /**
          * @see javax.swing.JComponent#isOpaque()
          */
@@ -1287,7 +1430,7 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
                 SeaGlassLookAndFeel.setSelectedUI((SeaGlassLabelUI) SeaGlassLookAndFeel.getUIOfType(getUI(), SeaGlassLabelUI.class),
                                                   isSelected, hasFocus, table.isEnabled(), false);
             } else {
-                SeaGlassLookAndFeel.resetSelectedUI();
+                SeaGlassLookAndFeel.resetSelectedUI(getUI());
             }
 
             Component comp = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
@@ -1347,7 +1490,7 @@ public class SeaGlassTableUI extends BasicTableUI implements SeaglassUI, Propert
          */
         public void paint(Graphics g) {
             super.paint(g);
-            SeaGlassLookAndFeel.resetSelectedUI();
+            SeaGlassLookAndFeel.resetSelectedUI(getUI());
         }
     }
 }
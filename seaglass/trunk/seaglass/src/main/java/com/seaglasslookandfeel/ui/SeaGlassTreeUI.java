@@ -26,6 +26,7 @@ import java.awt.Insets;
 import java.awt.Rectangle;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.Arrays;
 import java.util.Enumeration;
 
 import javax.swing.DefaultCellEditor;
@@ -34,6 +35,10 @@ import javax.swing.JComponent;
 import javax.swing.JTextField;
 import javax.swing.JTree;
 import javax.swing.LookAndFeel;
+import javax.swing.event.TreeExpansionEvent;
+import javax.swing.event.TreeExpansionListener;
+import javax.swing.event.TreeModelEvent;
+import javax.swing.event.TreeModelListener;
 import javax.swing.plaf.ComponentUI;
 import javax.swing.plaf.UIResource;
 import javax.swing.plaf.basic.BasicTreeUI;
@@ -47,7 +52,6 @@ import javax.swing.tree.DefaultTreeCellEditor;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.TreeCellEditor;
 import javax.swing.tree.TreeCellRenderer;
-import javax.swing.tree.TreeModel;
 import javax.swing.tree.TreePath;
 
 import sun.swing.plaf.synth.SynthIcon;
@@ -78,6 +82,8 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
 
     private Icon         expandedIconWrapper = new ExpandedIconWrapper();
 
+    private RowCache     rowCache            = new RowCache();
+
     /**
      * Creates a new UI object for the given component.
      *
@@ -161,6 +167,22 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
         tree.addPropertyChangeListener(this);
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected TreeModelListener createTreeModelListener() {
+        return new RowCacheModelListener(super.createTreeModelListener());
+    }
+
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected TreeExpansionListener createTreeExpansionListener() {
+        return new RowCacheExpansionListener(super.createTreeExpansionListener());
+    }
+
     /**
      * @inheritDoc
      */
@@ -241,6 +263,15 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
         tree.removePropertyChangeListener(this);
     }
 
+    /**
+     * @inheritDoc
+     */
+    @Override
+    protected void updateSize() {
+        rowCache.invalidate();
+        super.updateSize();
+    }
+
     /**
      * Notifies this UI delegate to repaint the specified component. This method
      * paints the component background, then calls the
@@ -311,98 +342,69 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
         Rectangle paintBounds = g.getClipBounds();
         Insets insets = tree.getInsets();
         TreePath initialPath = getClosestPathForLocation(tree, 0, paintBounds.y);
-        Enumeration paintingEnumerator = treeState.getVisiblePathsFrom(initialPath);
-        int row = treeState.getRowForPath(initialPath);
-        int endY = paintBounds.y + paintBounds.height;
-        TreeModel treeModel = tree.getModel();
+        int firstRow = initialPath == null ? -1 : treeState.getRowForPath(initialPath);
+        int rowCount = rowCache.fill(firstRow, paintBounds.y + paintBounds.height, insets);
         SeaGlassContext cellContext = getContext(tree, Region.TREE_CELL);
 
-        drawingCache.clear();
-
         setHashColor(context.getStyle().getColor(context, ColorType.FOREGROUND));
 
-        if (paintingEnumerator != null) {
+        if (rowCount > 0) {
             // First pass, draw the rows
 
-            boolean done = false;
+            int endRow = firstRow + rowCount;
             boolean isExpanded;
             boolean hasBeenExpanded;
             boolean isLeaf;
             Rectangle rowBounds = new Rectangle(0, 0, tree.getWidth(), 0);
-            Rectangle bounds;
+            Rectangle bounds = new Rectangle();
             TreePath path;
             TreeCellRenderer renderer = tree.getCellRenderer();
             DefaultTreeCellRenderer dtcr = (renderer instanceof DefaultTreeCellRenderer) ? (DefaultTreeCellRenderer) renderer : null;
 
             configureRenderer(cellContext);
-            while (!done && paintingEnumerator.hasMoreElements()) {
-                path = (TreePath) paintingEnumerator.nextElement();
-                if (path != null) {
-                    isLeaf = treeModel.isLeaf(path.getLastPathComponent());
-                    if (isLeaf) {
-                        isExpanded = hasBeenExpanded = false;
-                    } else {
-                        isExpanded = treeState.getExpandedState(path);
-                        hasBeenExpanded = tree.hasBeenExpanded(path);
-                    }
-                    bounds = getPathBounds(tree, path);
-                    rowBounds.y = bounds.y;
-                    rowBounds.height = bounds.height;
-                    paintRow(renderer, dtcr, paintContext, cellContext, g, paintBounds, insets, bounds, rowBounds, path, row, isExpanded,
-                        hasBeenExpanded, isLeaf);
-                    if ((bounds.y + bounds.height) >= endY) {
-                        done = true;
-                    }
-                } else {
-                    done = true;
-                }
-                row++;
+            for (int row = firstRow; row < endRow; row++) {
+                path = rowCache.getPath(row);
+                isLeaf = rowCache.isLeaf(row);
+                isExpanded = rowCache.isExpanded(row);
+                hasBeenExpanded = rowCache.hasBeenExpanded(row);
+                rowCache.getBounds(row, bounds);
+                rowBounds.y = bounds.y;
+                rowBounds.height = bounds.height;
+                paintRow(renderer, dtcr, paintContext, cellContext, g, paintBounds, insets, bounds, rowBounds, path, row, isExpanded,
+                    hasBeenExpanded, isLeaf);
             }
 
             // Draw the connecting lines and controls.
-            // Find each parent and have them draw a line to their last child
+            // Find each parent and have them draw a line to their last child.
+            // The parents of the first row are drawn up front. After that, a
+            // row deeper than the row before it is the first child of that
+            // row, which is a parent not yet drawn.
             boolean rootVisible = tree.isRootVisible();
-            TreePath parentPath = initialPath;
-            parentPath = parentPath.getParentPath();
+            TreePath parentPath = initialPath.getParentPath();
+            int lastDepth = Integer.MAX_VALUE;
             while (parentPath != null) {
                 paintVerticalPartOfLeg(g, paintBounds, insets, parentPath);
-                drawingCache.put(parentPath, Boolean.TRUE);
                 parentPath = parentPath.getParentPath();
             }
-            done = false;
-            paintingEnumerator = treeState.getVisiblePathsFrom(initialPath);
-            while (!done && paintingEnumerator.hasMoreElements()) {
-                path = (TreePath) paintingEnumerator.nextElement();
-                if (path != null) {
-                    isLeaf = treeModel.isLeaf(path.getLastPathComponent());
-                    if (isLeaf) {
-                        isExpanded = hasBeenExpanded = false;
-                    } else {
-                        isExpanded = treeState.getExpandedState(path);
-                        hasBeenExpanded = tree.hasBeenExpanded(path);
-                    }
-                    bounds = getPathBounds(tree, path);
-                    // See if the vertical line to the parent has been drawn.
-                    parentPath = path.getParentPath();
-                    if (parentPath != null) {
-                        if (drawingCache.get(parentPath) == null) {
-                            paintVerticalPartOfLeg(g, paintBounds, insets, parentPath);
-                            drawingCache.put(parentPath, Boolean.TRUE);
-                        }
-                        paintHorizontalPartOfLeg(g, paintBounds, insets, bounds, path, row, isExpanded, hasBeenExpanded, isLeaf);
-                    } else if (rootVisible && row == 0) {
-                        paintHorizontalPartOfLeg(g, paintBounds, insets, bounds, path, row, isExpanded, hasBeenExpanded, isLeaf);
-                    }
-                    if (shouldPaintExpandControl(path, row, isExpanded, hasBeenExpanded, isLeaf)) {
-                        paintExpandControl(g, paintBounds, insets, bounds, path, row, isExpanded, hasBeenExpanded, isLeaf);
-                    }
-                    if ((bounds.y + bounds.height) >= endY) {
-                        done = true;
+            for (int row = firstRow; row < endRow; row++) {
+                path = rowCache.getPath(row);
+                isLeaf = rowCache.isLeaf(row);
+                isExpanded = rowCache.isExpanded(row);
+                hasBeenExpanded = rowCache.hasBeenExpanded(row);
+                rowCache.getBounds(row, bounds);
+                parentPath = path.getParentPath();
+                if (parentPath != null) {
+                    if (path.getPathCount() > lastDepth) {
+                        paintVerticalPartOfLeg(g, paintBounds, insets, parentPath);
                     }
-                } else {
-                    done = true;
+                    paintHorizontalPartOfLeg(g, paintBounds, insets, bounds, path, row, isExpanded, hasBeenExpanded, isLeaf);
+                } else if (rootVisible && row == 0) {
+                    paintHorizontalPartOfLeg(g, paintBounds, insets, bounds, path, row, isExpanded, hasBeenExpanded, isLeaf);
                 }
-                row++;
+                if (shouldPaintExpandControl(path, row, isExpanded, hasBeenExpanded, isLeaf)) {
+                    paintExpandControl(g, paintBounds, insets, bounds, path, row, isExpanded, hasBeenExpanded, isLeaf);
+                }
+                lastDepth = path.getPathCount();
             }
         }
         cellContext.dispose();
@@ -626,6 +628,284 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
         return super.getRowX(row, depth) + padding;
     }
 
+    /**
+     * The paths, bounds and leaf and expanded flags of the rows painted
+     * recently. Each row is looked up in the model and the layout cache once,
+     * and painting the rows exposed by scrolling only looks up those which
+     * weren't on screen before.
+     *
+     * <p>A row is kept in the slot given by the low bits of its number, and
+     * there are always at least twice as many slots as the rows in one paint,
+     * so the rows of a paint never evict each other. The cache is cleared
+     * whenever the layout changes, and when the width, insets or orientation
+     * of the tree, on which the bounds depend, are not those it was filled
+     * with.</p>
+     */
+    private class RowCache {
+        private static final int LEAF              = 1;
+        private static final int EXPANDED          = 2;
+        private static final int HAS_BEEN_EXPANDED = 4;
+
+        /** The row in each slot, or -1 for an empty slot. */
+        private int[]      rows;
+        private TreePath[] paths;
+
+        /** The x, y, width and height of the row in each slot. */
+        private int[]      bounds;
+        private byte[]     flags;
+        private int        mask;
+
+        private int        treeWidth;
+        private int        top;
+        private int        left;
+        private int        right;
+        private boolean    leftToRight;
+
+        /**
+         * Creates an empty row cache.
+         */
+        RowCache() {
+            allocate(64);
+            Arrays.fill(rows, -1);
+        }
+
+        /**
+         * Discards all the cached rows.
+         */
+        void invalidate() {
+            Arrays.fill(rows, -1);
+        }
+
+        /**
+         * Looks up the rows from a row down to the first row which reaches a
+         * y location, or to the last row.
+         *
+         * @param  firstRow the first row, or -1 if the tree has no rows.
+         * @param  endY     the y location.
+         * @param  insets   the insets of the tree.
+         *
+         * @return the number of rows looked up.
+         */
+        int fill(int firstRow, int endY, Insets insets) {
+            validate(insets);
+
+            if (firstRow < 0) {
+                return 0;
+            }
+
+            int         rowCount    = treeState.getRowCount();
+            Enumeration enumeration = null;
+            int         row         = firstRow;
+
+            while (row < rowCount) {
+                if (row - firstRow >= rows.length / 2) {
+                    grow();
+                }
+
+                int slot = row & mask;
+
+                if (rows[slot] == row) {
+                    enumeration = null;
+                } else {
+                    if (enumeration == null) {
+                        enumeration = treeState.getVisiblePathsFrom(treeState.getPathForRow(row));
+                    }
+
+                    TreePath path = null;
+
+                    if (enumeration != null && enumeration.hasMoreElements()) {
+                        path = (TreePath) enumeration.nextElement();
+                    }
+
+                    if (path == null) {
+                        break;
+                    }
+
+                    set(slot, row, path);
+                }
+
+                row++;
+                if (bounds[slot * 4 + 1] + bounds[slot * 4 + 3] >= endY) {
+                    break;
+                }
+            }
+
+            return row - firstRow;
+        }
+
+        /**
+         * Returns the path of a row looked up by the last fill.
+         *
+         * @param  row the row.
+         *
+         * @return the path.
+         */
+        TreePath getPath(int row) {
+            return paths[row & mask];
+        }
+
+        /**
+         * Gets the bounds of a row looked up by the last fill, as returned by
+         * {@link BasicTreeUI#getPathBounds(JTree, TreePath)}.
+         *
+         * @param row the row.
+         * @param r   the rectangle to set to the bounds.
+         */
+        void getBounds(int row, Rectangle r) {
+            int i = (row & mask) * 4;
+
+            r.setBounds(bounds[i], bounds[i + 1], bounds[i + 2], bounds[i + 3]);
+        }
+
+        boolean isLeaf(int row) {
+            return (flags[row & mask] & LEAF) != 0;
+        }
+
+        boolean isExpanded(int row) {
+            return (flags[row & mask] & EXPANDED) != 0;
+        }
+
+        boolean hasBeenExpanded(int row) {
+            return (flags[row & mask] & HAS_BEEN_EXPANDED) != 0;
+        }
+
+        /**
+         * Clears the cache if the width, insets or orientation of the tree
+         * have changed since it was filled.
+         *
+         * @param insets the insets of the tree.
+         */
+        private void validate(Insets insets) {
+            int     width = tree.getWidth();
+            boolean ltr   = tree.getComponentOrientation().isLeftToRight();
+
+            if (width != treeWidth || insets.top != top || insets.left != left || insets.right != right || ltr != leftToRight) {
+                invalidate();
+                treeWidth   = width;
+                top         = insets.top;
+                left        = insets.left;
+                right       = insets.right;
+                leftToRight = ltr;
+            }
+        }
+
+        /**
+         * Looks up a row and stores it in its slot.
+         *
+         * @param slot the slot.
+         * @param row  the row.
+         * @param path the path of the row.
+         */
+        private void set(int slot, int row, TreePath path) {
+            Rectangle r = getPathBounds(tree, path);
+            int       i = slot * 4;
+
+            if (tree.getModel().isLeaf(path.getLastPathComponent())) {
+                flags[slot] = LEAF;
+            } else {
+                flags[slot] = (byte) ((treeState.getExpandedState(path) ? EXPANDED : 0) | (tree.hasBeenExpanded(path) ? HAS_BEEN_EXPANDED : 0));
+            }
+
+            rows[slot]      = row;
+            paths[slot]     = path;
+            bounds[i]       = r.x;
+            bounds[i + 1]   = r.y;
+            bounds[i + 2]   = r.width;
+            bounds[i + 3]   = r.height;
+        }
+
+        /**
+         * Doubles the number of slots, keeping the cached rows.
+         */
+        private void grow() {
+            int[]      oldRows   = rows;
+            TreePath[] oldPaths  = paths;
+            int[]      oldBounds = bounds;
+            byte[]     oldFlags  = flags;
+
+            allocate(oldRows.length * 2);
+            Arrays.fill(rows, -1);
+
+            for (int i = 0; i < oldRows.length; i++) {
+                if (oldRows[i] >= 0) {
+                    int slot = oldRows[i] & mask;
+
+                    rows[slot]  = oldRows[i];
+                    paths[slot] = oldPaths[i];
+                    flags[slot] = oldFlags[i];
+                    System.arraycopy(oldBounds, i * 4, bounds, slot * 4, 4);
+                }
+            }
+        }
+
+        /**
+         * Allocates the slots.
+         *
+         * @param capacity the number of slots, a power of two.
+         */
+        private void allocate(int capacity) {
+            rows   = new int[capacity];
+            paths  = new TreePath[capacity];
+            bounds = new int[capacity * 4];
+            flags  = new byte[capacity];
+            mask   = capacity - 1;
+        }
+    }
+
+    /**
+     * Clears the row cache before passing model events on to the listener of
+     * the basic UI.
+     */
+    private class RowCacheModelListener implements TreeModelListener {
+        private TreeModelListener delegate;
+
+        RowCacheModelListener(TreeModelListener delegate) {
+            this.delegate = delegate;
+        }
+
+        public void treeNodesChanged(TreeModelEvent e) {
+            rowCache.invalidate();
+            delegate.treeNodesChanged(e);
+        }
+
+        public void treeNodesInserted(TreeModelEvent e) {
+            rowCache.invalidate();
+            delegate.treeNodesInserted(e);
+        }
+
+        public void treeNodesRemoved(TreeModelEvent e) {
+            rowCache.invalidate();
+            delegate.treeNodesRemoved(e);
+        }
+
+        public void treeStructureChanged(TreeModelEvent e) {
+            rowCache.invalidate();
+            delegate.treeStructureChanged(e);
+        }
+    }
+
+    /**
+     * Clears the row cache before passing expansion events on to the listener
+     * of the basic UI.
+     */
+    private class RowCacheExpansionListener implements TreeExpansionListener {
+        private TreeExpansionListener delegate;
+
+        RowCacheExpansionListener(TreeExpansionListener delegate) {
+            this.delegate = delegate;
+        }
+
+        public void treeExpanded(TreeExpansionEvent event) {
+            rowCache.invalidate();
+            delegate.treeExpanded(event);
+        }
+
+        public void treeCollapsed(TreeExpansionEvent event) {
+            rowCache.invalidate();
+            delegate.treeCollapsed(event);
+        }
+    }
+
     private class SynthTreeCellRenderer extends DefaultTreeCellRenderer implements UIResource {
         SynthTreeCellRenderer() {
         }
@@ -642,7 +922,7 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
                 SeaGlassLookAndFeel.setSelectedUI((SynthLabelUI) SeaGlassLookAndFeel.getUIOfType(getUI(), SynthLabelUI.class), sel, hasFocus,
                     tree.isEnabled(), false);
             } else {
-                SeaGlassLookAndFeel.resetSelectedUI();
+                SeaGlassLookAndFeel.resetSelectedUI(getUI());
             }
             return super.getTreeCellRendererComponent(tree, value, sel, expanded, leaf, row, hasFocus);
         }
@@ -675,7 +955,7 @@ public class SeaGlassTreeUI extends BasicTreeUI implements PropertyChangeListene
                 }
                 context.dispose();
             }
-            SeaGlassLookAndFeel.resetSelectedUI();
+            SeaGlassLookAndFeel.resetSelectedUI(getUI());
         }
     }
 
@@ -21,22 +21,45 @@ package com.seaglasslookandfeel.util;
 
 import java.awt.GraphicsConfiguration;
 import java.awt.Image;
+import java.awt.image.BufferedImage;
 
 import java.lang.ref.ReferenceQueue;
 import java.lang.ref.SoftReference;
 
 import java.util.Arrays;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
- * ImageCache - A fixed pixel count sized cache of Images keyed by arbitrary set
+ * ImageCache - A fixed byte count sized cache of Images keyed by arbitrary set
  * of arguments. All images are held with SoftReferences so they will be dropped
- * by the GC if heap memory gets tight. When our size hits max pixel count least
- * recently requested images are removed first.
+ * by the GC if heap memory gets tight. When our size hits the maximum byte
+ * count, images which have not been requested recently are removed first.
+ *
+ * <p>The cache is divided into segments selected by the hash of the key, each
+ * with its own lock, so that painting on the EDT and on offscreen rendering
+ * threads neither corrupts the cache nor contends on a single lock. Within a
+ * segment, eviction uses the CLOCK approximation of least recently used: a
+ * lookup only sets a flag on the entry, and the eviction hand clears flags
+ * until it finds an entry which has not been used since its last pass.</p>
+ *
+ * <p>Looking up an image with
+ * {@link #getImage(GraphicsConfiguration, int, int, Object, Object[])} does
+ * not allocate. The key arguments are copied into an immutable key, with its
+ * hash precomputed, only when an image is stored.</p>
+ *
+ * <p>The limits on the cache are set by an {@link ImageCachePolicy}, which
+ * may also limit the bytes held for any one owner class, i.e. the class of
+ * the first key argument, which is normally the painter. Hits, misses,
+ * evictions, images lost to the GC and resident bytes and pixels are counted
+ * for each owner class and may be read with {@link #getStatistics()} and
+ * {@link #getStatisticsByOwnerClass()}.</p>
  *
  * <p>Based on Nimbus's ImageCache by Jasper Potts. This was package local.</p>
  *
@@ -46,31 +69,36 @@ public class ImageCache {
     // Singleton Instance
     private static final ImageCache instance = new ImageCache();
 
-    // Ordered Map keyed by args hash, ordered by most recent accessed entry.
-    private final LinkedHashMap<Integer, PixelCountSoftReference> map = new LinkedHashMap<Integer, PixelCountSoftReference>(16, 0.75f,
-                                                                                                                            true);
+    // Number of lock stripes. Must be a power of two.
+    private static final int SEGMENT_COUNT = 16;
+
+    // Bytes per pixel assumed for images whose depth we can't determine, e.g.
+    // translucent volatile images.
+    private static final int DEFAULT_BYTES_PER_PIXEL = 4;
 
-    // Maximum number of pixels to cache, this is used if maxCount
-    private final int maxPixelCount;
+    // The segments, selected by the high bits of the key hash.
+    private final Segment[] segments;
 
-    // Maximum cached image size in pxiels
-    private final int maxSingleImagePixelSize;
+    // The limits on the cache.
+    private volatile ImageCachePolicy policy;
 
-    // The current number of pixels stored in the cache
-    private int currentPixelCount = 0;
+    // Statistics for each owner class.
+    private final ConcurrentMap<Class<?>, OwnerStatistics> statistics = new ConcurrentHashMap<Class<?>, OwnerStatistics>();
 
-    // Lock for concurrent access to map
-    private ReadWriteLock lock = new ReentrantReadWriteLock();
+    // The current number of bytes stored in the cache, across all segments
+    private final AtomicLong currentByteCount = new AtomicLong();
 
     // Reference queue for tracking lost softreferences to images in the cache
-    private ReferenceQueue<Image> referenceQueue = new ReferenceQueue<Image>();
+    private final ReferenceQueue<Image> referenceQueue = new ReferenceQueue<Image>();
 
     /**
-     * Creates a new ImageCache object.
+     * Creates a new ImageCache object using the policy configured by UIManager
+     * keys and system properties.
+     *
+     * @see ImageCachePolicy#getConfiguredPolicy()
      */
     public ImageCache() {
-        this.maxPixelCount           = (8 * 1024 * 1024) / 4; // 8Mb of pixels
-        this.maxSingleImagePixelSize = 300 * 300;
+        this(ImageCachePolicy.getConfiguredPolicy());
     }
 
     /**
@@ -80,8 +108,25 @@ public class ImageCache {
      * @param maxSingleImagePixelSize the maximum single image pixel size.
      */
     public ImageCache(int maxPixelCount, int maxSingleImagePixelSize) {
-        this.maxPixelCount           = maxPixelCount;
-        this.maxSingleImagePixelSize = maxSingleImagePixelSize;
+        this(new ImageCachePolicy((long) maxPixelCount * DEFAULT_BYTES_PER_PIXEL, maxSingleImagePixelSize, 0));
+    }
+
+    /**
+     * Creates a new ImageCache object.
+     *
+     * @param policy the limits on the cache.
+     */
+    public ImageCache(ImageCachePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+
+        this.policy = policy;
+
+        segments = new Segment[SEGMENT_COUNT];
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment();
+        }
     }
 
     /**
@@ -97,15 +142,72 @@ public class ImageCache {
      * Clear the cache.
      */
     public void flush() {
-        lock.readLock().lock();
+        for (Segment segment : segments) {
+            segment.lock.lock();
 
-        try {
-            map.clear();
-        } finally {
-            lock.readLock().unlock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.unlock();
+            }
         }
     }
 
+    /**
+     * Remove the images of some owners, i.e. whose first key argument is one
+     * of the owners, from the cache, so that they are painted again.
+     *
+     * @param owners the owners. Use an identity based set if the owners may
+     *               override {@code equals}.
+     */
+    public void flushOwners(Collection<?> owners) {
+        if (owners.isEmpty()) {
+            return;
+        }
+
+        for (Segment segment : segments) {
+            segment.lock.lock();
+
+            try {
+                segment.removeOwners(owners);
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the limits on the cache.
+     *
+     * @return the policy.
+     */
+    public ImageCachePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Change the limits on the cache, evicting images as necessary to meet the
+     * new limits. Images which are now too big to be cached are left until
+     * they are evicted normally.
+     *
+     * @param policy the new policy.
+     */
+    public void setPolicy(ImageCachePolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("policy must not be null");
+        }
+
+        this.policy = policy;
+
+        if (policy.getMaxBytesPerOwnerClass() > 0) {
+            for (OwnerStatistics stats : statistics.values()) {
+                enforceQuota(null, stats, null);
+            }
+        }
+
+        enforceBudget(null, null);
+    }
+
     /**
      * Check if the image size is to big to be stored in the cache.
      *
@@ -115,7 +217,74 @@ public class ImageCache {
      * @return True if the image size is less than max
      */
     public boolean isImageCachable(int w, int h) {
-        return (w * h) < maxSingleImagePixelSize;
+        return ((long) w * h) < policy.getMaxSingleImagePixels();
+    }
+
+    /**
+     * Returns the number of bytes of image data currently held by the cache.
+     * Images whose soft references have been cleared are counted until their
+     * entries are purged.
+     *
+     * @return the number of bytes.
+     */
+    public long getByteCount() {
+        return currentByteCount.get();
+    }
+
+    /**
+     * Returns a snapshot of the statistics for the whole cache.
+     *
+     * @return the totals over all owner classes.
+     */
+    public Statistics getStatistics() {
+        long hits           = 0;
+        long misses         = 0;
+        long evictions      = 0;
+        long lostReferences = 0;
+        long residentBytes  = 0;
+        long residentPixels = 0;
+        long residentImages = 0;
+
+        for (OwnerStatistics stats : statistics.values()) {
+            hits           += stats.hits.get();
+            misses         += stats.misses.get();
+            evictions      += stats.evictions.get();
+            lostReferences += stats.lostReferences.get();
+            residentBytes  += stats.residentBytes.get();
+            residentPixels += stats.residentPixels.get();
+            residentImages += stats.residentImages.get();
+        }
+
+        return new Statistics(hits, misses, evictions, lostReferences, residentBytes, residentPixels, residentImages);
+    }
+
+    /**
+     * Returns a snapshot of the statistics for each owner class, i.e. the
+     * class of the first key argument, which is normally the painter.
+     *
+     * @return a map from owner class to its statistics.
+     */
+    public Map<Class<?>, Statistics> getStatisticsByOwnerClass() {
+        Map<Class<?>, Statistics> result = new HashMap<Class<?>, Statistics>();
+
+        for (Map.Entry<Class<?>, OwnerStatistics> entry : statistics.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().snapshot());
+        }
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Reset the hit, miss, eviction and lost reference counts. The resident
+     * counts are not changed.
+     */
+    public void resetStatistics() {
+        for (OwnerStatistics stats : statistics.values()) {
+            stats.hits.set(0);
+            stats.misses.set(0);
+            stats.evictions.set(0);
+            stats.lostReferences.set(0);
+        }
     }
 
     /**
@@ -131,21 +300,33 @@ public class ImageCache {
      *         key
      */
     public Image getImage(GraphicsConfiguration config, int w, int h, Object... args) {
-        lock.readLock().lock();
+        int hash = hash(config, w, h, args);
 
-        try {
-            PixelCountSoftReference ref = map.get(hash(config, w, h, args));
+        return segmentFor(hash).get(statisticsFor(args != null && args.length > 0 ? args[0] : null), hash, config, w, h, null, args,
+                                    false);
+    }
 
-            // check reference has not been lost and the key truly matches, in
-            // case of false positive hash match
-            if (ref != null && ref.equals(config, w, h, args)) {
-                return ref.get();
-            } else {
-                return null;
-            }
-        } finally {
-            lock.readLock().unlock();
-        }
+    /**
+     * Get the cached image for given keys. This is the same as calling
+     * {@link #getImage(GraphicsConfiguration, int, int, Object...)} with the
+     * arguments {@code owner} and {@code extendedKeys}, but allocates nothing.
+     *
+     * @param  config       The graphics configuration, needed if cached image
+     *                      is a Volatile Image. Used as part of cache key
+     * @param  w            The image width, used as part of cache key
+     * @param  h            The image height, used as part of cache key
+     * @param  owner        The object which owns the image, typically the
+     *                      painter. Used as part of cache key
+     * @param  extendedKeys Other arguments to use as part of the cache key.
+     *                      May be null.
+     *
+     * @return Returns the cached Image, or null there is no cached image for
+     *         key
+     */
+    public Image getImage(GraphicsConfiguration config, int w, int h, Object owner, Object[] extendedKeys) {
+        int hash = hash(config, w, h, owner, extendedKeys);
+
+        return segmentFor(hash).get(statisticsFor(owner), hash, config, w, h, owner, extendedKeys, true);
     }
 
     /**
@@ -165,64 +346,231 @@ public class ImageCache {
         if (!isImageCachable(w, h))
             return false;
 
-        int hash = hash(config, w, h, args);
+        return put(image, hash(config, w, h, args), config, w, h, deepCopy(args));
+    }
+
+    /**
+     * Sets the cached image for the specified constraints. This is the same as
+     * calling
+     * {@link #setImage(Image, GraphicsConfiguration, int, int, Object...)} with
+     * the arguments {@code owner} and {@code extendedKeys}.
+     *
+     * @param  image        The image to store in cache
+     * @param  config       The graphics configuration, needed if cached image
+     *                      is a Volatile Image. Used as part of cache key
+     * @param  w            The image width, used as part of cache key
+     * @param  h            The image height, used as part of cache key
+     * @param  owner        The object which owns the image, typically the
+     *                      painter. Used as part of cache key
+     * @param  extendedKeys Other arguments to use as part of the cache key.
+     *                      May be null.
+     *
+     * @return true if the image could be cached or false if the image is too
+     *         big
+     */
+    public boolean setImage(Image image, GraphicsConfiguration config, int w, int h, Object owner, Object[] extendedKeys) {
+        if (!isImageCachable(w, h))
+            return false;
+
+        return put(image, hash(config, w, h, owner, extendedKeys), config, w, h, new Object[] { owner, deepCopy(extendedKeys) });
+    }
+
+    /**
+     * Store an image under a key whose arguments have already been copied.
+     *
+     * @param  image  the image to store.
+     * @param  hash   the key hash.
+     * @param  config the graphics configuration.
+     * @param  w      the width.
+     * @param  h      the height.
+     * @param  args   the copied arguments for the image.
+     *
+     * @return true.
+     */
+    private boolean put(Image image, int hash, GraphicsConfiguration config, int w, int h, Object[] args) {
+        purgeLostReferences();
+
+        Segment         segment   = segmentFor(hash);
+        OwnerStatistics stats     = statisticsFor(args != null && args.length > 0 ? args[0] : null);
+        long            byteCount = getByteCount(image);
+        long            quota     = policy.getMaxBytesPerOwnerClass();
+        Entry           entry;
 
-        lock.writeLock().lock();
+        segment.lock.lock();
 
         try {
-            PixelCountSoftReference ref = map.get(hash);
+            entry = segment.find(hash, config, w, h, null, args, false);
 
             // check if currently in map
-            if (ref != null && ref.get() == image) {
+            if (entry != null && entry.get() == image) {
+                entry.referenced = true;
+
                 return true;
             }
 
             // clear out old
-            if (ref != null) {
-                currentPixelCount -= ref.pixelCount;
-                map.remove(hash);
+            if (entry != null) {
+                segment.remove(entry);
+            }
+
+            // finaly put new in map
+            entry = new Entry(image, referenceQueue, segment, stats, byteCount, (long) w * h, hash, config, w, h, args);
+            segment.insert(entry);
+
+            // remove old items of the same owner class from this segment till
+            // they fit their quota
+            while (quota > 0 && stats.residentBytes.get() > quota && segment.evict(entry, stats)) {
+            }
+
+            // remove old items from this segment till there is enough free space
+            while (currentByteCount.get() > policy.getMaxBytes() && segment.evict(entry, null)) {
             }
+        } finally {
+            segment.lock.unlock();
+        }
 
-            // add new image to pixel count
-            int newPixelCount = image.getWidth(null) * image.getHeight(null);
+        // borrow space from the other segments if this one is exhausted
+        if (quota > 0) {
+            enforceQuota(segment, stats, entry);
+        }
 
-            currentPixelCount += newPixelCount;
+        enforceBudget(segment, entry);
 
-            // clean out lost references if not enough space
-            if (currentPixelCount > maxPixelCount) {
+        return true;
+    }
 
-                while ((ref = (PixelCountSoftReference) referenceQueue.poll()) != null) {
+    /**
+     * Evict images of an owner class from all segments until they fit the
+     * quota.
+     *
+     * @param skip  a segment to skip because it has already been trimmed, or
+     *              null.
+     * @param stats the statistics of the owner class.
+     * @param keep  an entry which must not be evicted, or null.
+     */
+    private void enforceQuota(Segment skip, OwnerStatistics stats, Entry keep) {
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            long    quota   = policy.getMaxBytesPerOwnerClass();
+            Segment segment = segments[i];
 
-                    // reference lost
-                    map.remove(ref.hash);
-                    currentPixelCount -= ref.pixelCount;
+            if (quota <= 0 || stats.residentBytes.get() <= quota) {
+                return;
+            } else if (segment == skip) {
+                continue;
+            }
+
+            segment.lock.lock();
+
+            try {
+                while (stats.residentBytes.get() > quota && segment.evict(keep, stats)) {
                 }
+            } finally {
+                segment.lock.unlock();
             }
+        }
+    }
 
-            // remove old items till there is enough free space
-            if (currentPixelCount > maxPixelCount) {
-                Iterator<Map.Entry<Integer, PixelCountSoftReference>> mapIter = map.entrySet().iterator();
+    /**
+     * Evict images from all segments until the cache fits its budget.
+     *
+     * @param skip a segment to skip because it has already been trimmed, or
+     *             null.
+     * @param keep an entry which must not be evicted, or null.
+     */
+    private void enforceBudget(Segment skip, Entry keep) {
+        for (int i = 0; i < SEGMENT_COUNT && currentByteCount.get() > policy.getMaxBytes(); i++) {
+            Segment segment = segments[i];
+
+            if (segment == skip) {
+                continue;
+            }
 
-                while ((currentPixelCount > maxPixelCount) && mapIter.hasNext()) {
-                    Map.Entry<Integer, PixelCountSoftReference> entry = mapIter.next();
+            segment.lock.lock();
 
-                    mapIter.remove();
-                    Image img = entry.getValue().get();
+            try {
+                while (currentByteCount.get() > policy.getMaxBytes() && segment.evict(keep, null)) {
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics for the class of an owner, creating them if
+     * necessary.
+     *
+     * @param  owner the owner, or null.
+     *
+     * @return the statistics.
+     */
+    private OwnerStatistics statisticsFor(Object owner) {
+        Class<?>        ownerClass = owner == null ? Object.class : owner.getClass();
+        OwnerStatistics stats      = statistics.get(ownerClass);
 
-                    if (img != null)
-                        img.flush();
+        if (stats == null) {
+            OwnerStatistics newStats = new OwnerStatistics();
 
-                    currentPixelCount -= entry.getValue().pixelCount;
+            stats = statistics.putIfAbsent(ownerClass, newStats);
+
+            if (stats == null) {
+                stats = newStats;
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Remove entries whose images have been collected by the GC.
+     */
+    private void purgeLostReferences() {
+        Entry entry;
+
+        while ((entry = (Entry) referenceQueue.poll()) != null) {
+            Segment segment = entry.segment;
+
+            segment.lock.lock();
+
+            try {
+                if (entry.inTable) {
+                    segment.remove(entry);
+                    entry.stats.lostReferences.incrementAndGet();
                 }
+            } finally {
+                segment.lock.unlock();
             }
+        }
+    }
 
-            // finaly put new in map
-            map.put(hash, new PixelCountSoftReference(image, referenceQueue, newPixelCount, hash, config, w, h, args));
+    /**
+     * Returns the segment used for a hash. Uses the high bits so that the
+     * segment and the bucket within the segment are chosen independently.
+     *
+     * @param  hash the key hash.
+     *
+     * @return the segment.
+     */
+    private Segment segmentFor(int hash) {
+        return segments[(hash >>> 28) & (SEGMENT_COUNT - 1)];
+    }
 
-            return true;
-        } finally {
-            lock.writeLock().unlock();
+    /**
+     * Compute the number of bytes used by an image.
+     *
+     * @param  image the image.
+     *
+     * @return the number of bytes.
+     */
+    private static long getByteCount(Image image) {
+        long pixelCount    = (long) image.getWidth(null) * image.getHeight(null);
+        int  bytesPerPixel = DEFAULT_BYTES_PER_PIXEL;
+
+        if (image instanceof BufferedImage) {
+            bytesPerPixel = (((BufferedImage) image).getColorModel().getPixelSize() + 7) / 8;
         }
+
+        return pixelCount * bytesPerPixel;
     }
 
     /**
@@ -235,24 +583,445 @@ public class ImageCache {
      *
      * @return the hash for the object instance.
      */
-    private int hash(GraphicsConfiguration config, int w, int h, Object... args) {
+    private static int hash(GraphicsConfiguration config, int w, int h, Object[] args) {
+        int hash = 1;
+
+        if (args != null) {
+            for (Object arg : args) {
+                hash = 31 * hash + elementHash(arg);
+            }
+        } else {
+            hash = 0;
+        }
+
+        return spread(config, w, h, hash);
+    }
+
+    /**
+     * Create a unique hash from all the input. This is equal to the hash of
+     * the arguments {@code owner, extendedKeys}.
+     *
+     * @param  config       the graphics configuration.
+     * @param  w            the width.
+     * @param  h            the height.
+     * @param  owner        the object which owns the image.
+     * @param  extendedKeys other arguments for the image.
+     *
+     * @return the hash for the object instance.
+     */
+    private static int hash(GraphicsConfiguration config, int w, int h, Object owner, Object[] extendedKeys) {
+        int hash = 1;
+
+        hash = 31 * hash + elementHash(owner);
+        hash = 31 * hash + elementHash(extendedKeys);
+
+        return spread(config, w, h, hash);
+    }
+
+    /**
+     * Combine the hash of the arguments with the rest of the key and spread
+     * the bits so that the segment and bucket indices are well distributed.
+     *
+     * @param  config   the graphics configuration.
+     * @param  w        the width.
+     * @param  h        the height.
+     * @param  argsHash the hash of the arguments.
+     *
+     * @return the hash for the key.
+     */
+    private static int spread(GraphicsConfiguration config, int w, int h, int argsHash) {
         int hash;
 
         hash = (config != null ? config.hashCode() : 0);
         hash = 31 * hash + w;
         hash = 31 * hash + h;
-        hash = 31 * hash + Arrays.deepHashCode(args);
+        hash = 31 * hash + argsHash;
+
+        // Use the MurmurHash3 finalizer to mix the bits.
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
 
         return hash;
     }
 
     /**
-     * Extended SoftReference that stores the pixel count even after the image
-     * is lost.
+     * Hash a key element, descending into nested arrays.
+     *
+     * @param  o the element.
+     *
+     * @return the hash.
      */
-    private static class PixelCountSoftReference extends SoftReference<Image> {
-        private final int pixelCount;
-        private final int hash;
+    private static int elementHash(Object o) {
+        if (o == null) {
+            return 0;
+        } else if (o instanceof Object[]) {
+            return Arrays.deepHashCode((Object[]) o);
+        }
+
+        return o.hashCode();
+    }
+
+    /**
+     * Compare key elements, descending into nested arrays.
+     *
+     * @param  a the first element.
+     * @param  b the second element.
+     *
+     * @return {@code true} if they are equal, {@code false} otherwise.
+     */
+    private static boolean elementEquals(Object a, Object b) {
+        if (a == b) {
+            return true;
+        } else if (a == null || b == null) {
+            return false;
+        } else if (a instanceof Object[] && b instanceof Object[]) {
+            return Arrays.deepEquals((Object[]) a, (Object[]) b);
+        }
+
+        return a.equals(b);
+    }
+
+    /**
+     * Copy the key arguments, including nested arrays, so that later changes
+     * by the caller can't change the key.
+     *
+     * @param  args the arguments.
+     *
+     * @return the copy.
+     */
+    private static Object[] deepCopy(Object[] args) {
+        if (args == null) {
+            return null;
+        }
+
+        Object[] copy = new Object[args.length];
+
+        for (int i = 0; i < args.length; i++) {
+            copy[i] = args[i] instanceof Object[] ? deepCopy((Object[]) args[i]) : args[i];
+        }
+
+        return copy;
+    }
+
+    /**
+     * One lock stripe of the cache. A chained hash table of entries, which are
+     * also linked in a ring for the CLOCK eviction hand. All methods except
+     * {@code get} must be called with the lock held.
+     */
+    private class Segment {
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Entry[] table = new Entry[16];
+        private int     count;
+
+        // The CLOCK hand. Null if the segment is empty.
+        private Entry hand;
+
+        /**
+         * Look up an image and mark it as recently used.
+         *
+         * @param  stats      the statistics of the owner class.
+         * @param  hash       the key hash.
+         * @param  config     the graphics configuration.
+         * @param  w          the width.
+         * @param  h          the height.
+         * @param  owner      the owner, if {@code withOwner} is set.
+         * @param  args       the arguments, or the extended keys if
+         *                    {@code withOwner} is set.
+         * @param  withOwner  whether the key is {@code owner, args} rather than
+         *                    {@code args}.
+         *
+         * @return the image, or null.
+         */
+        Image get(OwnerStatistics stats, int hash, GraphicsConfiguration config, int w, int h, Object owner, Object[] args,
+                boolean withOwner) {
+            Image image = null;
+
+            lock.lock();
+
+            try {
+                Entry entry = find(hash, config, w, h, owner, args, withOwner);
+
+                if (entry != null) {
+                    entry.referenced = true;
+                    image            = entry.get();
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (image == null) {
+                stats.misses.incrementAndGet();
+            } else {
+                stats.hits.incrementAndGet();
+            }
+
+            return image;
+        }
+
+        /**
+         * Find an entry.
+         *
+         * @param  hash      the key hash.
+         * @param  config    the graphics configuration.
+         * @param  w         the width.
+         * @param  h         the height.
+         * @param  owner     the owner, if {@code withOwner} is set.
+         * @param  args      the arguments, or the extended keys if
+         *                   {@code withOwner} is set.
+         * @param  withOwner whether the key is {@code owner, args} rather than
+         *                   {@code args}.
+         *
+         * @return the entry, or null.
+         */
+        Entry find(int hash, GraphicsConfiguration config, int w, int h, Object owner, Object[] args, boolean withOwner) {
+            for (Entry e = table[hash & (table.length - 1)]; e != null; e = e.next) {
+                if (e.hash == hash && e.equals(config, w, h, owner, args, withOwner)) {
+                    return e;
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Add an entry to the table and to the clock ring, just behind the
+         * hand so that it is the last to be considered for eviction.
+         *
+         * @param entry the entry.
+         */
+        void insert(Entry entry) {
+            if (count >= table.length * 3 / 4) {
+                resize();
+            }
+
+            int index = entry.hash & (table.length - 1);
+
+            entry.next   = table[index];
+            table[index] = entry;
+
+            if (hand == null) {
+                entry.clockNext = entry;
+                entry.clockPrev = entry;
+                hand            = entry;
+            } else {
+                entry.clockNext          = hand;
+                entry.clockPrev          = hand.clockPrev;
+                hand.clockPrev.clockNext = entry;
+                hand.clockPrev           = entry;
+            }
+
+            entry.inTable = true;
+            count++;
+
+            currentByteCount.addAndGet(entry.byteCount);
+            entry.stats.residentBytes.addAndGet(entry.byteCount);
+            entry.stats.residentPixels.addAndGet(entry.pixelCount);
+            entry.stats.residentImages.incrementAndGet();
+        }
+
+        /**
+         * Remove an entry from the table and the clock ring.
+         *
+         * @param entry the entry.
+         */
+        void remove(Entry entry) {
+            int   index = entry.hash & (table.length - 1);
+            Entry prev  = null;
+
+            for (Entry e = table[index]; e != null; prev = e, e = e.next) {
+                if (e == entry) {
+                    if (prev == null) {
+                        table[index] = e.next;
+                    } else {
+                        prev.next = e.next;
+                    }
+
+                    break;
+                }
+            }
+
+            if (entry.clockNext == entry) {
+                hand = null;
+            } else {
+                entry.clockPrev.clockNext = entry.clockNext;
+                entry.clockNext.clockPrev = entry.clockPrev;
+
+                if (hand == entry) {
+                    hand = entry.clockNext;
+                }
+            }
+
+            entry.next      = null;
+            entry.clockNext = null;
+            entry.clockPrev = null;
+            entry.inTable   = false;
+            count--;
+
+            released(entry);
+        }
+
+        /**
+         * Remove the entries of some owners. Their images are not flushed,
+         * for the reason given in {@link #evict(Entry, OwnerStatistics)}.
+         *
+         * @param owners the owners.
+         */
+        void removeOwners(Collection<?> owners) {
+            for (int i = 0; i < table.length; i++) {
+                for (Entry e = table[i]; e != null;) {
+                    Entry next = e.next;
+
+                    if (e.args != null && e.args.length > 0 && owners.contains(e.args[0])) {
+                        remove(e);
+                    }
+
+                    e = next;
+                }
+            }
+        }
+
+        /**
+         * Update the byte count and statistics for an entry which has been
+         * removed.
+         *
+         * @param entry the entry.
+         */
+        private void released(Entry entry) {
+            currentByteCount.addAndGet(-entry.byteCount);
+            entry.stats.residentBytes.addAndGet(-entry.byteCount);
+            entry.stats.residentPixels.addAndGet(-entry.pixelCount);
+            entry.stats.residentImages.decrementAndGet();
+        }
+
+        /**
+         * Evict one entry which hasn't been used since the hand last passed
+         * it.
+         *
+         * <p>The image of the entry is not flushed. Another thread may have
+         * just looked it up, and be validating or drawing it. The image is
+         * only unlinked, and is reclaimed with its soft reference once no
+         * thread uses it.</p>
+         *
+         * @param  keep  an entry which must not be evicted, or null.
+         * @param  owner if not null, only entries of the owner class with
+         *               these statistics are evicted.
+         *
+         * @return {@code true} if an entry was evicted, {@code false} if there
+         *         was nothing to evict.
+         */
+        boolean evict(Entry keep, OwnerStatistics owner) {
+            if (owner != null && !holdsEntriesOf(owner, keep)) {
+                return false;
+            }
+
+            // Two full turns clear the flag of every candidate, so the loop
+            // always terminates. The entries of other owners are passed over
+            // without clearing their flags, so that one owner class over its
+            // quota doesn't cost the others their recency.
+            for (int i = 2 * count; hand != null && i >= 0; i--) {
+                Entry entry = hand;
+
+                if (owner != null && entry.stats != owner) {
+                    hand = entry.clockNext;
+                    continue;
+                }
+
+                if (entry == keep || entry.referenced) {
+                    entry.referenced = false;
+                    hand             = entry.clockNext;
+                    continue;
+                }
+
+                remove(entry);
+                entry.stats.evictions.incrementAndGet();
+
+                return true;
+            }
+
+            return false;
+        }
+
+        /**
+         * Returns whether the segment holds any entry of an owner class which
+         * may be evicted.
+         *
+         * @param  owner the statistics of the owner class.
+         * @param  keep  an entry which must not be evicted, or null.
+         *
+         * @return {@code true} if there is such an entry, {@code false}
+         *         otherwise.
+         */
+        private boolean holdsEntriesOf(OwnerStatistics owner, Entry keep) {
+            Entry entry = hand;
+
+            for (int i = 0; i < count; i++, entry = entry.clockNext) {
+                if (entry.stats == owner && entry != keep) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        /**
+         * Remove all entries.
+         */
+        void clear() {
+            for (int i = 0; i < table.length; i++) {
+                for (Entry e = table[i]; e != null;) {
+                    Entry next = e.next;
+
+                    e.next      = null;
+                    e.clockNext = null;
+                    e.clockPrev = null;
+                    e.inTable   = false;
+                    released(e);
+                    e = next;
+                }
+
+                table[i] = null;
+            }
+
+            hand  = null;
+            count = 0;
+        }
+
+        /**
+         * Double the size of the table.
+         */
+        private void resize() {
+            Entry[] oldTable = table;
+
+            table = new Entry[oldTable.length * 2];
+
+            for (Entry head : oldTable) {
+                for (Entry e = head; e != null;) {
+                    Entry next  = e.next;
+                    int   index = e.hash & (table.length - 1);
+
+                    e.next       = table[index];
+                    table[index] = e;
+                    e            = next;
+                }
+            }
+        }
+    }
+
+    /**
+     * Extended SoftReference that holds the immutable key with its
+     * precomputed hash, and stores the byte count even after the image is
+     * lost.
+     */
+    private static class Entry extends SoftReference<Image> {
+        private final Segment         segment;
+        private final OwnerStatistics stats;
+        private final long            byteCount;
+        private final long            pixelCount;
+        private final int             hash;
 
         // key parts
         private final GraphicsConfiguration config;
@@ -260,11 +1029,21 @@ public class ImageCache {
         private final int                   h;
         private final Object[]              args;
 
+        // Segment state, guarded by the segment lock.
+        private Entry   next;
+        private Entry   clockNext;
+        private Entry   clockPrev;
+        private boolean referenced;
+        private boolean inTable;
+
         /**
-         * Creates a new PixelCountSoftReference object.
+         * Creates a new Entry object.
          *
          * @param referent   the image.
          * @param q          the reference queue.
+         * @param segment    the segment holding the entry.
+         * @param stats      the statistics of the owner class.
+         * @param byteCount  the byte count.
          * @param pixelCount the pixel count.
          * @param hash       the hash.
          * @param config     the graphics configuration.
@@ -272,9 +1051,12 @@ public class ImageCache {
          * @param h          the height.
          * @param args       the arguments for the image.
          */
-        public PixelCountSoftReference(Image referent, ReferenceQueue<? super Image> q, int pixelCount, int hash,
-                GraphicsConfiguration config, int w, int h, Object[] args) {
+        public Entry(Image referent, ReferenceQueue<? super Image> q, Segment segment, OwnerStatistics stats, long byteCount,
+                long pixelCount, int hash, GraphicsConfiguration config, int w, int h, Object[] args) {
             super(referent, q);
+            this.segment    = segment;
+            this.stats      = stats;
+            this.byteCount  = byteCount;
             this.pixelCount = pixelCount;
             this.hash       = hash;
             this.config     = config;
@@ -286,16 +1068,171 @@ public class ImageCache {
         /**
          * Tests for equality.
          *
-         * @param  config the graphics configuration.
-         * @param  w      the width.
-         * @param  h      the height.
-         * @param  args   the arguments for the image.
+         * @param  config    the graphics configuration.
+         * @param  w         the width.
+         * @param  h         the height.
+         * @param  owner     the owner, if {@code withOwner} is set.
+         * @param  args      the arguments, or the extended keys if
+         *                   {@code withOwner} is set.
+         * @param  withOwner whether the key is {@code owner, args} rather than
+         *                   {@code args}.
          *
          * @return {@code true} if the arguments describe the same object as
          *         this one, {@code false} otherwise.
          */
-        public boolean equals(GraphicsConfiguration config, int w, int h, Object[] args) {
-            return config == this.config && w == this.w && h == this.h && Arrays.equals(args, this.args);
+        public boolean equals(GraphicsConfiguration config, int w, int h, Object owner, Object[] args, boolean withOwner) {
+            if (config != this.config || w != this.w || h != this.h) {
+                return false;
+            } else if (!withOwner) {
+                return Arrays.deepEquals(args, this.args);
+            }
+
+            return this.args != null && this.args.length == 2 && elementEquals(owner, this.args[0]) && elementEquals(args, this.args[1]);
+        }
+    }
+
+    /**
+     * Live counters for one owner class.
+     */
+    private static class OwnerStatistics {
+        private final AtomicLong hits           = new AtomicLong();
+        private final AtomicLong misses         = new AtomicLong();
+        private final AtomicLong evictions      = new AtomicLong();
+        private final AtomicLong lostReferences = new AtomicLong();
+        private final AtomicLong residentBytes  = new AtomicLong();
+        private final AtomicLong residentPixels = new AtomicLong();
+        private final AtomicLong residentImages = new AtomicLong();
+
+        /**
+         * Returns a snapshot of the counters.
+         *
+         * @return the snapshot.
+         */
+        Statistics snapshot() {
+            return new Statistics(hits.get(), misses.get(), evictions.get(), lostReferences.get(), residentBytes.get(),
+                                  residentPixels.get(), residentImages.get());
+        }
+    }
+
+    /**
+     * An immutable snapshot of cache statistics, either for the whole cache or
+     * for one owner class.
+     */
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long lostReferences;
+        private final long residentBytes;
+        private final long residentPixels;
+        private final long residentImages;
+
+        /**
+         * Creates a new Statistics object.
+         *
+         * @param hits           the number of lookups which found an image.
+         * @param misses         the number of lookups which didn't.
+         * @param evictions      the number of images evicted to meet the
+         *                       budget or a quota.
+         * @param lostReferences the number of images dropped by the GC.
+         * @param residentBytes  the number of bytes currently cached.
+         * @param residentPixels the number of pixels currently cached.
+         * @param residentImages the number of images currently cached.
+         */
+        public Statistics(long hits, long misses, long evictions, long lostReferences, long residentBytes, long residentPixels,
+                long residentImages) {
+            this.hits           = hits;
+            this.misses         = misses;
+            this.evictions      = evictions;
+            this.lostReferences = lostReferences;
+            this.residentBytes  = residentBytes;
+            this.residentPixels = residentPixels;
+            this.residentImages = residentImages;
+        }
+
+        /**
+         * Returns the number of lookups which found an image.
+         *
+         * @return the hit count.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * Returns the number of lookups which didn't find an image.
+         *
+         * @return the miss count.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * Returns the fraction of lookups which found an image.
+         *
+         * @return the hit rate, between 0 and 1, or 0 if there were no
+         *         lookups.
+         */
+        public double getHitRate() {
+            long lookups = hits + misses;
+
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        /**
+         * Returns the number of images evicted to meet the budget or a quota.
+         *
+         * @return the eviction count.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * Returns the number of images dropped by the GC because memory was
+         * low.
+         *
+         * @return the lost reference count.
+         */
+        public long getLostReferences() {
+            return lostReferences;
+        }
+
+        /**
+         * Returns the number of bytes currently cached.
+         *
+         * @return the resident byte count.
+         */
+        public long getResidentBytes() {
+            return residentBytes;
+        }
+
+        /**
+         * Returns the number of pixels currently cached.
+         *
+         * @return the resident pixel count.
+         */
+        public long getResidentPixels() {
+            return residentPixels;
+        }
+
+        /**
+         * Returns the number of images currently cached.
+         *
+         * @return the resident image count.
+         */
+        public long getResidentImages() {
+            return residentImages;
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        @Override
+        public String toString() {
+            return "Statistics[hits=" + hits + ",misses=" + misses + ",evictions=" + evictions + ",lostReferences=" + lostReferences
+                + ",residentBytes=" + residentBytes + ",residentPixels=" + residentPixels + ",residentImages=" + residentImages + "]";
         }
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.util;
+
+import javax.swing.UIManager;
+
+/**
+ * The sizing policy for an {@link ImageCache}: the total number of bytes it may
+ * hold, the largest image it will accept, and the number of bytes the images
+ * of any one owner class, typically a painter class, may hold.
+ *
+ * <p>The default policy may be configured by setting any of the following
+ * keys, either with {@code UIManager.put} before the look and feel is
+ * installed, or as system properties. UIManager values take precedence.</p>
+ *
+ * <ul>
+ *   <li>{@code SeaGlass.ImageCache.maxBytes} - the total budget in bytes.
+ *     Defaults to 8Mb.</li>
+ *   <li>{@code SeaGlass.ImageCache.maxSingleImagePixels} - images with this
+ *     many pixels or more are never cached. Defaults to 300x300.</li>
+ *   <li>{@code SeaGlass.ImageCache.maxBytesPerOwnerClass} - the budget in
+ *     bytes for the images of any one owner class. Defaults to 0, meaning no
+ *     quota.</li>
+ * </ul>
+ */
+public class ImageCachePolicy {
+
+    /** The key for the total budget in bytes. */
+    public static final String MAX_BYTES_KEY = "SeaGlass.ImageCache.maxBytes";
+
+    /** The key for the maximum single image size in pixels. */
+    public static final String MAX_SINGLE_IMAGE_PIXELS_KEY = "SeaGlass.ImageCache.maxSingleImagePixels";
+
+    /** The key for the per owner class budget in bytes. */
+    public static final String MAX_BYTES_PER_OWNER_CLASS_KEY = "SeaGlass.ImageCache.maxBytesPerOwnerClass";
+
+    private static final long DEFAULT_MAX_BYTES               = 8 * 1024 * 1024;
+    private static final int  DEFAULT_MAX_SINGLE_IMAGE_PIXELS = 300 * 300;
+
+    private final long maxBytes;
+    private final int  maxSingleImagePixels;
+    private final long maxBytesPerOwnerClass;
+
+    /**
+     * Creates a new ImageCachePolicy object.
+     *
+     * @param maxBytes              the total budget in bytes.
+     * @param maxSingleImagePixels  images with this many pixels or more are
+     *                              not cached.
+     * @param maxBytesPerOwnerClass the budget in bytes for the images of any
+     *                              one owner class, or 0 for no quota.
+     */
+    public ImageCachePolicy(long maxBytes, int maxSingleImagePixels, long maxBytesPerOwnerClass) {
+        if (maxBytes < 0 || maxSingleImagePixels < 0 || maxBytesPerOwnerClass < 0) {
+            throw new IllegalArgumentException("Image cache limits must not be negative");
+        }
+
+        this.maxBytes              = maxBytes;
+        this.maxSingleImagePixels  = maxSingleImagePixels;
+        this.maxBytesPerOwnerClass = maxBytesPerOwnerClass;
+    }
+
+    /**
+     * Returns the policy configured by UIManager keys and system properties,
+     * using the defaults for any which are not set or are not valid.
+     *
+     * @return the configured policy.
+     */
+    public static ImageCachePolicy getConfiguredPolicy() {
+        return new ImageCachePolicy(getLong(MAX_BYTES_KEY, DEFAULT_MAX_BYTES),
+                                    (int) Math.min(Integer.MAX_VALUE, getLong(MAX_SINGLE_IMAGE_PIXELS_KEY, DEFAULT_MAX_SINGLE_IMAGE_PIXELS)),
+                                    getLong(MAX_BYTES_PER_OWNER_CLASS_KEY, 0));
+    }
+
+    /**
+     * Returns the total budget in bytes.
+     *
+     * @return the total budget.
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Returns the size in pixels at or above which images are not cached.
+     *
+     * @return the maximum single image size.
+     */
+    public int getMaxSingleImagePixels() {
+        return maxSingleImagePixels;
+    }
+
+    /**
+     * Returns the budget in bytes for the images of any one owner class.
+     *
+     * @return the per owner class budget, or 0 if there is no quota.
+     */
+    public long getMaxBytesPerOwnerClass() {
+        return maxBytesPerOwnerClass;
+    }
+
+    /**
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+        return "ImageCachePolicy[maxBytes=" + maxBytes + ",maxSingleImagePixels=" + maxSingleImagePixels + ",maxBytesPerOwnerClass="
+            + maxBytesPerOwnerClass + "]";
+    }
+
+    /**
+     * Get a non-negative long value from UIManager or the system properties.
+     *
+     * @param  key          the key.
+     * @param  defaultValue the value to use if the key is not set or its value
+     *                      is not valid.
+     *
+     * @return the value.
+     */
+    private static long getLong(String key, long defaultValue) {
+        Object value = UIManager.get(key);
+
+        if (value == null) {
+            try {
+                value = System.getProperty(key);
+            } catch (SecurityException e) {
+                // Fall through to the default.
+            }
+        }
+
+        long result = defaultValue;
+
+        if (value instanceof Number) {
+            result = ((Number) value).longValue();
+        } else if (value instanceof String) {
+            try {
+                result = Long.parseLong(((String) value).trim());
+            } catch (NumberFormatException e) {
+                // Use the default.
+            }
+        }
+
+        return result < 0 ? defaultValue : result;
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.util;
+
+import java.awt.Graphics;
+import java.awt.Image;
+import java.awt.Insets;
+import java.awt.Rectangle;
+
+/**
+ * ImageScalingHelper - Utility for painting a small canonical image into an
+ * arbitrarily sized area as nine slices. The four corners are painted at their
+ * natural size, the four edges are stretched or tiled along one axis, and the
+ * center is stretched or tiled along both.
+ *
+ * <p>Based on Nimbus's ImageScalingHelper by Jasper Potts. This was
+ * package local.</p>
+ */
+public class ImageScalingHelper {
+
+    /**
+     * Enumeration for the types of painting this class can handle.
+     */
+    public enum PaintType {
+
+        /**
+         * Painting is centered and not stretched or tiled.
+         */
+        CENTER,
+
+        /**
+         * Painting is tiled in both directions, ignoring the insets.
+         */
+        TILE,
+
+        /**
+         * The edges and center are stretched, the corners are painted at their
+         * natural size.
+         */
+        PAINT9_STRETCH,
+
+        /**
+         * The edges and center are tiled, the corners are painted at their
+         * natural size.
+         */
+        PAINT9_TILE
+    }
+
+    /** Paint the top left corner. */
+    public static final int PAINT_TOP_LEFT = 1;
+
+    /** Paint the top edge. */
+    public static final int PAINT_TOP = 2;
+
+    /** Paint the top right corner. */
+    public static final int PAINT_TOP_RIGHT = 4;
+
+    /** Paint the left edge. */
+    public static final int PAINT_LEFT = 8;
+
+    /** Paint the center. */
+    public static final int PAINT_CENTER = 16;
+
+    /** Paint the right edge. */
+    public static final int PAINT_RIGHT = 32;
+
+    /** Paint the bottom right corner. */
+    public static final int PAINT_BOTTOM_RIGHT = 64;
+
+    /** Paint the bottom edge. */
+    public static final int PAINT_BOTTOM = 128;
+
+    /** Paint the bottom left corner. */
+    public static final int PAINT_BOTTOM_LEFT = 256;
+
+    /** Paint everything. */
+    public static final int PAINT_ALL = 512;
+
+    private static final Insets EMPTY_INSETS = new Insets(0, 0, 0, 0);
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private ImageScalingHelper() {
+    }
+
+    /**
+     * Paints using the algorightm specified by <code>paintType</code>.
+     *
+     * @param g         Graphics to render to
+     * @param x         X-coordinate
+     * @param y         Y-coordinate
+     * @param w         Width to render to
+     * @param h         Height to render to
+     * @param image     Image to render from, if <code>null</code> this method
+     *                  will do nothing
+     * @param sInsets   Insets specifying the portion of the image that will be
+     *                  stretched or tiled, if <code>null</code> empty
+     *                  <code>Insets</code> will be used.
+     * @param dInsets   Destination insets specifying the portion of the image
+     *                  will be stretched or tiled, if <code>null</code> empty
+     *                  <code>Insets</code> will be used.
+     * @param paintType Specifies what type of algorithm to use in painting
+     * @param mask      Specifies portion of image to render, if
+     *                  <code>PAINT_ALL</code> is specified, any other regions
+     *                  specified will not be painted, for example
+     *                  PAINT_ALL|PAINT_CENTER paints everything but the center.
+     */
+    public static void paint(Graphics g, int x, int y, int w, int h, Image image, Insets sInsets, Insets dInsets,
+            PaintType paintType, int mask) {
+        if (image == null || image.getWidth(null) <= 0 || image.getHeight(null) <= 0) {
+            return;
+        }
+
+        if (sInsets == null) {
+            sInsets = EMPTY_INSETS;
+        }
+
+        if (dInsets == null) {
+            dInsets = EMPTY_INSETS;
+        }
+
+        int iw = image.getWidth(null);
+        int ih = image.getHeight(null);
+
+        if (paintType == PaintType.CENTER) {
+
+            // Center the image
+            g.drawImage(image, x + (w - iw) / 2, y + (h - ih) / 2, null);
+        } else if (paintType == PaintType.TILE) {
+            tile(g, image, 0, 0, iw, ih, x, y, w, h);
+        } else {
+            int     st         = sInsets.top;
+            int     sl         = sInsets.left;
+            int     sb         = sInsets.bottom;
+            int     sr         = sInsets.right;
+            int     dt         = dInsets.top;
+            int     dl         = dInsets.left;
+            int     db         = dInsets.bottom;
+            int     dr         = dInsets.right;
+            boolean stretch    = (paintType == PaintType.PAINT9_STRETCH);
+            boolean drawAll    = (mask & PAINT_ALL) != 0;
+            int     srcCenterW = iw - sl - sr;
+            int     srcCenterH = ih - st - sb;
+            int     dstCenterW = w - dl - dr;
+            int     dstCenterH = h - dt - db;
+
+            // Shrink the destination insets if the area is smaller than them.
+            if (dl + dr > w) {
+                dl = w * dl / Math.max(1, dl + dr);
+                dr = w - dl;
+                dstCenterW = 0;
+            }
+
+            if (dt + db > h) {
+                dt = h * dt / Math.max(1, dt + db);
+                db = h - dt;
+                dstCenterH = 0;
+            }
+
+            // Corners.
+            if (drawAll != ((mask & PAINT_TOP_LEFT) != 0)) {
+                drawChunk(g, image, 0, 0, sl, st, x, y, dl, dt);
+            }
+
+            if (drawAll != ((mask & PAINT_TOP_RIGHT) != 0)) {
+                drawChunk(g, image, iw - sr, 0, sr, st, x + w - dr, y, dr, dt);
+            }
+
+            if (drawAll != ((mask & PAINT_BOTTOM_LEFT) != 0)) {
+                drawChunk(g, image, 0, ih - sb, sl, sb, x, y + h - db, dl, db);
+            }
+
+            if (drawAll != ((mask & PAINT_BOTTOM_RIGHT) != 0)) {
+                drawChunk(g, image, iw - sr, ih - sb, sr, sb, x + w - dr, y + h - db, dr, db);
+            }
+
+            // Edges.
+            if (srcCenterW > 0 && dstCenterW > 0) {
+
+                if (drawAll != ((mask & PAINT_TOP) != 0)) {
+                    fillChunk(g, image, stretch, sl, 0, srcCenterW, st, x + dl, y, dstCenterW, dt);
+                }
+
+                if (drawAll != ((mask & PAINT_BOTTOM) != 0)) {
+                    fillChunk(g, image, stretch, sl, ih - sb, srcCenterW, sb, x + dl, y + h - db, dstCenterW, db);
+                }
+            }
+
+            if (srcCenterH > 0 && dstCenterH > 0) {
+
+                if (drawAll != ((mask & PAINT_LEFT) != 0)) {
+                    fillChunk(g, image, stretch, 0, st, sl, srcCenterH, x, y + dt, dl, dstCenterH);
+                }
+
+                if (drawAll != ((mask & PAINT_RIGHT) != 0)) {
+                    fillChunk(g, image, stretch, iw - sr, st, sr, srcCenterH, x + w - dr, y + dt, dr, dstCenterH);
+                }
+            }
+
+            // Center.
+            if (srcCenterW > 0 && srcCenterH > 0 && dstCenterW > 0 && dstCenterH > 0
+                    && drawAll != ((mask & PAINT_CENTER) != 0)) {
+                fillChunk(g, image, stretch, sl, st, srcCenterW, srcCenterH, x + dl, y + dt, dstCenterW, dstCenterH);
+            }
+        }
+    }
+
+    /**
+     * Fills a destination area from a source area by stretching or tiling.
+     *
+     * @param g       the Graphics context to paint with.
+     * @param image   the source image.
+     * @param stretch {@code true} to stretch, {@code false} to tile.
+     * @param sx      the source x coordinate.
+     * @param sy      the source y coordinate.
+     * @param sw      the source width.
+     * @param sh      the source height.
+     * @param dx      the destination x coordinate.
+     * @param dy      the destination y coordinate.
+     * @param dw      the destination width.
+     * @param dh      the destination height.
+     */
+    private static void fillChunk(Graphics g, Image image, boolean stretch, int sx, int sy, int sw, int sh, int dx, int dy, int dw,
+            int dh) {
+        if (stretch) {
+            drawChunk(g, image, sx, sy, sw, sh, dx, dy, dw, dh);
+        } else {
+            tile(g, image, sx, sy, sw, sh, dx, dy, dw, dh);
+        }
+    }
+
+    /**
+     * Tiles a source area of the image over a destination area, clipping the
+     * last row and column of tiles to the destination.
+     *
+     * @param g     the Graphics context to paint with.
+     * @param image the source image.
+     * @param sx    the source x coordinate.
+     * @param sy    the source y coordinate.
+     * @param sw    the source width.
+     * @param sh    the source height.
+     * @param dx    the destination x coordinate.
+     * @param dy    the destination y coordinate.
+     * @param dw    the destination width.
+     * @param dh    the destination height.
+     */
+    private static void tile(Graphics g, Image image, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh) {
+        if (sw <= 0 || sh <= 0) {
+            return;
+        }
+
+        Rectangle clip = g.getClipBounds();
+        int       minX = dx;
+        int       minY = dy;
+        int       maxX = dx + dw;
+        int       maxY = dy + dh;
+
+        // Skip whole tiles which fall outside the clip.
+        if (clip != null) {
+            if (clip.x > minX) {
+                minX += ((clip.x - minX) / sw) * sw;
+            }
+
+            if (clip.y > minY) {
+                minY += ((clip.y - minY) / sh) * sh;
+            }
+
+            maxX = Math.min(maxX, clip.x + clip.width);
+            maxY = Math.min(maxY, clip.y + clip.height);
+        }
+
+        for (int y = minY; y < maxY; y += sh) {
+            int h = Math.min(sh, dy + dh - y);
+
+            for (int x = minX; x < maxX; x += sw) {
+                int w = Math.min(sw, dx + dw - x);
+
+                g.drawImage(image, x, y, x + w, y + h, sx, sy, sx + w, sy + h, null);
+            }
+        }
+    }
+
+    /**
+     * Draws a portion of an image, stretched if necessary.
+     *
+     * @param g     the Graphics context to paint with.
+     * @param image the source image.
+     * @param sx    the source x coordinate.
+     * @param sy    the source y coordinate.
+     * @param sw    the source width.
+     * @param sh    the source height.
+     * @param dx    the destination x coordinate.
+     * @param dy    the destination y coordinate.
+     * @param dw    the destination width.
+     * @param dh    the destination height.
+     */
+    private static void drawChunk(Graphics g, Image image, int sx, int sy, int sw, int sh, int dx, int dy, int dw, int dh) {
+        if (sw <= 0 || sh <= 0 || dw <= 0 || dh <= 0) {
+            return;
+        }
+
+        g.drawImage(image, dx, dy, dx + dw, dy + dh, sx, sy, sx + sw, sy + sh, null);
+    }
+}
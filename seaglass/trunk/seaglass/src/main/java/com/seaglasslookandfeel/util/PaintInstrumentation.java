@@ -0,0 +1,494 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in instrumentation of painting. When enabled, every call to
+ * {@code AbstractRegionPainter.paint} and to the Synth painter is counted and
+ * timed, per painter class and, for painters which keep their {@code Which}
+ * state in a field, per state.
+ *
+ * <p>For each painter the instrumentation records the number of calls, the
+ * cumulative and maximum time, how many calls were served from the image
+ * cache and how many actually rendered, and the bytes allocated by the
+ * painting thread during the calls, if the JVM can measure that. The
+ * figures can be read with {@link #getSnapshot()}, or over JMX from the
+ * {@link PaintInstrumentationMXBean} registered as {@link #OBJECT_NAME}.
+ * Calls through the Synth painter are recorded per region, under names of
+ * the form {@code Synth[Button]}, and include the time of the painter they
+ * call.</p>
+ *
+ * <p>Instrumentation is enabled by setting the system property
+ * {@code SeaGlass.PaintInstrumentation.enabled} to {@code true}, by calling
+ * {@link #setEnabled(boolean)}, or over JMX. While disabled, the cost to the
+ * painters is a single test of a static field.</p>
+ */
+public final class PaintInstrumentation {
+
+    /** The system property which enables instrumentation at startup. */
+    public static final String ENABLED_KEY = "SeaGlass.PaintInstrumentation.enabled";
+
+    /** The name under which the MXBean is registered. */
+    public static final String OBJECT_NAME = "com.seaglasslookandfeel:type=PaintInstrumentation";
+
+    /** Neither rendered nor served from the cache, as far as is known. */
+    public static final int RENDER_UNKNOWN = 0;
+
+    /** Served from the image cache without rendering. */
+    public static final int RENDER_CACHED = 1;
+
+    /** Rendered, either to the destination or into the image cache. */
+    public static final int RENDER_DIRECT = 2;
+
+    private static volatile boolean enabled;
+
+    private static boolean mbeanRegistered;
+
+    private static final ConcurrentHashMap<String, Counters> counters = new ConcurrentHashMap<String, Counters>();
+
+    static {
+        try {
+            if (Boolean.getBoolean(ENABLED_KEY)) {
+                setEnabled(true);
+            }
+        } catch (SecurityException e) {
+            // Leave it disabled.
+        }
+    }
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private PaintInstrumentation() {
+    }
+
+    /**
+     * Returns whether painting is being instrumented.
+     *
+     * @return <code>true</code> if it is, <code>false</code> otherwise.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables instrumentation. Enabling it also registers the
+     * MXBean, if that has not been done and is allowed. Figures gathered so
+     * far are kept.
+     *
+     * @param enabled <code>true</code> to enable instrumentation,
+     *                <code>false</code> to disable it.
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled) {
+            registerMBean();
+        }
+
+        PaintInstrumentation.enabled = enabled;
+    }
+
+    /**
+     * Discards all the figures gathered so far.
+     */
+    public static void reset() {
+        counters.clear();
+    }
+
+    /**
+     * Returns the figures gathered so far, with the painters which took the
+     * most time first.
+     *
+     * @return the figures for each painter.
+     */
+    public static List<Entry> getSnapshot() {
+        List<Entry> entries = new ArrayList<Entry>(counters.size());
+
+        for (Map.Entry<String, Counters> e : counters.entrySet()) {
+            entries.add(e.getValue().toEntry(e.getKey()));
+        }
+
+        Collections.sort(entries, new Comparator<Entry>() {
+                public int compare(Entry a, Entry b) {
+                    return a.totalNanos < b.totalNanos ? 1 : (a.totalNanos > b.totalNanos ? -1 : 0);
+                }
+            });
+
+        return entries;
+    }
+
+    /**
+     * Returns the name under which a painter's figures are recorded: the
+     * simple name of its class, followed by its {@code Which} state in
+     * brackets if the painter keeps it in a field. Painters should compute
+     * this once and keep it.
+     *
+     * @param  painter the painter.
+     *
+     * @return the name.
+     */
+    public static String getPainterName(Object painter) {
+        String name = painter.getClass().getSimpleName();
+
+        for (Class<?> c = painter.getClass(); c != null && c != Object.class; c = c.getSuperclass()) {
+
+            for (Field field : c.getDeclaredFields()) {
+
+                if (field.getType().isEnum() && "Which".equals(field.getType().getSimpleName())) {
+
+                    try {
+                        field.setAccessible(true);
+                        Object which = field.get(painter);
+
+                        if (which != null) {
+                            return name + "[" + which + "]";
+                        }
+                    } catch (Exception e) {
+                        // Fall back to the class name.
+                    }
+                }
+            }
+        }
+
+        return name;
+    }
+
+    /**
+     * Returns the number of bytes allocated by the current thread so far, to
+     * be passed to {@link #record(String, long, long, int)}.
+     *
+     * @return the number of bytes, or -1 if the JVM can't measure it.
+     */
+    public static long getAllocatedBytes() {
+        return AllocationCounter.get();
+    }
+
+    /**
+     * Records a paint call.
+     *
+     * @param name           the name of the painter, from
+     *                       {@link #getPainterName(Object)}.
+     * @param nanos          the time the call took.
+     * @param allocatedBytes the result of {@link #getAllocatedBytes()} at the
+     *                       start of the call.
+     * @param render         one of {@link #RENDER_UNKNOWN},
+     *                       {@link #RENDER_CACHED} or {@link #RENDER_DIRECT}.
+     */
+    public static void record(String name, long nanos, long allocatedBytes, int render) {
+        long bytes = allocatedBytes < 0 ? 0 : Math.max(0, AllocationCounter.get() - allocatedBytes);
+
+        Counters c = counters.get(name);
+
+        if (c == null) {
+            c = new Counters();
+            Counters existing = counters.putIfAbsent(name, c);
+
+            if (existing != null) {
+                c = existing;
+            }
+        }
+
+        c.record(nanos, bytes, render);
+    }
+
+    /**
+     * Registers the MXBean with the platform MBean server, if it has not
+     * already been done. Failure, for instance in an applet, is ignored.
+     */
+    private static synchronized void registerMBean() {
+        if (mbeanRegistered) {
+            return;
+        }
+
+        mbeanRegistered = true;
+
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName  name   = new ObjectName(OBJECT_NAME);
+
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MXBeanImpl(), name);
+            }
+        } catch (JMException e) {
+            // Instrumentation is still available through getSnapshot.
+        } catch (SecurityException e) {
+            // Instrumentation is still available through getSnapshot.
+        }
+    }
+
+    /**
+     * The figures for one painter at the time of a snapshot.
+     */
+    public static class Entry {
+        private final String name;
+        private final long   calls;
+        private final long   totalNanos;
+        private final long   maxNanos;
+        private final long   cachedRenders;
+        private final long   directRenders;
+        private final long   allocatedBytes;
+
+        /**
+         * Creates a new Entry object.
+         *
+         * @param name           the painter name.
+         * @param calls          the number of paint calls.
+         * @param totalNanos     the cumulative time.
+         * @param maxNanos       the longest call.
+         * @param cachedRenders  the calls served from the image cache.
+         * @param directRenders  the calls which rendered.
+         * @param allocatedBytes the bytes allocated during the calls.
+         */
+        public Entry(String name, long calls, long totalNanos, long maxNanos, long cachedRenders, long directRenders,
+                long allocatedBytes) {
+            this.name           = name;
+            this.calls          = calls;
+            this.totalNanos     = totalNanos;
+            this.maxNanos       = maxNanos;
+            this.cachedRenders  = cachedRenders;
+            this.directRenders  = directRenders;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        /**
+         * Returns the painter name, as from
+         * {@link PaintInstrumentation#getPainterName(Object)}.
+         *
+         * @return the name.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of paint calls.
+         *
+         * @return the count.
+         */
+        public long getCalls() {
+            return calls;
+        }
+
+        /**
+         * Returns the cumulative time of the paint calls.
+         *
+         * @return the time, in nanoseconds.
+         */
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the time of the longest paint call.
+         *
+         * @return the time, in nanoseconds.
+         */
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the number of calls served from the image cache without
+         * rendering.
+         *
+         * @return the count.
+         */
+        public long getCachedRenders() {
+            return cachedRenders;
+        }
+
+        /**
+         * Returns the number of calls which rendered, to the destination or
+         * into the image cache.
+         *
+         * @return the count.
+         */
+        public long getDirectRenders() {
+            return directRenders;
+        }
+
+        /**
+         * Returns the number of bytes allocated by the painting thread during
+         * the calls.
+         *
+         * @return the number of bytes, or 0 if the JVM can't measure it.
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        /**
+         * @see java.lang.Object#toString()
+         */
+        public String toString() {
+            return name + ": calls=" + calls + ", totalNanos=" + totalNanos + ", maxNanos=" + maxNanos + ", cached=" + cachedRenders
+                + ", direct=" + directRenders + ", allocatedBytes=" + allocatedBytes;
+        }
+    }
+
+    /**
+     * The running figures for one painter.
+     */
+    private static class Counters {
+        private long calls;
+        private long totalNanos;
+        private long maxNanos;
+        private long cachedRenders;
+        private long directRenders;
+        private long allocatedBytes;
+
+        /**
+         * Adds a call.
+         *
+         * @param nanos  the time the call took.
+         * @param bytes  the bytes allocated.
+         * @param render the render kind.
+         */
+        synchronized void record(long nanos, long bytes, int render) {
+            calls++;
+            totalNanos     += nanos;
+            maxNanos       =  Math.max(maxNanos, nanos);
+            allocatedBytes += bytes;
+
+            if (render == RENDER_CACHED) {
+                cachedRenders++;
+            } else if (render == RENDER_DIRECT) {
+                directRenders++;
+            }
+        }
+
+        /**
+         * Returns a snapshot of the figures.
+         *
+         * @param  name the painter name.
+         *
+         * @return the snapshot.
+         */
+        synchronized Entry toEntry(String name) {
+            return new Entry(name, calls, totalNanos, maxNanos, cachedRenders, directRenders, allocatedBytes);
+        }
+    }
+
+    /**
+     * Reads the allocation counter of the current thread. This is in its own
+     * class so that the look and feel still loads on JVMs without
+     * {@code com.sun.management}.
+     */
+    private static class AllocationCounter {
+        private static final com.sun.management.ThreadMXBean bean = findBean();
+
+        /**
+         * Returns the bytes allocated by the current thread so far.
+         *
+         * @return the number of bytes, or -1 if unknown.
+         */
+        static long get() {
+            return bean == null ? -1 : bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+
+        /**
+         * Finds the thread MXBean, if it can count allocations.
+         *
+         * @return the bean, or null.
+         */
+        private static com.sun.management.ThreadMXBean findBean() {
+            try {
+                Object bean = ManagementFactory.getThreadMXBean();
+
+                if (bean instanceof com.sun.management.ThreadMXBean) {
+                    com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+
+                    if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                        return sunBean;
+                    }
+                }
+            } catch (LinkageError e) {
+                // Not available on this JVM.
+            } catch (SecurityException e) {
+                // Not allowed.
+            }
+
+            return null;
+        }
+    }
+
+    /**
+     * The MXBean implementation.
+     */
+    private static class MXBeanImpl implements PaintInstrumentationMXBean {
+
+        /**
+         * @see com.seaglasslookandfeel.util.PaintInstrumentationMXBean#isEnabled()
+         */
+        public boolean isEnabled() {
+            return PaintInstrumentation.isEnabled();
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.util.PaintInstrumentationMXBean#setEnabled(boolean)
+         */
+        public void setEnabled(boolean enabled) {
+            PaintInstrumentation.setEnabled(enabled);
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.util.PaintInstrumentationMXBean#reset()
+         */
+        public void reset() {
+            PaintInstrumentation.reset();
+            ImageCache.getInstance().resetStatistics();
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.util.PaintInstrumentationMXBean#getPainters()
+         */
+        public Entry[] getPainters() {
+            List<Entry> entries = getSnapshot();
+
+            return entries.toArray(new Entry[entries.size()]);
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.util.PaintInstrumentationMXBean#getImageCacheHitRate()
+         */
+        public double getImageCacheHitRate() {
+            return ImageCache.getInstance().getStatistics().getHitRate();
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.util.PaintInstrumentationMXBean#getImageCacheResidentBytes()
+         */
+        public long getImageCacheResidentBytes() {
+            return ImageCache.getInstance().getStatistics().getResidentBytes();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.util;
+
+/**
+ * The JMX interface to {@link PaintInstrumentation}, registered as
+ * {@link PaintInstrumentation#OBJECT_NAME}.
+ */
+public interface PaintInstrumentationMXBean {
+
+    /**
+     * Returns whether painting is being instrumented.
+     *
+     * @return <code>true</code> if it is, <code>false</code> otherwise.
+     */
+    boolean isEnabled();
+
+    /**
+     * Enables or disables instrumentation.
+     *
+     * @param enabled <code>true</code> to enable instrumentation,
+     *                <code>false</code> to disable it.
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Discards the painter figures and the image cache statistics.
+     */
+    void reset();
+
+    /**
+     * Returns the figures for each painter, with the painters which took the
+     * most time first.
+     *
+     * @return the figures.
+     */
+    PaintInstrumentation.Entry[] getPainters();
+
+    /**
+     * Returns the hit rate of the shared image cache.
+     *
+     * @return the hit rate, between 0 and 1.
+     */
+    double getImageCacheHitRate();
+
+    /**
+     * Returns the number of bytes held by the shared image cache.
+     *
+     * @return the number of bytes.
+     */
+    long getImageCacheResidentBytes();
+}
@@ -56,6 +56,17 @@ import com.seaglasslookandfeel.component.SeaGlassIcon;
  */
 public class SeaGlassGraphicsUtils extends SynthGraphicsUtils {
 
+    /**
+     * The instance for each thread. The scratch rectangles used to lay out
+     * text and icons, both here and in SynthGraphicsUtils, are fields, so an
+     * instance can't be shared by threads painting at the same time.
+     */
+    private static final ThreadLocal<SeaGlassGraphicsUtils> instances = new ThreadLocal<SeaGlassGraphicsUtils>() {
+        protected SeaGlassGraphicsUtils initialValue() {
+            return new SeaGlassGraphicsUtils();
+        }
+    };
+
     // These are used in the text painting code to avoid allocating a bunch of
     // garbage.
     private Rectangle paintIconR  = new Rectangle();
@@ -63,7 +74,15 @@ public class SeaGlassGraphicsUtils extends SynthGraphicsUtils {
     private Rectangle paintViewR  = new Rectangle();
     private Insets    paintInsets = new Insets(0, 0, 0, 0);
 
-    
+    /**
+     * Returns the graphics utilities for the current thread.
+     *
+     * @return the graphics utilities.
+     */
+    public static SeaGlassGraphicsUtils getInstance() {
+        return instances.get();
+    }
+
     public static void applyInsets(Rectangle rect, Insets insets, boolean leftToRight) {
         if (insets != null) {
             rect.x += (leftToRight ? insets.left : insets.right);
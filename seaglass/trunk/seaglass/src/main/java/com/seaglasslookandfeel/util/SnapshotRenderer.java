@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.util;
+
+import java.awt.Component;
+import java.awt.Container;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.AbstractButton;
+import javax.swing.JComponent;
+import javax.swing.JMenuBar;
+import javax.swing.JPopupMenu;
+import javax.swing.JProgressBar;
+import javax.swing.JSplitPane;
+import javax.swing.JToolBar;
+import javax.swing.JViewport;
+import javax.swing.border.Border;
+import javax.swing.plaf.ComponentUI;
+
+/**
+ * Renders Swing component trees into images off the event dispatch thread,
+ * on a pool of worker threads. This is meant for generating thumbnails and
+ * report images on a server.
+ *
+ * <p>Each tree is laid out at its size, or at its preferred size if it has
+ * none, and painted into a new {@code TYPE_INT_ARGB} image. A tree may be
+ * submitted ready built, or as a factory which builds it, so that building
+ * the trees is spread across the workers too. The look and feel must be
+ * installed before the trees are built, and a tree belongs to the renderer
+ * from when it is submitted until its image is returned: it must not be
+ * showing on screen, nor be changed or painted by any other thread.</p>
+ *
+ * <p>Swing paints the children of a container while holding the AWT tree
+ * lock, which would let only one worker paint at a time. The renderer
+ * therefore walks the tree itself, painting each component through its UI
+ * delegate and border as {@code JComponent} does, for the components which
+ * keep the painting methods of {@code JComponent}. Components which override
+ * them, and their descendants, are painted by their own {@code paint}
+ * method, except for the few Swing components whose overrides are known.
+ * Double buffering is turned off in the tree while it is painted, so that no
+ * worker paints through the buffer of the repaint manager.</p>
+ */
+public final class SnapshotRenderer {
+
+    /** The methods which must not be overridden for the tree walk to apply. */
+    private static final String[] PAINT_METHODS = { "paint", "paintComponent", "paintBorder", "paintChildren" };
+
+    /** Whether each component class keeps the painting of JComponent. */
+    private static final ConcurrentHashMap<Class<?>, Boolean> standardPainting = new ConcurrentHashMap<Class<?>, Boolean>();
+
+    /** Reads the UI delegate of a component, or null if that isn't allowed. */
+    private static final UIAccessor uiAccessor = UIAccessor.create();
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates a renderer with a worker for each processor.
+     */
+    public SnapshotRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a renderer.
+     *
+     * @param threads the number of workers.
+     */
+    public SnapshotRenderer(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be at least 1");
+        }
+
+        executor = Executors.newFixedThreadPool(threads, new WorkerFactory());
+    }
+
+    /**
+     * Renders a component tree on a worker.
+     *
+     * @param  c the root of the tree.
+     *
+     * @return the future image.
+     */
+    public Future<BufferedImage> submit(final JComponent c) {
+        return executor.submit(new Callable<BufferedImage>() {
+                public BufferedImage call() {
+                    return render(c);
+                }
+            });
+    }
+
+    /**
+     * Builds and renders a component tree on a worker.
+     *
+     * @param  factory builds the tree and returns its root.
+     *
+     * @return the future image.
+     */
+    public Future<BufferedImage> submit(final Callable<? extends JComponent> factory) {
+        return executor.submit(new Callable<BufferedImage>() {
+                public BufferedImage call() throws Exception {
+                    return render(factory.call());
+                }
+            });
+    }
+
+    /**
+     * Stops the workers once the trees already submitted have been rendered.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Renders a component tree on the calling thread.
+     *
+     * @param  c the root of the tree.
+     *
+     * @return the image, the size of the root.
+     */
+    public static BufferedImage render(JComponent c) {
+        if (c.getWidth() <= 0 || c.getHeight() <= 0) {
+            Dimension size = c.getPreferredSize();
+
+            c.setSize(Math.max(1, size.width), Math.max(1, size.height));
+        }
+
+        layout(c);
+
+        BufferedImage    image    = new BufferedImage(c.getWidth(), c.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D       g        = image.createGraphics();
+        List<JComponent> buffered = new ArrayList<JComponent>();
+
+        try {
+            setDoubleBuffered(c, buffered);
+            paint(c, g);
+        } finally {
+            for (JComponent b : buffered) {
+                b.setDoubleBuffered(true);
+            }
+
+            g.dispose();
+        }
+
+        return image;
+    }
+
+    /**
+     * Lays out a container and its descendants. The tree isn't displayable,
+     * so {@code validate} would do nothing.
+     *
+     * @param c the container.
+     */
+    private static void layout(Container c) {
+        c.doLayout();
+
+        for (int i = 0; i < c.getComponentCount(); i++) {
+            Component child = c.getComponent(i);
+
+            if (child instanceof Container) {
+                layout((Container) child);
+            }
+        }
+    }
+
+    /**
+     * Turns off double buffering in a tree, remembering the components which
+     * had it on.
+     *
+     * @param c        the root of the tree.
+     * @param buffered the list to add the components which had it on to.
+     */
+    private static void setDoubleBuffered(Container c, List<JComponent> buffered) {
+        if (c instanceof JComponent && c.isDoubleBuffered()) {
+            ((JComponent) c).setDoubleBuffered(false);
+            buffered.add((JComponent) c);
+        }
+
+        for (int i = 0; i < c.getComponentCount(); i++) {
+            Component child = c.getComponent(i);
+
+            if (child instanceof Container) {
+                setDoubleBuffered((Container) child, buffered);
+            }
+        }
+    }
+
+    /**
+     * Paints a component and its descendants, as {@code JComponent.paint}
+     * does, but without taking the tree lock if the component keeps the
+     * painting of JComponent.
+     *
+     * @param c the component.
+     * @param g the graphics context, translated to the component.
+     */
+    private static void paint(JComponent c, Graphics g) {
+        ComponentUI ui = uiAccessor == null ? null : uiAccessor.getUI(c);
+
+        if (ui == null || !hasStandardPainting(c)) {
+            c.paint(g);
+
+            return;
+        }
+
+        if (c.getWidth() <= 0 || c.getHeight() <= 0) {
+            return;
+        }
+
+        Graphics co = g.create();
+
+        try {
+            co.setColor(c.getForeground());
+            co.setFont(c.getFont());
+
+            Graphics scratch = co.create();
+
+            try {
+                ui.update(scratch, c);
+            } finally {
+                scratch.dispose();
+            }
+
+            Border border = c.getBorder();
+
+            if (border != null && isBorderPainted(c)) {
+                border.paintBorder(c, co, 0, 0, c.getWidth(), c.getHeight());
+            }
+
+            paintChildren(c, co);
+
+            if (c instanceof JSplitPane && ((JSplitPane) c).getUI() != null) {
+                Graphics tempG = co.create();
+
+                try {
+                    ((JSplitPane) c).getUI().finishedPaintingChildren((JSplitPane) c, tempG);
+                } finally {
+                    tempG.dispose();
+                }
+            }
+        } finally {
+            co.dispose();
+        }
+    }
+
+    /**
+     * Paints the visible children of a component which intersect the clip,
+     * last first, as {@code JComponent.paintChildren} does.
+     *
+     * @param c the component.
+     * @param g the graphics context, translated to the component.
+     */
+    private static void paintChildren(JComponent c, Graphics g) {
+        Rectangle bounds = new Rectangle();
+
+        for (int i = c.getComponentCount() - 1; i >= 0; i--) {
+            Component child = c.getComponent(i);
+
+            if (!(child instanceof JComponent) || !child.isVisible()) {
+                continue;
+            }
+
+            child.getBounds(bounds);
+
+            if (!g.hitClip(bounds.x, bounds.y, bounds.width, bounds.height)) {
+                continue;
+            }
+
+            Graphics cg = g.create(bounds.x, bounds.y, bounds.width, bounds.height);
+
+            try {
+                cg.setColor(child.getForeground());
+                cg.setFont(child.getFont());
+                paint((JComponent) child, cg);
+            } finally {
+                cg.dispose();
+            }
+        }
+    }
+
+    /**
+     * Returns whether the border of a component is to be painted. Some Swing
+     * components override paintBorder to make this optional.
+     *
+     * @param  c the component.
+     *
+     * @return <code>true</code> if it is, <code>false</code> otherwise.
+     */
+    private static boolean isBorderPainted(JComponent c) {
+        if (c instanceof AbstractButton) {
+            return ((AbstractButton) c).isBorderPainted();
+        } else if (c instanceof JMenuBar) {
+            return ((JMenuBar) c).isBorderPainted();
+        } else if (c instanceof JPopupMenu) {
+            return ((JPopupMenu) c).isBorderPainted();
+        } else if (c instanceof JProgressBar) {
+            return ((JProgressBar) c).isBorderPainted();
+        } else if (c instanceof JToolBar) {
+            return ((JToolBar) c).isBorderPainted();
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns whether a component paints as JComponent does, and so may be
+     * painted by walking the tree. The overrides of paintBorder which check
+     * isBorderPainted, and of paintChildren in JSplitPane, are allowed for. A
+     * viewport only differs when it keeps a backing store.
+     *
+     * @param  c the component.
+     *
+     * @return <code>true</code> if it does, <code>false</code> otherwise.
+     */
+    private static boolean hasStandardPainting(JComponent c) {
+        Class<?> type     = c.getClass();
+        Boolean  standard = standardPainting.get(type);
+
+        if (standard == null) {
+            standard = Boolean.TRUE;
+
+            for (Class<?> t = type; t != JComponent.class && standard; t = t.getSuperclass()) {
+
+                for (String name : PAINT_METHODS) {
+
+                    if (declares(t, name) && !isKnownOverride(t, name)) {
+                        standard = Boolean.FALSE;
+
+                        break;
+                    }
+                }
+            }
+
+            standardPainting.put(type, standard);
+        }
+
+        return standard && (!(c instanceof JViewport) || ((JViewport) c).getScrollMode() != JViewport.BACKINGSTORE_SCROLL_MODE);
+    }
+
+    /**
+     * Returns whether a painting method declared by a class is one which the
+     * tree walk allows for.
+     *
+     * @param  type the class.
+     * @param  name the name of the method.
+     *
+     * @return <code>true</code> if it is, <code>false</code> otherwise.
+     */
+    private static boolean isKnownOverride(Class<?> type, String name) {
+        if ("paintBorder".equals(name)) {
+            return type == AbstractButton.class || type == JMenuBar.class || type == JPopupMenu.class || type == JProgressBar.class
+                || type == JToolBar.class;
+        } else if ("paintChildren".equals(name)) {
+            return type == JSplitPane.class;
+        } else if ("paint".equals(name)) {
+            return type == JViewport.class;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether a class declares a painting method.
+     *
+     * @param  type the class.
+     * @param  name the name of the method, which takes a Graphics.
+     *
+     * @return <code>true</code> if it does, <code>false</code> otherwise.
+     */
+    private static boolean declares(Class<?> type, String name) {
+        try {
+            type.getDeclaredMethod(name, Graphics.class);
+
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        } catch (SecurityException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Reads the UI delegate of a component. JComponent has a public getUI
+     * method from Java 9, before which the protected field is read.
+     */
+    private abstract static class UIAccessor {
+
+        /**
+         * Creates an accessor for this JRE.
+         *
+         * @return the accessor, or null if the UI delegate can't be read.
+         */
+        static UIAccessor create() {
+            try {
+                final Method method = JComponent.class.getMethod("getUI");
+
+                return new UIAccessor() {
+                        Object get(JComponent c) throws Exception {
+                            return method.invoke(c);
+                        }
+                    };
+            } catch (Exception e) {
+                // Fall through to the field.
+            }
+
+            try {
+                final Field field = JComponent.class.getDeclaredField("ui");
+
+                field.setAccessible(true);
+
+                return new UIAccessor() {
+                        Object get(JComponent c) throws Exception {
+                            return field.get(c);
+                        }
+                    };
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * Returns the UI delegate of a component.
+         *
+         * @param  c the component.
+         *
+         * @return the UI delegate, or null if it can't be read.
+         */
+        ComponentUI getUI(JComponent c) {
+            try {
+                return (ComponentUI) get(c);
+            } catch (Exception e) {
+                return null;
+            }
+        }
+
+        /**
+         * Reads the UI delegate of a component.
+         *
+         * @param  c the component.
+         *
+         * @return the UI delegate.
+         *
+         * @throws Exception if it can't be read.
+         */
+        abstract Object get(JComponent c) throws Exception;
+    }
+
+    /**
+     * Creates the workers, as daemon threads so that a renderer which isn't
+     * shut down doesn't keep the JVM alive.
+     */
+    private static class WorkerFactory implements ThreadFactory {
+        private static final AtomicInteger pools = new AtomicInteger();
+
+        private final int           pool    = pools.incrementAndGet();
+        private final AtomicInteger threads = new AtomicInteger();
+
+        /**
+         * @see java.util.concurrent.ThreadFactory#newThread(java.lang.Runnable)
+         */
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "SeaGlass-SnapshotRenderer-" + pool + "-" + threads.incrementAndGet());
+
+            t.setDaemon(true);
+
+            return t;
+        }
+    }
+}
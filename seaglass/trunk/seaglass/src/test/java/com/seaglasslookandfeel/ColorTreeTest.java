@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+
+import javax.swing.UIManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.seaglasslookandfeel.util.ImageCache;
+
+/**
+ * Tests the sharing of derived colors, and that putting a color into the UI
+ * defaults derives the colors downstream of it again.
+ */
+public class ColorTreeTest {
+
+    private static final String BASE   = "ColorTreeTest.base";
+    private static final String MIDDLE = "ColorTreeTest.middle";
+
+    private ColorTree tree;
+
+    /**
+     * Creates a tree listening to the UI defaults, and puts the base color.
+     */
+    @Before
+    public void setUp() {
+        tree = new ColorTree();
+        UIManager.put(BASE, Color.RED);
+        UIManager.getDefaults().addPropertyChangeListener(tree);
+    }
+
+    /**
+     * Stops listening to the UI defaults, and removes the colors put.
+     */
+    @After
+    public void tearDown() {
+        UIManager.getDefaults().removePropertyChangeListener(tree);
+        UIManager.put(BASE, null);
+        UIManager.put(MIDDLE, null);
+    }
+
+    /**
+     * A color is shared by everything deriving it the same way.
+     */
+    @Test
+    public void testSharesColors() {
+        DerivedColor color = tree.getColor(BASE, 0f, 0f, -0.5f, 0, false);
+
+        assertSame(color, tree.getColor(BASE, 0f, 0f, -0.5f, 0, false));
+        assertNotSame(color, tree.getColor(BASE, 0f, 0f, -0.4f, 0, false));
+
+        DerivedColor resource = tree.getColor(BASE, 0f, 0f, -0.5f, 0, true);
+
+        assertNotSame(color, resource);
+        assertTrue(resource instanceof DerivedColor.UIResource);
+        assertSame(resource, tree.getColor(BASE, 0f, 0f, -0.5f, 0, true));
+
+        DerivedColor child = tree.getColor(color, 0.1f, 0f, 0f, 0);
+
+        assertSame(child, tree.getColor(color, 0.1f, 0f, 0f, 0));
+    }
+
+    /**
+     * The colors derived from two derived colors are not shared just because
+     * their parents have the same value now, since the parents may diverge.
+     */
+    @Test
+    public void testSharesChildrenOfSameParentOnly() {
+        DerivedColor color    = tree.getColor(BASE, 0f, 0f, -0.5f, 0, false);
+        DerivedColor resource = tree.getColor(BASE, 0f, 0f, -0.5f, 0, true);
+
+        assertEquals(color.getRGB(), resource.getRGB());
+        assertNotSame(tree.getColor(color, 0.1f, 0f, 0f, 0), tree.getColor(resource, 0.1f, 0f, 0f, 0));
+    }
+
+    /**
+     * Putting a color derives again the colors derived from its key, the
+     * colors derived from those, and the colors derived from the keys those
+     * are stored under.
+     */
+    @Test
+    public void testRederivesDownstreamColors() {
+        DerivedColor color      = tree.getColor(BASE, 0f, 0f, -0.5f, 0, false);
+        DerivedColor child      = tree.getColor(color, 0.1f, 0f, 0f, 0);
+        DerivedColor grandchild = tree.getColor(MIDDLE, 0f, -0.2f, 0f, 0, false);
+
+        UIManager.put(MIDDLE, child);
+        assertColors(Color.RED, color, child, grandchild);
+
+        UIManager.put(BASE, Color.BLUE);
+        assertColors(Color.BLUE, color, child, grandchild);
+
+        UIManager.put(BASE, Color.GREEN);
+        assertColors(Color.GREEN, color, child, grandchild);
+    }
+
+    /**
+     * The cached images of the users of a color are flushed when the color
+     * changes, and kept when putting its parent again doesn't change it.
+     */
+    @Test
+    public void testFlushesImagesOfUsers() {
+        DerivedColor color = tree.getColor(BASE, 0f, 0f, -0.5f, 0, false);
+        DerivedColor child = tree.getColor(color, 0.1f, 0f, 0f, 0);
+        Object       user  = new Object();
+        ImageCache   cache = ImageCache.getInstance();
+
+        child.getRGB();
+        child.addUser(user);
+        cache.setImage(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), null, 1, 1, user);
+
+        UIManager.put(BASE, new Color(Color.RED.getRGB()));
+        assertNotNull(cache.getImage(null, 1, 1, user));
+
+        UIManager.put(BASE, Color.BLUE);
+        assertNull(cache.getImage(null, 1, 1, user));
+    }
+
+    /**
+     * An image cached with a derived color in its keys, by an owner which is
+     * not a user of the color, is not found once the color has changed.
+     */
+    @Test
+    public void testCacheKeysFollowValue() {
+        DerivedColor color = tree.getColor(BASE, 0f, 0f, -0.5f, 0, false);
+        Object       owner = new Object();
+        ImageCache   cache = ImageCache.getInstance();
+
+        cache.setImage(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), null, 1, 1, owner, color);
+        assertNotNull(cache.getImage(null, 1, 1, owner, color));
+
+        UIManager.put(BASE, Color.BLUE);
+        assertNull(cache.getImage(null, 1, 1, owner, color));
+    }
+
+    /**
+     * Fails unless each color is derived, from the one before it, or the base
+     * color for the first, as it would be from scratch.
+     *
+     * @param base   the base color.
+     * @param colors the colors, in the order they are derived.
+     */
+    private static void assertColors(Color base, DerivedColor... colors) {
+        int rgb = base.getRGB();
+
+        for (DerivedColor color : colors) {
+            rgb = DerivedColor.deriveARGB(new Color(rgb, true), color.getHueOffset(), color.getSaturationOffset(),
+                                          color.getBrightnessOffset(), color.getAlphaOffset());
+            assertEquals(rgb, color.getRGB());
+        }
+    }
+}
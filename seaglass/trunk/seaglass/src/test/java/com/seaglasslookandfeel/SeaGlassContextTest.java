@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import javax.swing.JButton;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.plaf.synth.ColorType;
+import javax.swing.plaf.synth.Region;
+import javax.swing.plaf.synth.SynthConstants;
+import javax.swing.plaf.synth.SynthContext;
+import javax.swing.plaf.synth.SynthStyle;
+
+import org.junit.Test;
+
+/**
+ * Tests the re-use of disposed contexts, and the checks made instead in debug
+ * mode.
+ */
+public class SeaGlassContextTest {
+
+    private static final SynthStyle STYLE = new TestStyle();
+
+    /**
+     * A disposed context is handed out again, reset to the new arguments.
+     */
+    @Test
+    public void testReusesDisposedContext() {
+        JButton         button  = new JButton();
+        SeaGlassContext context = getContext(SeaGlassContext.class, button);
+
+        assertSame(button, context.getComponent());
+        context.dispose();
+        assertNull(context.getComponent());
+
+        JLabel          label = new JLabel();
+        SeaGlassContext again = SeaGlassContext.getContext(SeaGlassContext.class, label, Region.LABEL, STYLE, SynthConstants.ENABLED);
+
+        assertSame(context, again);
+        assertSame(label, again.getComponent());
+        assertSame(Region.LABEL, again.getRegion());
+        assertSame(STYLE, again.getStyle());
+        assertEquals(SynthConstants.ENABLED, again.getComponentState());
+        again.dispose();
+    }
+
+    /**
+     * A context is only handed out for the class it was created for.
+     */
+    @Test
+    public void testReusesContextOfSameClass() {
+        SeaGlassContext context = getContext(SeaGlassContext.class, new JButton());
+
+        context.dispose();
+
+        SeaGlassContext other = getContext(TestContext.class, new JButton());
+
+        assertNotSame(context, other);
+        assertSame(TestContext.class, other.getClass());
+        assertSame(context, getContext(SeaGlassContext.class, new JButton()));
+        other.dispose();
+        context.dispose();
+    }
+
+    /**
+     * Disposing a context twice doesn't pool it twice, which would hand it to
+     * two callers at once.
+     */
+    @Test
+    public void testDisposingTwicePoolsOnce() {
+        SeaGlassContext context = getContext(SeaGlassContext.class, new JButton());
+
+        context.dispose();
+        context.dispose();
+
+        SeaGlassContext first  = getContext(SeaGlassContext.class, new JButton());
+        SeaGlassContext second = getContext(SeaGlassContext.class, new JButton());
+
+        assertNotSame(first, second);
+        first.dispose();
+        second.dispose();
+    }
+
+    /**
+     * A context disposed on one thread is not handed out on another.
+     *
+     * @throws InterruptedException if interrupted while waiting for the other
+     *                              thread.
+     */
+    @Test
+    public void testPoolsPerThread() throws InterruptedException {
+        final SeaGlassContext[] disposed = new SeaGlassContext[1];
+        Thread                  thread   = new Thread() {
+            @Override
+            public void run() {
+                disposed[0] = getContext(TestContext.class, new JButton());
+                disposed[0].dispose();
+            }
+        };
+
+        thread.start();
+        thread.join();
+
+        SeaGlassContext context = getContext(TestContext.class, new JButton());
+
+        assertNotSame(disposed[0], context);
+        context.dispose();
+    }
+
+    /**
+     * In debug mode, contexts are not re-used, disposing one twice throws an
+     * exception, and one which is collected without being disposed is
+     * reported. The mode is read when the class is initialized, so this loads
+     * a copy of the look and feel's classes with the system property set.
+     *
+     * @throws Exception if the classes can't be loaded or called.
+     */
+    @Test
+    public void testDebugMode() throws Exception {
+        URL         location = SeaGlassContext.class.getProtectionDomain().getCodeSource().getLocation();
+        ClassLoader loader   = new URLClassLoader(new URL[] { location }, null);
+        Class<?>    type;
+
+        System.setProperty(SeaGlassContext.DEBUG_KEY, "true");
+
+        try {
+            type = Class.forName(SeaGlassContext.class.getName(), true, loader);
+        } finally {
+            System.clearProperty(SeaGlassContext.DEBUG_KEY);
+        }
+
+        Method getContext = type.getMethod("getContext", Class.class, JComponent.class, Region.class, SynthStyle.class, int.class);
+        Method dispose    = type.getMethod("dispose");
+        Object context    = getContext.invoke(null, type, new JButton(), Region.BUTTON, STYLE, SynthConstants.ENABLED);
+
+        dispose.invoke(context);
+        assertNotSame(context, getContext.invoke(null, type, new JButton(), Region.BUTTON, STYLE, SynthConstants.ENABLED));
+
+        try {
+            dispose.invoke(context);
+            assertTrue("Disposing a context twice must throw", false);
+        } catch (InvocationTargetException e) {
+            assertSame(IllegalStateException.class, e.getCause().getClass());
+        }
+
+        ByteArrayOutputStream err      = new ByteArrayOutputStream();
+        PrintStream           original = System.err;
+        boolean               reported = false;
+
+        System.setErr(new PrintStream(err, true));
+
+        try {
+            for (int i = 0; i < 20 && !reported; i++) {
+                System.gc();
+                Thread.sleep(10);
+                dispose.invoke(getContext.invoke(null, type, new JButton(), Region.BUTTON, STYLE, SynthConstants.ENABLED));
+                reported = err.toString().contains("never disposed");
+            }
+        } finally {
+            System.setErr(original);
+        }
+
+        assertTrue("A context which was never disposed must be reported", reported);
+        assertFalse(err.toString().contains("disposed twice"));
+    }
+
+    /**
+     * Gets a context for a button.
+     *
+     * @param  type      the class of the context.
+     * @param  component the component.
+     *
+     * @return the context.
+     */
+    private static SeaGlassContext getContext(Class<?> type, JComponent component) {
+        return SeaGlassContext.getContext(type, component, Region.BUTTON, STYLE, SynthConstants.ENABLED);
+    }
+
+    /**
+     * A context of another class.
+     */
+    public static class TestContext extends SeaGlassContext {
+    }
+
+    /**
+     * A style with no colors or fonts.
+     */
+    private static class TestStyle extends SynthStyle {
+
+        /**
+         * @see javax.swing.plaf.synth.SynthStyle#getColorForState(javax.swing.plaf.synth.SynthContext,
+         *      javax.swing.plaf.synth.ColorType)
+         */
+        @Override
+        protected Color getColorForState(SynthContext context, ColorType type) {
+            return null;
+        }
+
+        /**
+         * @see javax.swing.plaf.synth.SynthStyle#getFontForState(javax.swing.plaf.synth.SynthContext)
+         */
+        @Override
+        protected Font getFontForState(SynthContext context) {
+            return null;
+        }
+    }
+}
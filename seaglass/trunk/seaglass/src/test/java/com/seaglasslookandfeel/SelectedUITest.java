@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.swing.SwingUtilities;
+import javax.swing.plaf.ComponentUI;
+import javax.swing.plaf.synth.SynthConstants;
+
+import org.junit.Test;
+
+/**
+ * Tests that the selected UI is kept per thread, and that only the event
+ * dispatch thread writes the deprecated public fields.
+ */
+@SuppressWarnings("deprecation")
+public class SelectedUITest {
+
+    /**
+     * A selected UI set off the event dispatch thread is seen by that thread
+     * only, and leaves the public fields as the event dispatch thread set
+     * them.
+     *
+     * @throws Exception if the event dispatch thread fails.
+     */
+    @Test
+    public void testOnlyEventDispatchThreadWritesFields() throws Exception {
+        final ComponentUI edtUI    = new ComponentUI() {
+        };
+        ComponentUI       workerUI = new ComponentUI() {
+        };
+
+        SwingUtilities.invokeAndWait(new Runnable() {
+                public void run() {
+                    SeaGlassLookAndFeel.setSelectedUI(edtUI, true, false, true, false);
+                }
+            });
+
+        try {
+            assertSame(edtUI, SeaGlassLookAndFeel.selectedUI);
+            assertEquals(SynthConstants.SELECTED, SeaGlassLookAndFeel.selectedUIState);
+
+            SeaGlassLookAndFeel.setSelectedUI(workerUI, false, false, false, false);
+            assertTrue(SeaGlassLookAndFeel.isSelectedUI(workerUI));
+            assertFalse(SeaGlassLookAndFeel.isSelectedUI(edtUI));
+            assertEquals(SynthConstants.DISABLED, SeaGlassLookAndFeel.getSelectedUIState());
+            assertSame(edtUI, SeaGlassLookAndFeel.selectedUI);
+            assertEquals(SynthConstants.SELECTED, SeaGlassLookAndFeel.selectedUIState);
+
+            SeaGlassLookAndFeel.resetSelectedUI(workerUI);
+            assertFalse(SeaGlassLookAndFeel.isSelectedUI(workerUI));
+            assertSame(edtUI, SeaGlassLookAndFeel.selectedUI);
+        } finally {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                    public void run() {
+                        SeaGlassLookAndFeel.resetSelectedUI(edtUI);
+                    }
+                });
+        }
+
+        assertNull(SeaGlassLookAndFeel.selectedUI);
+    }
+}
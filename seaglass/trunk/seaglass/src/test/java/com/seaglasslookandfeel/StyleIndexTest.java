@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests that the styles registered through the style index are the same as
+ * those registered by splitting every prefix and probing for the class of
+ * every part.
+ */
+public class StyleIndexTest {
+
+    /**
+     * The shipped index is up to date, and registering the styles through it
+     * resolves every prefix to the same parts and classes as the probes.
+     *
+     * @throws IOException if an index can't be written.
+     */
+    @Test
+    public void testIndexMatchesProbes() throws IOException {
+        StyleIndex shipped = StyleIndex.load();
+
+        assertNotNull("The build must ship the style index", shipped);
+
+        byte[] indexed = toBytes(new SeaGlassLookAndFeel().createStyleIndex());
+        byte[] probed;
+
+        System.setProperty(StyleIndex.DISABLED_KEY, "true");
+
+        try {
+            probed = toBytes(new SeaGlassLookAndFeel().createStyleIndex());
+        } finally {
+            System.clearProperty(StyleIndex.DISABLED_KEY);
+        }
+
+        assertArrayEquals("The shipped index is out of date", probed, toBytes(shipped));
+        assertArrayEquals("The styles registered through the index differ", probed, indexed);
+    }
+
+    /**
+     * An index reads back as written.
+     *
+     * @throws IOException if the index can't be written or read.
+     */
+    @Test
+    public void testReadWrite() throws IOException {
+        byte[] written = toBytes(new SeaGlassLookAndFeel().createStyleIndex());
+
+        assertArrayEquals(written, toBytes(StyleIndex.read(new ByteArrayInputStream(written))));
+    }
+
+    /**
+     * Data which isn't an index is rejected.
+     *
+     * @throws IOException always.
+     */
+    @Test(expected = IOException.class)
+    public void testReadRejectsOtherData() throws IOException {
+        StyleIndex.read(new ByteArrayInputStream(new byte[8]));
+    }
+
+    /**
+     * Writes an index to a byte array.
+     *
+     * @param  index the index.
+     *
+     * @return the bytes.
+     *
+     * @throws IOException if the index can't be written.
+     */
+    private static byte[] toBytes(StyleIndex index) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        index.write(out);
+
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.effect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the blurs of FastBlur against EffectUtils.gaussianBlur, which is the
+ * reference they replace.
+ */
+public class FastBlurTest {
+
+    private static final int[] RADII = { 1, 2, 3, 8, 20 };
+
+    /**
+     * The fixed point Gaussian of an ARGB image is within one level of the
+     * reference in every channel.
+     */
+    @Test
+    public void testGaussianMatchesReferenceArgb() {
+        for (int radius : RADII) {
+            BufferedImage src = createImage(BufferedImage.TYPE_INT_ARGB, 37, 23);
+
+            assertMatchesReference(src, radius);
+        }
+    }
+
+    /**
+     * The fixed point Gaussian of a gray image is within one level of the
+     * reference.
+     */
+    @Test
+    public void testGaussianMatchesReferenceGray() {
+        for (int radius : RADII) {
+            BufferedImage src = createImage(BufferedImage.TYPE_BYTE_GRAY, 23, 37);
+
+            assertMatchesReference(src, radius);
+        }
+    }
+
+    /**
+     * An image large enough to be split into bands of rows is blurred the same
+     * way as a small one.
+     */
+    @Test
+    public void testGaussianMatchesReferenceInBands() {
+        int           size = 512;
+        BufferedImage src  = createImage(BufferedImage.TYPE_INT_ARGB, size, size);
+
+        assertTrue(size * size >= FastBlur.PARALLEL_THRESHOLD);
+        assertMatchesReference(src, 8);
+    }
+
+    /**
+     * The transposing pass over gray pixels used by the drop shadow is within
+     * one level of the one in EffectUtils.
+     */
+    @Test
+    public void testGrayPassMatchesReference() {
+        int    width    = 41;
+        int    height   = 17;
+        byte[] src      = new byte[width * height];
+        byte[] expected = new byte[width * height];
+        byte[] actual   = new byte[width * height];
+
+        new Random(1).nextBytes(src);
+
+        for (int radius : RADII) {
+            EffectUtils.blur(src, expected, width, height, EffectUtils.createGaussianKernel(radius), radius);
+            FastBlur.gaussianBlur(src, actual, width, height, radius);
+
+            for (int i = 0; i < src.length; i++) {
+                int difference = Math.abs((expected[i] & 0xFF) - (actual[i] & 0xFF));
+
+                assertTrue("Radius " + radius + " differs by " + difference + " at " + i, difference <= 1);
+            }
+        }
+    }
+
+    /**
+     * The fixed point weights sum to exactly one.
+     */
+    @Test
+    public void testKernelSumsToOne() {
+        for (int radius : RADII) {
+            int[] kernel = FastBlur.getGaussianKernel(radius);
+            int   sum    = 0;
+
+            for (int weight : kernel) {
+                sum += weight;
+            }
+
+            assertEquals(2 * radius + 1, kernel.length);
+            assertEquals(1 << 16, sum);
+        }
+    }
+
+    /**
+     * A radius of less than one has no kernel.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testKernelRejectsZeroRadius() {
+        FastBlur.getGaussianKernel(0);
+    }
+
+    /**
+     * The box blur extends the edge pixels, so a uniform image stays uniform,
+     * and its boxes have the variance of the Gaussian they approximate.
+     */
+    @Test
+    public void testBoxBlur() {
+        BufferedImage src = new BufferedImage(30, 20, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g   = src.createGraphics();
+
+        g.setColor(new Color(10, 120, 230, 200));
+        g.fillRect(0, 0, 30, 20);
+        g.dispose();
+
+        BufferedImage dst = FastBlur.boxBlur(src, null, 8);
+
+        for (int y = 0; y < 20; y++) {
+            for (int x = 0; x < 30; x++) {
+                assertEquals(src.getRGB(x, y), dst.getRGB(x, y));
+            }
+        }
+
+        for (int radius : RADII) {
+            double sigma    = radius / 3.0;
+            double variance = 0;
+
+            for (int r : FastBlur.getBoxRadii(radius)) {
+                variance += ((2 * r + 1) * (2 * r + 1) - 1) / 12.0;
+            }
+
+            assertEquals("Radius " + radius, sigma * sigma, variance, 1 + sigma * sigma / 4);
+        }
+    }
+
+    /**
+     * Blurs an image with the fixed point Gaussian and with the reference,
+     * and fails if they differ by more than one level in any channel.
+     *
+     * @param src    the image.
+     * @param radius the radius.
+     */
+    private static void assertMatchesReference(BufferedImage src, int radius) {
+        Raster expected = EffectUtils.gaussianBlur(src, null, radius).getRaster();
+        Raster actual   = FastBlur.gaussianBlur(src, null, radius).getRaster();
+
+        for (int y = 0; y < src.getHeight(); y++) {
+            for (int x = 0; x < src.getWidth(); x++) {
+                for (int band = 0; band < expected.getNumBands(); band++) {
+                    int difference = Math.abs(expected.getSample(x, y, band) - actual.getSample(x, y, band));
+
+                    assertTrue("Radius " + radius + " differs by " + difference + " at " + x + "," + y, difference <= 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates an image of random noise with a filled shape, so that the blur
+     * has both fine detail and edges to work on.
+     *
+     * @param  type   the image type.
+     * @param  width  the width.
+     * @param  height the height.
+     *
+     * @return the image.
+     */
+    private static BufferedImage createImage(int type, int width, int height) {
+        BufferedImage image  = new BufferedImage(width, height, type);
+        Random        random = new Random(width * 31 + height);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, random.nextInt());
+            }
+        }
+
+        Graphics2D g = image.createGraphics();
+
+        g.setColor(Color.WHITE);
+        g.fillRoundRect(width / 4, height / 4, width / 2, height / 2, width / 8, height / 8);
+        g.dispose();
+
+        return image;
+    }
+}
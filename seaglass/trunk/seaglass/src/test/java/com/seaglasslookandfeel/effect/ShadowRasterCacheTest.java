@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.effect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests that the shadows served by the cache are the shadows the effect
+ * renders for its current parameters and the exact outline of the shape.
+ */
+public class ShadowRasterCacheTest {
+
+    private static final Shape ELLIPSE    = new Ellipse2D.Double(0, 0, 30, 20);
+    private static final Shape RECTANGLE  = new Rectangle2D.Double(0, 0, 30, 20);
+    private static final Shape ROUND_RECT = new RoundRectangle2D.Double(0, 0, 30, 20, 8, 8);
+
+    /**
+     * Starts each test with an empty cache.
+     */
+    @Before
+    public void setUp() {
+        ShadowRasterCache.flush();
+    }
+
+    /**
+     * A cached shadow is the shadow the effect renders, and is served again
+     * for the same effect and shape.
+     */
+    @Test
+    public void testMatchesRenderedShadow() {
+        DropShadowEffect effect = new DropShadowEffect();
+
+        for (Shape s : new Shape[] { ELLIPSE, RECTANGLE, ROUND_RECT }) {
+            BufferedImage image = getImage(effect, s);
+
+            assertSameShadow(effect.render(s, 30, 20), image);
+            assertSame(image, getImage(effect, s));
+        }
+    }
+
+    /**
+     * Changing a parameter of an effect, including the value of its color,
+     * renders its shadow again.
+     */
+    @Test
+    public void testRendersAgainForOtherParameters() {
+        DropShadowEffect effect = new DropShadowEffect();
+
+        getImage(effect, ROUND_RECT);
+
+        effect.setColor(Color.RED);
+        assertSameShadow(effect.render(ROUND_RECT, 30, 20), getImage(effect, ROUND_RECT));
+
+        effect.setColor(new Color(0, 0, 255));
+        assertSameShadow(effect.render(ROUND_RECT, 30, 20), getImage(effect, ROUND_RECT));
+
+        effect.setDistance(2);
+        assertSameShadow(effect.render(ROUND_RECT, 30, 20), getImage(effect, ROUND_RECT));
+
+        effect.setSize(3);
+        assertSameShadow(effect.render(ROUND_RECT, 30, 20), getImage(effect, ROUND_RECT));
+
+        effect.setAngle(90);
+        assertSameShadow(effect.render(ROUND_RECT, 30, 20), getImage(effect, ROUND_RECT));
+
+        effect.setOpacity(0.3f);
+        assertSameShadow(effect.render(ROUND_RECT, 30, 20), getImage(effect, ROUND_RECT));
+    }
+
+    /**
+     * Shapes with the same bounds but other outlines have their own shadows.
+     */
+    @Test
+    public void testRendersAgainForOtherOutlines() {
+        DropShadowEffect effect = new DropShadowEffect();
+
+        getImage(effect, RECTANGLE);
+        assertSameShadow(effect.render(ELLIPSE, 30, 20), getImage(effect, ELLIPSE));
+        assertSameShadow(effect.render(new RoundRectangle2D.Double(0, 0, 30, 20, 9, 9), 30, 20),
+                         getImage(effect, new RoundRectangle2D.Double(0, 0, 30, 20, 9, 9)));
+        assertSameShadow(effect.render(RECTANGLE, 30, 20), getImage(effect, RECTANGLE));
+    }
+
+    /**
+     * Effects with equal parameters share their shadows.
+     */
+    @Test
+    public void testSharesEqualEffects() {
+        DropShadowEffect first  = new DropShadowEffect();
+        DropShadowEffect second = new DropShadowEffect();
+
+        first.setColor(Color.GREEN);
+        second.setColor(new Color(0, 255, 0));
+
+        long          hits  = ShadowRasterCache.getStatistics().getHits();
+        BufferedImage image = getImage(first, ELLIPSE);
+
+        assertSame(image, getImage(second, new Ellipse2D.Double(0, 0, 30, 20)));
+        assertEquals(hits + 1, ShadowRasterCache.getStatistics().getHits());
+    }
+
+    /**
+     * Gets the shadow of a shape from the cache.
+     *
+     * @param  effect the effect.
+     * @param  s      the shape.
+     *
+     * @return the shadow.
+     */
+    private static BufferedImage getImage(Effect effect, Shape s) {
+        return ShadowRasterCache.getImage(effect, s, s.getBounds().width, s.getBounds().height);
+    }
+
+    /**
+     * Fails unless two shadows have the same pixels.
+     *
+     * @param expected the shadow rendered by the effect.
+     * @param actual   the shadow from the cache.
+     */
+    private static void assertSameShadow(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                assertEquals("Pixel " + x + "," + y, expected.getRGB(x, y), actual.getRGB(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.icons;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+import com.seaglasslookandfeel.util.ImageCache;
+
+/**
+ * Tests that icons painted from the cache look the same as icons painted from
+ * their vectors, at every size and scale they are cached for.
+ */
+public class IconRasterCacheTest {
+
+    /**
+     * The largest difference allowed in any channel, which allows for the
+     * rounding of the premultiplied image the cache renders into, and of the
+     * gradients rendered at another offset.
+     */
+    private static final int MAX_DIFFERENCE = 4;
+
+    /**
+     * The offset at which the icons are painted, which leaves room for the
+     * parts of the icons outside their bounds.
+     */
+    private static final int OFFSET = 16;
+
+    /**
+     * An icon painted from the cache matches the vectors, at its original
+     * size, at another size and on a scaled destination.
+     */
+    @Test
+    public void testMatchesVectors() {
+        VectorIcon[] icons = { new ErrorSign(), new FolderIcon(), new WarningSign() };
+
+        for (VectorIcon icon : icons) {
+            for (double scale : new double[] { 1.0, 2.0, 1.5 }) {
+                assertMatchesVectors(icon, icon.getOrigWidth(), icon.getOrigHeight(), scale);
+                assertMatchesVectors(icon, 24, 24, scale);
+                assertMatchesVectors(icon, 40, 30, scale);
+            }
+        }
+    }
+
+    /**
+     * An image is rendered once for each size and scale, and not for a
+     * rotated destination.
+     */
+    @Test
+    public void testCachesPerSizeAndScale() {
+        ErrorSign icon = new ErrorSign();
+
+        IconRasterCache.flush();
+
+        long misses = IconRasterCache.getStatistics().getMisses();
+
+        paint(icon, 18, 18, 1.0);
+        paint(icon, 18, 18, 1.0);
+        assertEquals(misses + 1, IconRasterCache.getStatistics().getMisses());
+
+        paint(icon, 36, 36, 1.0);
+        paint(icon, 18, 18, 2.0);
+        assertEquals(misses + 3, IconRasterCache.getStatistics().getMisses());
+
+        long hits = IconRasterCache.getStatistics().getHits();
+
+        paint(icon, 18, 18, 1.0);
+        paint(icon, 36, 36, 1.0);
+        paint(icon, 18, 18, 2.0);
+        assertEquals(hits + 3, IconRasterCache.getStatistics().getHits());
+
+        BufferedImage image = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g     = image.createGraphics();
+
+        g.rotate(0.1);
+        IconRasterCache.paintIcon(icon, 18, 18, null, g, 10, 10);
+        g.dispose();
+
+        ImageCache.Statistics statistics = IconRasterCache.getStatistics();
+
+        assertEquals(misses + 3, statistics.getMisses());
+        assertEquals(hits + 3, statistics.getHits());
+    }
+
+    /**
+     * Fails unless painting an icon through the cache gives the same pixels
+     * as painting it from its vectors, including the parts painted outside
+     * the icon's bounds.
+     *
+     * @param icon   the icon.
+     * @param width  the width to paint it at.
+     * @param height the height to paint it at.
+     * @param scale  the scale of the destination.
+     */
+    private static void assertMatchesVectors(VectorIcon icon, int width, int height, double scale) {
+        BufferedImage cached   = paint(icon, width, height, scale);
+        BufferedImage expected = new BufferedImage(cached.getWidth(), cached.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g        = expected.createGraphics();
+        double        coef     = Math.min((double) width / icon.getOrigWidth(), (double) height / icon.getOrigHeight());
+
+        g.scale(scale, scale);
+        g.translate(OFFSET, OFFSET);
+        g.scale(coef, coef);
+        icon.paint(g);
+        g.dispose();
+
+        for (int y = 0; y < cached.getHeight(); y++) {
+            for (int x = 0; x < cached.getWidth(); x++) {
+                int difference = maxDifference(expected.getRGB(x, y), cached.getRGB(x, y));
+
+                assertTrue(icon.getClass().getSimpleName() + " " + width + "x" + height + " at " + scale + " differs by " + difference
+                           + " at " + x + "," + y, difference <= MAX_DIFFERENCE);
+            }
+        }
+    }
+
+    /**
+     * Paints an icon through the cache in a new image, at {@link #OFFSET}.
+     *
+     * @param  icon   the icon.
+     * @param  width  the width to paint it at.
+     * @param  height the height to paint it at.
+     * @param  scale  the scale of the destination.
+     *
+     * @return the image.
+     */
+    private static BufferedImage paint(VectorIcon icon, int width, int height, double scale) {
+        BufferedImage image = new BufferedImage((int) Math.ceil((width + 2 * OFFSET) * scale),
+                                                (int) Math.ceil((height + 2 * OFFSET) * scale),
+                                                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g     = image.createGraphics();
+
+        g.scale(scale, scale);
+        IconRasterCache.paintIcon(icon, width, height, null, g, OFFSET, OFFSET);
+        g.dispose();
+
+        return image;
+    }
+
+    /**
+     * Returns the largest difference between two colors in any channel, once
+     * multiplied by their alpha. The cache renders into premultiplied images,
+     * which keep less precision in the colors of nearly transparent pixels.
+     *
+     * @param  a the first color.
+     * @param  b the second color.
+     *
+     * @return the difference.
+     */
+    private static int maxDifference(int a, int b) {
+        int alphaA = a >>> 24;
+        int alphaB = b >>> 24;
+        int max    = Math.abs(alphaA - alphaB);
+
+        for (int shift = 0; shift < 24; shift += 8) {
+            max = Math.max(max, Math.abs((a >>> shift & 0xFF) * alphaA / 255 - (b >>> shift & 0xFF) * alphaB / 255));
+        }
+
+        return max;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.painter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.Insets;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JComponent;
+import javax.swing.JPanel;
+import javax.swing.UIManager;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.seaglasslookandfeel.SeaGlassLookAndFeel;
+import com.seaglasslookandfeel.painter.AbstractRegionPainter.PaintContext.CacheMode;
+
+/**
+ * Tests the nine square cache modes, which paint components of any size from
+ * one image rendered at the canvas size.
+ */
+public class AbstractRegionPainterTest {
+
+    private static final int INSET = 4;
+
+    /**
+     * Installs the look and feel, whose colors the painters decode.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        UIManager.setLookAndFeel(new SeaGlassLookAndFeel());
+    }
+
+    /**
+     * Every size is painted from a single rendering, with the corners as
+     * rendered and the center stretched.
+     */
+    @Test
+    public void testRendersOnceForAllSizes() {
+        for (CacheMode mode : new CacheMode[] { CacheMode.NINE_SQUARE_SCALE, CacheMode.NINE_SQUARE_TILE }) {
+            FramePainter painter = new FramePainter(mode, Color.RED);
+
+            for (Dimension size : new Dimension[] { new Dimension(30, 30), new Dimension(100, 50), new Dimension(20, 200) }) {
+                BufferedImage image = paint(painter, size.width, size.height);
+
+                assertEquals(mode + " at " + size, Color.BLACK.getRGB(), image.getRGB(0, 0));
+                assertEquals(mode + " at " + size, Color.BLACK.getRGB(), image.getRGB(size.width - 1, size.height - 1));
+                assertEquals(mode + " at " + size, Color.RED.getRGB(), image.getRGB(size.width / 2, size.height / 2));
+            }
+
+            assertEquals(mode.toString(), 1, painter.paints);
+        }
+    }
+
+    /**
+     * The cached image is not used for different extended cache keys, so a
+     * painter whose colors change paints the new colors.
+     */
+    @Test
+    public void testRendersAgainForOtherKeys() {
+        FramePainter painter = new FramePainter(CacheMode.NINE_SQUARE_SCALE, Color.RED);
+
+        assertEquals(Color.RED.getRGB(), paint(painter, 60, 40).getRGB(30, 20));
+
+        painter.setColor(Color.BLUE);
+        assertEquals(Color.BLUE.getRGB(), paint(painter, 60, 40).getRGB(30, 20));
+        assertEquals(2, painter.paints);
+
+        painter.setColor(Color.RED);
+        assertEquals(Color.RED.getRGB(), paint(painter, 80, 40).getRGB(40, 20));
+        assertEquals(2, painter.paints);
+    }
+
+    /**
+     * Sizes which would shrink the corners, or stretch the canvas past its
+     * scale factors, are painted directly.
+     */
+    @Test
+    public void testPaintsDirectlyOutsideLimits() {
+        FramePainter painter = new FramePainter(CacheMode.NINE_SQUARE_SCALE, Color.RED);
+
+        paint(painter, 2 * INSET - 1, 30);
+        paint(painter, 30, 2 * INSET - 1);
+        paint(painter, 1000, 30);
+
+        BufferedImage image = paint(painter, 1000, 30);
+
+        assertEquals(Color.BLACK.getRGB(), image.getRGB(999, 29));
+        assertEquals(Color.RED.getRGB(), image.getRGB(500, 15));
+        assertEquals(4, painter.paints);
+    }
+
+    /**
+     * A nine square mode without a canvas larger than its insets falls back
+     * to caching each size.
+     */
+    @Test
+    public void testFallsBackToFixedSizes() {
+        assertSame(CacheMode.FIXED_SIZES,
+                   new AbstractRegionPainter.PaintContext(CacheMode.NINE_SQUARE_SCALE, new Insets(5, 5, 5, 5), new Dimension(10, 20), 1, 1)
+                       .getCacheMode());
+        assertSame(CacheMode.FIXED_SIZES,
+                   new AbstractRegionPainter.PaintContext(CacheMode.NINE_SQUARE_TILE, null, new Dimension(10, 20), 1, 1).getCacheMode());
+    }
+
+    /**
+     * Paints a painter into a new image.
+     *
+     * @param  painter the painter.
+     * @param  width   the width.
+     * @param  height  the height.
+     *
+     * @return the image.
+     */
+    private static BufferedImage paint(AbstractRegionPainter painter, int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g     = image.createGraphics();
+
+        painter.paint(g, new JPanel(), width, height);
+        g.dispose();
+
+        return image;
+    }
+
+    /**
+     * Paints a black frame around a center of the color in its extended
+     * cache key, and counts how often it is called to render.
+     */
+    private static class FramePainter extends AbstractRegionPainter {
+        private final PaintContext ctx;
+        private Object[]           extendedCacheKeys;
+        int                        paints;
+
+        /**
+         * Creates a new FramePainter.
+         *
+         * @param mode  the cache mode.
+         * @param color the color of the center.
+         */
+        FramePainter(CacheMode mode, Color color) {
+            this.ctx = new PaintContext(mode, new Insets(INSET, INSET, INSET, INSET), new Dimension(20, 20), 10, 10);
+            setColor(color);
+        }
+
+        /**
+         * Sets the color of the center.
+         *
+         * @param color the color.
+         */
+        void setColor(Color color) {
+            extendedCacheKeys = new Object[] { color };
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.painter.AbstractRegionPainter#getExtendedCacheKeys(javax.swing.JComponent)
+         */
+        @Override
+        protected Object[] getExtendedCacheKeys(JComponent c) {
+            return extendedCacheKeys;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.painter.AbstractRegionPainter#getPaintContext()
+         */
+        @Override
+        protected PaintContext getPaintContext() {
+            return ctx;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.painter.AbstractRegionPainter#doPaint(java.awt.Graphics2D,
+         *      javax.swing.JComponent, int, int, java.lang.Object[])
+         */
+        @Override
+        protected void doPaint(Graphics2D g, JComponent c, int width, int height, Object[] extendedCacheKeys) {
+            paints++;
+            g.setColor(Color.BLACK);
+            g.fillRect(0, 0, width, height);
+            g.setColor((Color) extendedCacheKeys[0]);
+            g.fillRect(INSET, INSET, width - 2 * INSET, height - 2 * INSET);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.painter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JDesktopPane;
+import javax.swing.UIManager;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.seaglasslookandfeel.SeaGlassLookAndFeel;
+import com.seaglasslookandfeel.icons.DesktopPane;
+
+/**
+ * Tests that desktop backgrounds painted from their size buckets look the
+ * same as backgrounds painted from the vectors, whatever size the desktop
+ * had before.
+ */
+public class DesktopPanePainterTest {
+
+    /**
+     * The largest difference allowed in any channel, which allows for the
+     * nearest neighbour stretch of a bucket to the size of the desktop.
+     */
+    private static final int MAX_DIFFERENCE = 6;
+
+    private DesktopPanePainter painter;
+    private JDesktopPane       desktop;
+
+    /**
+     * Installs the look and feel, whose colors the painters decode.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        UIManager.setLookAndFeel(new SeaGlassLookAndFeel());
+    }
+
+    /**
+     * Starts each test with an empty cache.
+     */
+    @Before
+    public void setUp() {
+        painter = new DesktopPanePainter(DesktopPanePainter.Which.BACKGROUND_ENABLED);
+        desktop = new JDesktopPane();
+        desktop.setOpaque(true);
+        DesktopPanePainter.flush();
+    }
+
+    /**
+     * A desktop of a bucket size, and desktops stretched from a bucket,
+     * match the vectors at their own size, and are not painted from the
+     * image of the size painted before them.
+     */
+    @Test
+    public void testMatchesVectorsAfterResize() {
+        assertMatchesVectors(128, 128);
+        assertMatchesVectors(100, 90);
+        assertMatchesVectors(300, 200);
+        assertMatchesVectors(128, 128);
+    }
+
+    /**
+     * Sizes within one bucket share an image, and sizes in another bucket
+     * render their own.
+     */
+    @Test
+    public void testCachesPerBucket() {
+        long misses = DesktopPanePainter.getStatistics().getMisses();
+
+        paint(100, 100);
+        paint(128, 65);
+        paint(65, 128);
+        assertEquals(misses + 1, DesktopPanePainter.getStatistics().getMisses());
+
+        paint(129, 100);
+        assertEquals(misses + 2, DesktopPanePainter.getStatistics().getMisses());
+    }
+
+    /**
+     * A desktop of a bucket size only copies the part of the image within the
+     * clip.
+     */
+    @Test
+    public void testCopiesClipOnly() {
+        BufferedImage image = new BufferedImage(128, 128, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g     = image.createGraphics();
+
+        g.setColor(Color.MAGENTA);
+        g.fillRect(0, 0, 128, 128);
+        g.clipRect(10, 20, 30, 40);
+        painter.paint(g, desktop, 128, 128);
+        g.dispose();
+
+        assertEquals(Color.MAGENTA.getRGB(), image.getRGB(9, 30));
+        assertEquals(Color.MAGENTA.getRGB(), image.getRGB(40, 30));
+        assertEquals(Color.MAGENTA.getRGB(), image.getRGB(20, 19));
+        assertEquals(Color.MAGENTA.getRGB(), image.getRGB(20, 60));
+        assertTrue(image.getRGB(10, 20) != Color.MAGENTA.getRGB());
+        assertTrue(image.getRGB(39, 59) != Color.MAGENTA.getRGB());
+    }
+
+    /**
+     * Fails unless painting a desktop through the cache gives the same pixels
+     * as painting it from its vectors. The outermost pixels are left out, as
+     * the anti-aliased edge of the artwork moves with the scale it is
+     * rendered at.
+     *
+     * @param width  the width of the desktop.
+     * @param height the height of the desktop.
+     */
+    private void assertMatchesVectors(int width, int height) {
+        BufferedImage cached   = paint(width, height);
+        BufferedImage expected = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g        = expected.createGraphics();
+        DesktopPane   pane     = new DesktopPane();
+
+        pane.setDimension(new Dimension(width, height));
+        pane.paintIcon(null, g, 0, 0);
+        g.dispose();
+
+        for (int y = 1; y < height - 1; y++) {
+            for (int x = 1; x < width - 1; x++) {
+                int difference = maxDifference(expected.getRGB(x, y), cached.getRGB(x, y));
+
+                assertTrue(width + "x" + height + " differs by " + difference + " at " + x + "," + y, difference <= MAX_DIFFERENCE);
+            }
+        }
+    }
+
+    /**
+     * Paints the desktop background into a new image.
+     *
+     * @param  width  the width of the desktop.
+     * @param  height the height of the desktop.
+     *
+     * @return the image.
+     */
+    private BufferedImage paint(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g     = image.createGraphics();
+
+        painter.paint(g, desktop, width, height);
+        g.dispose();
+
+        return image;
+    }
+
+    /**
+     * Returns the largest difference between two colors in any channel.
+     *
+     * @param  a the first color.
+     * @param  b the second color.
+     *
+     * @return the difference.
+     */
+    private static int maxDifference(int a, int b) {
+        int max = 0;
+
+        for (int shift = 0; shift < 32; shift += 8) {
+            max = Math.max(max, Math.abs((a >>> shift & 0xFF) - (b >>> shift & 0xFF)));
+        }
+
+        return max;
+    }
+}
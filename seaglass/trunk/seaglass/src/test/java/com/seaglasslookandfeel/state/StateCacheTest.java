@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.state;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Component;
+
+import javax.swing.CellRendererPane;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JToolBar;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+/**
+ * Tests that the cached results of the custom states are discarded when one
+ * of their dependencies changes, and only then.
+ */
+public class StateCacheTest {
+
+    private static final String PROPERTY = "StateCacheTest.on";
+
+    /**
+     * The result of a state which depends on the component is kept until the
+     * component fires a property change.
+     */
+    @Test
+    public void testComponentPropertyChangeInvalidates() {
+        CountingState state = new CountingState(State.DEPENDS_ON_COMPONENT, null);
+        JLabel        label = new JLabel();
+
+        assertEquals(0, getStates(label, state));
+        assertEquals(0, getStates(label, state));
+        assertEquals("The second lookup must be cached", 1, state.evaluations);
+
+        label.putClientProperty(PROPERTY, Boolean.TRUE);
+
+        assertEquals(1, getStates(label, state));
+        assertEquals(2, state.evaluations);
+    }
+
+    /**
+     * The result of a state which depends on the hierarchy is discarded when
+     * the component is moved to another parent.
+     */
+    @Test
+    public void testHierarchyChangeInvalidates() {
+        CountingState state = new CountingState(State.DEPENDS_ON_HIERARCHY, null);
+        JLabel        label = new JLabel();
+        JPanel        panel = new JPanel();
+        JPanel        other = new JPanel();
+
+        other.putClientProperty(PROPERTY, Boolean.TRUE);
+        panel.add(label);
+
+        assertEquals(0, getStates(label, state));
+        assertEquals(0, getStates(label, state));
+        assertEquals(1, state.evaluations);
+
+        other.add(label);
+
+        assertEquals(1, getStates(label, state));
+        assertEquals(2, state.evaluations);
+    }
+
+    /**
+     * The result of a state which depends on an ancestor is discarded when
+     * that ancestor fires a property change, but not when another ancestor
+     * does.
+     */
+    @Test
+    public void testAncestorPropertyChangeInvalidates() {
+        CountingState state   = new CountingState(State.DEPENDS_ON_ANCESTOR, JToolBar.class);
+        JToolBar      toolBar = new JToolBar();
+        JPanel        panel   = new JPanel();
+        JLabel        label   = new JLabel();
+
+        toolBar.add(panel);
+        panel.add(label);
+
+        assertEquals(0, getStates(label, state));
+
+        panel.putClientProperty(PROPERTY, Boolean.TRUE);
+
+        assertEquals(0, getStates(label, state));
+        assertEquals("A change to another ancestor must not invalidate", 1, state.evaluations);
+
+        toolBar.putClientProperty(PROPERTY, Boolean.TRUE);
+
+        assertEquals(1, getStates(label, state));
+        assertEquals(2, state.evaluations);
+    }
+
+    /**
+     * Moving the global generation on discards the results of states which
+     * depend on the UI defaults, and keeps the others.
+     */
+    @Test
+    public void testGlobalDependenciesInvalidate() {
+        CountingState global = new CountingState(State.DEPENDS_ON_UI_DEFAULTS, null);
+        CountingState local  = new CountingState(State.DEPENDS_ON_COMPONENT, null);
+        JLabel        label1 = new JLabel();
+        JLabel        label2 = new JLabel();
+
+        getStates(label1, global);
+        getStates(label2, local);
+        StateCache.invalidateGlobalDependencies();
+        getStates(label1, global);
+        getStates(label2, local);
+
+        assertEquals(2, global.evaluations);
+        assertEquals(1, local.evaluations);
+    }
+
+    /**
+     * The states of a component painted by a cell renderer pane are
+     * evaluated on every lookup, since the renderer is reconfigured for each
+     * cell.
+     */
+    @Test
+    public void testRendererIsNotCached() {
+        CountingState    state = new CountingState(State.DEPENDS_ON_COMPONENT, null);
+        CellRendererPane pane  = new CellRendererPane();
+        JLabel           label = new JLabel();
+
+        pane.add(label);
+        getStates(label, state);
+        getStates(label, state);
+
+        assertEquals(2, state.evaluations);
+    }
+
+    /**
+     * Only custom states with dependencies which can be tracked are cached.
+     */
+    @Test
+    public void testIsCacheable() {
+        assertTrue(StateCache.isCacheable(new CountingState(State.DEPENDS_ON_COMPONENT, null)));
+        assertTrue(StateCache.isCacheable(new CountingState(State.DEPENDS_ON_ANCESTOR, JToolBar.class)));
+        assertFalse(StateCache.isCacheable(new CountingState(State.VOLATILE, null)));
+        assertFalse(StateCache.isCacheable(new CountingState(State.DEPENDS_ON_ANCESTOR, null)));
+        assertFalse(StateCache.isCacheable(State.Enabled));
+    }
+
+    /**
+     * Looks up a single state.
+     *
+     * @param  c     the component.
+     * @param  state the state.
+     *
+     * @return 1 if the component is in the state, 0 otherwise.
+     */
+    private static int getStates(JComponent c, State<?> state) {
+        return StateCache.getStates(c, state, new State<?>[] { state }, 1);
+    }
+
+    /**
+     * A state which counts its evaluations. A component is in the state if it
+     * has the test client property, or if its parent or ancestor has it for
+     * states which depend on those.
+     */
+    private static class CountingState extends State<JComponent> {
+        private final int                        dependencies;
+        private final Class<? extends Component> ancestorType;
+
+        int evaluations;
+
+        /**
+         * Creates a new CountingState.
+         *
+         * @param dependencies the dependencies of the state.
+         * @param ancestorType the type of the ancestor the state depends on,
+         *                     or null.
+         */
+        CountingState(int dependencies, Class<? extends Component> ancestorType) {
+            super("Counting");
+            this.dependencies = dependencies;
+            this.ancestorType = ancestorType;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.state.State#isInState(javax.swing.JComponent)
+         */
+        public boolean isInState(JComponent c) {
+            evaluations++;
+
+            Component source = c;
+
+            if (dependencies == DEPENDS_ON_HIERARCHY) {
+                source = c.getParent();
+            } else if (ancestorType != null) {
+                source = SwingUtilities.getAncestorOfClass(ancestorType, c);
+            }
+
+            return source instanceof JComponent && ((JComponent) source).getClientProperty(PROPERTY) == Boolean.TRUE;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.state.State#getDependencies()
+         */
+        public int getDependencies() {
+            return dependencies;
+        }
+
+        /**
+         * @see com.seaglasslookandfeel.state.State#getAncestorType()
+         */
+        public Class<? extends Component> getAncestorType() {
+            return ancestorType;
+        }
+    }
+}
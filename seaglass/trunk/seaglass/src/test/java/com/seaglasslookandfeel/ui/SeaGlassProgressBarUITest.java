@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.ui;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import javax.swing.JProgressBar;
+import javax.swing.UIManager;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.seaglasslookandfeel.SeaGlassLookAndFeel;
+
+/**
+ * Tests that the track rendered by the progress bar UI is rendered again when
+ * it is stale, by painting the same bar before and after a change, and
+ * comparing it with a new bar in the same state.
+ */
+public class SeaGlassProgressBarUITest {
+
+    private static final String TRACK_BASE_KEY = "progressBarTrackBase";
+    private static final String INTERIOR_KEY   = "buttonInteriorBaseSelected";
+
+    /**
+     * Installs the look and feel.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        UIManager.setLookAndFeel(new SeaGlassLookAndFeel());
+    }
+
+    /**
+     * Changing the value only repaints the indicator over the same track.
+     */
+    @Test
+    public void testValue() {
+        JProgressBar bar = createBar(JProgressBar.HORIZONTAL, 200, 19);
+
+        paint(bar);
+
+        bar.setValue(80);
+        assertPaintsLikeNewBar(bar);
+
+        bar.setValue(0);
+        assertPaintsLikeNewBar(bar);
+
+        bar.setValue(100);
+        assertPaintsLikeNewBar(bar);
+    }
+
+    /**
+     * Resizing the bar, or changing its orientation or state, renders the
+     * track again.
+     */
+    @Test
+    public void testSizeOrientationAndState() {
+        JProgressBar bar = createBar(JProgressBar.HORIZONTAL, 200, 19);
+
+        paint(bar);
+
+        bar.setSize(120, 19);
+        assertPaintsLikeNewBar(bar);
+
+        bar.setOrientation(JProgressBar.VERTICAL);
+        bar.setSize(19, 120);
+        assertPaintsLikeNewBar(bar);
+
+        bar.setEnabled(false);
+        assertPaintsLikeNewBar(bar);
+
+        bar.setEnabled(true);
+        bar.setOrientation(JProgressBar.HORIZONTAL);
+        bar.setSize(120, 19);
+        assertPaintsLikeNewBar(bar);
+    }
+
+    /**
+     * Changing a color the track is derived from renders the track and the
+     * indeterminate tiles again.
+     */
+    @Test
+    public void testColorChange() {
+        JProgressBar bar           = createBar(JProgressBar.HORIZONTAL, 200, 19);
+        JProgressBar indeterminate = createBar(JProgressBar.HORIZONTAL, 200, 19);
+        Color        trackBase     = UIManager.getColor(TRACK_BASE_KEY);
+        Color        interior      = UIManager.getColor(INTERIOR_KEY);
+
+        indeterminate.setIndeterminate(true);
+        paint(bar);
+        paint(indeterminate);
+
+        try {
+            UIManager.put(TRACK_BASE_KEY, new Color(0xc04040));
+            UIManager.put(INTERIOR_KEY, new Color(0x40c040));
+            assertPaintsLikeNewBar(bar);
+            assertPaintsLikeNewBar(indeterminate);
+        } finally {
+            UIManager.put(TRACK_BASE_KEY, trackBase);
+            UIManager.put(INTERIOR_KEY, interior);
+        }
+
+        assertPaintsLikeNewBar(bar);
+    }
+
+    /**
+     * Paints a bar, and fails unless it paints the same pixels as a new bar
+     * with the same size, orientation, value, mode and state.
+     *
+     * @param bar the bar.
+     */
+    private static void assertPaintsLikeNewBar(JProgressBar bar) {
+        JProgressBar fresh = createBar(bar.getOrientation(), bar.getWidth(), bar.getHeight());
+
+        fresh.setValue(bar.getValue());
+        fresh.setEnabled(bar.isEnabled());
+        fresh.setIndeterminate(bar.isIndeterminate());
+
+        BufferedImage image         = paint(bar);
+        BufferedImage expectedImage = paint(fresh);
+
+        for (int y = 0; y < bar.getHeight(); y++) {
+            for (int x = 0; x < bar.getWidth(); x++) {
+                assertEquals("Pixel " + x + "," + y, expectedImage.getRGB(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Creates a bar half way between 0 and 100.
+     *
+     * @param  orientation the orientation.
+     * @param  width       the width.
+     * @param  height      the height.
+     *
+     * @return the bar.
+     */
+    private static JProgressBar createBar(int orientation, int width, int height) {
+        JProgressBar bar = new JProgressBar(orientation, 0, 100);
+
+        bar.setValue(50);
+        bar.setSize(width, height);
+
+        return bar;
+    }
+
+    /**
+     * Paints a bar.
+     *
+     * @param  bar the bar.
+     *
+     * @return the image painted.
+     */
+    private static BufferedImage paint(JProgressBar bar) {
+        BufferedImage image = new BufferedImage(bar.getWidth(), bar.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D    g     = image.createGraphics();
+
+        bar.paint(g);
+        g.dispose();
+
+        return image;
+    }
+}
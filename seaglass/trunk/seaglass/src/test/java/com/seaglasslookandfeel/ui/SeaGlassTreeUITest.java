@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.ui;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Component;
+import java.awt.ComponentOrientation;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.BorderFactory;
+import javax.swing.JTree;
+import javax.swing.UIManager;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeCellRenderer;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.seaglasslookandfeel.SeaGlassLookAndFeel;
+
+/**
+ * Tests that the rows cached by the tree UI are discarded when the tree is
+ * expanded, collapsed or changed, by painting the same tree before and after,
+ * and comparing it with a new tree in the same state.
+ */
+public class SeaGlassTreeUITest {
+
+    private static final int WIDTH  = 200;
+    private static final int HEIGHT = 400;
+
+    /**
+     * Installs the look and feel.
+     *
+     * @throws Exception if the look and feel can't be installed.
+     */
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+        UIManager.setLookAndFeel(new SeaGlassLookAndFeel());
+    }
+
+    /**
+     * Expanding and collapsing nodes repaints the rows below them.
+     */
+    @Test
+    public void testExpandAndCollapse() {
+        JTree tree = createTree(createModel());
+
+        paint(tree);
+
+        tree.expandRow(1);
+        assertPaintsLikeNewTree(tree);
+
+        tree.expandRow(0);
+        tree.expandRow(tree.getRowCount() - 1);
+        assertPaintsLikeNewTree(tree);
+
+        tree.collapseRow(1);
+        assertPaintsLikeNewTree(tree);
+
+        tree.collapseRow(0);
+        assertPaintsLikeNewTree(tree);
+    }
+
+    /**
+     * Inserting, changing and removing nodes repaints the rows.
+     */
+    @Test
+    public void testModelChanges() {
+        DefaultTreeModel       model = createModel();
+        DefaultMutableTreeNode root  = (DefaultMutableTreeNode) model.getRoot();
+        JTree                  tree  = createTree(model);
+
+        tree.expandRow(2);
+        paint(tree);
+
+        model.insertNodeInto(new DefaultMutableTreeNode("inserted"), root, 0);
+        assertPaintsLikeNewTree(tree);
+
+        ((DefaultMutableTreeNode) root.getChildAt(1)).setUserObject("changed");
+        model.nodeChanged(root.getChildAt(1));
+        assertPaintsLikeNewTree(tree);
+
+        model.removeNodeFromParent((DefaultMutableTreeNode) root.getChildAt(2));
+        assertPaintsLikeNewTree(tree);
+
+        root.add(new DefaultMutableTreeNode("appended"));
+        model.nodeStructureChanged(root);
+        assertPaintsLikeNewTree(tree);
+    }
+
+    /**
+     * Changing the insets or the orientation of the tree, on which the bounds
+     * of the rows depend, repaints the rows.
+     */
+    @Test
+    public void testInsetsAndOrientation() {
+        JTree tree = createTree(createModel());
+
+        tree.expandRow(1);
+        paint(tree);
+
+        tree.setBorder(BorderFactory.createEmptyBorder(10, 20, 0, 5));
+        assertPaintsLikeNewTree(tree);
+
+        tree.setComponentOrientation(ComponentOrientation.RIGHT_TO_LEFT);
+        assertPaintsLikeNewTree(tree);
+    }
+
+    /**
+     * Paints a tree, and fails unless it renders the same rows, and paints the
+     * same pixels, as a new tree with the same model, expanded paths, border
+     * and orientation.
+     *
+     * @param tree the tree.
+     */
+    private static void assertPaintsLikeNewTree(JTree tree) {
+        JTree fresh = createTree((DefaultTreeModel) tree.getModel());
+
+        fresh.setBorder(tree.getBorder());
+        fresh.setComponentOrientation(tree.getComponentOrientation());
+
+        for (int row = 0; row < tree.getRowCount(); row++) {
+            TreePath path = tree.getPathForRow(row);
+
+            if (tree.isExpanded(path)) {
+                fresh.expandPath(path);
+            } else {
+                fresh.collapsePath(path);
+            }
+        }
+
+        List<String>  rows  = new ArrayList<String>();
+        BufferedImage image = paint(tree, rows);
+
+        List<String>  expectedRows  = new ArrayList<String>();
+        BufferedImage expectedImage = paint(fresh, expectedRows);
+
+        assertTrue(rows.size() > 0);
+        assertEquals(expectedRows, rows);
+
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                assertEquals("Pixel " + x + "," + y, expectedImage.getRGB(x, y), image.getRGB(x, y));
+            }
+        }
+    }
+
+    /**
+     * Creates a root with three children of three leaves each.
+     *
+     * @return the model.
+     */
+    private static DefaultTreeModel createModel() {
+        DefaultMutableTreeNode root = new DefaultMutableTreeNode("root");
+
+        for (int i = 0; i < 3; i++) {
+            DefaultMutableTreeNode child = new DefaultMutableTreeNode("child " + i);
+
+            for (int j = 0; j < 3; j++) {
+                child.add(new DefaultMutableTreeNode("leaf " + i + "." + j));
+            }
+
+            root.add(child);
+        }
+
+        return new DefaultTreeModel(root);
+    }
+
+    /**
+     * Creates a tree of a fixed size, so that the rows are discarded only by
+     * the changes being tested, not by the tree being resized.
+     *
+     * @param  model the model.
+     *
+     * @return the tree.
+     */
+    private static JTree createTree(DefaultTreeModel model) {
+        JTree tree = new JTree(model);
+
+        tree.setCellRenderer(new RecordingRenderer());
+        tree.setSize(WIDTH, HEIGHT);
+
+        return tree;
+    }
+
+    /**
+     * Paints a tree.
+     *
+     * @param  tree the tree.
+     *
+     * @return the image painted.
+     */
+    private static BufferedImage paint(JTree tree) {
+        return paint(tree, new ArrayList<String>());
+    }
+
+    /**
+     * Paints a tree, recording the rows it renders.
+     *
+     * @param  tree the tree.
+     * @param  rows the list to add the rows to.
+     *
+     * @return the image painted.
+     */
+    private static BufferedImage paint(JTree tree, List<String> rows) {
+        BufferedImage     image    = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D        g        = image.createGraphics();
+        RecordingRenderer renderer = (RecordingRenderer) tree.getCellRenderer();
+
+        renderer.rows = rows;
+        tree.paint(g);
+        g.dispose();
+        renderer.rows = null;
+
+        return image;
+    }
+
+    /**
+     * A renderer which records the arguments of each row it renders.
+     */
+    private static class RecordingRenderer extends DefaultTreeCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        List<String> rows;
+
+        /**
+         * @see javax.swing.tree.DefaultTreeCellRenderer#getTreeCellRendererComponent(javax.swing.JTree,
+         *      java.lang.Object, boolean, boolean, boolean, int, boolean)
+         */
+        @Override
+        public Component getTreeCellRendererComponent(JTree tree, Object value, boolean sel, boolean expanded, boolean leaf, int row,
+                boolean hasFocus) {
+            if (rows != null) {
+                rows.add(row + " " + value + " " + expanded + " " + leaf);
+            }
+
+            return super.getTreeCellRendererComponent(tree, value, sel, expanded, leaf, row, hasFocus);
+        }
+    }
+}
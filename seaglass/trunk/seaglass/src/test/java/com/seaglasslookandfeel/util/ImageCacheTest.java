@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2009 Kathryn Huxtable and Kenneth Orr.
+ *
+ * This file is part of the SeaGlass Pluggable Look and Feel.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * $Id$
+ */
+package com.seaglasslookandfeel.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests the eviction of the image cache, the quotas of its owner classes and
+ * the flushing of owners.
+ *
+ * <p>The images are 1x1 ARGB images of 4 bytes each. Keys whose hash codes
+ * are all the same put their images in a single segment, so that the order
+ * of the CLOCK hand is known.</p>
+ */
+public class ImageCacheTest {
+
+    private static final int IMAGE_BYTES = 4;
+
+    /**
+     * An image which has been used since it was put is passed over once by
+     * the hand, and an unused one is evicted instead.
+     */
+    @Test
+    public void testEvictsUnreferencedImageFirst() {
+        ImageCache cache = new ImageCache(new ImageCachePolicy(4 * IMAGE_BYTES, 100, 0));
+
+        for (int i = 0; i < 4; i++) {
+            cache.setImage(createImage(), null, 1, 1, new SegmentKey(i));
+        }
+
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(0)));
+
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(4));
+
+        assertNull("The first unused image must be evicted", cache.getImage(null, 1, 1, new SegmentKey(1)));
+        assertNotNull("A used image must get a second chance", cache.getImage(null, 1, 1, new SegmentKey(0)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(2)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(3)));
+        assertNotNull("The new image must not be evicted", cache.getImage(null, 1, 1, new SegmentKey(4)));
+        assertEquals(4 * IMAGE_BYTES, cache.getByteCount());
+        assertEquals(1, cache.getStatistics().getEvictions());
+    }
+
+    /**
+     * A used image loses its second chance once the hand has passed it.
+     */
+    @Test
+    public void testSecondChanceIsUsedUp() {
+        ImageCache cache = new ImageCache(new ImageCachePolicy(2 * IMAGE_BYTES, 100, 0));
+
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(0));
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(1));
+        cache.getImage(null, 1, 1, new SegmentKey(0));
+
+        // The hand clears the flag of 0 and evicts 1. Then it evicts 2,
+        // which it reaches first, and then 0.
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(2));
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(3));
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(4));
+
+        assertNull(cache.getImage(null, 1, 1, new SegmentKey(0)));
+        assertNull(cache.getImage(null, 1, 1, new SegmentKey(1)));
+        assertNull(cache.getImage(null, 1, 1, new SegmentKey(2)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(3)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(4)));
+    }
+
+    /**
+     * Images spread across all the segments are evicted from the other
+     * segments when the one they are put in can't make room.
+     */
+    @Test
+    public void testKeepsWithinBudget() {
+        ImageCache cache = new ImageCache(new ImageCachePolicy(10 * IMAGE_BYTES, 100, 0));
+
+        for (int i = 0; i < 200; i++) {
+            cache.setImage(createImage(), null, 1, 1, "image", i);
+
+            assertTrue("The cache holds " + cache.getByteCount() + " bytes", cache.getByteCount() <= 10 * IMAGE_BYTES);
+            assertNotNull("The new image must not be evicted", cache.getImage(null, 1, 1, "image", i));
+        }
+
+        assertEquals(10 * IMAGE_BYTES, cache.getByteCount());
+        assertEquals(10, cache.getStatistics().getResidentImages());
+        assertEquals(190, cache.getStatistics().getEvictions());
+    }
+
+    /**
+     * Putting the same image again keeps it, and putting another image under
+     * the same key replaces it without counting it twice.
+     */
+    @Test
+    public void testReplacesImageUnderSameKey() {
+        ImageCache cache  = new ImageCache(new ImageCachePolicy(4 * IMAGE_BYTES, 100, 0));
+        Image      first  = createImage();
+        Image      second = createImage();
+
+        cache.setImage(first, null, 1, 1, new SegmentKey(0));
+        cache.setImage(first, null, 1, 1, new SegmentKey(0));
+        assertEquals(IMAGE_BYTES, cache.getByteCount());
+
+        cache.setImage(second, null, 1, 1, new SegmentKey(0));
+        assertEquals(IMAGE_BYTES, cache.getByteCount());
+        assertSame(second, cache.getImage(null, 1, 1, new SegmentKey(0)));
+    }
+
+    /**
+     * The images of an owner class over its quota are evicted, and those of
+     * the other classes stay.
+     */
+    @Test
+    public void testQuotaEvictsOnlyOwnClass() {
+        ImageCache cache = new ImageCache(new ImageCachePolicy(100 * IMAGE_BYTES, 100, 2 * IMAGE_BYTES));
+
+        cache.setImage(createImage(), null, 1, 1, new OtherSegmentKey(0));
+        cache.setImage(createImage(), null, 1, 1, new OtherSegmentKey(1));
+
+        for (int i = 0; i < 5; i++) {
+            cache.setImage(createImage(), null, 1, 1, new SegmentKey(i));
+        }
+
+        assertEquals(2 * IMAGE_BYTES, cache.getStatisticsByOwnerClass().get(SegmentKey.class).getResidentBytes());
+        assertEquals(3, cache.getStatisticsByOwnerClass().get(SegmentKey.class).getEvictions());
+        assertNotNull(cache.getImage(null, 1, 1, new OtherSegmentKey(0)));
+        assertNotNull(cache.getImage(null, 1, 1, new OtherSegmentKey(1)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(3)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(4)));
+        assertEquals(4 * IMAGE_BYTES, cache.getByteCount());
+    }
+
+    /**
+     * Evicting for a quota passes over the images of the other classes
+     * without taking away their second chance.
+     */
+    @Test
+    public void testQuotaKeepsOtherClassesReferenced() {
+        ImageCache cache = new ImageCache(new ImageCachePolicy(3 * IMAGE_BYTES, 100, 2 * IMAGE_BYTES));
+
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(0));
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(1));
+        cache.setImage(createImage(), null, 1, 1, new OtherSegmentKey(0));
+        cache.getImage(null, 1, 1, new SegmentKey(0));
+        cache.getImage(null, 1, 1, new SegmentKey(1));
+        cache.getImage(null, 1, 1, new OtherSegmentKey(0));
+
+        // Over the quota: the hand clears the flags of 0 and 1, passes over
+        // the other key and evicts 0.
+        cache.setImage(createImage(), null, 1, 1, new SegmentKey(2));
+        cache.getImage(null, 1, 1, new SegmentKey(1));
+
+        // Over the budget: the hand clears the flags of 1 and of the other
+        // key, which must still be set, and evicts 2.
+        cache.setImage(createImage(), null, 1, 1, new OtherSegmentKey(1));
+
+        assertNull(cache.getImage(null, 1, 1, new SegmentKey(0)));
+        assertNull(cache.getImage(null, 1, 1, new SegmentKey(2)));
+        assertNotNull(cache.getImage(null, 1, 1, new SegmentKey(1)));
+        assertNotNull(cache.getImage(null, 1, 1, new OtherSegmentKey(0)));
+        assertNotNull(cache.getImage(null, 1, 1, new OtherSegmentKey(1)));
+    }
+
+    /**
+     * Flushing owners removes every image whose first key argument is one of
+     * them, in all the segments, and leaves the images of other owners.
+     */
+    @Test
+    public void testFlushOwners() {
+        ImageCache  cache   = new ImageCache(new ImageCachePolicy(100 * IMAGE_BYTES, 100, 0));
+        Object      flushed = new Object();
+        Object      kept    = new Object();
+        Set<Object> owners  = Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+
+        for (int i = 0; i < 20; i++) {
+            cache.setImage(createImage(), null, 1, 1, flushed, i);
+            cache.setImage(createImage(), null, 1, 1, kept, i);
+        }
+
+        owners.add(flushed);
+        cache.flushOwners(owners);
+
+        for (int i = 0; i < 20; i++) {
+            assertNull(cache.getImage(null, 1, 1, flushed, i));
+            assertNotNull(cache.getImage(null, 1, 1, kept, i));
+        }
+
+        assertEquals(20 * IMAGE_BYTES, cache.getByteCount());
+        assertEquals(20, cache.getStatistics().getResidentImages());
+        assertEquals(0, cache.getStatistics().getEvictions());
+    }
+
+    /**
+     * Evicted images, and the images of flushed owners, are only unlinked,
+     * since other threads may still be drawing them.
+     */
+    @Test
+    public void testDoesNotFlushRemovedImages() {
+        ImageCache          cache   = new ImageCache(new ImageCachePolicy(IMAGE_BYTES, 100, 0));
+        FlushRecordingImage evicted = new FlushRecordingImage();
+        FlushRecordingImage removed = new FlushRecordingImage();
+        Object              owner   = new Object();
+
+        cache.setImage(evicted, null, 1, 1, new SegmentKey(0));
+        cache.setImage(removed, null, 1, 1, owner);
+        assertNull(cache.getImage(null, 1, 1, new SegmentKey(0)));
+
+        cache.flushOwners(Collections.singleton(owner));
+        assertNull(cache.getImage(null, 1, 1, owner));
+
+        assertEquals(1, cache.getStatistics().getEvictions());
+        assertEquals(0, evicted.flushes);
+        assertEquals(0, removed.flushes);
+    }
+
+    /**
+     * Creates a 4 byte image.
+     *
+     * @return the image.
+     */
+    static BufferedImage createImage() {
+        return new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    /**
+     * A 4 byte image which counts how often it is flushed.
+     */
+    static class FlushRecordingImage extends BufferedImage {
+        int flushes;
+
+        /**
+         * Creates a new FlushRecordingImage.
+         */
+        FlushRecordingImage() {
+            super(1, 1, BufferedImage.TYPE_INT_ARGB);
+        }
+
+        /**
+         * @see java.awt.image.BufferedImage#flush()
+         */
+        @Override
+        public void flush() {
+            flushes++;
+            super.flush();
+        }
+    }
+
+    /**
+     * A key whose instances all have the same hash code, so that all their
+     * images are in the same segment.
+     */
+    static class SegmentKey {
+        private final int id;
+
+        /**
+         * Creates a new SegmentKey.
+         *
+         * @param id the identity of the key.
+         */
+        SegmentKey(int id) {
+            this.id = id;
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public boolean equals(Object o) {
+            return o != null && o.getClass() == getClass() && ((SegmentKey) o).id == id;
+        }
+
+        /**
+         * @see java.lang.Object#hashCode()
+         */
+        @Override
+        public int hashCode() {
+            return 0;
+        }
+    }
+
+    /**
+     * A key of another owner class, whose images are in the same segment as
+     * those of {@link SegmentKey}.
+     */
+    static class OtherSegmentKey extends SegmentKey {
+
+        /**
+         * Creates a new OtherSegmentKey.
+         *
+         * @param id the identity of the key.
+         */
+        OtherSegmentKey(int id) {
+            super(id);
+        }
+    }
+}